@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# * Mide el tiempo hasta la primera respuesta (desde que se lanza la JVM hasta el primer 200)
+# * con el arranque normal y con el modo de arranque rápido (AOT + CDS + Firebase diferido).
+# * Uso: scripts/medir-arranque.sh [repeticiones] [ruta]
+# * Ejemplo: scripts/medir-arranque.sh 10 '/api/abogados?limit=1'   (incluye la inicialización de Firestore)
+set -euo pipefail
+
+REPETICIONES=${1:-5}
+RUTA=${2:-/actuator/health}
+PUERTO=${PUERTO:-8080}
+DIRECTORIO=target/arranque-rapido
+JAR="$DIRECTORIO/abogados-0.0.1-SNAPSHOT.jar"
+MODO_RAPIDO=(-Dspring.aot.enabled=true -Dspring.profiles.active=arranque-rapido)
+
+cd "$(dirname "$0")/.."
+
+# * Jar con el código generado por AOT, extraído para que CDS pueda usar el classpath
+# * Se invoca con sh: no depende de que el wrapper conserve el permiso de ejecución en el checkout
+sh ./mvnw -B -q -Parranque-rapido -DskipTests package
+rm -rf "$DIRECTORIO"
+java -Djarmode=tools -jar target/abogados-0.0.1-SNAPSHOT.jar extract --destination "$DIRECTORIO"
+
+# * Corrida de entrenamiento: levanta el contexto, sale al refrescarlo y guarda el archivo CDS
+java -XX:ArchiveClassesAtExit="$DIRECTORIO/aplicacion.jsa" -Dspring.context.exit=onRefresh \
+    "${MODO_RAPIDO[@]}" -jar "$JAR" > /dev/null
+
+# * $1 = nombre de la medición; el resto son argumentos de la JVM
+medir() {
+    local nombre=$1
+    shift
+    local tiempos=()
+    for _ in $(seq "$REPETICIONES"); do
+        local inicio fin pid
+        inicio=$(date +%s%N)
+        java "$@" -Dserver.port="$PUERTO" -jar "$JAR" > /dev/null 2>&1 &
+        pid=$!
+        until curl -sf -o /dev/null "http://localhost:$PUERTO$RUTA"; do
+            # ! La aplicación terminó antes de responder
+            kill -0 "$pid" 2> /dev/null || { echo "$nombre: la aplicación no arrancó" >&2; exit 1; }
+            sleep 0.01
+        done
+        fin=$(date +%s%N)
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        tiempos+=($(((fin - inicio) / 1000000)))
+    done
+    local mediana
+    mediana=$(printf '%s\n' "${tiempos[@]}" | sort -n | awk '{ t[NR] = $1 } END { print t[int((NR + 1) / 2)] }')
+    echo "$nombre: ${tiempos[*]} ms (mediana $mediana ms)"
+}
+
+medir "normal"
+medir "arranque-rapido" -XX:SharedArchiveFile="$DIRECTORIO/aplicacion.jsa" "${MODO_RAPIDO[@]}"
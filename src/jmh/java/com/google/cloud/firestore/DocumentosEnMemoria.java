@@ -0,0 +1,50 @@
+package com.google.cloud.firestore;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.firestore.v1.Document;
+import com.google.firestore.v1.Value;
+
+import java.util.Map;
+
+// * Fabrica QueryDocumentSnapshot reales (sin red) para los benchmarks
+// * Vive en el paquete del SDK porque QueryDocumentSnapshot.fromDocument no es público;
+// * así toObject recorre el mismo mapeo (protobuf -> POJO) que con documentos leídos de Firestore
+public final class DocumentosEnMemoria {
+
+    private static final String PROYECTO = "benchmark";
+
+    // * Cliente sin credenciales: nunca abre un canal, solo aporta el contexto de serialización
+    private static final FirestoreImpl FIRESTORE = (FirestoreImpl) FirestoreOptions.newBuilder()
+            .setProjectId(PROYECTO)
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getService();
+
+    private DocumentosEnMemoria() {
+    }
+
+    public static Firestore firestore() {
+        return FIRESTORE;
+    }
+
+    // * Crea el snapshot de un documento con campos String / Integer / Long
+    public static QueryDocumentSnapshot documento(String coleccion, String id, Map<String, Object> campos) {
+        Document.Builder documento = Document.newBuilder()
+                .setName("projects/" + PROYECTO + "/databases/(default)/documents/" + coleccion + "/" + id)
+                .setCreateTime(Timestamp.now().toProto())
+                .setUpdateTime(Timestamp.now().toProto());
+        campos.forEach((campo, valor) -> documento.putFields(campo, aValor(valor)));
+        return QueryDocumentSnapshot.fromDocument(FIRESTORE, Timestamp.now(), documento.build());
+    }
+
+    private static Value aValor(Object valor) {
+        if (valor == null) {
+            return Value.newBuilder().setNullValueValue(0).build();
+        }
+        if (valor instanceof Number numero) {
+            return Value.newBuilder().setIntegerValue(numero.longValue()).build();
+        }
+        return Value.newBuilder().setStringValue(valor.toString()).build();
+    }
+}
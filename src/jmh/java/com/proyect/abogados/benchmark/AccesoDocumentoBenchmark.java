@@ -0,0 +1,63 @@
+package com.proyect.abogados.benchmark;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.service.AbogadoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// * Costo por documento: mapeo toObject y obtención por ID a través del servicio (con su caché)
+// * Con 1000 documentos todas las lecturas por ID aciertan en la caché; con 100000
+// * (más que el tamaño de la caché por defecto) la mayoría cae al sustituto de Firestore
+// * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="AccesoDocumento -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccesoDocumentoBenchmark {
+
+    @Param({"1000", "100000"})
+    public int cantidad;
+
+    private QueryDocumentSnapshot documento;
+    private AbogadoService servicio;
+    private String[] ids;
+
+    // * Índice del próximo ID a consultar (por hilo)
+    @State(Scope.Thread)
+    public static class Cursor {
+        int siguiente;
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        FirestoreEnMemoria datos = FirestoreEnMemoria.conAbogados(cantidad);
+        documento = datos.documentos().get(0);
+        ids = datos.documentos().stream().map(QueryDocumentSnapshot::getId).toArray(String[]::new);
+
+        Firestore firestore = datos.firestore();
+        servicio = new AbogadoService() {
+            @Override
+            protected Firestore firestore() {
+                return firestore;
+            }
+        };
+    }
+
+    @Benchmark
+    public Abogado mapearDocumento() {
+        return documento.toObject(Abogado.class);
+    }
+
+    @Benchmark
+    public Abogado obtenerPorId(Cursor cursor) throws ExecutionException, InterruptedException {
+        String id = ids[cursor.siguiente];
+        cursor.siguiente = (cursor.siguiente + 1) % ids.length;
+        return servicio.obtenerAbogadoPorId(id);
+    }
+}
@@ -0,0 +1,123 @@
+package com.proyect.abogados.benchmark;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteResult;
+import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.service.AbogadoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// * Compara la capacidad de atender peticiones concurrentes con la capa bloqueante y la asíncrona
+// * Un pool fijo simula los hilos de Tomcat y Firestore se reemplaza por un mock cuyas escrituras
+// * se confirman tras una latencia simulada, como haría una RPC real
+// * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="CapacidadConcurrente"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CapacidadConcurrenteBenchmark {
+
+    // * Hilos disponibles para atender peticiones (equivalente a server.tomcat.threads.max)
+    @Param({"50"})
+    public int hilos;
+
+    // * Peticiones concurrentes que llegan en cada iteración
+    @Param({"1000"})
+    public int peticiones;
+
+    // * Latencia simulada de cada RPC a Firestore
+    @Param({"20"})
+    public long latenciaMs;
+
+    private ExecutorService trabajadores;
+    private ScheduledExecutorService red;
+    private AbogadoService servicio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        trabajadores = Executors.newFixedThreadPool(hilos);
+        red = Executors.newScheduledThreadPool(4);
+
+        Firestore firestore = mock(Firestore.class, withSettings().stubOnly());
+        CollectionReference coleccion = mock(CollectionReference.class, withSettings().stubOnly());
+        AtomicLong secuencia = new AtomicLong();
+
+        when(firestore.collection(anyString())).thenReturn(coleccion);
+        when(coleccion.document()).thenAnswer(invocacion -> {
+            DocumentReference documento = mock(DocumentReference.class, withSettings().stubOnly());
+            when(documento.getId()).thenReturn("abogado-" + secuencia.incrementAndGet());
+            when(documento.set(any())).thenAnswer(escritura -> escrituraConLatencia());
+            return documento;
+        });
+
+        servicio = new AbogadoService() {
+            @Override
+            protected Firestore firestore() {
+                return firestore;
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void liberar() {
+        trabajadores.shutdownNow();
+        red.shutdownNow();
+    }
+
+    // * Cada petición ocupa un hilo del pool mientras espera la confirmación de Firestore
+    @Benchmark
+    public long bloqueante() throws InterruptedException {
+        CountDownLatch pendientes = new CountDownLatch(peticiones);
+        for (int i = 0; i < peticiones; i++) {
+            trabajadores.execute(() -> {
+                try {
+                    servicio.crearAbogado(nuevoAbogado());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    pendientes.countDown();
+                }
+            });
+        }
+        pendientes.await();
+        return pendientes.getCount();
+    }
+
+    // * El hilo del pool solo inicia la RPC y queda libre; la respuesta se completa en el callback
+    @Benchmark
+    public long asincrono() throws InterruptedException {
+        CountDownLatch pendientes = new CountDownLatch(peticiones);
+        for (int i = 0; i < peticiones; i++) {
+            trabajadores.execute(() -> servicio.crearAbogadoAsync(nuevoAbogado())
+                    .whenComplete((abogado, error) -> pendientes.countDown()));
+        }
+        pendientes.await();
+        return pendientes.getCount();
+    }
+
+    private ApiFuture<WriteResult> escrituraConLatencia() {
+        SettableApiFuture<WriteResult> resultado = SettableApiFuture.create();
+        red.schedule(() -> resultado.set(null), latenciaMs, TimeUnit.MILLISECONDS);
+        return resultado;
+    }
+
+    private static Abogado nuevoAbogado() {
+        Abogado abogado = new Abogado();
+        abogado.setEspecialidad("Civil");
+        abogado.setAniosExperiencia(5);
+        return abogado;
+    }
+}
@@ -0,0 +1,64 @@
+package com.proyect.abogados.benchmark;
+
+import com.proyect.abogados.assemblers.AbogadoAssemblers;
+import com.proyect.abogados.controller.AbogadoController;
+import com.proyect.abogados.model.Abogado;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+// * Costo por entidad de armar los enlaces HATEOAS de un abogado
+// * linkToMethodOn reproduce el ensamblador original (proxy + URI desde la petición por enlace)
+// * plantillasPrecalculadas usa AbogadoAssemblers con los enlaces precalculados
+// * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="EnlacesHateoas"
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnlacesHateoasBenchmark {
+
+    private final AbogadoAssemblers assemblers = new AbogadoAssemblers();
+    private Abogado abogado;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        abogado = new Abogado();
+        abogado.setId("Xk3pQ9vT2mNa8LbR7cYd");
+        abogado.setEspecialidad("Derecho Civil");
+
+        // * linkTo necesita una petición en curso en el hilo del benchmark
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/abogados");
+        peticion.setServerName("localhost");
+        peticion.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(peticion));
+    }
+
+    @TearDown(Level.Trial)
+    public void liberar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<Abogado> linkToMethodOn() {
+        return EntityModel.of(
+                abogado,
+                linkTo(methodOn(AbogadoController.class).obtenerAbogado(abogado.getId(), null)).withSelfRel(),
+                linkTo(methodOn(AbogadoController.class)
+                        .listarAbogados(null, null, null, null, null, null, null, null, null, null)).withRel("abogados"),
+                linkTo(methodOn(AbogadoController.class).crearAbogado(null)).withRel("crear"));
+    }
+
+    @Benchmark
+    public EntityModel<Abogado> plantillasPrecalculadas() {
+        return assemblers.toModel(abogado);
+    }
+}
@@ -0,0 +1,89 @@
+package com.proyect.abogados.benchmark;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// * Sustituto en memoria de Firestore para los benchmarks: responde al instante con
+// * snapshots reales (ver DocumentosEnMemoria), de modo que se mide el mapeo y el
+// * código de la aplicación sin la latencia de red
+final class FirestoreEnMemoria {
+
+    static final String COLECCION_ABOGADOS = "abogados";
+
+    private static final String[] ESPECIALIDADES = {"Derecho Civil", "Derecho Penal", "Derecho Laboral",
+            "Derecho Tributario", "Derecho de Familia"};
+    private static final String[] UNIVERSIDADES = {"Universidad de Chile", "PUC", "Universidad de Concepción",
+            "Universidad Diego Portales"};
+
+    private final Firestore firestore = mock(Firestore.class, withSettings().stubOnly());
+    private final List<QueryDocumentSnapshot> documentos;
+    private final Map<String, QueryDocumentSnapshot> porId = new HashMap<>();
+    private final Map<String, DocumentReference> referencias = new ConcurrentHashMap<>();
+
+    private FirestoreEnMemoria(List<QueryDocumentSnapshot> documentos) {
+        this.documentos = documentos;
+        documentos.forEach(doc -> porId.put(doc.getId(), doc));
+
+        CollectionReference coleccion = mock(CollectionReference.class, withSettings().stubOnly());
+        QuerySnapshot todos = mock(QuerySnapshot.class, withSettings().stubOnly());
+        when(todos.getDocuments()).thenReturn(documentos);
+        when(firestore.collection(COLECCION_ABOGADOS)).thenReturn(coleccion);
+        when(coleccion.get()).thenReturn(ApiFutures.immediateFuture(todos));
+        when(coleccion.document(anyString())).thenAnswer(invocacion ->
+                referencias.computeIfAbsent(invocacion.getArgument(0), this::referencia));
+    }
+
+    // * Colección de abogados con datos sintéticos deterministas
+    static FirestoreEnMemoria conAbogados(int cantidad) {
+        List<QueryDocumentSnapshot> documentos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            documentos.add(documentoAbogado(idAbogado(i), i));
+        }
+        return new FirestoreEnMemoria(documentos);
+    }
+
+    static String idAbogado(int indice) {
+        return String.format("abg%08d", indice);
+    }
+
+    // * Documento con todas las propiedades que Firestore guarda para un Abogado
+    static QueryDocumentSnapshot documentoAbogado(String id, int semilla) {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        campos.put("id", id);
+        campos.put("rut", (10_000_000 + semilla) + "-" + (semilla % 10));
+        campos.put("pnombre", "Nombre" + semilla);
+        campos.put("snombre", "Segundo" + semilla);
+        campos.put("papellido", "Apellido" + semilla);
+        campos.put("sapellido", "Materno" + semilla);
+        campos.put("documento", "CI");
+        campos.put("especialidad", ESPECIALIDADES[semilla % ESPECIALIDADES.length]);
+        campos.put("universidad", UNIVERSIDADES[semilla % UNIVERSIDADES.length]);
+        campos.put("licencia", "LIC" + semilla);
+        campos.put("aniosExperiencia", semilla % 40);
+        return DocumentosEnMemoria.documento(COLECCION_ABOGADOS, id, campos);
+    }
+
+    Firestore firestore() {
+        return firestore;
+    }
+
+    List<QueryDocumentSnapshot> documentos() {
+        return documentos;
+    }
+
+    private DocumentReference referencia(String id) {
+        DocumentReference referencia = mock(DocumentReference.class, withSettings().stubOnly());
+        QueryDocumentSnapshot snapshot = porId.get(id);
+        when(referencia.getId()).thenReturn(id);
+        when(referencia.get()).thenReturn(snapshot != null
+                ? ApiFutures.immediateFuture(snapshot)
+                : ApiFutures.immediateFailedFuture(new IllegalStateException("Documento inexistente: " + id)));
+        return referencia;
+    }
+}
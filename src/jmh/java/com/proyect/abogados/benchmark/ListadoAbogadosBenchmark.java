@@ -0,0 +1,62 @@
+package com.proyect.abogados.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.firestore.Firestore;
+import com.proyect.abogados.assemblers.AbogadoAssemblers;
+import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.service.AbogadoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// * Camino completo del listado: lectura + mapeo (listarAbogados), enlaces (toModel) y JSON (Jackson)
+// * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ListadoAbogados -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListadoAbogadosBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int cantidad;
+
+    private AbogadoService servicio;
+    private final AbogadoAssemblers assemblers = new AbogadoAssemblers();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Firestore firestore = FirestoreEnMemoria.conAbogados(cantidad).firestore();
+        servicio = new AbogadoService() {
+            @Override
+            protected Firestore firestore() {
+                return firestore;
+            }
+        };
+    }
+
+    // * Solo lectura y mapeo de los documentos a Abogado
+    @Benchmark
+    public List<Abogado> listar() throws ExecutionException, InterruptedException {
+        return servicio.listarAbogados();
+    }
+
+    // * Respuesta completa del endpoint: lectura, ensamblado HATEOAS y serialización
+    @Benchmark
+    public byte[] listarEnsamblarSerializar()
+            throws ExecutionException, InterruptedException, JsonProcessingException {
+        List<EntityModel<Abogado>> modelos = servicio.listarAbogados()
+                .stream()
+                .map(assemblers::toModel)
+                .collect(Collectors.toList());
+        return objectMapper.writeValueAsBytes(CollectionModel.of(modelos));
+    }
+}
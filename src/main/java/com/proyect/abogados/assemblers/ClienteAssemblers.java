@@ -1,30 +1,46 @@
 package com.proyect.abogados.assemblers;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
-
-import com.proyect.abogados.controller.ClienteController;
 import com.proyect.abogados.model.Cliente;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
 
 // * Ensamblador HATEOAS para la entidad Cliente
 // * Convierte Cliente en EntityModel con enlaces REST
 @Component
 public class ClienteAssemblers implements RepresentationModelAssembler<Cliente, EntityModel<Cliente>> {
 
+    // * Ruta base de los recursos clientes
+    private static final String BASE_PATH = "/api/clientes";
+    // * Prefijo del enlace a cada recurso; solo se le concatena el ID codificado
+    private static final String PREFIJO_RECURSO = BASE_PATH + "/";
+
+    // * Enlaces a nivel de colección: son inmutables y se comparten entre todas las entidades
+    public static final Link ENLACE_COLECCION = Link.of(BASE_PATH).withRel("clientes");
+    public static final Link ENLACE_CREAR = Link.of(BASE_PATH).withRel("crear");
+
     @Override
     public EntityModel<Cliente> toModel(Cliente cliente) {
-        try {
-            // * Construye el modelo con enlaces HATEOAS
-            return EntityModel.of(
-                    cliente,
-                    linkTo(methodOn(ClienteController.class).obtenerCliente(cliente.getId())).withSelfRel(),
-                    linkTo(methodOn(ClienteController.class).listarClientes()).withRel("clientes"),
-                    linkTo(methodOn(ClienteController.class).crearCliente(null)).withRel("crear"));
-        } catch (Exception e) {
-            // ! Error al construir los enlaces HATEOAS
-            throw new RuntimeException("Error al construir los enlaces HATEOAS", e);
-        }
+        // * Los enlaces se arman desde plantillas precalculadas: por entidad solo se
+        // * codifica el ID, sin proxies ni acceso a la petición en curso
+        return EntityModel.of(
+                cliente,
+                enlaceRecurso(cliente.getId()).withSelfRel(),
+                ENLACE_COLECCION,
+                ENLACE_CREAR);
+    }
+
+    /**
+     * Enlace relativo al recurso con el ID indicado.
+     *
+     * @param id ID del cliente
+     * @return enlace {@code /api/clientes/{id}} con el ID codificado como segmento de ruta
+     */
+    public static Link enlaceRecurso(String id) {
+        return Link.of(PREFIJO_RECURSO + UriUtils.encodePathSegment(id, StandardCharsets.UTF_8));
     }
-}
\ No newline at end of file
+}
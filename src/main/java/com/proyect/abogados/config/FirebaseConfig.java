@@ -1,11 +1,16 @@
 package com.proyect.abogados.config;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.firestore.Firestore;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import com.google.firebase.cloud.FirestoreClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
 import java.io.InputStream;
 
 /**
@@ -16,11 +21,28 @@ import java.io.InputStream;
  * El archivo de credenciales debe estar en:
  * src/main/resources/firebase/justiciaplv1-firebase-adminsdk-fbsvc-8375ab5102.json
  *
+ * Con {@code firebase.inicializacion-diferida=true} (perfil {@code arranque-rapido}) las
+ * credenciales no se leen al arrancar: Firebase y el cliente de Firestore se crean con la
+ * primera operación que los necesita, a través de {@link #firestore()}.
+ *
+ * No se carga con el perfil {@code memoria}, que reemplaza Firestore por un motor embebido.
+ *
  * @author PythonLovers
  */
 @Configuration
+@Profile("!memoria")
 public class FirebaseConfig {
 
+    /** Archivo de credenciales de la cuenta de servicio, en el classpath. */
+    private static final String CREDENCIALES = "firebase/justiciaplv1-firebase-adminsdk-fbsvc-8375ab5102.json";
+
+    // * Cliente compartido: se resuelve una sola vez en lugar de buscarlo en FirebaseApp en cada operación
+    private static volatile Firestore firestore;
+
+    /** Si la conexión se abre con la primera operación en lugar de al arrancar. */
+    @Value("${firebase.inicializacion-diferida:false}")
+    private boolean inicializacionDiferida;
+
     /**
      * Método de inicialización que configura FirebaseApp si aún no está
      * inicializada.
@@ -32,12 +54,49 @@ public class FirebaseConfig {
     // requiere en otros entornos
     @PostConstruct
     public void initialize() {
+        if (inicializacionDiferida) {
+            // * Modo de arranque rápido: nada de E/S ni de red antes de atender la primera petición
+            return;
+        }
         try {
-            // * Cargar archivo de credenciales desde resources
-            InputStream serviceAccount = getClass()
-                    .getClassLoader()
-                    .getResourceAsStream("firebase/justiciaplv1-firebase-adminsdk-fbsvc-8375ab5102.json");
+            inicializar();
+        } catch (Exception e) {
+            // ! Error al inicializar Firebase
+            System.err.println("❌ Error al inicializar Firebase:");
+            e.printStackTrace();
+        }
+    }
 
+    /**
+     * Cliente de Firestore de la aplicación. Si Firebase aún no fue inicializado (arranque
+     * diferido), lo inicializa en este momento; las llamadas concurrentes esperan a una sola
+     * inicialización.
+     *
+     * @return instancia de {@link Firestore}
+     * @throws IllegalStateException si no se pueden cargar las credenciales
+     */
+    public static Firestore firestore() {
+        Firestore actual = firestore;
+        if (actual == null) {
+            synchronized (FirebaseConfig.class) {
+                actual = firestore;
+                if (actual == null) {
+                    inicializar();
+                    actual = FirestoreClient.getFirestore();
+                    firestore = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    // * Configura FirebaseApp con las credenciales del classpath, solo si no está inicializado
+    private static synchronized void inicializar() {
+        if (!FirebaseApp.getApps().isEmpty()) {
+            return;
+        }
+        // * Cargar archivo de credenciales desde resources
+        try (InputStream serviceAccount = FirebaseConfig.class.getClassLoader().getResourceAsStream(CREDENCIALES)) {
             // ! Validar que el archivo de credenciales exista
             if (serviceAccount == null) {
                 throw new IllegalStateException("No se pudo encontrar el archivo de credenciales de Firebase.");
@@ -48,15 +107,10 @@ public class FirebaseConfig {
                     .setCredentials(GoogleCredentials.fromStream(serviceAccount))
                     .build();
 
-            // * Inicializar FirebaseApp solo si no está inicializado
-            if (FirebaseApp.getApps().isEmpty()) {
-                FirebaseApp.initializeApp(options);
-                System.out.println("FirebaseApp inicializado correctamente.");
-            }
-        } catch (Exception e) {
-            // ! Error al inicializar Firebase
-            System.err.println("❌ Error al inicializar Firebase:");
-            e.printStackTrace();
+            FirebaseApp.initializeApp(options);
+            System.out.println("FirebaseApp inicializado correctamente.");
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudieron leer las credenciales de Firebase.", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.proyect.abogados.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.HalConfiguration;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Negociación de formatos binarios para las respuestas de la API.
+ *
+ * Además de HAL JSON, las respuestas se pueden pedir como CBOR ({@code application/cbor})
+ * o Smile ({@code application/x-jackson-smile}) mediante el encabezado {@code Accept}.
+ * Ambos formatos conservan la misma estructura HAL ({@code _embedded}, {@code _links})
+ * y las proyecciones de {@link ProyeccionJsonConfig}, pero con nombres de campo y
+ * números codificados en binario: la respuesta es más pequeña y se decodifica con
+ * menos CPU que el JSON equivalente.
+ *
+ * Los mappers parten del builder de Spring Boot, por lo que reciben la misma
+ * configuración (propiedades {@code spring.jackson.*}, mix-ins y filtros) que el JSON.
+ *
+ * @author PythonLovers
+ */
+@Configuration
+public class FormatosBinariosConfig {
+
+    /** Tipo de contenido Smile (Jackson no registra una constante en Spring). */
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Conversor CBOR con soporte HAL. Reemplaza al conversor CBOR que Spring registra por
+     * defecto, que no conoce los modelos de Spring HATEOAS.
+     *
+     * @param builder  builder de Jackson configurado por Spring Boot
+     * @param hal      módulo y resolutores de HAL
+     * @return conversor para {@code application/cbor}
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder,
+                                                                 SoporteHal hal) {
+        return new MappingJackson2CborHttpMessageConverter(hal.configurar(builder.factory(new CBORFactory()).build()));
+    }
+
+    /**
+     * Conversor Smile con soporte HAL.
+     *
+     * @param builder builder de Jackson configurado por Spring Boot
+     * @param hal     módulo y resolutores de HAL
+     * @return conversor para {@code application/x-jackson-smile}
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder builder,
+                                                                   SoporteHal hal) {
+        return new MappingJackson2SmileHttpMessageConverter(hal.configurar(builder.factory(new SmileFactory()).build()));
+    }
+
+    /**
+     * Componentes de Spring HATEOAS necesarios para serializar HAL con cualquier {@link ObjectMapper}.
+     *
+     * @param relaciones  proveedor de relaciones de enlace (nombres de {@code _embedded})
+     * @param curies      proveedor de CURIEs, si la aplicación define uno
+     * @param mensajes    resolutor de títulos de enlaces
+     * @param halConfig   configuración de HAL, si la aplicación define una
+     * @param beanFactory fábrica para instanciar serializadores
+     * @return soporte HAL compartido por los conversores binarios
+     */
+    @Bean
+    SoporteHal soporteHal(LinkRelationProvider relaciones, ObjectProvider<CurieProvider> curies,
+                          ObjectProvider<MessageResolver> mensajes, ObjectProvider<HalConfiguration> halConfig,
+                          AutowireCapableBeanFactory beanFactory) {
+        return new SoporteHal(new Jackson2HalModule.HalHandlerInstantiator(relaciones,
+                curies.getIfAvailable(() -> CurieProvider.NONE),
+                mensajes.getIfAvailable(() -> MessageResolver.DEFAULTS_ONLY),
+                halConfig.getIfAvailable(HalConfiguration::new),
+                beanFactory));
+    }
+
+    // * Registra en un mapper el módulo HAL y el instanciador que resuelve relaciones y CURIEs
+    record SoporteHal(Jackson2HalModule.HalHandlerInstantiator instanciador) {
+
+        ObjectMapper configurar(ObjectMapper mapper) {
+            mapper.registerModule(new Jackson2HalModule());
+            mapper.setHandlerInstantiator(instanciador);
+            return mapper;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.proyect.abogados.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.model.Cliente;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Configuración de Jackson para las proyecciones ({@code ?fields=}) de los listados.
+ *
+ * Los modelos {@link Abogado} y {@link Cliente} se serializan con un filtro que, si la
+ * petición en curso solicitó una proyección, emite solo esos campos (y el ID). El filtro
+ * se asocia mediante mix-ins en el {@code ObjectMapper} de Spring, por lo que otros
+ * mappers (copias del motor en memoria, benchmarks) no se ven afectados.
+ *
+ * Sin proyección, o fuera de una petición HTTP (por ejemplo, al exportar NDJSON desde
+ * otro hilo), se serializan todos los campos.
+ *
+ * @author PythonLovers
+ */
+@Configuration
+public class ProyeccionJsonConfig {
+
+    /** Identificador del filtro de Jackson asociado a los modelos. */
+    static final String FILTRO = "proyeccion";
+
+    /** Atributo de la petición con los campos solicitados (en minúsculas). */
+    private static final String ATRIBUTO_CAMPOS = ProyeccionJsonConfig.class.getName() + ".campos";
+
+    /** Propiedad con el ID de la entidad; se emite siempre para que el cliente pueda navegar. */
+    private static final String CAMPO_ID = "id";
+
+    // * Mix-in que asocia el filtro a los modelos sin anotar las clases de dominio
+    @JsonFilter(FILTRO)
+    private interface ConProyeccion {
+    }
+
+    /**
+     * Registra el filtro de proyección en el {@code ObjectMapper} de Spring (y en la copia
+     * que Spring HATEOAS usa para HAL).
+     *
+     * @return personalización del builder de Jackson
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer proyeccionCampos() {
+        return builder -> builder
+                .mixIn(Abogado.class, ConProyeccion.class)
+                .mixIn(Cliente.class, ConProyeccion.class)
+                .filters(new SimpleFilterProvider().addFilter(FILTRO, new FiltroCampos()));
+    }
+
+    /**
+     * Limita la respuesta de la petición en curso a los campos indicados. Debe invocarse
+     * desde el hilo de la petición; la serialización posterior (incluida la de una respuesta
+     * asíncrona) lee la proyección desde los atributos de la petición.
+     *
+     * @param campos campos solicitados ({@code null} o vacío para todos)
+     */
+    public static void proyectar(List<String> campos) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null || campos == null || campos.isEmpty()) {
+            return;
+        }
+        Set<String> incluidos = new HashSet<>();
+        incluidos.add(CAMPO_ID);
+        for (String campo : campos) {
+            incluidos.add(campo.trim().toLowerCase(Locale.ROOT));
+        }
+        atributos.setAttribute(ATRIBUTO_CAMPOS, incluidos, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    // * Incluye una propiedad si no hay proyección o si fue solicitada (sin distinguir mayúsculas)
+    private static final class FiltroCampos extends SimpleBeanPropertyFilter {
+
+        @Override
+        protected boolean include(BeanPropertyWriter writer) {
+            return incluido(writer.getName());
+        }
+
+        @Override
+        protected boolean include(PropertyWriter writer) {
+            return incluido(writer.getName());
+        }
+
+        @SuppressWarnings("unchecked")
+        private static boolean incluido(String propiedad) {
+            RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+            if (atributos == null) {
+                return true;
+            }
+            Set<String> incluidos = (Set<String>) atributos.getAttribute(ATRIBUTO_CAMPOS, RequestAttributes.SCOPE_REQUEST);
+            return incluidos == null || incluidos.contains(propiedad.toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.proyect.abogados.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Tiempo máximo de las respuestas asíncronas según el endpoint.
+ *
+ * Las respuestas con {@code CompletableFuture} (lecturas, listados, escrituras, estadísticas)
+ * usan el tiempo global {@code spring.mvc.async.request-timeout}, corto para que una RPC
+ * colgada de Firestore no retenga la petición: al vencer se responde {@code 503}. Solo las
+ * exportaciones NDJSON ({@code /export}), que escriben la colección completa por streaming,
+ * reciben el tiempo largo {@code exportacion.tiempo-maximo}.
+ *
+ * @author PythonLovers
+ */
+@Configuration
+public class RespuestasAsincronasConfig implements WebMvcConfigurer {
+
+    /** Sufijo de la ruta de las exportaciones NDJSON. */
+    static final String RUTA_EXPORTACION = "/export";
+
+    private final Duration tiempoExportacion;
+
+    /**
+     * Crea la configuración.
+     *
+     * @param tiempoExportacion tiempo máximo de una exportación NDJSON
+     */
+    public RespuestasAsincronasConfig(@Value("${exportacion.tiempo-maximo:PT30M}") Duration tiempoExportacion) {
+        this.tiempoExportacion = tiempoExportacion;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new TiempoExportacion(tiempoExportacion));
+    }
+
+    // * Un StreamingResponseBody se procesa como Callable: el tiempo se fija antes de iniciar el
+    // * procesamiento asíncrono, que es cuando la petición aún admite cambiarlo
+    record TiempoExportacion(Duration tiempo) implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            HttpServletRequest servlet = request.getNativeRequest(HttpServletRequest.class);
+            if (request instanceof AsyncWebRequest asincrona && servlet != null
+                    && servlet.getRequestURI().endsWith(RUTA_EXPORTACION)) {
+                asincrona.setTimeout(tiempo.toMillis());
+            }
+        }
+    }
+}
@@ -1,19 +1,41 @@
 package com.proyect.abogados.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.proyect.abogados.assemblers.AbogadoAssemblers;
+import com.proyect.abogados.config.ProyeccionJsonConfig;
 import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.EstadisticasAbogados;
+import com.proyect.abogados.model.FiltroAbogados;
+import com.proyect.abogados.model.LecturaMultiple;
+import com.proyect.abogados.model.ResultadoImportacion;
 import com.proyect.abogados.service.AbogadoService;
+import com.proyect.abogados.service.BusquedaNoDisponibleException;
+import com.proyect.abogados.service.PrecondicionFallidaException;
+import com.proyect.abogados.service.RegistroDuplicadoException;
+import com.proyect.abogados.service.ServicioSobrecargadoException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.hateoas.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
-
 /**
  * Controlador REST que expone los endpoints para gestionar abogados.
  * Permite realizar operaciones CRUD sobre la entidad Abogado utilizando
@@ -32,65 +54,229 @@ public class AbogadoController {
     private final AbogadoService abogadoService;
     // * Ensamblador para convertir Abogado a EntityModel
     private final AbogadoAssemblers abogadoAssemblers;
+    // * Mapper de Jackson para serializar cada documento exportado
+    private final ObjectMapper objectMapper;
+
+    // * Ruta base de los recursos de este controlador
+    private static final String BASE_PATH = "/api/abogados";
+    // * Segundos sugeridos antes de reintentar una búsqueda mientras se carga el índice
+    private static final String REINTENTO_BUSQUEDA_SEGUNDOS = "5";
+    // * Tipo de contenido de la exportación (JSON delimitado por saltos de línea)
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+    // * Tipo de contenido de las actualizaciones parciales (JSON Merge Patch)
+    private static final String MEDIA_TYPE_MERGE_PATCH = "application/merge-patch+json";
+    // * Documentos leídos desde Firestore por cada lote de la exportación
+    private static final int TAMANO_LOTE_EXPORTACION = 500;
 
-    // * Listar todos los abogados
+    // * Listar abogados paginados por cursor (limit, orderBy, startAfter / endBefore)
+    // * Filtros opcionales (especialidad, universidad, minAnios / maxAnios) resueltos en Firestore
+    // * Nunca se materializa más de una página; la navegación se expone con enlaces next/prev
+    // * fields=pNombre,pApellido,... limita los campos leídos de Firestore y los emitidos en el JSON
+    // * Respuesta asíncrona: el hilo de Tomcat se libera mientras la consulta está en curso
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<Abogado>>> listarAbogados()
-            throws ExecutionException, InterruptedException {
+    public CompletableFuture<ResponseEntity<CollectionModel<EntityModel<Abogado>>>> listarAbogados(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String orderBy,
+            @RequestParam(required = false) String startAfter,
+            @RequestParam(required = false) String endBefore,
+            @RequestParam(required = false) String especialidad,
+            @RequestParam(required = false) String universidad,
+            @RequestParam(required = false) Integer minAnios,
+            @RequestParam(required = false) Integer maxAnios,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        FiltroAbogados filtro = new FiltroAbogados(especialidad, universidad, minAnios, maxAnios);
+        ProyeccionJsonConfig.proyectar(fields);
+        String formato = ValidacionCondicional.formato();
+        Link self = enlaceListado(limit, orderBy, startAfter, endBefore, filtro, fields, IanaLinkRelations.SELF);
+        ConsultaPagina consulta = new ConsultaPagina(limit, orderBy, startAfter, endBefore, fields);
+        // * La versión se lee antes que la página y de la misma fuente: si cambia entre ambas
+        // * lecturas, el ETag queda desactualizado y la siguiente petición condicional recibe la
+        // * página completa. Las páginas que sirve la réplica no llevan ETag (versión null)
+        return abogadoService.versionListadoAsync(consulta, filtro).thenCompose(version -> {
+            String etag = ValidacionCondicional.etagListado(version, self.getHref(), formato);
+            if (ValidacionCondicional.coincide(ifNoneMatch, etag)) {
+                // ! 304 Not Modified: no se consulta la página
+                return CompletableFuture.completedFuture(
+                        ValidacionCondicional.<CollectionModel<EntityModel<Abogado>>>noModificado(etag));
+            }
+            return abogadoService.listarAbogadosAsync(consulta, filtro)
+                    .thenApply(pagina -> {
+                        List<EntityModel<Abogado>> abogados = pagina.getElementos()
+                                .stream()
+                                .map(abogadoAssemblers::toModel)
+                                .collect(Collectors.toList());
+
+                        CollectionModel<EntityModel<Abogado>> collection = CollectionModel.of(abogados);
+                        collection.add(self);
+                        if (pagina.getCursorSiguiente() != null) {
+                            collection.add(enlaceListado(limit, orderBy, pagina.getCursorSiguiente(), null, filtro,
+                                    fields, IanaLinkRelations.NEXT));
+                        }
+                        if (pagina.getCursorAnterior() != null) {
+                            collection.add(enlaceListado(limit, orderBy, null, pagina.getCursorAnterior(), filtro,
+                                    fields, IanaLinkRelations.PREV));
+                        }
+                        collection.add(AbogadoAssemblers.ENLACE_CREAR);
+
+                        return ValidacionCondicional.ok(etag).body(collection);
+                    });
+        });
+    }
+
+    // * Exportar todos los abogados como NDJSON (un documento JSON por línea)
+    // * Se lee por lotes y se escribe/flushea cada lote: memoria constante sin importar el tamaño
+    // ! Si el cliente se desconecta, la escritura falla y se detienen las lecturas a Firestore
+    @GetMapping(value = "/export", produces = MEDIA_TYPE_NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportarAbogados() {
+        ObjectWriter writer = objectMapper.writerFor(Abogado.class);
+        StreamingResponseBody cuerpo = salida -> {
+            try {
+                abogadoService.recorrerAbogados(TAMANO_LOTE_EXPORTACION, lote -> {
+                    for (Abogado abogado : lote) {
+                        salida.write(writer.writeValueAsBytes(abogado));
+                        salida.write('\n');
+                    }
+                    salida.flush();
+                });
+            } catch (ExecutionException e) {
+                throw new IOException("Error al leer abogados desde Firestore", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Exportación de abogados interrumpida", e);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON))
+                .body(cuerpo);
+    }
 
-        List<EntityModel<Abogado>> abogados = abogadoService.listarAbogados()
+    // * Buscar abogados por nombre y apellidos mientras se escribe (sin tildes ni mayúsculas, admite prefijos)
+    // * Se resuelve desde un índice en memoria: no consulta Firestore
+    @GetMapping("/search")
+    public ResponseEntity<CollectionModel<EntityModel<Abogado>>> buscarAbogados(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        List<EntityModel<Abogado>> abogados = abogadoService.buscarAbogados(q, limit)
                 .stream()
                 .map(abogadoAssemblers::toModel)
                 .collect(Collectors.toList());
 
         CollectionModel<EntityModel<Abogado>> collection = CollectionModel.of(abogados);
-        collection.add(linkTo(methodOn(AbogadoController.class).listarAbogados()).withSelfRel());
-        collection.add(linkTo(methodOn(AbogadoController.class).crearAbogado(null)).withRel("crear"));
-
+        collection.add(Link.of(UriComponentsBuilder.fromPath(BASE_PATH + "/search")
+                .queryParam("q", q)
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .encode()
+                .toUriString(), IanaLinkRelations.SELF));
         return ResponseEntity.ok(collection);
     }
 
+    // * Obtener varios abogados por ID (?ids=a,b,c) con una sola lectura a Firestore
+    // * Los IDs inexistentes se informan en noEncontrados, sin hacer fallar la petición
+    @GetMapping(params = "ids")
+    public CompletableFuture<ResponseEntity<LecturaMultiple<EntityModel<Abogado>>>> obtenerAbogadosPorIds(
+            @RequestParam List<String> ids) {
+        return abogadoService.obtenerAbogadosPorIdsAsync(ids).thenApply(this::lecturaMultiple);
+    }
+
+    // * Variante POST de la lectura por IDs para listas que no caben en la URL (cuerpo: arreglo JSON de IDs)
+    @PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<LecturaMultiple<EntityModel<Abogado>>>> buscarAbogadosPorIds(
+            @RequestBody List<String> ids) {
+        return abogadoService.obtenerAbogadosPorIdsAsync(ids).thenApply(this::lecturaMultiple);
+    }
+
+    private ResponseEntity<LecturaMultiple<EntityModel<Abogado>>> lecturaMultiple(LecturaMultiple<Abogado> lectura) {
+        List<EntityModel<Abogado>> encontrados = lectura.getEncontrados().stream()
+                .map(abogadoAssemblers::toModel)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new LecturaMultiple<>(encontrados, lectura.getNoEncontrados()));
+    }
+
+    // * Estadísticas para paneles: total, promedio de experiencia y conteo de cada especialidad pedida
+    // * Se calculan con agregaciones de Firestore (sin descargar la colección) y se reutilizan unos segundos
+    @GetMapping("/stats")
+    public CompletableFuture<ResponseEntity<EstadisticasAbogados>> obtenerEstadisticas(
+            @RequestParam(required = false) List<String> especialidad) {
+        return abogadoService.estadisticasAbogadosAsync(especialidad).thenApply(ResponseEntity::ok);
+    }
+
     // * Obtener un abogado por ID
     // TODO: Manejar el caso en que el abogado no exista (retornar 404)
+    // * ETag fuerte desde la hora de actualización del documento; If-None-Match vigente -> 304 sin cuerpo
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Abogado>> obtenerAbogado(@PathVariable String id)
-            throws ExecutionException, InterruptedException {
+    public CompletableFuture<ResponseEntity<EntityModel<Abogado>>> obtenerAbogado(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String formato = ValidacionCondicional.formato();
+        return abogadoService.obtenerAbogadoVersionadoAsync(id)
+                .thenApply(versionado -> {
+                    String etag = ValidacionCondicional.etag(versionado.getVersion(), formato);
+                    if (ValidacionCondicional.coincide(ifNoneMatch, etag)) {
+                        return ValidacionCondicional.<EntityModel<Abogado>>noModificado(etag);
+                    }
+                    return ValidacionCondicional.ok(etag).body(abogadoAssemblers.toModel(versionado.getEntidad()));
+                });
+    }
 
-        Abogado abogado = abogadoService.obtenerAbogadoPorId(id);
-        return ResponseEntity.ok(abogadoAssemblers.toModel(abogado));
+    // * Obtener un abogado por licencia (índice único; acepta el valor en cualquier formato equivalente)
+    @GetMapping("/by-licencia/{licencia}")
+    public CompletableFuture<ResponseEntity<EntityModel<Abogado>>> obtenerAbogadoPorLicencia(@PathVariable String licencia) {
+        return abogadoService.obtenerAbogadoPorLicenciaAsync(licencia)
+                .thenApply(abogado -> ResponseEntity.ok(abogadoAssemblers.toModel(abogado)));
     }
 
     // * Crear un nuevo abogado
     @PostMapping
-    public ResponseEntity<EntityModel<Abogado>> crearAbogado(@RequestBody Abogado abogado)
-            throws ExecutionException, InterruptedException {
-
-        Abogado nuevoAbogado = abogadoService.crearAbogado(abogado);
-        EntityModel<Abogado> resource = abogadoAssemblers.toModel(nuevoAbogado);
+    public CompletableFuture<ResponseEntity<EntityModel<Abogado>>> crearAbogado(@RequestBody Abogado abogado) {
+        return abogadoService.crearAbogadoAsync(abogado)
+                .thenApply(nuevoAbogado -> ResponseEntity
+                        // ! Retorna 201 Created con la URI del nuevo recurso
+                        .created(AbogadoAssemblers.enlaceRecurso(nuevoAbogado.getId()).toUri())
+                        .body(abogadoAssemblers.toModel(nuevoAbogado)));
+    }
 
-        // ! Retorna 201 Created con la URI del nuevo recurso
-        return ResponseEntity
-                .created(linkTo(methodOn(AbogadoController.class).obtenerAbogado(nuevoAbogado.getId())).toUri())
-                .body(resource);
+    // * Importación masiva desde un arreglo JSON o un flujo NDJSON
+    // * Los registros se leen uno a uno y se escriben en lotes con BulkWriter
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MEDIA_TYPE_NDJSON})
+    public ResponseEntity<ResultadoImportacion> importarAbogados(InputStream cuerpo)
+            throws IOException, InterruptedException {
+        try (MappingIterator<Abogado> registros = objectMapper.readerFor(Abogado.class).readValues(cuerpo)) {
+            return ResponseEntity.ok(abogadoService.importarAbogados(registros));
+        }
     }
 
     // * Actualizar un abogado existente
     @PutMapping("/{id}")
-    public ResponseEntity<EntityModel<Abogado>> actualizarAbogado(
+    public CompletableFuture<ResponseEntity<EntityModel<Abogado>>> actualizarAbogado(
             @PathVariable String id,
-            @RequestBody Abogado abogado)
-            throws ExecutionException, InterruptedException {
+            @RequestBody Abogado abogado) {
+        return abogadoService.actualizarAbogadoAsync(id, abogado)
+                .thenApply(abogadoActualizado -> ResponseEntity.ok(abogadoAssemblers.toModel(abogadoActualizado)));
+    }
 
-        Abogado abogadoActualizado = abogadoService.actualizarAbogado(id, abogado);
-        return ResponseEntity.ok(abogadoAssemblers.toModel(abogadoActualizado));
+    // * Actualización parcial: solo se escriben los campos enviados (update() con sus rutas de campo)
+    // * If-Match con el ETag del abogado exige que no haya cambiado desde esa lectura (412 si cambió)
+    // * changedOnly=true responde solo con los campos modificados (y el id)
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MEDIA_TYPE_MERGE_PATCH})
+    public CompletableFuture<ResponseEntity<EntityModel<Abogado>>> actualizarAbogadoParcial(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> cambios,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestParam(defaultValue = "false") boolean changedOnly) {
+        if (changedOnly) {
+            ProyeccionJsonConfig.proyectar(new ArrayList<>(cambios.keySet()));
+        }
+        return abogadoService.actualizarAbogadoParcialAsync(id, cambios, ValidacionCondicional.versionDe(ifMatch))
+                .thenApply(abogadoActualizado -> ResponseEntity.ok(abogadoAssemblers.toModel(abogadoActualizado)));
     }
 
     // * Eliminar un abogado por ID
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> eliminarAbogado(@PathVariable String id)
-            throws ExecutionException, InterruptedException {
-        abogadoService.eliminarAbogado(id);
-        return ResponseEntity.noContent().build(); // ! Retorna 204 No Content
+    public CompletableFuture<ResponseEntity<Void>> eliminarAbogado(@PathVariable String id) {
+        return abogadoService.eliminarAbogadoAsync(id)
+                .thenApply(sinContenido -> ResponseEntity.noContent().build()); // ! Retorna 204 No Content
     }
 
     // * Eliminar todos los abogados
@@ -100,4 +286,57 @@ public class AbogadoController {
         abogadoService.eliminarTodosAbogados();
         return ResponseEntity.noContent().build(); // ! Retorna 204 No Content
     }
-}
\ No newline at end of file
+
+    // * Enlace relativo al listado con los parámetros de paginación y filtro indicados
+    // * (no depende de la petición en curso, por lo que puede armarse al completar el futuro)
+    private static Link enlaceListado(Integer limit, String orderBy, String startAfter, String endBefore,
+                                      FiltroAbogados filtro, List<String> fields, LinkRelation rel) {
+        String href = UriComponentsBuilder.fromPath(BASE_PATH)
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("orderBy", Optional.ofNullable(orderBy))
+                .queryParamIfPresent("startAfter", Optional.ofNullable(startAfter))
+                .queryParamIfPresent("endBefore", Optional.ofNullable(endBefore))
+                .queryParamIfPresent("especialidad", Optional.ofNullable(filtro.getEspecialidad()))
+                .queryParamIfPresent("universidad", Optional.ofNullable(filtro.getUniversidad()))
+                .queryParamIfPresent("minAnios", Optional.ofNullable(filtro.getMinAnios()))
+                .queryParamIfPresent("maxAnios", Optional.ofNullable(filtro.getMaxAnios()))
+                .queryParamIfPresent("fields", Optional.ofNullable(fields).map(campos -> String.join(",", campos)))
+                .encode()
+                .toUriString();
+        return Link.of(href, rel);
+    }
+
+    // * Parámetros inválidos (cursor corrupto, campo de orden, filtro o proyección no permitidos) -> 400 Bad Request
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> manejarParametroInvalido(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    // * Licencia ya registrada para otro abogado -> 409 Conflict
+    @ExceptionHandler(RegistroDuplicadoException.class)
+    public ResponseEntity<String> manejarDuplicado(RegistroDuplicadoException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    // * El abogado cambió desde la versión indicada en If-Match -> 412 Precondition Failed
+    @ExceptionHandler(PrecondicionFallidaException.class)
+    public ResponseEntity<String> manejarPrecondicion(PrecondicionFallidaException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+    }
+
+    // * Índice de búsqueda aún cargándose (o búsqueda deshabilitada) -> 503 Service Unavailable
+    @ExceptionHandler(BusquedaNoDisponibleException.class)
+    public ResponseEntity<String> manejarBusquedaNoDisponible(BusquedaNoDisponibleException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, REINTENTO_BUSQUEDA_SEGUNDOS)
+                .body(e.getMessage());
+    }
+
+    // * Firestore saturado: límite de concurrencia completo y cola llena -> 503 Service Unavailable
+    @ExceptionHandler(ServicioSobrecargadoException.class)
+    public ResponseEntity<String> manejarSobrecarga(ServicioSobrecargadoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentoSegundos()))
+                .body(e.getMessage());
+    }
+}
@@ -1,14 +1,37 @@
 package com.proyect.abogados.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.proyect.abogados.assemblers.ClienteAssemblers;
+import com.proyect.abogados.config.ProyeccionJsonConfig;
 import com.proyect.abogados.model.Cliente;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.EstadisticasClientes;
+import com.proyect.abogados.model.LecturaMultiple;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.service.BusquedaNoDisponibleException;
 import com.proyect.abogados.service.ClienteService;
+import com.proyect.abogados.service.PrecondicionFallidaException;
+import com.proyect.abogados.service.RegistroDuplicadoException;
+import com.proyect.abogados.service.ServicioSobrecargadoException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.hateoas.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -23,59 +46,221 @@ public class ClienteController {
     private final ClienteService clienteService;
     // * Ensamblador para convertir Cliente a EntityModel
     private final ClienteAssemblers clienteAssemblers;
+    // * Mapper de Jackson para serializar cada documento exportado
+    private final ObjectMapper objectMapper;
 
-    // * Listar todos los clientes
+    // * Ruta base de los recursos de este controlador
+    private static final String BASE_PATH = "/api/clientes";
+    // * Segundos sugeridos antes de reintentar una búsqueda mientras se carga el índice
+    private static final String REINTENTO_BUSQUEDA_SEGUNDOS = "5";
+    // * Tipo de contenido de la exportación (JSON delimitado por saltos de línea)
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+    // * Tipo de contenido de las actualizaciones parciales (JSON Merge Patch)
+    private static final String MEDIA_TYPE_MERGE_PATCH = "application/merge-patch+json";
+    // * Documentos leídos desde Firestore por cada lote de la exportación
+    private static final int TAMANO_LOTE_EXPORTACION = 500;
+
+    // * Listar clientes paginados por cursor (limit, orderBy, startAfter / endBefore)
+    // * Nunca se materializa más de una página; la navegación se expone con enlaces next/prev
+    // * fields=pNombre,pApellido,... limita los campos leídos de Firestore y los emitidos en el JSON
+    // * Respuesta asíncrona: el hilo de Tomcat se libera mientras la consulta está en curso
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<Cliente>>> listarClientes()
-            throws ExecutionException, InterruptedException {
-        List<EntityModel<Cliente>> clientes = clienteService.listarClientes()
+    public CompletableFuture<ResponseEntity<CollectionModel<EntityModel<Cliente>>>> listarClientes(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String orderBy,
+            @RequestParam(required = false) String startAfter,
+            @RequestParam(required = false) String endBefore,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        ProyeccionJsonConfig.proyectar(fields);
+        String formato = ValidacionCondicional.formato();
+        Link self = enlaceListado(limit, orderBy, startAfter, endBefore, fields, IanaLinkRelations.SELF);
+        ConsultaPagina consulta = new ConsultaPagina(limit, orderBy, startAfter, endBefore, fields);
+        // * La versión se lee antes que la página y de la misma fuente: si cambia entre ambas
+        // * lecturas, el ETag queda desactualizado y la siguiente petición condicional recibe la
+        // * página completa. Las páginas que sirve la réplica no llevan ETag (versión null)
+        return clienteService.versionListadoAsync(consulta).thenCompose(version -> {
+            String etag = ValidacionCondicional.etagListado(version, self.getHref(), formato);
+            if (ValidacionCondicional.coincide(ifNoneMatch, etag)) {
+                // ! 304 Not Modified: no se consulta la página
+                return CompletableFuture.completedFuture(
+                        ValidacionCondicional.<CollectionModel<EntityModel<Cliente>>>noModificado(etag));
+            }
+            return clienteService.listarClientesAsync(consulta)
+                    .thenApply(pagina -> {
+                        List<EntityModel<Cliente>> clientes = pagina.getElementos()
+                                .stream()
+                                .map(clienteAssemblers::toModel)
+                                .collect(Collectors.toList());
+
+                        CollectionModel<EntityModel<Cliente>> collection = CollectionModel.of(clientes);
+                        collection.add(self);
+                        if (pagina.getCursorSiguiente() != null) {
+                            collection.add(enlaceListado(limit, orderBy, pagina.getCursorSiguiente(), null, fields,
+                                    IanaLinkRelations.NEXT));
+                        }
+                        if (pagina.getCursorAnterior() != null) {
+                            collection.add(enlaceListado(limit, orderBy, null, pagina.getCursorAnterior(), fields,
+                                    IanaLinkRelations.PREV));
+                        }
+                        collection.add(ClienteAssemblers.ENLACE_CREAR);
+
+                        return ValidacionCondicional.ok(etag).body(collection);
+                    });
+        });
+    }
+
+    // * Exportar todos los clientes como NDJSON (un documento JSON por línea)
+    // * Se lee por lotes y se escribe/flushea cada lote: memoria constante sin importar el tamaño
+    // ! Si el cliente se desconecta, la escritura falla y se detienen las lecturas a Firestore
+    @GetMapping(value = "/export", produces = MEDIA_TYPE_NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportarClientes() {
+        ObjectWriter writer = objectMapper.writerFor(Cliente.class);
+        StreamingResponseBody cuerpo = salida -> {
+            try {
+                clienteService.recorrerClientes(TAMANO_LOTE_EXPORTACION, lote -> {
+                    for (Cliente cliente : lote) {
+                        salida.write(writer.writeValueAsBytes(cliente));
+                        salida.write('\n');
+                    }
+                    salida.flush();
+                });
+            } catch (ExecutionException e) {
+                throw new IOException("Error al leer clientes desde Firestore", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Exportación de clientes interrumpida", e);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON))
+                .body(cuerpo);
+    }
+
+    // * Buscar clientes por nombre y apellidos mientras se escribe (sin tildes ni mayúsculas, admite prefijos)
+    // * Se resuelve desde un índice en memoria: no consulta Firestore
+    @GetMapping("/search")
+    public ResponseEntity<CollectionModel<EntityModel<Cliente>>> buscarClientes(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        List<EntityModel<Cliente>> clientes = clienteService.buscarClientes(q, limit)
                 .stream()
                 .map(clienteAssemblers::toModel)
                 .collect(Collectors.toList());
 
         CollectionModel<EntityModel<Cliente>> collection = CollectionModel.of(clientes);
-        collection.add(Link.of("/api/clientes").withSelfRel());
-        collection.add(Link.of("/api/clientes").withRel("crear"));
-
+        collection.add(Link.of(UriComponentsBuilder.fromPath(BASE_PATH + "/search")
+                .queryParam("q", q)
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .encode()
+                .toUriString(), IanaLinkRelations.SELF));
         return ResponseEntity.ok(collection);
     }
 
+    // * Obtener varios clientes por ID (?ids=a,b,c) con una sola lectura a Firestore
+    // * Los IDs inexistentes se informan en noEncontrados, sin hacer fallar la petición
+    @GetMapping(params = "ids")
+    public CompletableFuture<ResponseEntity<LecturaMultiple<EntityModel<Cliente>>>> obtenerClientesPorIds(
+            @RequestParam List<String> ids) {
+        return clienteService.obtenerClientesPorIdsAsync(ids).thenApply(this::lecturaMultiple);
+    }
+
+    // * Variante POST de la lectura por IDs para listas que no caben en la URL (cuerpo: arreglo JSON de IDs)
+    @PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<LecturaMultiple<EntityModel<Cliente>>>> buscarClientesPorIds(
+            @RequestBody List<String> ids) {
+        return clienteService.obtenerClientesPorIdsAsync(ids).thenApply(this::lecturaMultiple);
+    }
+
+    private ResponseEntity<LecturaMultiple<EntityModel<Cliente>>> lecturaMultiple(LecturaMultiple<Cliente> lectura) {
+        List<EntityModel<Cliente>> encontrados = lectura.getEncontrados().stream()
+                .map(clienteAssemblers::toModel)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new LecturaMultiple<>(encontrados, lectura.getNoEncontrados()));
+    }
+
+    // * Estadísticas para paneles: total de clientes con una agregación count(), reutilizada unos segundos
+    @GetMapping("/stats")
+    public CompletableFuture<ResponseEntity<EstadisticasClientes>> obtenerEstadisticas() {
+        return clienteService.estadisticasClientesAsync().thenApply(ResponseEntity::ok);
+    }
+
     // * Obtener un cliente por ID
     // TODO: Manejar el caso en que el cliente no exista (retornar 404)
+    // * ETag fuerte desde la hora de actualización del documento; If-None-Match vigente -> 304 sin cuerpo
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Cliente>> obtenerCliente(@PathVariable String id)
-            throws ExecutionException, InterruptedException {
-        Cliente cliente = clienteService.obtenerCliente(id);
-        return ResponseEntity.ok(clienteAssemblers.toModel(cliente));
+    public CompletableFuture<ResponseEntity<EntityModel<Cliente>>> obtenerCliente(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String formato = ValidacionCondicional.formato();
+        return clienteService.obtenerClienteVersionadoAsync(id)
+                .thenApply(versionado -> {
+                    String etag = ValidacionCondicional.etag(versionado.getVersion(), formato);
+                    if (ValidacionCondicional.coincide(ifNoneMatch, etag)) {
+                        return ValidacionCondicional.<EntityModel<Cliente>>noModificado(etag);
+                    }
+                    return ValidacionCondicional.ok(etag).body(clienteAssemblers.toModel(versionado.getEntidad()));
+                });
+    }
+
+    // * Obtener un cliente por RUT (índice único; acepta el valor en cualquier formato equivalente)
+    @GetMapping("/by-rut/{rut}")
+    public CompletableFuture<ResponseEntity<EntityModel<Cliente>>> obtenerClientePorRut(@PathVariable String rut) {
+        return clienteService.obtenerClientePorRutAsync(rut)
+                .thenApply(cliente -> ResponseEntity.ok(clienteAssemblers.toModel(cliente)));
     }
 
     // * Crear un nuevo cliente
     @PostMapping
-    public ResponseEntity<EntityModel<Cliente>> crearCliente(@RequestBody Cliente cliente)
-            throws ExecutionException, InterruptedException {
-        Cliente nuevoCliente = clienteService.crearCliente(cliente);
-        EntityModel<Cliente> resource = clienteAssemblers.toModel(nuevoCliente);
+    public CompletableFuture<ResponseEntity<EntityModel<Cliente>>> crearCliente(@RequestBody Cliente cliente) {
+        return clienteService.crearClienteAsync(cliente)
+                .thenApply(nuevoCliente -> ResponseEntity
+                        // ! Retorna 201 Created con la URI del nuevo recurso
+                        .created(ClienteAssemblers.enlaceRecurso(nuevoCliente.getId()).toUri())
+                        .body(clienteAssemblers.toModel(nuevoCliente)));
+    }
 
-        // ! Retorna 201 Created con la URI del nuevo recurso
-        return ResponseEntity
-                .created(Link.of("/api/clientes/" + nuevoCliente.getId()).toUri())
-                .body(resource);
+    // * Importación masiva desde un arreglo JSON o un flujo NDJSON
+    // * Los registros se leen uno a uno y se escriben en lotes con BulkWriter
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MEDIA_TYPE_NDJSON})
+    public ResponseEntity<ResultadoImportacion> importarClientes(InputStream cuerpo)
+            throws IOException, InterruptedException {
+        try (MappingIterator<Cliente> registros = objectMapper.readerFor(Cliente.class).readValues(cuerpo)) {
+            return ResponseEntity.ok(clienteService.importarClientes(registros));
+        }
     }
 
     // * Actualizar un cliente existente
     @PutMapping("/{id}")
-    public ResponseEntity<EntityModel<Cliente>> actualizarCliente(@PathVariable String id, @RequestBody Cliente cliente)
-            throws ExecutionException, InterruptedException {
-        Cliente clienteActualizado = clienteService.actualizarCliente(id, cliente);
-        return ResponseEntity.ok(clienteAssemblers.toModel(clienteActualizado));
+    public CompletableFuture<ResponseEntity<EntityModel<Cliente>>> actualizarCliente(
+            @PathVariable String id,
+            @RequestBody Cliente cliente) {
+        return clienteService.actualizarClienteAsync(id, cliente)
+                .thenApply(clienteActualizado -> ResponseEntity.ok(clienteAssemblers.toModel(clienteActualizado)));
+    }
+
+    // * Actualización parcial: solo se escriben los campos enviados (update() con sus rutas de campo)
+    // * If-Match con el ETag del cliente exige que no haya cambiado desde esa lectura (412 si cambió)
+    // * changedOnly=true responde solo con los campos modificados (y el id)
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MEDIA_TYPE_MERGE_PATCH})
+    public CompletableFuture<ResponseEntity<EntityModel<Cliente>>> actualizarClienteParcial(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> cambios,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestParam(defaultValue = "false") boolean changedOnly) {
+        if (changedOnly) {
+            ProyeccionJsonConfig.proyectar(new ArrayList<>(cambios.keySet()));
+        }
+        return clienteService.actualizarClienteParcialAsync(id, cambios, ValidacionCondicional.versionDe(ifMatch))
+                .thenApply(clienteActualizado -> ResponseEntity.ok(clienteAssemblers.toModel(clienteActualizado)));
     }
 
     // * Eliminar un cliente por ID
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> eliminarCliente(@PathVariable String id)
-            throws ExecutionException, InterruptedException {
-        clienteService.eliminarCliente(id);
-        return ResponseEntity.noContent().build(); // ! Retorna 204 No Content
+    public CompletableFuture<ResponseEntity<Void>> eliminarCliente(@PathVariable String id) {
+        return clienteService.eliminarClienteAsync(id)
+                .thenApply(sinContenido -> ResponseEntity.noContent().build()); // ! Retorna 204 No Content
     }
 
     // * Eliminar todos los clientes
@@ -85,4 +270,53 @@ public class ClienteController {
         clienteService.eliminarTodosClientes();
         return ResponseEntity.noContent().build(); // ! Retorna 204 No Content
     }
-}
\ No newline at end of file
+
+    // * Enlace relativo al listado con los parámetros de paginación indicados
+    // * (no depende de la petición en curso, por lo que puede armarse al completar el futuro)
+    private static Link enlaceListado(Integer limit, String orderBy, String startAfter, String endBefore,
+                                      List<String> fields, LinkRelation rel) {
+        String href = UriComponentsBuilder.fromPath(BASE_PATH)
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("orderBy", Optional.ofNullable(orderBy))
+                .queryParamIfPresent("startAfter", Optional.ofNullable(startAfter))
+                .queryParamIfPresent("endBefore", Optional.ofNullable(endBefore))
+                .queryParamIfPresent("fields", Optional.ofNullable(fields).map(campos -> String.join(",", campos)))
+                .encode()
+                .toUriString();
+        return Link.of(href, rel);
+    }
+
+    // * Parámetros inválidos (cursor corrupto, campo de orden o proyección no permitidos) -> 400 Bad Request
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> manejarParametroInvalido(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    // * RUT ya registrado para otro cliente -> 409 Conflict
+    @ExceptionHandler(RegistroDuplicadoException.class)
+    public ResponseEntity<String> manejarDuplicado(RegistroDuplicadoException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    // * El cliente cambió desde la versión indicada en If-Match -> 412 Precondition Failed
+    @ExceptionHandler(PrecondicionFallidaException.class)
+    public ResponseEntity<String> manejarPrecondicion(PrecondicionFallidaException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+    }
+
+    // * Índice de búsqueda aún cargándose (o búsqueda deshabilitada) -> 503 Service Unavailable
+    @ExceptionHandler(BusquedaNoDisponibleException.class)
+    public ResponseEntity<String> manejarBusquedaNoDisponible(BusquedaNoDisponibleException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, REINTENTO_BUSQUEDA_SEGUNDOS)
+                .body(e.getMessage());
+    }
+
+    // * Firestore saturado: límite de concurrencia completo y cola llena -> 503 Service Unavailable
+    @ExceptionHandler(ServicioSobrecargadoException.class)
+    public ResponseEntity<String> manejarSobrecarga(ServicioSobrecargadoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentoSegundos()))
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,177 @@
+package com.proyect.abogados.controller;
+
+import com.proyect.abogados.config.FormatosBinariosConfig;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Utilidades para las lecturas condicionales ({@code ETag} / {@code If-None-Match}).
+ *
+ * Los ETags son fuertes y se derivan de la versión que entrega el servicio (hora de
+ * actualización del documento o contador de cambios de la colección), por lo que se
+ * calculan sin serializar la respuesta. Cada formato (HAL JSON, CBOR, Smile) es una representación
+ * distinta del mismo recurso, por lo que recibe su propio ETag.
+ *
+ * @author PythonLovers
+ */
+final class ValidacionCondicional {
+
+    private ValidacionCondicional() {
+    }
+
+    /**
+     * Sufijo del ETag según el formato que la negociación de contenido elige para el
+     * encabezado {@code Accept} de la petición en curso (por ejemplo, con
+     * {@code application/json;q=0.5, application/cbor} se responde CBOR). Debe invocarse
+     * desde el hilo de la petición.
+     *
+     * @return {@code ""} para JSON, o el sufijo del formato binario solicitado
+     */
+    static String formato() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos)) {
+            return "";
+        }
+        String accept = atributos.getRequest().getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return "";
+        }
+        try {
+            // * Mismo orden que la negociación de contenido de Spring: factor q descendente y, a
+            // * igual factor, el tipo más específico; los tipos con q=0 no son aceptables
+            List<MediaType> tipos = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(tipos);
+            tipos.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType tipo : tipos) {
+                if (tipo.getQualityValue() == 0) {
+                    break;
+                }
+                if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(tipo)) {
+                    return "-cbor";
+                }
+                if (FormatosBinariosConfig.APPLICATION_SMILE.equalsTypeAndSubtype(tipo)) {
+                    return "-smile";
+                }
+                // * JSON, HAL JSON o comodines: la respuesta por defecto es JSON
+                if (tipo.isCompatibleWith(MediaType.APPLICATION_JSON) || tipo.getSubtype().endsWith("+json")) {
+                    return "";
+                }
+            }
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            // * Un Accept inválido (o con demasiados tipos) se rechaza más adelante en la negociación de contenido
+        }
+        return "";
+    }
+
+    /**
+     * ETag de un recurso individual.
+     *
+     * @param version versión del documento
+     * @param formato sufijo del formato de la respuesta (ver {@link #formato()})
+     * @return ETag entre comillas, o {@code null} si la versión se desconoce
+     */
+    static String etag(String version, String formato) {
+        return version == null ? null : "\"" + version + formato + "\"";
+    }
+
+    /**
+     * ETag de una vista de la colección: la misma versión produce ETags distintos para
+     * distintos parámetros (página, orden, filtros, proyección).
+     *
+     * @param version  versión de la colección
+     * @param variante representación de los parámetros de la vista (por ejemplo, su enlace self)
+     * @param formato  sufijo del formato de la respuesta (ver {@link #formato()})
+     * @return ETag entre comillas, o {@code null} si la versión se desconoce
+     */
+    static String etagListado(String version, String variante, String formato) {
+        return version == null ? null
+                : "\"" + version + "-" + Integer.toHexString(variante.hashCode()) + formato + "\"";
+    }
+
+    /**
+     * Indica si el encabezado {@code If-None-Match} coincide con el ETag actual. Acepta
+     * {@code *}, listas separadas por comas y la marca de ETag débil ({@code W/}), que
+     * para GET se compara de forma débil según RFC 9110.
+     *
+     * @param ifNoneMatch valor del encabezado ({@code null} si no se envió)
+     * @param etag        ETag actual ({@code null} si se desconoce)
+     * @return {@code true} si se debe responder {@code 304 Not Modified}
+     */
+    static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versión de documento indicada en un encabezado {@code If-Match}, para escrituras
+     * condicionales. Acepta el ETag de cualquier formato (y su variante débil); {@code *}
+     * no exige una versión concreta, ya que la escritura requiere que el documento exista.
+     *
+     * @param ifMatch valor del encabezado ({@code null} si no se envió)
+     * @return versión esperada, o {@code null} si no se exige ninguna
+     * @throws IllegalArgumentException si el valor no es un ETag de recurso de esta API
+     */
+    static String versionDe(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String valor = ifMatch.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        if (valor.length() < 2 || !valor.startsWith("\"") || !valor.endsWith("\"") || valor.contains(",")) {
+            throw new IllegalArgumentException("If-Match debe contener un único ETag: " + ifMatch);
+        }
+        // * El sufijo de formato (-cbor, -smile) no forma parte de la versión del documento
+        String etag = valor.substring(1, valor.length() - 1);
+        int sufijo = etag.indexOf('-');
+        return sufijo < 0 ? etag : etag.substring(0, sufijo);
+    }
+
+    /**
+     * Respuesta {@code 200 OK} con el ETag actual (si se conoce).
+     *
+     * @param etag ETag actual ({@code null} si se desconoce)
+     * @return builder de la respuesta
+     */
+    static ResponseEntity.BodyBuilder ok(String etag) {
+        // * La representación depende del Accept: las cachés intermedias deben distinguirlo
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        return etag == null ? respuesta : respuesta.eTag(etag);
+    }
+
+    /**
+     * Respuesta {@code 304 Not Modified}, sin cuerpo, que repite el ETag vigente.
+     *
+     * @param etag ETag actual
+     * @param <T>  tipo del cuerpo de la respuesta completa
+     * @return respuesta sin cuerpo
+     */
+    static <T> ResponseEntity<T> noModificado(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).eTag(etag).build();
+    }
+}
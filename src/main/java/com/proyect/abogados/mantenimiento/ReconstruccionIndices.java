@@ -0,0 +1,91 @@
+package com.proyect.abogados.mantenimiento;
+
+import com.proyect.abogados.model.ResultadoReindexado;
+import com.proyect.abogados.service.AbogadoService;
+import com.proyect.abogados.service.ClienteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comando de única ejecución que crea las entradas de los índices únicos
+ * ({@code indice_abogados_licencia} e {@code indice_clientes_rut}) para los documentos
+ * escritos antes de que los índices existieran.
+ *
+ * Solo se registra con el perfil {@code reindexar}, que además desactiva el servidor web:
+ * la aplicación recorre las colecciones, crea las entradas que faltan, informa los
+ * conflictos y termina. Termina con código 0 si no hubo conflictos, 2 si los hubo (deben
+ * corregirse a mano: dos documentos comparten el valor) y 1 ante un error.
+ *
+ * @author PythonLovers
+ */
+@Component
+@Profile("reindexar")
+@RequiredArgsConstructor
+public class ReconstruccionIndices implements CommandLineRunner {
+
+    private final AbogadoService abogadoService;
+    private final ClienteService clienteService;
+    private final ConfigurableApplicationContext contexto;
+
+    // * Índices a reconstruir
+    @Value("${reindexar.abogados:true}")
+    private boolean abogados;
+
+    @Value("${reindexar.clientes:true}")
+    private boolean clientes;
+
+    // * Entradas de índice creadas por segundo (bajo, para no competir con el tráfico real)
+    @Value("${reindexar.tasa:500}")
+    private int tasa;
+
+    // * Reconstrucción de un índice
+    @FunctionalInterface
+    private interface Indice {
+        ResultadoReindexado reconstruir(int opsPorSegundo) throws Exception;
+    }
+
+    @Override
+    public void run(String... args) {
+        int codigo = 0;
+        try {
+            boolean conflictos = false;
+            if (abogados) {
+                conflictos |= reconstruir("indice_abogados_licencia", abogadoService::reconstruirIndiceLicencias);
+            }
+            if (clientes) {
+                conflictos |= reconstruir("indice_clientes_rut", clienteService::reconstruirIndiceRut);
+            }
+            codigo = conflictos ? 2 : 0;
+        } catch (Exception e) {
+            System.err.println("❌ Error al reconstruir los índices únicos:");
+            e.printStackTrace();
+            codigo = 1;
+        }
+        // * Es un comando: al terminar se cierra la aplicación
+        int salida = codigo;
+        System.exit(SpringApplication.exit(contexto, () -> salida));
+    }
+
+    // * Reconstruye un índice e informa el resultado; devuelve si hubo conflictos
+    private boolean reconstruir(String nombre, Indice indice) throws Exception {
+        long comienzo = System.nanoTime();
+        ResultadoReindexado resultado = indice.reconstruir(tasa);
+        double segundos = Math.max(1e-3, (System.nanoTime() - comienzo) / (double) TimeUnit.SECONDS.toNanos(1));
+
+        System.out.printf("%s: %,d documentos revisados en %.1f s: %,d entradas creadas, %,d ya existentes, %,d sin valor, %,d conflictos.%n",
+                nombre, resultado.getRevisados(), segundos, resultado.getCreadas(), resultado.getExistentes(),
+                resultado.getSinValor(), resultado.getConflictos().size());
+        for (ResultadoReindexado.Conflicto conflicto : resultado.getConflictos()) {
+            System.out.printf("  ⚠ %s (valor \"%s\"): %s%s%n", conflicto.getId(), conflicto.getValor(),
+                    conflicto.getMensaje(), conflicto.getDueno() == null ? "" : " (" + conflicto.getDueno() + ")");
+        }
+        return !resultado.getConflictos().isEmpty();
+    }
+}
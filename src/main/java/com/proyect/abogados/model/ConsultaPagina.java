@@ -0,0 +1,96 @@
+package com.proyect.abogados.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Parámetros de una consulta paginada por cursor (keyset pagination).
+ *
+ * Los cursores son opacos para el cliente: corresponden al ID codificado del
+ * último (o primer) documento de la página anterior, de modo que Firestore
+ * continúa la lectura exactamente desde ese punto sin recorrer la colección.
+ *
+ * @author PythonLovers
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ConsultaPagina {
+
+    /** Tamaño de página usado cuando el cliente no indica {@code limit}. */
+    public static final int LIMITE_POR_DEFECTO = 50;
+
+    /** Tamaño máximo de página permitido para acotar memoria por request. */
+    public static final int LIMITE_MAXIMO = 500;
+
+    /** Cantidad de elementos solicitados por página. */
+    private Integer limite;
+
+    /** Campo por el cual ordenar la colección (por defecto, el ID del documento). */
+    private String ordenarPor;
+
+    /** Cursor de la página siguiente: se leen los documentos posteriores a él. */
+    private String despuesDe;
+
+    /** Cursor de la página anterior: se leen los documentos previos a él. */
+    private String antesDe;
+
+    /**
+     * Campos a incluir en cada elemento (proyección); {@code null} o vacío para todos.
+     * El ID se incluye siempre.
+     */
+    private List<String> campos;
+
+    /**
+     * Crea una consulta con los parámetros indicados.
+     *
+     * @param limite     tamaño de página solicitado (puede ser {@code null})
+     * @param ordenarPor campo de ordenamiento (puede ser {@code null})
+     * @param despuesDe  cursor de avance (puede ser {@code null})
+     * @param antesDe    cursor de retroceso (puede ser {@code null})
+     */
+    public ConsultaPagina(Integer limite, String ordenarPor, String despuesDe, String antesDe) {
+        this(limite, ordenarPor, despuesDe, antesDe, null);
+    }
+
+    /**
+     * Crea una consulta que solo lee los campos indicados de cada documento.
+     *
+     * @param limite     tamaño de página solicitado (puede ser {@code null})
+     * @param ordenarPor campo de ordenamiento (puede ser {@code null})
+     * @param despuesDe  cursor de avance (puede ser {@code null})
+     * @param antesDe    cursor de retroceso (puede ser {@code null})
+     * @param campos     campos de la proyección (puede ser {@code null})
+     */
+    public ConsultaPagina(Integer limite, String ordenarPor, String despuesDe, String antesDe, List<String> campos) {
+        this.limite = limite;
+        this.ordenarPor = ordenarPor;
+        this.despuesDe = despuesDe;
+        this.antesDe = antesDe;
+        this.campos = campos;
+    }
+
+    /**
+     * Indica si se solicitó una proyección.
+     *
+     * @return {@code true} si la consulta limita los campos de cada elemento
+     */
+    public boolean tieneProyeccion() {
+        return campos != null && !campos.isEmpty();
+    }
+
+    /**
+     * Devuelve el tamaño de página a usar, acotado entre 1 y {@link #LIMITE_MAXIMO}.
+     *
+     * @return límite efectivo de la página
+     */
+    public int limiteEfectivo() {
+        if (limite == null || limite <= 0) {
+            return LIMITE_POR_DEFECTO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+}
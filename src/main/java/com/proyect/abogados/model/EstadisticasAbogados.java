@@ -0,0 +1,28 @@
+package com.proyect.abogados.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Estadísticas agregadas de la colección de abogados para los paneles de gestión.
+ *
+ * Se calculan con consultas de agregación de Firestore, que entregan un único resultado
+ * sin transferir los documentos.
+ *
+ * @author PythonLovers
+ */
+@Getter
+@AllArgsConstructor
+public class EstadisticasAbogados {
+
+    /** Cantidad total de abogados. */
+    private final long total;
+
+    /** Promedio de años de experiencia, o {@code null} si la colección está vacía. */
+    private final Double promedioAniosExperiencia;
+
+    /** Cantidad de abogados por cada especialidad consultada, en el orden pedido. */
+    private final Map<String, Long> porEspecialidad;
+}
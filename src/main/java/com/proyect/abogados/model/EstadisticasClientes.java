@@ -0,0 +1,17 @@
+package com.proyect.abogados.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Estadísticas agregadas de la colección de clientes para los paneles de gestión.
+ *
+ * @author PythonLovers
+ */
+@Getter
+@AllArgsConstructor
+public class EstadisticasClientes {
+
+    /** Cantidad total de clientes. */
+    private final long total;
+}
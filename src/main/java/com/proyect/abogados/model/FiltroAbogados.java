@@ -0,0 +1,70 @@
+package com.proyect.abogados.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Filtros del listado de abogados que se resuelven en Firestore.
+ *
+ * Las igualdades ({@code especialidad}, {@code universidad}) se traducen a
+ * {@code whereEqualTo} y el rango de años de experiencia a
+ * {@code whereGreaterThanOrEqualTo / whereLessThanOrEqualTo}, de modo que solo
+ * se leen los documentos que cumplen el filtro.
+ *
+ * @author PythonLovers
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class FiltroAbogados {
+
+    /** Especialidad exacta del abogado. */
+    private String especialidad;
+
+    /** Universidad exacta de egreso. */
+    private String universidad;
+
+    /** Mínimo de años de experiencia (inclusive). */
+    private Integer minAnios;
+
+    /** Máximo de años de experiencia (inclusive). */
+    private Integer maxAnios;
+
+    /**
+     * Crea un filtro con los valores indicados.
+     *
+     * @param especialidad especialidad exacta (puede ser {@code null})
+     * @param universidad  universidad exacta (puede ser {@code null})
+     * @param minAnios     mínimo de años de experiencia (puede ser {@code null})
+     * @param maxAnios     máximo de años de experiencia (puede ser {@code null})
+     */
+    public FiltroAbogados(String especialidad, String universidad, Integer minAnios, Integer maxAnios) {
+        this.especialidad = especialidad;
+        this.universidad = universidad;
+        this.minAnios = minAnios;
+        this.maxAnios = maxAnios;
+    }
+
+    /**
+     * Indica si el filtro incluye un rango sobre los años de experiencia.
+     *
+     * @return {@code true} si se indicó {@code minAnios} o {@code maxAnios}
+     */
+    public boolean tieneRango() {
+        return minAnios != null || maxAnios != null;
+    }
+
+    /**
+     * Indica si no se indicó ningún filtro.
+     *
+     * @return {@code true} si el listado no está filtrado
+     */
+    public boolean estaVacio() {
+        return !tieneRango() && esVacio(especialidad) && esVacio(universidad);
+    }
+
+    private static boolean esVacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+}
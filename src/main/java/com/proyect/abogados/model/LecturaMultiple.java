@@ -0,0 +1,24 @@
+package com.proyect.abogados.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resultado de una lectura de varias entidades por ID: las encontradas y los IDs que
+ * no existen, informados por separado en lugar de hacer fallar toda la lectura.
+ *
+ * @param <T> tipo de la entidad
+ * @author PythonLovers
+ */
+@Getter
+@AllArgsConstructor
+public class LecturaMultiple<T> {
+
+    /** Entidades encontradas, en el orden en que se pidieron sus IDs. */
+    private final List<T> encontrados;
+
+    /** IDs pedidos que no corresponden a ninguna entidad. */
+    private final List<String> noEncontrados;
+}
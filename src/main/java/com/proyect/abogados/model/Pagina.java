@@ -0,0 +1,26 @@
+package com.proyect.abogados.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resultado de una consulta paginada por cursor.
+ *
+ * @param <T> tipo de los elementos de la página
+ * @author PythonLovers
+ */
+@Getter
+@AllArgsConstructor
+public class Pagina<T> {
+
+    /** Elementos de la página actual. */
+    private final List<T> elementos;
+
+    /** Cursor para obtener la página siguiente, o {@code null} si no existe. */
+    private final String cursorSiguiente;
+
+    /** Cursor para obtener la página anterior, o {@code null} si es la primera. */
+    private final String cursorAnterior;
+}
@@ -0,0 +1,43 @@
+package com.proyect.abogados.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva: IDs creados y fallos por registro.
+ *
+ * @author PythonLovers
+ */
+@Getter
+public class ResultadoImportacion {
+
+    /** IDs asignados a los registros creados correctamente, en orden de llegada. */
+    private final List<String> creados = new ArrayList<>();
+
+    /** Registros que no pudieron leerse o escribirse. */
+    private final List<Fallo> fallos = new ArrayList<>();
+
+    /**
+     * Fallo de un registro individual dentro de la importación.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Fallo {
+
+        /** Posición del registro en la entrada (comenzando en 0). */
+        private final int indice;
+
+        /** Descripción del error. */
+        private final String mensaje;
+    }
+
+    /**
+     * @return cantidad total de registros procesados (creados + fallidos)
+     */
+    public int getTotal() {
+        return creados.size() + fallos.size();
+    }
+}
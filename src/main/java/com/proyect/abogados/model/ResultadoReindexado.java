@@ -0,0 +1,73 @@
+package com.proyect.abogados.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de la reconstrucción de un índice único sobre los documentos existentes.
+ *
+ * @author PythonLovers
+ */
+@Getter
+public class ResultadoReindexado {
+
+    /** Documentos revisados de la colección. */
+    private long revisados;
+
+    /** Entradas de índice creadas (documentos que no estaban indexados). */
+    private long creadas;
+
+    /** Documentos cuya entrada de índice ya existía y apuntaba a ellos. */
+    private long existentes;
+
+    /** Documentos sin valor en el campo indexado (no se indexan). */
+    private long sinValor;
+
+    /** Documentos que no se pudieron indexar. */
+    private final List<Conflicto> conflictos = new ArrayList<>();
+
+    /**
+     * Documento cuyo valor ya pertenece a otro, es inválido o no se pudo escribir.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Conflicto {
+
+        /** ID del documento que no se pudo indexar. */
+        private final String id;
+
+        /** Valor del campo indexado, tal como está almacenado. */
+        private final String valor;
+
+        /** ID del documento dueño de la entrada, o {@code null} si el conflicto no es un duplicado. */
+        private final String dueno;
+
+        /** Descripción del conflicto. */
+        private final String mensaje;
+    }
+
+    /**
+     * @param cantidad documentos revisados en un lote
+     */
+    public void sumarRevisados(long cantidad) {
+        revisados += cantidad;
+    }
+
+    /** Registra una entrada de índice creada. */
+    public void sumarCreada() {
+        creadas++;
+    }
+
+    /** Registra un documento que ya estaba indexado. */
+    public void sumarExistente() {
+        existentes++;
+    }
+
+    /** Registra un documento sin valor en el campo indexado. */
+    public void sumarSinValor() {
+        sinValor++;
+    }
+}
@@ -0,0 +1,25 @@
+package com.proyect.abogados.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Entidad junto con la versión del documento desde el que se leyó.
+ *
+ * La versión corresponde al instante de la última actualización del documento en
+ * Firestore: dos lecturas con la misma versión tienen el mismo contenido. Se usa
+ * para generar ETags y responder {@code 304 Not Modified}.
+ *
+ * @param <T> tipo de la entidad
+ * @author PythonLovers
+ */
+@Getter
+@AllArgsConstructor
+public class Versionado<T> {
+
+    /** Entidad leída. */
+    private final T entidad;
+
+    /** Versión del documento, o {@code null} si se desconoce (por ejemplo, tras una escritura local). */
+    private final String version;
+}
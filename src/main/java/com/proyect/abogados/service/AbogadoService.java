@@ -1,35 +1,386 @@
 package com.proyect.abogados.service;
 
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.google.cloud.firestore.Firestore;
+import com.proyect.abogados.config.FirebaseConfig;
 import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.EstadisticasAbogados;
+import com.proyect.abogados.model.FiltroAbogados;
+import com.proyect.abogados.model.LecturaMultiple;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.model.ResultadoReindexado;
+import com.proyect.abogados.model.Versionado;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
 
 /**
  * Servicio encargado de gestionar las operaciones de negocio relacionadas con
  * abogados,
  * interactuando directamente con la base de datos Firestore.
  *
- * Permite realizar operaciones CRUD sobre la colección {@code abogados}.
+ * Permite realizar operaciones CRUD sobre la colección {@code abogados}. Las lecturas y
+ * escrituras pasan por un {@link AlmacenEntidades} (Firestore, o el motor en memoria en
+ * {@link AbogadoServiceMemoria}), de modo que la caché, las lecturas compartidas, la réplica,
+ * las métricas y la escritura agrupada se resuelven aquí una sola vez.
  */
 @Service
+@Profile("!memoria")
 public class AbogadoService {
 
     /** Nombre de la colección en Firestore donde se almacenan los abogados. */
     private static final String COLLECTION_NAME = "abogados";
 
+    /** Propiedad de Firestore con la especialidad (filtro de igualdad y conteo por especialidad). */
+    static final String CAMPO_ESPECIALIDAD = "especialidad";
+
+    /** Propiedad de Firestore con los años de experiencia (campo del filtro por rango). */
+    static final String CAMPO_ANIOS = "aniosExperiencia";
+
+    /**
+     * Campos por los que se permite ordenar los listados paginados (además del ID).
+     * Coinciden con los nombres de propiedad que Firestore usa al mapear {@link Abogado}.
+     */
+    static final Set<String> CAMPOS_ORDENABLES = Set.of(
+            "especialidad", "universidad", "aniosExperiencia", "licencia", "rut", "pnombre", "papellido");
+
+    /**
+     * Campos por los que se permite ordenar un listado filtrado (además del ID).
+     * Cada combinación de filtro y orden tiene su índice compuesto en {@code firestore.indexes.json}.
+     */
+    static final Set<String> CAMPOS_ORDENABLES_CON_FILTRO = Set.of(CAMPO_ANIOS, "papellido");
+
+    /** Campos que se pueden pedir con {@code fields} en los listados (además del ID). */
+    static final Set<String> CAMPOS_PROYECTABLES = Set.of("rut", "pnombre", "snombre", "papellido", "sapellido",
+            "documento", "especialidad", "universidad", "licencia", CAMPO_ANIOS);
+
+    /** Índice único de licencias: cada licencia normalizada apunta al ID de su abogado. */
+    static final IndiceUnico<Abogado> INDICE_LICENCIA = new IndiceUnico<>("indice_abogados_licencia", "licencia",
+            Abogado::getLicencia, IndiceUnico::normalizarTexto);
+
+    /** Campos que admite la actualización parcial (PATCH): los mismos que la proyección. */
+    static final ActualizacionParcial<Abogado> PARCIAL = new ActualizacionParcial<>(Abogado.class, CAMPOS_PROYECTABLES);
+
+    /** Marcador de versión de la colección (ETag de los listados). */
+    private static final MarcadorColeccion MARCADOR = new MarcadorColeccion(COLLECTION_NAME);
+
+    /** Caché de lectura por ID (entidad y versión); se reconfigura desde Spring con los valores de propiedades. */
+    private CacheEntidades<Versionado<Abogado>> cache = new CacheEntidades<>(COLLECTION_NAME,
+            CacheEntidades.TAMANO_MAXIMO_POR_DEFECTO, CacheEntidades.TTL_POR_DEFECTO);
+
+    /**
+     * Configura la caché de lectura con los límites definidos en las propiedades
+     * y registra sus métricas (aciertos, fallos, expulsiones) en el actuator.
+     *
+     * @param tamanoMaximo cantidad máxima de abogados en caché
+     * @param ttl          tiempo de vida de cada entrada
+     * @param registry     registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarCache(@Value("${abogados.cache.tamano-maximo:10000}") long tamanoMaximo,
+                         @Value("${abogados.cache.ttl:PT5M}") Duration ttl,
+                         ObjectProvider<MeterRegistry> registry) {
+        cache = new CacheEntidades<>(COLLECTION_NAME, tamanoMaximo, ttl);
+        registry.ifAvailable(cache::registrarMetricas);
+    }
+
+    /** Especialidades que se pueden contar en una misma consulta de estadísticas. */
+    static final int MAXIMO_ESPECIALIDADES = 20;
+
+    /** Caché de corta duración de las estadísticas, por combinación de especialidades consultadas. */
+    private CacheEntidades<EstadisticasAbogados> estadisticas = new CacheEntidades<>(COLLECTION_NAME + ".estadisticas",
+            1_000, Duration.ofSeconds(30));
+
+    /**
+     * Configura cuánto tiempo se reutilizan las estadísticas calculadas, para que los refrescos
+     * de los paneles no repitan las consultas de agregación, y registra las métricas de su caché.
+     *
+     * @param ttl      tiempo de vida de cada resultado
+     * @param registry registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarEstadisticas(@Value("${abogados.estadisticas.ttl:PT30S}") Duration ttl,
+                                ObjectProvider<MeterRegistry> registry) {
+        estadisticas = new CacheEntidades<>(COLLECTION_NAME + ".estadisticas", 1_000, ttl);
+        registry.ifAvailable(estadisticas::registrarMetricas);
+    }
+
+    /** Métricas de latencia y documentos leídos de las operaciones contra Firestore. */
+    private final MetricasFirestore metricas = new MetricasFirestore(COLLECTION_NAME);
+
+    // * Lecturas idénticas concurrentes comparten la lectura en curso (las lecturas por ID ya las agrupa la caché)
+    private final LecturasCompartidas<List<Object>, Pagina<Abogado>> listadosEnCurso =
+            new LecturasCompartidas<>(COLLECTION_NAME, MetricasFirestore.LISTAR);
+    private final LecturasCompartidas<String, String> versionEnCurso =
+            new LecturasCompartidas<>(COLLECTION_NAME, MetricasFirestore.VERSION);
+    private final LecturasCompartidas<String, String> indiceEnCurso =
+            new LecturasCompartidas<>(COLLECTION_NAME, MetricasFirestore.BUSCAR_INDICE);
+
+    /** Almacenamiento en Firestore de la colección; es el almacenamiento por defecto. */
+    private final AlmacenFirestore<Abogado> almacenFirestore = new AlmacenFirestore<>(COLLECTION_NAME, Abogado.class,
+            Abogado::getId, Abogado::setId, INDICE_LICENCIA, PARCIAL, MARCADOR, this::firestore, metricas);
+
+    /** Almacenamiento sobre el que operan todas las lecturas y escrituras. */
+    private AlmacenEntidades<Abogado> almacen = almacenFirestore;
+
+    // * Si el almacenamiento notifica sus cambios al índice de búsqueda, la búsqueda no necesita réplica
+    private boolean busquedaPorAlmacen;
+
+    /**
+     * Reemplaza el almacenamiento de la colección; lo usa la variante en memoria.
+     *
+     * @param almacen almacenamiento a usar
+     */
+    void usarAlmacen(AlmacenEntidades<Abogado> almacen) {
+        this.almacen = almacen;
+        busquedaPorAlmacen = almacen.conOyente(busqueda);
+    }
+
+    /**
+     * Registra las métricas de las operaciones contra Firestore (latencia por operación
+     * y resultado, documentos por lectura, lecturas compartidas) en el actuator.
+     *
+     * @param registry registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarMetricas(ObjectProvider<MeterRegistry> registry) {
+        registry.ifAvailable(metricas::registrarMetricas);
+        registry.ifAvailable(listadosEnCurso::registrarMetricas);
+        registry.ifAvailable(versionEnCurso::registrarMetricas);
+        registry.ifAvailable(indiceEnCurso::registrarMetricas);
+    }
+
+    /**
+     * Limita las llamadas concurrentes a Firestore con un límite adaptativo a la latencia
+     * observada y una cola de espera acotada; el exceso se descarta con
+     * {@link ServicioSobrecargadoException} en lugar de bloquear más hilos.
+     *
+     * @param habilitado       si se debe limitar la concurrencia
+     * @param inicial          llamadas concurrentes permitidas al iniciar
+     * @param minimo           límite mínimo
+     * @param maximo           límite máximo
+     * @param cola             llamadas que pueden esperar un permiso
+     * @param esperaMaxima     tiempo máximo de espera en la cola
+     * @param latenciaObjetivo latencia por encima de la cual se reduce el límite
+     * @param registry         registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarLimite(@Value("${firestore.limite.habilitado:false}") boolean habilitado,
+                          @Value("${firestore.limite.inicial:20}") int inicial,
+                          @Value("${firestore.limite.minimo:4}") int minimo,
+                          @Value("${firestore.limite.maximo:200}") int maximo,
+                          @Value("${firestore.limite.cola:100}") int cola,
+                          @Value("${firestore.limite.espera-maxima:PT1S}") Duration esperaMaxima,
+                          @Value("${firestore.limite.latencia-objetivo:PT0.5S}") Duration latenciaObjetivo,
+                          ObjectProvider<MeterRegistry> registry) {
+        if (habilitado) {
+            LimiteConcurrencia limite = new LimiteConcurrencia(COLLECTION_NAME, inicial, minimo, maximo, cola,
+                    esperaMaxima, latenciaObjetivo);
+            registry.ifAvailable(limite::registrarMetricas);
+            metricas.limitarCon(limite);
+        }
+    }
+
+    /** Escrituras agrupadas en lotes ({@code null} si están deshabilitadas: cada escritura es una transacción). */
+    private EscrituraAgrupada<Abogado> escrituraAgrupada;
+
     /**
-     * Obtiene una instancia de Firestore desde Firebase.
+     * Agrupa las creaciones y actualizaciones concurrentes en lotes del almacenamiento (commits
+     * de {@code WriteBatch} en Firestore) si está habilitado por propiedades, y registra el
+     * tamaño y la latencia de cada lote.
+     *
+     * @param habilitada   si se deben agrupar las escrituras
+     * @param tamanoLote   escrituras que completan un lote
+     * @param esperaMaxima espera máxima de la primera escritura de un lote incompleto
+     * @param registry     registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarEscrituraAgrupada(@Value("${firestore.escritura-agrupada.habilitada:false}") boolean habilitada,
+                                     @Value("${firestore.escritura-agrupada.tamano-lote:100}") int tamanoLote,
+                                     @Value("${firestore.escritura-agrupada.espera-maxima:PT0.01S}") Duration esperaMaxima,
+                                     ObjectProvider<MeterRegistry> registry) {
+        if (habilitada) {
+            escrituraAgrupada = new EscrituraAgrupada<>(COLLECTION_NAME, () -> almacen, INDICE_LICENCIA,
+                    tamanoLote, esperaMaxima, this::crearIndividual, this::actualizarIndividual);
+            registry.ifAvailable(escrituraAgrupada::registrarMetricas);
+        }
+    }
+
+    // * Confirma el lote en curso al cerrar el contexto, para no dejar esperando a quien lo encoló
+    @PreDestroy
+    void detenerEscrituraAgrupada() {
+        if (escrituraAgrupada != null) {
+            escrituraAgrupada.confirmarPendientes();
+        }
+    }
+
+    /** Réplica en memoria alimentada por un snapshot listener ({@code null} si está deshabilitada). */
+    private ReplicaColeccion<Abogado> replica;
+
+    /**
+     * Crea la réplica en memoria de la colección si está habilitada por propiedades.
+     * El listener se registra recién cuando la aplicación está lista.
+     *
+     * @param habilitada si se debe mantener la réplica en memoria
+     * @param registry   registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarReplica(@Value("${abogados.replica.habilitada:false}") boolean habilitada,
+                           ObjectProvider<MeterRegistry> registry) {
+        if (habilitada) {
+            replica = new ReplicaColeccion<>(COLLECTION_NAME, Abogado.class,
+                    () -> firestore().collection(COLLECTION_NAME));
+            registry.ifAvailable(replica::registrarMetricas);
+        }
+    }
+
+    // * Registra el snapshot listener una vez inicializado Firebase
+    @EventListener(ApplicationReadyEvent.class)
+    void iniciarReplica() {
+        if (replica != null) {
+            // * La réplica alimenta el índice de búsqueda desde su instantánea inicial
+            if (busquedaHabilitada) {
+                replica.setOyente(busqueda);
+            }
+            replica.iniciar();
+        }
+    }
+
+    // * Quita el listener al cerrar el contexto
+    @PreDestroy
+    void detenerReplica() {
+        if (replica != null) {
+            replica.detener();
+        }
+    }
+
+    // * Solo se responde desde memoria cuando la réplica completó su sincronización
+    private boolean replicaLista() {
+        return replica != null && replica.estaLista();
+    }
+
+    // * La réplica solo sirve páginas ordenadas por ID
+    private static boolean ordenPorId(ConsultaPagina consulta) {
+        String orden = consulta.getOrdenarPor();
+        return orden == null || orden.isBlank() || "id".equals(orden);
+    }
+
+    /** Índice en memoria para la búsqueda por nombre. */
+    final IndiceBusqueda<Abogado> busqueda = new IndiceBusqueda<>();
+
+    private boolean busquedaHabilitada;
+
+    /**
+     * Habilita o deshabilita la búsqueda por nombre (y la memoria que ocupa su índice).
+     * Está deshabilitada por defecto: solo puede habilitarse junto con la réplica o con el
+     * perfil {@code memoria}, que mantienen el índice al día sin recorrer la colección.
+     *
+     * @param habilitada si se debe mantener el índice de búsqueda
+     */
+    @Autowired
+    void configurarBusqueda(@Value("${abogados.busqueda.habilitada:false}") boolean habilitada) {
+        busquedaHabilitada = habilitada;
+    }
+
+    // * El índice solo se alimenta de la réplica o del almacenamiento en memoria: sin ninguno de
+    // * los dos habría que recorrer la colección completa en cada arranque, por lo que se rechaza
+    @PostConstruct
+    void validarBusqueda() {
+        if (busquedaHabilitada && replica == null && !busquedaPorAlmacen) {
+            throw new IllegalStateException("abogados.busqueda.habilitada requiere abogados.replica.habilitada=true"
+                    + " o el perfil memoria");
+        }
+    }
+
+    // * El almacenamiento en memoria ya alimenta el índice en cada escritura: no hay nada que cargar
+    @EventListener(ApplicationReadyEvent.class)
+    void iniciarBusqueda() {
+        if (busquedaPorAlmacen) {
+            busqueda.marcarLista();
+        }
+    }
+
+    // * Publica una escritura local: la réplica (si existe) la propaga al índice de búsqueda
+    private void publicar(String id, Abogado abogado) {
+        olvidarLecturasEnCurso();
+        if (replica != null) {
+            replica.aplicar(id, abogado);
+        }
+    }
+
+    private void retirar(String id) {
+        olvidarLecturasEnCurso();
+        if (replica != null) {
+            replica.quitar(id);
+        }
+    }
+
+    private void retirarTodos() {
+        olvidarLecturasEnCurso();
+        if (replica != null) {
+            replica.vaciar();
+        }
+    }
+
+    // * Tras una escritura local, las lecturas siguientes no se suman a una iniciada antes de ella
+    private void olvidarLecturasEnCurso() {
+        listadosEnCurso.olvidarTodo();
+        versionEnCurso.olvidarTodo();
+        indiceEnCurso.olvidarTodo();
+    }
+
+    // * Consultas con los mismos parámetros (página, orden, proyección y filtro) comparten la lectura
+    private static List<Object> claveListado(ConsultaPagina consulta, FiltroAbogados filtro) {
+        return Arrays.asList(consulta.getLimite(), consulta.getOrdenarPor(), consulta.getDespuesDe(),
+                consulta.getAntesDe(), consulta.getCampos(),
+                filtro == null ? null : filtro.getEspecialidad(), filtro == null ? null : filtro.getUniversidad(),
+                filtro == null ? null : filtro.getMinAnios(), filtro == null ? null : filtro.getMaxAnios());
+    }
+
+    /**
+     * Configura el tamaño de lote y el paralelismo (operaciones por segundo) de la importación masiva.
+     *
+     * @param tamanoLote   registros confirmados por lote
+     * @param opsIniciales operaciones por segundo iniciales del BulkWriter
+     * @param opsMaximas   operaciones por segundo máximas del BulkWriter
+     */
+    @Autowired
+    void configurarImportacion(@Value("${importacion.tamano-lote:1000}") int tamanoLote,
+                               @Value("${importacion.ops-iniciales-por-segundo:5000}") int opsIniciales,
+                               @Value("${importacion.ops-maximas-por-segundo:20000}") int opsMaximas) {
+        almacenFirestore.setImportacion(new ImportacionMasiva(tamanoLote, opsIniciales, opsMaximas));
+    }
+
+    /**
+     * Obtiene una instancia de Firestore desde Firebase (inicializándolo en el primer uso
+     * si el arranque es diferido).
      *
      * @return instancia de {@link Firestore}
      */
     protected Firestore firestore() {
-        return FirestoreClient.getFirestore();
+        return FirebaseConfig.firestore();
     }
 
     /**
@@ -40,10 +391,126 @@ public class AbogadoService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public List<Abogado> listarAbogados() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = firestore().collection(COLLECTION_NAME).get();
-        return future.get().getDocuments().stream()
-                .map(doc -> doc.toObject(Abogado.class))
-                .collect(Collectors.toList());
+        if (replicaLista()) {
+            return replica.listar();
+        }
+        List<Abogado> abogados = metricas.medir(MetricasFirestore.LISTAR, () -> almacen.listar());
+        metricas.documentos(MetricasFirestore.LISTAR, abogados.size());
+        return abogados;
+    }
+
+    /**
+     * Lista una página de abogados usando paginación por cursor.
+     * Solo se leen desde Firestore los documentos de la página solicitada.
+     *
+     * @param consulta límite, campo de ordenamiento, cursores y campos de la página
+     * @return página de objetos {@link Abogado} con los cursores siguiente/anterior
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public Pagina<Abogado> listarAbogados(ConsultaPagina consulta) throws ExecutionException, InterruptedException {
+        PaginacionFirestore.validarCampos(consulta, CAMPOS_PROYECTABLES);
+        if (replicaLista() && ordenPorId(consulta)) {
+            return replica.paginar(consulta);
+        }
+        return metricas.listar(() -> almacen.paginar(consulta, List.of(), CAMPOS_ORDENABLES));
+    }
+
+    /**
+     * Lista una página de abogados que cumplen el filtro. El filtro se resuelve en
+     * Firestore con {@code whereEqualTo} y un rango sobre los años de experiencia,
+     * por lo que solo se leen los documentos coincidentes de la página solicitada.
+     *
+     * @param consulta límite, campo de ordenamiento y cursores de la página
+     * @param filtro   especialidad, universidad y rango de años de experiencia
+     * @return página de objetos {@link Abogado} con los cursores siguiente/anterior
+     * @throws ExecutionException       si ocurre un error durante la operación
+     * @throws InterruptedException     si la ejecución es interrumpida
+     * @throws IllegalArgumentException si el filtro o el orden solicitado no son válidos
+     */
+    public Pagina<Abogado> listarAbogados(ConsultaPagina consulta, FiltroAbogados filtro)
+            throws ExecutionException, InterruptedException {
+        if (filtro == null || filtro.estaVacio()) {
+            return listarAbogados(consulta);
+        }
+        PaginacionFirestore.validarCampos(consulta, CAMPOS_PROYECTABLES);
+        List<AlmacenEntidades.Condicion> condiciones = condiciones(filtro);
+        ConsultaPagina ordenada = ordenConFiltro(consulta, filtro);
+        return metricas.listar(() -> almacen.paginar(ordenada, condiciones, CAMPOS_ORDENABLES_CON_FILTRO));
+    }
+
+    // * Traduce el filtro a condiciones sobre la colección
+    private static List<AlmacenEntidades.Condicion> condiciones(FiltroAbogados filtro) {
+        validarFiltro(filtro);
+        List<AlmacenEntidades.Condicion> condiciones = new ArrayList<>();
+        if (filtro.getEspecialidad() != null && !filtro.getEspecialidad().isBlank()) {
+            condiciones.add(AlmacenEntidades.Condicion.igual(CAMPO_ESPECIALIDAD, filtro.getEspecialidad()));
+        }
+        if (filtro.getUniversidad() != null && !filtro.getUniversidad().isBlank()) {
+            condiciones.add(AlmacenEntidades.Condicion.igual("universidad", filtro.getUniversidad()));
+        }
+        if (filtro.getMinAnios() != null) {
+            condiciones.add(AlmacenEntidades.Condicion.desde(CAMPO_ANIOS, filtro.getMinAnios()));
+        }
+        if (filtro.getMaxAnios() != null) {
+            condiciones.add(AlmacenEntidades.Condicion.hasta(CAMPO_ANIOS, filtro.getMaxAnios()));
+        }
+        return condiciones;
+    }
+
+    // * Rechaza rangos vacíos antes de consultar
+    static void validarFiltro(FiltroAbogados filtro) {
+        if (filtro.getMinAnios() != null && filtro.getMaxAnios() != null
+                && filtro.getMinAnios() > filtro.getMaxAnios()) {
+            throw new IllegalArgumentException("minAnios no puede ser mayor que maxAnios");
+        }
+    }
+
+    // * Con un rango sobre los años, Firestore exige ordenar primero por ese mismo campo:
+    // * se usa como orden por defecto y se rechaza cualquier otro
+    static ConsultaPagina ordenConFiltro(ConsultaPagina consulta, FiltroAbogados filtro) {
+        if (!filtro.tieneRango()) {
+            return consulta;
+        }
+        String orden = consulta.getOrdenarPor();
+        if (orden == null || orden.isBlank()) {
+            return new ConsultaPagina(consulta.getLimite(), CAMPO_ANIOS, consulta.getDespuesDe(), consulta.getAntesDe(),
+                    consulta.getCampos());
+        }
+        if (!CAMPO_ANIOS.equals(orden)) {
+            // ! Una desigualdad sobre aniosExperiencia no admite ordenar por otro campo
+            throw new IllegalArgumentException("Con minAnios/maxAnios solo se puede ordenar por " + CAMPO_ANIOS);
+        }
+        return consulta;
+    }
+
+    /**
+     * Recorre todos los abogados de la colección por lotes, sin cargarla completa en memoria.
+     * Pensado para exportaciones masivas que escriben cada lote a medida que se lee.
+     *
+     * @param tamanoLote cantidad de documentos leídos por cada consulta
+     * @param consumidor receptor de cada lote; si lanza {@link IOException} se aborta el recorrido
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     * @throws IOException          si el consumidor aborta el recorrido
+     */
+    public void recorrerAbogados(int tamanoLote, ConsumidorLote<Abogado> consumidor)
+            throws ExecutionException, InterruptedException, IOException {
+        // * Se mide el recorrido completo y se cuentan los documentos entregados al consumidor
+        long[] leidos = {0};
+        Timer.Sample muestra = metricas.iniciar();
+        try {
+            almacen.recorrer(tamanoLote, lote -> {
+                leidos[0] += lote.size();
+                consumidor.aceptar(lote);
+            });
+            metricas.finalizar(muestra, MetricasFirestore.RECORRER, null);
+        } catch (ExecutionException | InterruptedException | IOException | RuntimeException e) {
+            metricas.finalizar(muestra, MetricasFirestore.RECORRER, e);
+            throw e;
+        } finally {
+            metricas.documentos(MetricasFirestore.RECORRER, leidos[0]);
+        }
     }
 
     /**
@@ -55,14 +522,15 @@ public class AbogadoService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public Abogado obtenerAbogadoPorId(String id) throws ExecutionException, InterruptedException {
-        DocumentReference docRef = firestore().collection(COLLECTION_NAME).document(id);
-        DocumentSnapshot snapshot = docRef.get().get();
-        if (snapshot.exists()) {
-            return snapshot.toObject(Abogado.class);
-        } else {
-            // ! Lanza excepción si el abogado no existe
-            throw new RuntimeException("Abogado no encontrado con id: " + id);
+        if (replicaLista()) {
+            Abogado replicado = replica.obtener(id);
+            if (replicado != null) {
+                return replicado;
+            }
         }
+        // * Lectura a través de la caché: solo se consulta el almacenamiento en caso de fallo
+        return cache.obtener(id, () -> existente(metricas.medir(MetricasFirestore.OBTENER, () -> almacen.obtener(id)), id))
+                .getEntidad();
     }
 
     /**
@@ -74,12 +542,55 @@ public class AbogadoService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public Abogado crearAbogado(Abogado abogado) throws ExecutionException, InterruptedException {
-        DocumentReference newDoc = firestore().collection(COLLECTION_NAME).document();
-        abogado.setId(newDoc.getId());
-        newDoc.set(abogado).get();
+        try {
+            escribirCreacion(abogado).get();
+        } catch (ExecutionException e) {
+            throw IndiceUnico.propagar(e);
+        }
+        publicar(abogado.getId(), abogado);
         return abogado;
     }
 
+    /**
+     * Importa masivamente abogados nuevos a partir de registros leídos de forma incremental.
+     * Cada registro recibe un ID nuevo; los fallos se informan por registro sin abortar el resto.
+     *
+     * @param registros registros de un arreglo JSON o de un flujo NDJSON
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public ResultadoImportacion importarAbogados(MappingIterator<Abogado> registros) throws InterruptedException {
+        return metricas.importar(() -> almacen.importar(registros, this::publicar));
+    }
+
+    /**
+     * Importa masivamente abogados ya construidos en memoria, como los datos sintéticos de las
+     * pruebas de carga, con las mismas escrituras por lotes que {@link #importarAbogados(MappingIterator)}
+     * pero a una tasa fija de operaciones por segundo.
+     *
+     * @param registros     abogados a crear; el iterador se consume de forma incremental
+     * @param opsPorSegundo operaciones por segundo del BulkWriter
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public ResultadoImportacion importarAbogados(Iterator<Abogado> registros, int opsPorSegundo) throws InterruptedException {
+        return metricas.importar(() -> almacen.importar(registros, opsPorSegundo, this::publicar));
+    }
+
+    /**
+     * Crea las entradas del índice único de licencia que faltan para los abogados existentes (por
+     * ejemplo, los escritos antes de que el índice existiera). Puede repetirse sin efectos: las
+     * entradas existentes no se modifican y los valores repetidos se informan como conflictos.
+     *
+     * @param opsPorSegundo operaciones por segundo del BulkWriter
+     * @return abogados revisados, entradas creadas y conflictos
+     * @throws ExecutionException   si falla la lectura de la colección
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public ResultadoReindexado reconstruirIndiceLicencias(int opsPorSegundo) throws ExecutionException, InterruptedException {
+        return almacen.reconstruirIndice(opsPorSegundo);
+    }
+
     /**
      * Actualiza un abogado existente en Firestore.
      *
@@ -90,8 +601,39 @@ public class AbogadoService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public Abogado actualizarAbogado(String id, Abogado abogado) throws ExecutionException, InterruptedException {
-        abogado.setId(id);
-        firestore().collection(COLLECTION_NAME).document(id).set(abogado).get();
+        try {
+            escribirActualizacion(id, abogado).get();
+        } catch (ExecutionException e) {
+            throw IndiceUnico.propagar(e);
+        }
+        cache.invalidar(id);
+        publicar(id, abogado);
+        return abogado;
+    }
+
+    /**
+     * Actualiza solo los campos indicados de un abogado: se envían a Firestore con
+     * {@code update()} y sus rutas de campo, sin reescribir el documento completo.
+     *
+     * @param id      ID del abogado a actualizar
+     * @param cambios campos y nuevos valores (nombres sin distinguir mayúsculas)
+     * @param version versión esperada del documento ({@code If-Match}), o {@code null} para no exigirla
+     * @return abogado completo tras aplicar los cambios
+     * @throws PrecondicionFallidaException si el documento no está en la versión esperada
+     * @throws ExecutionException           si ocurre un error durante la operación
+     * @throws InterruptedException         si la ejecución es interrumpida
+     */
+    public Abogado actualizarAbogadoParcial(String id, Map<String, Object> cambios, String version)
+            throws ExecutionException, InterruptedException {
+        Abogado abogado;
+        try {
+            abogado = modificar(id, PARCIAL.normalizar(cambios), version).get();
+        } catch (ExecutionException e) {
+            throw IndiceUnico.propagar(e);
+        }
+        existente(abogado, id);
+        cache.invalidar(id);
+        publicar(id, abogado);
         return abogado;
     }
 
@@ -103,19 +645,377 @@ public class AbogadoService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public void eliminarAbogado(String id) throws ExecutionException, InterruptedException {
-        firestore().collection(COLLECTION_NAME).document(id).delete().get();
+        eliminar(id).get();
+        cache.invalidar(id);
+        retirar(id);
+    }
+
+    // * Variantes asíncronas: encadenan los futuros del almacenamiento sin bloquear el hilo
+    // * que las invoca mientras la RPC está en curso
+
+    /**
+     * Variante no bloqueante de {@link #listarAbogados(ConsultaPagina)}.
+     *
+     * @param consulta límite, campo de ordenamiento y cursores de la página
+     * @return futuro con la página de abogados
+     */
+    public CompletableFuture<Pagina<Abogado>> listarAbogadosAsync(ConsultaPagina consulta) {
+        try {
+            PaginacionFirestore.validarCampos(consulta, CAMPOS_PROYECTABLES);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (replicaLista() && ordenPorId(consulta)) {
+            try {
+                return CompletableFuture.completedFuture(replica.paginar(consulta));
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return listadosEnCurso.leer(claveListado(consulta, null), () -> metricas.listarAsync(
+                () -> almacen.paginarAsync(consulta, List.of(), CAMPOS_ORDENABLES)));
+    }
+
+    /**
+     * Variante no bloqueante de {@link #listarAbogados(ConsultaPagina, FiltroAbogados)}.
+     *
+     * @param consulta límite, campo de ordenamiento y cursores de la página
+     * @param filtro   especialidad, universidad y rango de años de experiencia
+     * @return futuro con la página de abogados que cumplen el filtro
+     */
+    public CompletableFuture<Pagina<Abogado>> listarAbogadosAsync(ConsultaPagina consulta, FiltroAbogados filtro) {
+        if (filtro == null || filtro.estaVacio()) {
+            return listarAbogadosAsync(consulta);
+        }
+        try {
+            PaginacionFirestore.validarCampos(consulta, CAMPOS_PROYECTABLES);
+            List<AlmacenEntidades.Condicion> condiciones = condiciones(filtro);
+            ConsultaPagina ordenada = ordenConFiltro(consulta, filtro);
+            return listadosEnCurso.leer(claveListado(consulta, filtro), () -> metricas.listarAsync(
+                    () -> almacen.paginarAsync(ordenada, condiciones, CAMPOS_ORDENABLES_CON_FILTRO)));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Variante no bloqueante de {@link #obtenerAbogadoPorId(String)}.
+     *
+     * @param id ID del abogado
+     * @return futuro con el abogado; falla con {@link RuntimeException} si no existe
+     */
+    public CompletableFuture<Abogado> obtenerAbogadoPorIdAsync(String id) {
+        return obtenerAbogadoVersionadoAsync(id).thenApply(Versionado::getEntidad);
+    }
+
+    /**
+     * Obtiene varios abogados por ID con una sola lectura a Firestore ({@code getAll}), o desde
+     * la réplica si está sincronizada. Los IDs inexistentes se informan en el resultado en
+     * lugar de hacer fallar la lectura completa.
+     *
+     * @param ids IDs de los abogados (los repetidos se leen una vez)
+     * @return futuro con los abogados encontrados, en el orden pedido, y los IDs que no existen
+     * @throws IllegalArgumentException si no hay IDs, son más de {@value LecturaPorIds#MAXIMO_IDS} o alguno es inválido
+     */
+    public CompletableFuture<LecturaMultiple<Abogado>> obtenerAbogadosPorIdsAsync(List<String> ids) {
+        List<String> pedidos = LecturaPorIds.validar(ids);
+        if (replicaLista()) {
+            return CompletableFuture.completedFuture(LecturaPorIds.reunir(pedidos, replica::obtener));
+        }
+        return metricas.medirAsync(MetricasFirestore.OBTENER_VARIOS, () -> almacen.obtenerVarios(pedidos))
+                .thenApply(existentes -> {
+                    metricas.documentos(MetricasFirestore.OBTENER_VARIOS, existentes.size());
+                    return LecturaPorIds.reunir(pedidos, existentes::get);
+                });
+    }
+
+    /**
+     * Obtiene un abogado junto con la versión de su documento (hora de la última actualización),
+     * usada para responder lecturas condicionales. Se resuelve desde la réplica si conoce la
+     * versión, o desde la caché, igual que {@link #obtenerAbogadoPorIdAsync(String)}.
+     *
+     * @param id ID del abogado
+     * @return futuro con el abogado y su versión; falla con {@link RuntimeException} si no existe
+     */
+    public CompletableFuture<Versionado<Abogado>> obtenerAbogadoVersionadoAsync(String id) {
+        if (replicaLista()) {
+            Versionado<Abogado> replicado = replica.obtenerVersionado(id);
+            if (replicado != null && (replicado.getVersion() != null)) {
+                return CompletableFuture.completedFuture(replicado);
+            }
+        }
+        return cache.obtenerAsync(id, () -> metricas.medirAsync(MetricasFirestore.OBTENER, () -> almacen.obtenerAsync(id))
+                .thenApply(versionado -> existente(versionado, id)));
+    }
+
+    /**
+     * Versión actual de la colección: cambia con cada escritura de abogados. Es una sola lectura
+     * de los fragmentos del marcador, más barata que consultar una página.
+     *
+     * @return futuro con la versión de la colección
+     */
+    public CompletableFuture<String> versionAbogadosAsync() {
+        return versionEnCurso.leer(COLLECTION_NAME,
+                () -> metricas.medirAsync(MetricasFirestore.VERSION, () -> almacen.version()));
+    }
+
+    /**
+     * Versión con la que se valida un listado, tomada de la misma fuente que la página.
+     * Las páginas que puede servir la réplica no tienen versión: la réplica va detrás de
+     * Firestore, y un ETag leído del marcador podría describir datos que la página aún no
+     * incluye. Se decide por la configuración y no por el estado de la réplica, que puede
+     * cambiar entre la lectura de la versión y la de la página.
+     *
+     * @param consulta límite, campo de ordenamiento y cursores de la página
+     * @param filtro   especialidad, universidad y rango de años de experiencia
+     * @return futuro con la versión, o {@code null} si el listado no admite ETag
+     * @see #listarAbogadosAsync(ConsultaPagina, FiltroAbogados)
+     */
+    public CompletableFuture<String> versionListadoAsync(ConsultaPagina consulta, FiltroAbogados filtro) {
+        if (replica != null && ordenPorId(consulta) && (filtro == null || filtro.estaVacio())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return versionAbogadosAsync();
+    }
+
+    /**
+     * Estadísticas de la colección: total de abogados, promedio de años de experiencia y
+     * cantidad de abogados de cada especialidad indicada. Se calculan con consultas de
+     * agregación (un solo resultado por consulta, sin leer los documentos) y se reutilizan
+     * durante el tiempo de vida configurado, por lo que pueden no reflejar las últimas escrituras.
+     *
+     * @param especialidades especialidades a contar (Firestore no agrupa: cada una es un conteo)
+     * @return futuro con las estadísticas
+     * @throws IllegalArgumentException si se piden más de {@value #MAXIMO_ESPECIALIDADES} especialidades o alguna está vacía
+     */
+    public CompletableFuture<EstadisticasAbogados> estadisticasAbogadosAsync(List<String> especialidades) {
+        List<String> pedidas = especialidades == null ? List.of() : especialidades.stream().distinct().toList();
+        if (pedidas.size() > MAXIMO_ESPECIALIDADES) {
+            throw new IllegalArgumentException("Se pueden consultar como máximo " + MAXIMO_ESPECIALIDADES + " especialidades");
+        }
+        if (pedidas.stream().anyMatch(especialidad -> especialidad == null || especialidad.isBlank())) {
+            throw new IllegalArgumentException("especialidad no puede estar vacía");
+        }
+        return estadisticas.obtenerAsync(String.join("\n", pedidas), () -> agregarEstadisticasAsync(pedidas));
+    }
+
+    // * Total y promedio en una sola agregación; un conteo por especialidad, todos en paralelo
+    CompletableFuture<EstadisticasAbogados> agregarEstadisticasAsync(List<String> especialidades) {
+        CompletableFuture<AlmacenEntidades.Agregado> resumen = metricas.medirAsync(MetricasFirestore.ESTADISTICAS,
+                () -> almacen.agregar(List.of(), CAMPO_ANIOS));
+        List<CompletableFuture<AlmacenEntidades.Agregado>> conteos = especialidades.stream()
+                .map(especialidad -> metricas.medirAsync(MetricasFirestore.ESTADISTICAS, () -> almacen.agregar(
+                        List.of(AlmacenEntidades.Condicion.igual(CAMPO_ESPECIALIDAD, especialidad)), null)))
+                .toList();
+        return resumen.thenCombine(CompletableFuture.allOf(conteos.toArray(CompletableFuture[]::new)), (total, listos) -> {
+            Map<String, Long> porEspecialidad = new LinkedHashMap<>();
+            for (int i = 0; i < especialidades.size(); i++) {
+                porEspecialidad.put(especialidades.get(i), conteos.get(i).join().cantidad());
+            }
+            return new EstadisticasAbogados(total.cantidad(), total.promedio(), porEspecialidad);
+        });
+    }
+
+    /**
+     * Variante no bloqueante de {@link #crearAbogado(Abogado)}.
+     *
+     * @param abogado objeto {@link Abogado} a almacenar
+     * @return futuro con el abogado y su ID asignado, completado al confirmar la escritura
+     */
+    public CompletableFuture<Abogado> crearAbogadoAsync(Abogado abogado) {
+        return escribirCreacion(abogado).thenApply(resultado -> {
+            publicar(abogado.getId(), abogado);
+            return abogado;
+        });
+    }
+
+    /**
+     * Variante no bloqueante de {@link #actualizarAbogado(String, Abogado)}.
+     *
+     * @param id      ID del abogado a actualizar
+     * @param abogado objeto {@link Abogado} con los nuevos datos
+     * @return futuro con el abogado actualizado
+     */
+    public CompletableFuture<Abogado> actualizarAbogadoAsync(String id, Abogado abogado) {
+        return escribirActualizacion(id, abogado)
+                .thenApply(resultado -> {
+                    cache.invalidar(id);
+                    publicar(id, abogado);
+                    return abogado;
+                });
+    }
+
+    /**
+     * Variante no bloqueante de {@link #actualizarAbogadoParcial(String, Map, String)}.
+     *
+     * @param id      ID del abogado a actualizar
+     * @param cambios campos y nuevos valores
+     * @param version versión esperada del documento, o {@code null}
+     * @return futuro con el abogado completo tras aplicar los cambios
+     */
+    public CompletableFuture<Abogado> actualizarAbogadoParcialAsync(String id, Map<String, Object> cambios, String version) {
+        Map<String, Object> normalizados;
+        try {
+            normalizados = PARCIAL.normalizar(cambios);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return modificar(id, normalizados, version)
+                .thenApply(abogado -> {
+                    existente(abogado, id);
+                    cache.invalidar(id);
+                    publicar(id, abogado);
+                    return abogado;
+                });
+    }
+
+    /**
+     * Variante no bloqueante de {@link #eliminarAbogado(String)}.
+     *
+     * @param id ID del abogado a eliminar
+     * @return futuro completado al confirmar la eliminación
+     */
+    public CompletableFuture<Void> eliminarAbogadoAsync(String id) {
+        return eliminar(id)
+                .thenAccept(resultado -> {
+                    cache.invalidar(id);
+                    retirar(id);
+                });
+    }
+
+    /**
+     * Busca un abogado por su licencia mediante el índice único: una lectura puntual del
+     * documento de índice y luego la lectura por ID (que puede resolverse en caché).
+     *
+     * @param licencia licencia del abogado, en cualquier formato equivalente
+     * @return el abogado con ese licencia
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public Abogado obtenerAbogadoPorLicencia(String licencia) throws ExecutionException, InterruptedException {
+        String clave = INDICE_LICENCIA.claveDe(licencia);
+        String dueno = clave == null ? null : metricas
+                .medirAsync(MetricasFirestore.BUSCAR_INDICE, () -> almacen.buscarUnico(clave)).get();
+        if (dueno == null) {
+            // ! Lanza excepción si ningún abogado tiene ese licencia
+            throw new RuntimeException("Abogado no encontrado con licencia: " + licencia);
+        }
+        return obtenerAbogadoPorId(dueno);
+    }
+
+    /**
+     * Variante no bloqueante de {@link #obtenerAbogadoPorLicencia(String)}.
+     *
+     * @param licencia licencia del abogado, en cualquier formato equivalente
+     * @return futuro con el abogado; falla con {@link RuntimeException} si no existe
+     */
+    public CompletableFuture<Abogado> obtenerAbogadoPorLicenciaAsync(String licencia) {
+        String clave;
+        try {
+            clave = INDICE_LICENCIA.claveDe(licencia);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (clave == null) {
+            return CompletableFuture.failedFuture(new RuntimeException("Abogado no encontrado con licencia: " + licencia));
+        }
+        return indiceEnCurso.leer(clave, () -> metricas.medirAsync(MetricasFirestore.BUSCAR_INDICE,
+                        () -> almacen.buscarUnico(clave)))
+                .thenCompose(dueno -> {
+                    if (dueno == null) {
+                        throw new RuntimeException("Abogado no encontrado con licencia: " + licencia);
+                    }
+                    return obtenerAbogadoPorIdAsync(dueno);
+                });
+    }
+
+    /**
+     * Busca abogados por nombre y apellidos sin distinguir tildes ni mayúsculas, aceptando
+     * términos incompletos ("per" encuentra a "Pérez") y pequeños errores de tipeo.
+     * Se resuelve en memoria, sin consultar Firestore.
+     *
+     * @param consulta texto buscado (uno o más términos)
+     * @param limite   cantidad máxima de resultados, o {@code null} para usar el valor por defecto
+     * @return abogados encontrados, de mayor a menor coincidencia
+     * @throws IllegalArgumentException      si la consulta está vacía o el límite está fuera de rango
+     * @throws BusquedaNoDisponibleException si el índice aún se está cargando o la búsqueda está deshabilitada
+     */
+    public List<Abogado> buscarAbogados(String consulta, Integer limite) {
+        int efectivo = IndiceBusqueda.limiteEfectivo(consulta, limite);
+        if (!busquedaHabilitada) {
+            throw new BusquedaNoDisponibleException("La búsqueda de abogados está deshabilitada");
+        }
+        if (!busqueda.estaLista()) {
+            throw new BusquedaNoDisponibleException("El índice de búsqueda de abogados aún se está cargando");
+        }
+        return busqueda.buscar(consulta, efectivo);
+    }
+
+    // ! Falla si el abogado no existe
+    private static <V> V existente(V valor, String id) {
+        if (valor == null) {
+            throw new RuntimeException("Abogado no encontrado con id: " + id);
+        }
+        return valor;
+    }
+
+    // * Creación y reemplazo completo: en un lote agrupado si está habilitado, si no con su propia transacción.
+    // * La licencia se valida antes de escribir, para rechazar un valor inválido igual en ambos caminos
+
+    private CompletableFuture<Abogado> escribirCreacion(Abogado abogado) {
+        INDICE_LICENCIA.clave(abogado);
+        if (escrituraAgrupada == null) {
+            return crearIndividual(abogado);
+        }
+        return escrituraAgrupada.crear(abogado);
+    }
+
+    private CompletableFuture<Abogado> escribirActualizacion(String id, Abogado abogado) {
+        INDICE_LICENCIA.clave(abogado);
+        abogado.setId(id);
+        if (escrituraAgrupada == null) {
+            return actualizarIndividual(id, abogado);
+        }
+        return escrituraAgrupada.actualizar(id, abogado);
+    }
+
+    // * Escrituras individuales compartidas por las variantes síncronas y asíncronas: el almacenamiento
+    // * confirma el documento del abogado y su entrada en el índice de licencia juntos
+
+    private CompletableFuture<Abogado> crearIndividual(Abogado abogado) {
+        return metricas.medirAsync(MetricasFirestore.CREAR, () -> almacen.crear(abogado));
+    }
+
+    private CompletableFuture<Abogado> actualizarIndividual(String id, Abogado abogado) {
+        return metricas.medirAsync(MetricasFirestore.ACTUALIZAR, () -> almacen.reemplazar(id, abogado));
+    }
+
+    // * Verifica la versión y solo escribe los campos cambiados; null si el abogado no existe
+    private CompletableFuture<Abogado> modificar(String id, Map<String, Object> cambios, String version) {
+        return metricas.medirAsync(MetricasFirestore.ACTUALIZAR_PARCIAL, () -> almacen.modificar(id, cambios, version));
+    }
+
+    private CompletableFuture<Void> eliminar(String id) {
+        return metricas.medirAsync(MetricasFirestore.ELIMINAR, () -> almacen.eliminar(id));
     }
 
     /**
-     * Elimina todos los documentos (abogados) de la colección.
+     * Elimina todos los documentos (abogados) de la colección mediante lecturas paginadas
+     * y escrituras agrupadas, retornando solo cuando todas las eliminaciones fueron confirmadas.
      *
+     * @return cantidad de abogados eliminados
      * @throws ExecutionException   si ocurre un error durante la operación
      * @throws InterruptedException si la ejecución es interrumpida
      */
-    public void eliminarTodosAbogados() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = firestore().collection(COLLECTION_NAME).get();
-        for (DocumentSnapshot doc : future.get().getDocuments()) {
-            doc.getReference().delete();
+    public long eliminarTodosAbogados() throws ExecutionException, InterruptedException {
+        try {
+            long eliminados = metricas.medir(MetricasFirestore.ELIMINAR_TODOS, () -> almacen.eliminarTodos());
+            metricas.documentos(MetricasFirestore.ELIMINAR_TODOS, eliminados);
+            retirarTodos();
+            return eliminados;
+        } finally {
+            // * Aun si falla a mitad de camino, parte de la colección ya no existe
+            cache.invalidarTodo();
         }
     }
 }
@@ -0,0 +1,69 @@
+package com.proyect.abogados.service;
+
+import com.google.cloud.firestore.Firestore;
+import com.proyect.abogados.model.Abogado;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Variante de {@link AbogadoService} respaldada por el motor embebido {@link MotorMemoria}.
+ *
+ * Se activa con el perfil {@code memoria} para ejecutar pruebas de carga de la API
+ * completa sin conectarse a Firebase. Solo reemplaza el almacenamiento: la caché, las
+ * lecturas compartidas, las métricas, el límite de concurrencia y la escritura agrupada
+ * son los mismos que en la versión sobre Firestore.
+ */
+@Service
+@Profile("memoria")
+public class AbogadoServiceMemoria extends AbogadoService {
+
+    /** Accesor de cada campo filtrable u ordenable, con los mismos nombres de propiedad que en Firestore. */
+    private static final Map<String, Function<Abogado, ?>> CAMPOS = Map.of(
+            CAMPO_ESPECIALIDAD, Abogado::getEspecialidad,
+            "universidad", Abogado::getUniversidad,
+            CAMPO_ANIOS, Abogado::getAniosExperiencia,
+            "licencia", Abogado::getLicencia,
+            "rut", Abogado::getRut,
+            "pnombre", Abogado::getPNombre,
+            "papellido", Abogado::getPApellido);
+
+    /**
+     * Crea el servicio sobre un motor sin latencia simulada.
+     */
+    public AbogadoServiceMemoria() {
+        configurarMotor(Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Configura la latencia simulada por operación.
+     *
+     * @param latencia  demora fija por operación
+     * @param variacion demora aleatoria adicional máxima
+     */
+    @Autowired
+    void configurarMotor(@Value("${memoria.latencia:0ms}") Duration latencia,
+                         @Value("${memoria.latencia-variacion:0ms}") Duration variacion) {
+        MotorMemoria<Abogado> motor = new MotorMemoria<>(Abogado.class, Abogado::getId, latencia, variacion)
+                .conIndiceUnico(INDICE_LICENCIA);
+        usarAlmacen(new AlmacenMemoria<>(motor, Abogado::setId, INDICE_LICENCIA, PARCIAL, CAMPOS));
+    }
+
+    // * Sin Firestore no hay snapshot listener que alimente una réplica
+    @Override
+    void configurarReplica(boolean habilitada, ObjectProvider<MeterRegistry> registry) {
+    }
+
+    // ! Cualquier camino que aún dependa de Firestore falla de inmediato en este perfil
+    @Override
+    protected Firestore firestore() {
+        throw new IllegalStateException("Firestore no está disponible con el perfil memoria");
+    }
+}
@@ -0,0 +1,87 @@
+package com.proyect.abogados.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Actualización parcial de una entidad a partir de los campos enviados por el cliente.
+ *
+ * Los nombres de campo se aceptan sin distinguir mayúsculas y se traducen a los nombres
+ * que usa Firestore, que son las rutas de campo de {@code update()}. Cada valor se valida
+ * convirtiéndolo al tipo de su propiedad, de modo que a Firestore solo llegan valores
+ * con el mismo tipo que escribiría un {@code set()} de la entidad completa.
+ *
+ * @param <T> tipo de entidad
+ */
+final class ActualizacionParcial<T> {
+
+    private static final ObjectMapper CONVERSOR = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAPA = new TypeReference<>() {
+    };
+
+    private final Class<T> tipo;
+    private final Set<String> campos;
+
+    /**
+     * Crea la actualización parcial.
+     *
+     * @param tipo   clase de la entidad
+     * @param campos campos modificables, con el nombre que usa Firestore (el ID nunca se modifica)
+     */
+    ActualizacionParcial(Class<T> tipo, Set<String> campos) {
+        this.tipo = tipo;
+        this.campos = campos;
+    }
+
+    /**
+     * Traduce los campos enviados a rutas de Firestore con valores del tipo de cada propiedad.
+     *
+     * @param cambios campos y valores enviados por el cliente
+     * @return cambios con nombres canónicos, en el orden recibido
+     * @throws IllegalArgumentException si no hay campos, si alguno no es modificable o si un valor
+     *                                  no corresponde al tipo de su propiedad
+     */
+    Map<String, Object> normalizar(Map<String, Object> cambios) {
+        if (cambios == null || cambios.isEmpty()) {
+            throw new IllegalArgumentException("La actualización parcial no indica campos");
+        }
+        Map<String, Object> canonicos = new LinkedHashMap<>();
+        cambios.forEach((campo, valor) -> canonicos.put(canonico(campo), valor));
+
+        // * Ida y vuelta por la entidad: valida los tipos y los deja como los escribiría Firestore
+        Map<String, Object> tipados = CONVERSOR.convertValue(CONVERSOR.convertValue(canonicos, tipo), MAPA);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        canonicos.keySet().forEach(campo -> resultado.put(campo, tipados.get(campo)));
+        return resultado;
+    }
+
+    /**
+     * Aplica los cambios (ya normalizados) sobre una entidad.
+     *
+     * @param entidad entidad actual, que se modifica
+     * @param cambios resultado de {@link #normalizar(Map)}
+     * @return la misma entidad con los cambios aplicados
+     */
+    T aplicar(T entidad, Map<String, Object> cambios) {
+        try {
+            return CONVERSOR.updateValue(entidad, cambios);
+        } catch (JsonMappingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage(), e);
+        }
+    }
+
+    // * Nombre canónico del campo, o error si no es modificable
+    private String canonico(String campo) {
+        for (String permitido : campos) {
+            if (permitido.equalsIgnoreCase(campo)) {
+                return permitido;
+            }
+        }
+        throw new IllegalArgumentException("Campo no modificable en la actualización parcial: " + campo);
+    }
+}
@@ -0,0 +1,276 @@
+package com.proyect.abogados.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.model.ResultadoReindexado;
+import com.proyect.abogados.model.Versionado;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Almacenamiento de las entidades de una colección, por debajo de los servicios.
+ *
+ * Los servicios resuelven una sola vez, sobre esta interfaz, lo que no depende del origen
+ * de los datos (caché, lecturas compartidas, réplica, métricas, límite de concurrencia y
+ * escritura agrupada); cada implementación solo traduce las operaciones:
+ * {@link AlmacenFirestore} a RPCs de Firestore y {@link AlmacenMemoria} al
+ * {@link MotorMemoria} del perfil {@code memoria}.
+ *
+ * Las escrituras mantienen el {@link IndiceUnico} de la colección: el documento y su
+ * entrada de índice se confirman juntos o no se confirman.
+ *
+ * @param <T> tipo de entidad
+ */
+interface AlmacenEntidades<T> {
+
+    /** Operador de una {@link Condicion}. */
+    enum Operador {
+        IGUAL, MAYOR_O_IGUAL, MENOR_O_IGUAL
+    }
+
+    /**
+     * Condición sobre una propiedad de la entidad, con el nombre que usa Firestore.
+     *
+     * @param campo    propiedad comparada
+     * @param operador igualdad o extremo de un rango (incluido)
+     * @param valor    valor de comparación
+     */
+    record Condicion(String campo, Operador operador, Object valor) {
+
+        static Condicion igual(String campo, Object valor) {
+            return new Condicion(campo, Operador.IGUAL, valor);
+        }
+
+        static Condicion desde(String campo, Object valor) {
+            return new Condicion(campo, Operador.MAYOR_O_IGUAL, valor);
+        }
+
+        static Condicion hasta(String campo, Object valor) {
+            return new Condicion(campo, Operador.MENOR_O_IGUAL, valor);
+        }
+    }
+
+    /**
+     * Creación o reemplazo completo confirmado dentro de un lote.
+     *
+     * @param nueva   si es una creación (el ID se asigna al armar el lote)
+     * @param id      ID de la entidad reemplazada ({@code null} en una creación)
+     * @param entidad datos a escribir
+     * @param clave   clave de la entidad en el índice único, ya validada
+     * @param <T>     tipo de entidad
+     */
+    record Escritura<T>(boolean nueva, String id, T entidad, String clave) {
+    }
+
+    /**
+     * Resultado de una agregación.
+     *
+     * @param cantidad documentos que cumplen las condiciones
+     * @param promedio promedio del campo pedido, o {@code null} si no se pidió o no hay documentos
+     */
+    record Agregado(long cantidad, Double promedio) {
+    }
+
+    /**
+     * Lee una entidad por ID.
+     *
+     * @param id ID de la entidad
+     * @return entidad y versión del documento, o {@code null} si no existe
+     * @throws ExecutionException   si ocurre un error durante la lectura
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    Versionado<T> obtener(String id) throws ExecutionException, InterruptedException;
+
+    /**
+     * Variante no bloqueante de {@link #obtener(String)}.
+     *
+     * @param id ID de la entidad
+     * @return futuro con la entidad y su versión, o con {@code null} si no existe
+     */
+    CompletableFuture<Versionado<T>> obtenerAsync(String id);
+
+    /**
+     * Lee varias entidades por ID en una sola operación.
+     *
+     * @param ids IDs distintos y válidos
+     * @return futuro con las entidades existentes por ID (los IDs inexistentes no aparecen)
+     */
+    CompletableFuture<Map<String, T>> obtenerVarios(List<String> ids);
+
+    /**
+     * Lee la colección completa.
+     *
+     * @return entidades almacenadas
+     * @throws ExecutionException   si ocurre un error durante la lectura
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    List<T> listar() throws ExecutionException, InterruptedException;
+
+    /**
+     * Lee una página de las entidades que cumplen las condiciones, con paginación por cursor.
+     *
+     * @param consulta         límite, orden, cursores y campos de la página
+     * @param condiciones      condiciones que deben cumplir las entidades (vacía para todas)
+     * @param camposOrdenables campos permitidos en {@code ordenarPor} además del ID
+     * @return página con los cursores siguiente/anterior
+     * @throws ExecutionException       si ocurre un error durante la lectura
+     * @throws InterruptedException     si la ejecución es interrumpida
+     * @throws IllegalArgumentException si el orden o un cursor no son válidos
+     */
+    Pagina<T> paginar(ConsultaPagina consulta, List<Condicion> condiciones, Set<String> camposOrdenables)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Variante no bloqueante de {@link #paginar}.
+     *
+     * @param consulta         límite, orden, cursores y campos de la página
+     * @param condiciones      condiciones que deben cumplir las entidades (vacía para todas)
+     * @param camposOrdenables campos permitidos en {@code ordenarPor} además del ID
+     * @return futuro con la página
+     */
+    CompletableFuture<Pagina<T>> paginarAsync(ConsultaPagina consulta, List<Condicion> condiciones,
+                                              Set<String> camposOrdenables);
+
+    /**
+     * Recorre la colección por lotes en orden de ID.
+     *
+     * @param tamanoLote cantidad de entidades por lote
+     * @param consumidor receptor de cada lote; si lanza {@link IOException} se aborta el recorrido
+     * @throws ExecutionException   si ocurre un error durante la lectura
+     * @throws InterruptedException si la ejecución es interrumpida
+     * @throws IOException          si el consumidor aborta el recorrido
+     */
+    void recorrer(int tamanoLote, ConsumidorLote<T> consumidor)
+            throws ExecutionException, InterruptedException, IOException;
+
+    /**
+     * Busca la entidad dueña de una clave del índice único.
+     *
+     * @param clave clave normalizada
+     * @return futuro con el ID dueño, o con {@code null} si la clave no está registrada
+     */
+    CompletableFuture<String> buscarUnico(String clave);
+
+    /**
+     * Cuenta las entidades que cumplen las condiciones y, opcionalmente, promedia un campo numérico.
+     *
+     * @param condiciones   condiciones de igualdad (vacía para toda la colección)
+     * @param campoPromedio campo a promediar, o {@code null}
+     * @return futuro con la cantidad y el promedio
+     */
+    CompletableFuture<Agregado> agregar(List<Condicion> condiciones, String campoPromedio);
+
+    /**
+     * Versión actual de la colección: cambia con cada escritura.
+     *
+     * @return futuro con la versión
+     */
+    CompletableFuture<String> version();
+
+    /**
+     * Crea una entidad con un ID nuevo, que se le asigna antes de escribirla.
+     *
+     * @param entidad entidad a crear
+     * @return futuro con la entidad, completado al confirmar la escritura
+     */
+    CompletableFuture<T> crear(T entidad);
+
+    /**
+     * Reemplaza por completo una entidad (o la crea con ese ID).
+     *
+     * @param id      ID de la entidad
+     * @param entidad nuevos datos; se le asigna el ID
+     * @return futuro con la entidad
+     */
+    CompletableFuture<T> reemplazar(String id, T entidad);
+
+    /**
+     * Escribe solo los campos indicados, verificando antes la versión si se pide.
+     *
+     * @param id      ID de la entidad
+     * @param cambios campos normalizados y sus nuevos valores
+     * @param version versión esperada del documento, o {@code null} para no exigirla
+     * @return futuro con la entidad completa tras los cambios, o con {@code null} si no existe;
+     * falla con {@link PrecondicionFallidaException} si la versión no coincide
+     */
+    CompletableFuture<T> modificar(String id, Map<String, Object> cambios, String version);
+
+    /**
+     * Elimina una entidad y libera su clave del índice (no falla si no existe).
+     *
+     * @param id ID de la entidad
+     * @return futuro completado al confirmar la eliminación
+     */
+    CompletableFuture<Void> eliminar(String id);
+
+    /**
+     * Confirma varias creaciones y reemplazos con una sola escritura atómica. Las escrituras
+     * que no se pueden verificar dentro del lote (un reemplazo de un documento inexistente o
+     * cuya clave cambia) quedan fuera y deben confirmarse por separado.
+     *
+     * @param escrituras escrituras del lote, sin claves repetidas
+     * @return futuro con las posiciones de las escrituras que quedaron fuera del lote;
+     * falla si el lote no se confirma (ninguna escritura se aplicó)
+     */
+    CompletableFuture<Set<Integer>> escribirLote(List<Escritura<T>> escrituras);
+
+    /**
+     * Elimina todas las entidades y el índice único de la colección.
+     *
+     * @return cantidad de entidades eliminadas
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    long eliminarTodos() throws ExecutionException, InterruptedException;
+
+    /**
+     * Importa registros leídos incrementalmente como entidades nuevas.
+     *
+     * @param registros registros de un arreglo JSON o de un flujo NDJSON
+     * @param alCrear   se invoca por cada registro confirmado (ID, registro)
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    ResultadoImportacion importar(MappingIterator<T> registros, BiConsumer<String, T> alCrear)
+            throws InterruptedException;
+
+    /**
+     * Importa entidades ya construidas en memoria a una tasa fija de operaciones.
+     *
+     * @param registros     entidades a crear; el iterador se consume de forma incremental
+     * @param opsPorSegundo operaciones por segundo
+     * @param alCrear       se invoca por cada registro confirmado (ID, registro)
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    ResultadoImportacion importar(Iterator<T> registros, int opsPorSegundo, BiConsumer<String, T> alCrear)
+            throws InterruptedException;
+
+    /**
+     * Crea las entradas del índice único que faltan para las entidades existentes.
+     *
+     * @param opsPorSegundo operaciones por segundo
+     * @return entidades revisadas, entradas creadas y conflictos
+     * @throws ExecutionException   si falla la lectura de la colección
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    ResultadoReindexado reconstruirIndice(int opsPorSegundo) throws ExecutionException, InterruptedException;
+
+    /**
+     * Registra un receptor de cada escritura y eliminación, si el almacenamiento puede
+     * notificarlas en el orden en que se aplican.
+     *
+     * @param oyente receptor de los cambios
+     * @return {@code true} si el oyente quedó registrado
+     */
+    boolean conOyente(ReplicaColeccion.Oyente<T> oyente);
+}
@@ -0,0 +1,381 @@
+package com.proyect.abogados.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.model.ResultadoReindexado;
+import com.proyect.abogados.model.Versionado;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Almacenamiento de una colección en Firestore.
+ *
+ * Cada escritura individual es una transacción que confirma el documento junto con su
+ * entrada del {@link IndiceUnico} y un fragmento del {@link MarcadorColeccion}; los lotes se confirman
+ * con un {@link WriteBatch} y las lecturas por ID con un solo {@code getAll}. Las métricas
+ * de cada operación las toma el servicio; aquí solo se miden las RPC internas de un lote.
+ *
+ * @param <T> tipo de entidad
+ */
+final class AlmacenFirestore<T> implements AlmacenEntidades<T> {
+
+    private final String coleccion;
+    private final Class<T> tipo;
+    private final Function<T, String> idDe;
+    private final BiConsumer<T, String> asignarId;
+    private final IndiceUnico<T> indice;
+    private final ActualizacionParcial<T> parcial;
+    private final MarcadorColeccion marcador;
+    private final Supplier<Firestore> firestore;
+    private final MetricasFirestore metricas;
+
+    /** Motor de importación masiva; se reconfigura desde Spring con los valores de propiedades. */
+    private ImportacionMasiva importacion = new ImportacionMasiva(ImportacionMasiva.TAMANO_LOTE_POR_DEFECTO,
+            ImportacionMasiva.OPS_INICIALES_POR_DEFECTO, ImportacionMasiva.OPS_MAXIMAS_POR_DEFECTO);
+
+    /**
+     * Crea el almacenamiento de una colección.
+     *
+     * @param coleccion nombre de la colección
+     * @param tipo      clase a la que se mapean los documentos
+     * @param idDe      obtiene el ID de una entidad
+     * @param asignarId asigna el ID a una entidad antes de escribirla
+     * @param indice    índice único de la colección
+     * @param parcial   campos que admite la actualización parcial
+     * @param marcador  marcador de versión de la colección
+     * @param firestore instancia de Firestore (se resuelve en cada operación)
+     * @param metricas  métricas de la colección, para las RPC internas de los lotes
+     */
+    AlmacenFirestore(String coleccion, Class<T> tipo, Function<T, String> idDe, BiConsumer<T, String> asignarId,
+                     IndiceUnico<T> indice, ActualizacionParcial<T> parcial, MarcadorColeccion marcador,
+                     Supplier<Firestore> firestore, MetricasFirestore metricas) {
+        this.coleccion = coleccion;
+        this.tipo = tipo;
+        this.idDe = idDe;
+        this.asignarId = asignarId;
+        this.indice = indice;
+        this.parcial = parcial;
+        this.marcador = marcador;
+        this.firestore = firestore;
+        this.metricas = metricas;
+    }
+
+    /**
+     * @param importacion motor de importación masiva con el tamaño de lote y la tasa configurados
+     */
+    void setImportacion(ImportacionMasiva importacion) {
+        this.importacion = importacion;
+    }
+
+    @Override
+    public Versionado<T> obtener(String id) throws ExecutionException, InterruptedException {
+        DocumentSnapshot snapshot = coleccion().document(id).get().get();
+        return snapshot.exists() ? versionar(snapshot) : null;
+    }
+
+    @Override
+    public CompletableFuture<Versionado<T>> obtenerAsync(String id) {
+        return FuturosFirestore.aCompletable(coleccion().document(id).get())
+                .thenApply(snapshot -> snapshot.exists() ? versionar(snapshot) : null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, T>> obtenerVarios(List<String> ids) {
+        CollectionReference referencia = coleccion();
+        DocumentReference[] referencias = ids.stream()
+                .map(referencia::document)
+                .toArray(DocumentReference[]::new);
+        return FuturosFirestore.aCompletable(firestore.get().getAll(referencias))
+                .thenApply(snapshots -> {
+                    Map<String, T> existentes = new HashMap<>();
+                    for (DocumentSnapshot snapshot : snapshots) {
+                        if (snapshot.exists()) {
+                            existentes.put(snapshot.getId(), snapshot.toObject(tipo));
+                        }
+                    }
+                    return existentes;
+                });
+    }
+
+    @Override
+    public List<T> listar() throws ExecutionException, InterruptedException {
+        return coleccion().get().get().getDocuments().stream()
+                .map(doc -> doc.toObject(tipo))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Pagina<T> paginar(ConsultaPagina consulta, List<Condicion> condiciones, Set<String> camposOrdenables)
+            throws ExecutionException, InterruptedException {
+        CollectionReference referencia = coleccion();
+        return PaginacionFirestore.paginar(referencia, filtrar(referencia, condiciones), consulta, camposOrdenables, tipo);
+    }
+
+    @Override
+    public CompletableFuture<Pagina<T>> paginarAsync(ConsultaPagina consulta, List<Condicion> condiciones,
+                                                     Set<String> camposOrdenables) {
+        CollectionReference referencia = coleccion();
+        return PaginacionFirestore.paginarAsync(referencia, filtrar(referencia, condiciones), consulta,
+                camposOrdenables, tipo);
+    }
+
+    @Override
+    public void recorrer(int tamanoLote, ConsumidorLote<T> consumidor)
+            throws ExecutionException, InterruptedException, IOException {
+        PaginacionFirestore.recorrer(coleccion(), tamanoLote, tipo, consumidor);
+    }
+
+    @Override
+    public CompletableFuture<String> buscarUnico(String clave) {
+        return FuturosFirestore.aCompletable(indice.referencia(firestore.get(), clave).get())
+                .thenApply(entrada -> entrada.exists() ? entrada.getString(IndiceUnico.CAMPO_ID) : null);
+    }
+
+    // * Con un campo se pide conteo y promedio en la misma agregación; sin él, solo el conteo
+    @Override
+    public CompletableFuture<Agregado> agregar(List<Condicion> condiciones, String campoPromedio) {
+        CollectionReference referencia = coleccion();
+        Query query = filtrar(referencia, condiciones);
+        if (campoPromedio == null) {
+            return FuturosFirestore.aCompletable(query.count().get())
+                    .thenApply(resultado -> new Agregado(resultado.getCount(), null));
+        }
+        AggregateField.AverageAggregateField promedio = AggregateField.average(campoPromedio);
+        return FuturosFirestore.aCompletable(query.aggregate(AggregateField.count(), promedio).get())
+                .thenApply(resultado -> new Agregado(resultado.getCount(), resultado.get(promedio)));
+    }
+
+    @Override
+    public CompletableFuture<String> version() {
+        return marcador.versionAsync(firestore.get());
+    }
+
+    // * Escrituras transaccionales: el documento y su entrada en el índice se confirman juntos
+
+    @Override
+    public CompletableFuture<T> crear(T entidad) {
+        Firestore instancia = firestore.get();
+        DocumentReference newDoc = instancia.collection(coleccion).document();
+        asignarId.accept(entidad, newDoc.getId());
+        String clave = indice.clave(entidad);
+        return FuturosFirestore.aCompletable(instancia.runTransaction(transaccion -> {
+            indice.actualizar(transaccion, instancia, newDoc.getId(), null, clave, indice.valor(entidad));
+            marcador.tocar(transaccion, instancia);
+            transaccion.create(newDoc, entidad);
+            return entidad;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<T> reemplazar(String id, T entidad) {
+        Firestore instancia = firestore.get();
+        DocumentReference docRef = instancia.collection(coleccion).document(id);
+        asignarId.accept(entidad, id);
+        String clave = indice.clave(entidad);
+        return FuturosFirestore.aCompletable(instancia.runTransaction(transaccion -> {
+            // * Se lee la clave actual para liberar su entrada si cambia
+            String anterior = indice.clave(transaccion.get(docRef).get());
+            indice.actualizar(transaccion, instancia, id, anterior, clave, indice.valor(entidad));
+            marcador.tocar(transaccion, instancia);
+            transaccion.set(docRef, entidad);
+            return entidad;
+        }));
+    }
+
+    // * Lee el documento para verificar la versión y calcular el índice; solo escribe los campos cambiados
+    @Override
+    public CompletableFuture<T> modificar(String id, Map<String, Object> cambios, String version) {
+        Firestore instancia = firestore.get();
+        DocumentReference docRef = instancia.collection(coleccion).document(id);
+        return FuturosFirestore.aCompletable(instancia.runTransaction(transaccion -> {
+            DocumentSnapshot actual = transaccion.get(docRef).get();
+            if (!actual.exists()) {
+                return null;
+            }
+            if (version != null && !version.equals(MarcadorColeccion.version(actual.getUpdateTime()))) {
+                // ! El documento cambió después de la lectura del cliente
+                throw new PrecondicionFallidaException(id, version);
+            }
+            T entidad = parcial.aplicar(actual.toObject(tipo), cambios);
+            asignarId.accept(entidad, id);
+            if (indice.afectadoPor(cambios)) {
+                indice.actualizar(transaccion, instancia, id, indice.clave(actual), indice.clave(entidad),
+                        indice.valor(entidad));
+            }
+            marcador.tocar(transaccion, instancia);
+            if (version != null) {
+                transaccion.update(docRef, cambios, Precondition.updatedAt(actual.getUpdateTime()));
+            } else {
+                transaccion.update(docRef, cambios);
+            }
+            return entidad;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Void> eliminar(String id) {
+        Firestore instancia = firestore.get();
+        DocumentReference docRef = instancia.collection(coleccion).document(id);
+        return FuturosFirestore.aCompletable(instancia.runTransaction(transaccion -> {
+            String anterior = indice.clave(transaccion.get(docRef).get());
+            indice.actualizar(transaccion, instancia, id, anterior, null, null);
+            marcador.tocar(transaccion, instancia);
+            transaccion.delete(docRef);
+            return null;
+        }));
+    }
+
+    // * Lee los documentos a reemplazar con sus entradas de índice (un solo getAll) y confirma
+    // * en un WriteBatch lo que se puede verificar: una creación reserva su clave con create y un
+    // * reemplazo que conserva la clave exige, con una precondición, que la entrada siga siendo suya
+    @Override
+    public CompletableFuture<Set<Integer>> escribirLote(List<Escritura<T>> escrituras) {
+        Firestore instancia = firestore.get();
+        CollectionReference referencia = instancia.collection(coleccion);
+        List<DocumentReference> documentos = new ArrayList<>(escrituras.size());
+        List<DocumentReference> lecturas = new ArrayList<>();
+        for (Escritura<T> escritura : escrituras) {
+            if (escritura.nueva()) {
+                // * El ID se asigna al armar el lote, en el orden de encolado
+                DocumentReference newDoc = referencia.document();
+                asignarId.accept(escritura.entidad(), newDoc.getId());
+                documentos.add(newDoc);
+            } else {
+                DocumentReference docRef = referencia.document(escritura.id());
+                asignarId.accept(escritura.entidad(), escritura.id());
+                documentos.add(docRef);
+                lecturas.add(docRef);
+                lecturas.add(indice.referencia(instancia, escritura.clave()));
+            }
+        }
+
+        CompletableFuture<List<DocumentSnapshot>> leidos = lecturas.isEmpty()
+                ? CompletableFuture.completedFuture(List.of())
+                : FuturosFirestore.aCompletable(metricas.medirRpc(MetricasFirestore.LEER_LOTE,
+                () -> instancia.getAll(lecturas.toArray(DocumentReference[]::new))));
+        return leidos.thenCompose(snapshots -> {
+            WriteBatch batch = instancia.batch();
+            Set<Integer> fuera = new HashSet<>();
+            int lectura = 0;
+            for (int i = 0; i < escrituras.size(); i++) {
+                Escritura<T> escritura = escrituras.get(i);
+                if (escritura.nueva()) {
+                    agregarCreacion(batch, instancia, documentos.get(i), escritura);
+                    continue;
+                }
+                if (!agregarReemplazo(batch, instancia, documentos.get(i), escritura,
+                        snapshots.get(lectura), snapshots.get(lectura + 1))) {
+                    fuera.add(i);
+                }
+                lectura += 2;
+            }
+            if (fuera.size() == escrituras.size()) {
+                return CompletableFuture.completedFuture(fuera);
+            }
+            marcador.tocar(batch, instancia);
+            ApiFuture<List<WriteResult>> commit = metricas.medirRpc(MetricasFirestore.ESCRIBIR_LOTE, batch::commit);
+            return FuturosFirestore.aCompletable(commit).thenApply(resultados -> fuera);
+        });
+    }
+
+    private void agregarCreacion(WriteBatch batch, Firestore instancia, DocumentReference documento,
+                                 Escritura<T> escritura) {
+        if (escritura.clave() != null) {
+            batch.create(indice.referencia(instancia, escritura.clave()),
+                    Map.of(IndiceUnico.CAMPO_ID, documento.getId()));
+        }
+        batch.create(documento, escritura.entidad());
+    }
+
+    // * Solo entra al lote si el documento existe y su clave actual (que ya le pertenece) no cambia
+    private boolean agregarReemplazo(WriteBatch batch, Firestore instancia, DocumentReference documento,
+                                     Escritura<T> escritura, DocumentSnapshot actual, DocumentSnapshot entradaIndice) {
+        String id = documento.getId();
+        if (!actual.exists() || !escritura.clave().equals(indice.clave(actual))
+                || !entradaIndice.exists() || !id.equals(entradaIndice.getString(IndiceUnico.CAMPO_ID))) {
+            return false;
+        }
+        // ! Si la clave se libera o cambia de dueño antes del commit, la precondición hace fallar el lote
+        batch.update(indice.referencia(instancia, escritura.clave()), Map.<String, Object>of(IndiceUnico.CAMPO_ID, id),
+                Precondition.updatedAt(entradaIndice.getUpdateTime()));
+        batch.set(documento, escritura.entidad());
+        return true;
+    }
+
+    @Override
+    public long eliminarTodos() throws ExecutionException, InterruptedException {
+        Firestore instancia = firestore.get();
+        long total = EliminacionMasiva.eliminarColeccion(instancia, instancia.collection(coleccion));
+        EliminacionMasiva.eliminarColeccion(instancia, indice.coleccion(instancia));
+        marcador.tocar(instancia).get();
+        return total;
+    }
+
+    @Override
+    public ResultadoImportacion importar(MappingIterator<T> registros, BiConsumer<String, T> alCrear)
+            throws InterruptedException {
+        Firestore instancia = firestore.get();
+        return importacion.importar(instancia, instancia.collection(coleccion), registros, asignarId, indice,
+                marcador, alCrear);
+    }
+
+    @Override
+    public ResultadoImportacion importar(Iterator<T> registros, int opsPorSegundo, BiConsumer<String, T> alCrear)
+            throws InterruptedException {
+        Firestore instancia = firestore.get();
+        return importacion.conTasa(opsPorSegundo).importar(instancia, instancia.collection(coleccion), registros,
+                asignarId, indice, marcador, alCrear);
+    }
+
+    @Override
+    public ResultadoReindexado reconstruirIndice(int opsPorSegundo) throws ExecutionException, InterruptedException {
+        Firestore instancia = firestore.get();
+        return ReconstruccionIndice.reconstruir(instancia, instancia.collection(coleccion), tipo, idDe, indice,
+                opsPorSegundo);
+    }
+
+    // * Firestore no notifica las escrituras locales: los cambios llegan por la réplica
+    @Override
+    public boolean conOyente(ReplicaColeccion.Oyente<T> oyente) {
+        return false;
+    }
+
+    private CollectionReference coleccion() {
+        return firestore.get().collection(coleccion);
+    }
+
+    // * Traduce las condiciones a filtros de Firestore sobre la colección
+    private static Query filtrar(CollectionReference referencia, List<Condicion> condiciones) {
+        Query query = referencia;
+        for (Condicion condicion : condiciones) {
+            query = switch (condicion.operador()) {
+                case IGUAL -> query.whereEqualTo(condicion.campo(), condicion.valor());
+                case MAYOR_O_IGUAL -> query.whereGreaterThanOrEqualTo(condicion.campo(), condicion.valor());
+                case MENOR_O_IGUAL -> query.whereLessThanOrEqualTo(condicion.campo(), condicion.valor());
+            };
+        }
+        return query;
+    }
+
+    // * Entidad del documento junto con la hora de su última actualización
+    private Versionado<T> versionar(DocumentSnapshot snapshot) {
+        return new Versionado<>(snapshot.toObject(tipo), MarcadorColeccion.version(snapshot.getUpdateTime()));
+    }
+}
@@ -0,0 +1,307 @@
+package com.proyect.abogados.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.model.ResultadoReindexado;
+import com.proyect.abogados.model.Versionado;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Almacenamiento de una colección en el {@link MotorMemoria} del perfil {@code memoria}.
+ *
+ * Traduce las mismas operaciones que {@link AlmacenFirestore}: las condiciones y el orden
+ * se resuelven con los accesores de cada campo, con los mismos nombres de propiedad que en
+ * Firestore. Cada operación aplica la latencia simulada del motor: las síncronas duermen
+ * el hilo y las asíncronas completan el futuro tras la demora.
+ *
+ * @param <T> tipo de entidad
+ */
+final class AlmacenMemoria<T> implements AlmacenEntidades<T> {
+
+    private final MotorMemoria<T> motor;
+    private final BiConsumer<T, String> asignarId;
+    private final IndiceUnico<T> indice;
+    private final ActualizacionParcial<T> parcial;
+    private final Map<String, Function<T, ?>> campos;
+
+    /**
+     * Crea el almacenamiento sobre un motor.
+     *
+     * @param motor     motor en memoria, con el índice único de la colección
+     * @param asignarId asigna el ID a una entidad antes de guardarla
+     * @param indice    índice único mantenido por el motor
+     * @param parcial   campos que admite la actualización parcial
+     * @param campos    accesor de cada campo filtrable u ordenable, por nombre de propiedad
+     */
+    AlmacenMemoria(MotorMemoria<T> motor, BiConsumer<T, String> asignarId, IndiceUnico<T> indice,
+                   ActualizacionParcial<T> parcial, Map<String, Function<T, ?>> campos) {
+        this.motor = motor;
+        this.asignarId = asignarId;
+        this.indice = indice;
+        this.parcial = parcial;
+        this.campos = campos;
+    }
+
+    @Override
+    public Versionado<T> obtener(String id) throws InterruptedException {
+        motor.esperar();
+        return motor.obtenerVersionado(id);
+    }
+
+    @Override
+    public CompletableFuture<Versionado<T>> obtenerAsync(String id) {
+        return motor.diferir(() -> motor.obtenerVersionado(id));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, T>> obtenerVarios(List<String> ids) {
+        return motor.diferir(() -> {
+            Map<String, T> existentes = new HashMap<>();
+            for (String id : ids) {
+                T entidad = motor.obtener(id);
+                if (entidad != null) {
+                    existentes.put(id, entidad);
+                }
+            }
+            return existentes;
+        });
+    }
+
+    @Override
+    public List<T> listar() throws InterruptedException {
+        motor.esperar();
+        return motor.listar();
+    }
+
+    @Override
+    public Pagina<T> paginar(ConsultaPagina consulta, List<Condicion> condiciones, Set<String> camposOrdenables)
+            throws InterruptedException {
+        motor.esperar();
+        return motor.paginar(consulta, condicion(condiciones), orden(consulta, camposOrdenables));
+    }
+
+    @Override
+    public CompletableFuture<Pagina<T>> paginarAsync(ConsultaPagina consulta, List<Condicion> condiciones,
+                                                     Set<String> camposOrdenables) {
+        return motor.diferir(() -> motor.paginar(consulta, condicion(condiciones), orden(consulta, camposOrdenables)));
+    }
+
+    @Override
+    public void recorrer(int tamanoLote, ConsumidorLote<T> consumidor) throws InterruptedException, IOException {
+        motor.esperar();
+        motor.recorrer(tamanoLote, consumidor);
+    }
+
+    @Override
+    public CompletableFuture<String> buscarUnico(String clave) {
+        return motor.diferir(() -> motor.dueno(clave));
+    }
+
+    // * Sin consultas de agregación: se recorre el motor una vez
+    @Override
+    public CompletableFuture<Agregado> agregar(List<Condicion> condiciones, String campoPromedio) {
+        return motor.diferir(() -> {
+            Predicate<T> condicion = condicion(condiciones);
+            long cantidad = 0;
+            double suma = 0;
+            for (T entidad : motor.listar()) {
+                if (condicion.test(entidad)) {
+                    cantidad++;
+                    if (campoPromedio != null) {
+                        suma += ((Number) valor(campoPromedio, entidad)).doubleValue();
+                    }
+                }
+            }
+            Double promedio = campoPromedio == null || cantidad == 0 ? null : suma / cantidad;
+            return new Agregado(cantidad, promedio);
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> version() {
+        return motor.diferir(motor::version);
+    }
+
+    @Override
+    public CompletableFuture<T> crear(T entidad) {
+        String id = motor.nuevoId();
+        asignarId.accept(entidad, id);
+        return motor.diferir(() -> {
+            motor.guardar(id, entidad);
+            return entidad;
+        });
+    }
+
+    @Override
+    public CompletableFuture<T> reemplazar(String id, T entidad) {
+        asignarId.accept(entidad, id);
+        return motor.diferir(() -> {
+            motor.guardar(id, entidad);
+            return entidad;
+        });
+    }
+
+    // * Lee, verifica y guarda bajo el cerrojo del motor
+    @Override
+    public CompletableFuture<T> modificar(String id, Map<String, Object> cambios, String version) {
+        return motor.diferir(() -> motor.modificar(id, version, actual -> {
+            T modificado = parcial.aplicar(actual, cambios);
+            asignarId.accept(modificado, id);
+            return modificado;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Void> eliminar(String id) {
+        return motor.diferir(() -> {
+            motor.eliminar(id);
+            return null;
+        });
+    }
+
+    // * El motor no tiene commits por lote: cada escritura se aplica por separado bajo su cerrojo,
+    // * con las mismas reglas que el lote de Firestore (un reemplazo de un documento inexistente
+    // * queda fuera, igual que una clave que ya pertenece a otro)
+    @Override
+    public CompletableFuture<Set<Integer>> escribirLote(List<Escritura<T>> escrituras) {
+        return motor.diferir(() -> {
+            Set<Integer> fuera = new HashSet<>();
+            for (int i = 0; i < escrituras.size(); i++) {
+                Escritura<T> escritura = escrituras.get(i);
+                T entidad = escritura.entidad();
+                try {
+                    if (escritura.nueva()) {
+                        String id = motor.nuevoId();
+                        asignarId.accept(entidad, id);
+                        motor.guardar(id, entidad);
+                    } else {
+                        asignarId.accept(entidad, escritura.id());
+                        if (motor.modificar(escritura.id(), null, actual -> entidad) == null) {
+                            fuera.add(i);
+                        }
+                    }
+                } catch (RegistroDuplicadoException e) {
+                    fuera.add(i);
+                }
+            }
+            return fuera;
+        });
+    }
+
+    @Override
+    public long eliminarTodos() throws InterruptedException {
+        motor.esperar();
+        return motor.vaciar();
+    }
+
+    @Override
+    public ResultadoImportacion importar(MappingIterator<T> registros, BiConsumer<String, T> alCrear) {
+        Map<String, T> asignados = new HashMap<>();
+        return notificarCreados(motor.importar(registros, asignando(asignados)), asignados, alCrear);
+    }
+
+    @Override
+    public ResultadoImportacion importar(Iterator<T> registros, int opsPorSegundo, BiConsumer<String, T> alCrear) {
+        Map<String, T> asignados = new HashMap<>();
+        return notificarCreados(motor.importar(registros, asignando(asignados)), asignados, alCrear);
+    }
+
+    // * Recuerda cada registro con su ID para avisar solo los que el motor guardó
+    private BiConsumer<T, String> asignando(Map<String, T> asignados) {
+        return (registro, id) -> {
+            asignarId.accept(registro, id);
+            asignados.put(id, registro);
+        };
+    }
+
+    private static <T> ResultadoImportacion notificarCreados(ResultadoImportacion resultado, Map<String, T> asignados,
+                                                             BiConsumer<String, T> alCrear) {
+        resultado.getCreados().forEach(id -> alCrear.accept(id, asignados.get(id)));
+        return resultado;
+    }
+
+    // * El motor mantiene su índice en cada escritura: solo se cuentan los documentos
+    @Override
+    public ResultadoReindexado reconstruirIndice(int opsPorSegundo) throws InterruptedException {
+        motor.esperar();
+        ResultadoReindexado resultado = new ResultadoReindexado();
+        List<T> entidades = motor.listar();
+        resultado.sumarRevisados(entidades.size());
+        for (T entidad : entidades) {
+            if (indice.clave(entidad) == null) {
+                resultado.sumarSinValor();
+            } else {
+                resultado.sumarExistente();
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public boolean conOyente(ReplicaColeccion.Oyente<T> oyente) {
+        motor.conOyente(oyente);
+        return true;
+    }
+
+    // * Traduce las condiciones a un predicado sobre las entidades
+    private Predicate<T> condicion(List<Condicion> condiciones) {
+        Predicate<T> condicion = entidad -> true;
+        for (Condicion actual : condiciones) {
+            Comparable<Object> esperado = comparable(actual.valor());
+            condicion = condicion.and(entidad -> {
+                Object valor = valor(actual.campo(), entidad);
+                if (valor == null) {
+                    return false;
+                }
+                int comparacion = comparable(valor).compareTo(esperado);
+                return switch (actual.operador()) {
+                    case IGUAL -> comparacion == 0;
+                    case MAYOR_O_IGUAL -> comparacion >= 0;
+                    case MENOR_O_IGUAL -> comparacion <= 0;
+                };
+            });
+        }
+        return condicion;
+    }
+
+    // * Orden solicitado, o null para ordenar por ID
+    private Comparator<T> orden(ConsultaPagina consulta, Set<String> permitidos) {
+        String campo = consulta.getOrdenarPor();
+        if (campo == null || campo.isBlank() || "id".equals(campo)) {
+            return null;
+        }
+        if (!permitidos.contains(campo) || !campos.containsKey(campo)) {
+            throw new IllegalArgumentException("Campo de ordenamiento no permitido: " + campo);
+        }
+        return Comparator.comparing((T entidad) -> comparable(valor(campo, entidad)),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    private Object valor(String campo, T entidad) {
+        Function<T, ?> accesor = campos.get(campo);
+        if (accesor == null) {
+            throw new IllegalArgumentException("Campo no disponible en memoria: " + campo);
+        }
+        return accesor.apply(entidad);
+    }
+
+    // * Los campos filtrables y ordenables son textos o números: comparables consigo mismos
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object valor) {
+        return (Comparable<Object>) valor;
+    }
+}
@@ -0,0 +1,18 @@
+package com.proyect.abogados.service;
+
+/**
+ * Se lanza cuando la búsqueda por nombre no puede responder: el índice en memoria aún se
+ * está cargando o la búsqueda está deshabilitada. Los controladores la traducen a
+ * {@code 503 Service Unavailable}.
+ */
+public class BusquedaNoDisponibleException extends RuntimeException {
+
+    /**
+     * Crea la excepción con el motivo indicado.
+     *
+     * @param mensaje motivo por el que la búsqueda no está disponible
+     */
+    public BusquedaNoDisponibleException(String mensaje) {
+        super(mensaje);
+    }
+}
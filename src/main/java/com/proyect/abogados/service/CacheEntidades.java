@@ -0,0 +1,135 @@
+package com.proyect.abogados.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Caché de lectura (read-through) para entidades obtenidas por ID desde Firestore.
+ *
+ * Limita la cantidad de entradas y las expira tras un tiempo desde su escritura.
+ * Almacena el futuro de cada lectura, de modo que lecturas síncronas y asíncronas
+ * comparten las mismas entradas; una invalidación descarta también la lectura en
+ * curso, por lo que nunca queda almacenado un valor obsoleto.
+ *
+ * @param <T> tipo de entidad almacenada
+ */
+public class CacheEntidades<T> {
+
+    /** Tamaño máximo por defecto (cantidad de entidades). */
+    public static final long TAMANO_MAXIMO_POR_DEFECTO = 10_000;
+
+    /** Tiempo de vida por defecto de cada entrada. */
+    public static final Duration TTL_POR_DEFECTO = Duration.ofMinutes(5);
+
+    /**
+     * Lectura de una entidad desde Firestore cuando no está en caché.
+     *
+     * @param <T> tipo de entidad
+     */
+    @FunctionalInterface
+    public interface Cargador<T> {
+        T cargar() throws ExecutionException, InterruptedException;
+    }
+
+    private final String nombre;
+    private final AsyncCache<String, T> cache;
+
+    /**
+     * Crea la caché con los límites indicados.
+     *
+     * @param nombre       nombre de la caché (se usa como tag en las métricas)
+     * @param tamanoMaximo cantidad máxima de entidades
+     * @param ttl          tiempo de vida de cada entrada desde su escritura
+     */
+    public CacheEntidades(String nombre, long tamanoMaximo, Duration ttl) {
+        this.nombre = nombre;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                // * Las cargas síncronas se ejecutan en el hilo que consulta
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Devuelve la entidad en caché o la carga (y almacena) usando el cargador.
+     * Si el cargador lanza una excepción, no se almacena nada.
+     *
+     * @param id       ID de la entidad
+     * @param cargador lectura a Firestore en caso de fallo de caché
+     * @return entidad encontrada
+     * @throws ExecutionException   si ocurre un error durante la lectura
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public T obtener(String id, Cargador<T> cargador) throws ExecutionException, InterruptedException {
+        try {
+            return cache.get(id, clave -> {
+                try {
+                    return cargador.cargar();
+                } catch (ExecutionException | InterruptedException e) {
+                    throw new CompletionException(e);
+                }
+            }).join();
+        } catch (CompletionException e) {
+            // * Se devuelven las excepciones originales del cargador
+            if (e.getCause() instanceof ExecutionException ee) {
+                throw ee;
+            }
+            if (e.getCause() instanceof InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw ie;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Variante no bloqueante de {@link #obtener}: en caso de fallo de caché almacena
+     * el futuro de la lectura, que se descarta automáticamente si termina con error.
+     *
+     * @param id       ID de la entidad
+     * @param cargador lectura asíncrona a Firestore
+     * @return futuro con la entidad encontrada
+     */
+    public CompletableFuture<T> obtenerAsync(String id, Supplier<CompletableFuture<T>> cargador) {
+        return cache.get(id, (clave, executor) -> cargador.get());
+    }
+
+    /**
+     * Invalida una entidad, forzando la próxima lectura desde Firestore.
+     *
+     * @param id ID de la entidad
+     */
+    public void invalidar(String id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Invalida todas las entidades de la caché.
+     */
+    public void invalidarTodo() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Expone aciertos, fallos, expulsiones y tamaño de la caché como métricas
+     * ({@code cache.gets}, {@code cache.evictions}, {@code cache.size}, ...).
+     *
+     * @param registry registro de métricas de Micrometer
+     */
+    public void registrarMetricas(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), nombre);
+    }
+}
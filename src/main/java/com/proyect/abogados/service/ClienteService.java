@@ -1,15 +1,38 @@
 package com.proyect.abogados.service;
 
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.google.cloud.firestore.Firestore;
+import com.proyect.abogados.config.FirebaseConfig;
 import com.proyect.abogados.model.Cliente;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.EstadisticasClientes;
+import com.proyect.abogados.model.LecturaMultiple;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.model.ResultadoReindexado;
+import com.proyect.abogados.model.Versionado;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
 
 /**
  * Servicio encargado de gestionar las operaciones de negocio relacionadas con
@@ -17,11 +40,15 @@ import java.util.stream.Collectors;
  * Realiza operaciones CRUD sobre la colección {@code clientes} en Firebase
  * Firestore.
  * 
- * Utiliza la API de Firebase Admin SDK para acceder a la base de datos.
+ * Utiliza la API de Firebase Admin SDK para acceder a la base de datos, a través de un
+ * {@link AlmacenEntidades} que la variante {@link ClienteServiceMemoria} reemplaza por el
+ * motor en memoria; la caché, las lecturas compartidas, la réplica, las métricas y la
+ * escritura agrupada se resuelven aquí una sola vez.
  * 
  * @author PythonLovers
  */
 @Service
+@Profile("!memoria")
 @RequiredArgsConstructor
 public class ClienteService {
 
@@ -29,12 +56,318 @@ public class ClienteService {
     private static final String COLLECTION_NAME = "clientes";
 
     /**
-     * Obtiene una instancia de Firestore desde Firebase.
+     * Campos por los que se permite ordenar los listados paginados (además del ID).
+     * Coinciden con los nombres de propiedad que Firestore usa al mapear {@link Cliente}.
+     */
+    private static final Set<String> CAMPOS_ORDENABLES = Set.of("rut", "email", "pnombre", "papellido");
+
+    /** Campos que se pueden pedir con {@code fields} en los listados (además del ID). */
+    static final Set<String> CAMPOS_PROYECTABLES = Set.of("rut", "pnombre", "snombre", "papellido", "sapellido",
+            "documento", "direccion", "telefono", "email");
+
+    /** Índice único de RUT: cada RUT normalizado apunta al ID de su cliente. */
+    static final IndiceUnico<Cliente> INDICE_RUT = new IndiceUnico<>("indice_clientes_rut", "rut",
+            Cliente::getRut, IndiceUnico::normalizarRut);
+
+    /** Campos que admite la actualización parcial (PATCH): los mismos que la proyección. */
+    static final ActualizacionParcial<Cliente> PARCIAL = new ActualizacionParcial<>(Cliente.class, CAMPOS_PROYECTABLES);
+
+    /** Marcador de versión de la colección (ETag de los listados). */
+    private static final MarcadorColeccion MARCADOR = new MarcadorColeccion(COLLECTION_NAME);
+
+    /** Caché de lectura por ID (entidad y versión); se reconfigura desde Spring con los valores de propiedades. */
+    private CacheEntidades<Versionado<Cliente>> cache = new CacheEntidades<>(COLLECTION_NAME,
+            CacheEntidades.TAMANO_MAXIMO_POR_DEFECTO, CacheEntidades.TTL_POR_DEFECTO);
+
+    /**
+     * Configura la caché de lectura con los límites definidos en las propiedades
+     * y registra sus métricas (aciertos, fallos, expulsiones) en el actuator.
+     *
+     * @param tamanoMaximo cantidad máxima de clientes en caché
+     * @param ttl          tiempo de vida de cada entrada
+     * @param registry     registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarCache(@Value("${clientes.cache.tamano-maximo:10000}") long tamanoMaximo,
+                         @Value("${clientes.cache.ttl:PT5M}") Duration ttl,
+                         ObjectProvider<MeterRegistry> registry) {
+        cache = new CacheEntidades<>(COLLECTION_NAME, tamanoMaximo, ttl);
+        registry.ifAvailable(cache::registrarMetricas);
+    }
+
+    /** Clave única de la caché de estadísticas (no dependen de parámetros). */
+    private static final String CLAVE_ESTADISTICAS = "total";
+
+    /** Caché de corta duración de las estadísticas de la colección. */
+    private CacheEntidades<EstadisticasClientes> estadisticas = new CacheEntidades<>(COLLECTION_NAME + ".estadisticas",
+            1, Duration.ofSeconds(30));
+
+    /**
+     * Configura cuánto tiempo se reutilizan las estadísticas calculadas, para que los refrescos
+     * de los paneles no repitan la consulta de agregación, y registra las métricas de su caché.
+     *
+     * @param ttl      tiempo de vida del resultado
+     * @param registry registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarEstadisticas(@Value("${clientes.estadisticas.ttl:PT30S}") Duration ttl,
+                                ObjectProvider<MeterRegistry> registry) {
+        estadisticas = new CacheEntidades<>(COLLECTION_NAME + ".estadisticas", 1, ttl);
+        registry.ifAvailable(estadisticas::registrarMetricas);
+    }
+
+    /** Métricas de latencia y documentos leídos de las operaciones contra Firestore. */
+    private final MetricasFirestore metricas = new MetricasFirestore(COLLECTION_NAME);
+
+    // * Lecturas idénticas concurrentes comparten la lectura en curso (las lecturas por ID ya las agrupa la caché)
+    private final LecturasCompartidas<List<Object>, Pagina<Cliente>> listadosEnCurso =
+            new LecturasCompartidas<>(COLLECTION_NAME, MetricasFirestore.LISTAR);
+    private final LecturasCompartidas<String, String> versionEnCurso =
+            new LecturasCompartidas<>(COLLECTION_NAME, MetricasFirestore.VERSION);
+    private final LecturasCompartidas<String, String> indiceEnCurso =
+            new LecturasCompartidas<>(COLLECTION_NAME, MetricasFirestore.BUSCAR_INDICE);
+
+    /** Almacenamiento en Firestore de la colección; es el almacenamiento por defecto. */
+    private final AlmacenFirestore<Cliente> almacenFirestore = new AlmacenFirestore<>(COLLECTION_NAME, Cliente.class,
+            Cliente::getId, Cliente::setId, INDICE_RUT, PARCIAL, MARCADOR, this::firestore, metricas);
+
+    /** Almacenamiento sobre el que operan todas las lecturas y escrituras. */
+    private AlmacenEntidades<Cliente> almacen = almacenFirestore;
+
+    // * Si el almacenamiento notifica sus cambios al índice de búsqueda, la búsqueda no necesita réplica
+    private boolean busquedaPorAlmacen;
+
+    /**
+     * Reemplaza el almacenamiento de la colección; lo usa la variante en memoria.
+     *
+     * @param almacen almacenamiento a usar
+     */
+    void usarAlmacen(AlmacenEntidades<Cliente> almacen) {
+        this.almacen = almacen;
+        busquedaPorAlmacen = almacen.conOyente(busqueda);
+    }
+
+    /**
+     * Registra las métricas de las operaciones contra Firestore (latencia por operación
+     * y resultado, documentos por lectura, lecturas compartidas) en el actuator.
+     *
+     * @param registry registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarMetricas(ObjectProvider<MeterRegistry> registry) {
+        registry.ifAvailable(metricas::registrarMetricas);
+        registry.ifAvailable(listadosEnCurso::registrarMetricas);
+        registry.ifAvailable(versionEnCurso::registrarMetricas);
+        registry.ifAvailable(indiceEnCurso::registrarMetricas);
+    }
+
+    /**
+     * Limita las llamadas concurrentes a Firestore con un límite adaptativo a la latencia
+     * observada y una cola de espera acotada; el exceso se descarta con
+     * {@link ServicioSobrecargadoException} en lugar de bloquear más hilos.
+     *
+     * @param habilitado       si se debe limitar la concurrencia
+     * @param inicial          llamadas concurrentes permitidas al iniciar
+     * @param minimo           límite mínimo
+     * @param maximo           límite máximo
+     * @param cola             llamadas que pueden esperar un permiso
+     * @param esperaMaxima     tiempo máximo de espera en la cola
+     * @param latenciaObjetivo latencia por encima de la cual se reduce el límite
+     * @param registry         registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarLimite(@Value("${firestore.limite.habilitado:false}") boolean habilitado,
+                          @Value("${firestore.limite.inicial:20}") int inicial,
+                          @Value("${firestore.limite.minimo:4}") int minimo,
+                          @Value("${firestore.limite.maximo:200}") int maximo,
+                          @Value("${firestore.limite.cola:100}") int cola,
+                          @Value("${firestore.limite.espera-maxima:PT1S}") Duration esperaMaxima,
+                          @Value("${firestore.limite.latencia-objetivo:PT0.5S}") Duration latenciaObjetivo,
+                          ObjectProvider<MeterRegistry> registry) {
+        if (habilitado) {
+            LimiteConcurrencia limite = new LimiteConcurrencia(COLLECTION_NAME, inicial, minimo, maximo, cola,
+                    esperaMaxima, latenciaObjetivo);
+            registry.ifAvailable(limite::registrarMetricas);
+            metricas.limitarCon(limite);
+        }
+    }
+
+    /** Escrituras agrupadas en lotes ({@code null} si están deshabilitadas: cada escritura es una transacción). */
+    private EscrituraAgrupada<Cliente> escrituraAgrupada;
+
+    /**
+     * Agrupa las creaciones y actualizaciones concurrentes en lotes del almacenamiento (commits
+     * de {@code WriteBatch} en Firestore) si está habilitado por propiedades, y registra el
+     * tamaño y la latencia de cada lote.
+     *
+     * @param habilitada   si se deben agrupar las escrituras
+     * @param tamanoLote   escrituras que completan un lote
+     * @param esperaMaxima espera máxima de la primera escritura de un lote incompleto
+     * @param registry     registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarEscrituraAgrupada(@Value("${firestore.escritura-agrupada.habilitada:false}") boolean habilitada,
+                                     @Value("${firestore.escritura-agrupada.tamano-lote:100}") int tamanoLote,
+                                     @Value("${firestore.escritura-agrupada.espera-maxima:PT0.01S}") Duration esperaMaxima,
+                                     ObjectProvider<MeterRegistry> registry) {
+        if (habilitada) {
+            escrituraAgrupada = new EscrituraAgrupada<>(COLLECTION_NAME, () -> almacen, INDICE_RUT,
+                    tamanoLote, esperaMaxima, this::crearIndividual, this::actualizarIndividual);
+            registry.ifAvailable(escrituraAgrupada::registrarMetricas);
+        }
+    }
+
+    // * Confirma el lote en curso al cerrar el contexto, para no dejar esperando a quien lo encoló
+    @PreDestroy
+    void detenerEscrituraAgrupada() {
+        if (escrituraAgrupada != null) {
+            escrituraAgrupada.confirmarPendientes();
+        }
+    }
+
+    /** Réplica en memoria alimentada por un snapshot listener ({@code null} si está deshabilitada). */
+    private ReplicaColeccion<Cliente> replica;
+
+    /**
+     * Crea la réplica en memoria de la colección si está habilitada por propiedades.
+     * El listener se registra recién cuando la aplicación está lista.
+     *
+     * @param habilitada si se debe mantener la réplica en memoria
+     * @param registry   registro de métricas, si está disponible
+     */
+    @Autowired
+    void configurarReplica(@Value("${clientes.replica.habilitada:false}") boolean habilitada,
+                           ObjectProvider<MeterRegistry> registry) {
+        if (habilitada) {
+            replica = new ReplicaColeccion<>(COLLECTION_NAME, Cliente.class,
+                    () -> firestore().collection(COLLECTION_NAME));
+            registry.ifAvailable(replica::registrarMetricas);
+        }
+    }
+
+    // * Registra el snapshot listener una vez inicializado Firebase
+    @EventListener(ApplicationReadyEvent.class)
+    void iniciarReplica() {
+        if (replica != null) {
+            // * La réplica alimenta el índice de búsqueda desde su instantánea inicial
+            if (busquedaHabilitada) {
+                replica.setOyente(busqueda);
+            }
+            replica.iniciar();
+        }
+    }
+
+    // * Quita el listener al cerrar el contexto
+    @PreDestroy
+    void detenerReplica() {
+        if (replica != null) {
+            replica.detener();
+        }
+    }
+
+    // * Solo se responde desde memoria cuando la réplica completó su sincronización
+    private boolean replicaLista() {
+        return replica != null && replica.estaLista();
+    }
+
+    // * La réplica solo sirve páginas ordenadas por ID
+    private static boolean ordenPorId(ConsultaPagina consulta) {
+        String orden = consulta.getOrdenarPor();
+        return orden == null || orden.isBlank() || "id".equals(orden);
+    }
+
+    /** Índice en memoria para la búsqueda por nombre. */
+    final IndiceBusqueda<Cliente> busqueda = new IndiceBusqueda<>();
+
+    private boolean busquedaHabilitada;
+
+    /**
+     * Habilita o deshabilita la búsqueda por nombre (y la memoria que ocupa su índice).
+     * Está deshabilitada por defecto: solo puede habilitarse junto con la réplica o con el
+     * perfil {@code memoria}, que mantienen el índice al día sin recorrer la colección.
+     *
+     * @param habilitada si se debe mantener el índice de búsqueda
+     */
+    @Autowired
+    void configurarBusqueda(@Value("${clientes.busqueda.habilitada:false}") boolean habilitada) {
+        busquedaHabilitada = habilitada;
+    }
+
+    // * El índice solo se alimenta de la réplica o del almacenamiento en memoria: sin ninguno de
+    // * los dos habría que recorrer la colección completa en cada arranque, por lo que se rechaza
+    @PostConstruct
+    void validarBusqueda() {
+        if (busquedaHabilitada && replica == null && !busquedaPorAlmacen) {
+            throw new IllegalStateException("clientes.busqueda.habilitada requiere clientes.replica.habilitada=true"
+                    + " o el perfil memoria");
+        }
+    }
+
+    // * El almacenamiento en memoria ya alimenta el índice en cada escritura: no hay nada que cargar
+    @EventListener(ApplicationReadyEvent.class)
+    void iniciarBusqueda() {
+        if (busquedaPorAlmacen) {
+            busqueda.marcarLista();
+        }
+    }
+
+    // * Publica una escritura local: la réplica (si existe) la propaga al índice de búsqueda
+    private void publicar(String id, Cliente cliente) {
+        olvidarLecturasEnCurso();
+        if (replica != null) {
+            replica.aplicar(id, cliente);
+        }
+    }
+
+    private void retirar(String id) {
+        olvidarLecturasEnCurso();
+        if (replica != null) {
+            replica.quitar(id);
+        }
+    }
+
+    private void retirarTodos() {
+        olvidarLecturasEnCurso();
+        if (replica != null) {
+            replica.vaciar();
+        }
+    }
+
+    // * Tras una escritura local, las lecturas siguientes no se suman a una iniciada antes de ella
+    private void olvidarLecturasEnCurso() {
+        listadosEnCurso.olvidarTodo();
+        versionEnCurso.olvidarTodo();
+        indiceEnCurso.olvidarTodo();
+    }
+
+    // * Consultas con los mismos parámetros (página, orden y proyección) comparten la lectura
+    private static List<Object> claveListado(ConsultaPagina consulta) {
+        return Arrays.asList(consulta.getLimite(), consulta.getOrdenarPor(), consulta.getDespuesDe(),
+                consulta.getAntesDe(), consulta.getCampos());
+    }
+
+    /**
+     * Configura el tamaño de lote y el paralelismo (operaciones por segundo) de la importación masiva.
+     *
+     * @param tamanoLote   registros confirmados por lote
+     * @param opsIniciales operaciones por segundo iniciales del BulkWriter
+     * @param opsMaximas   operaciones por segundo máximas del BulkWriter
+     */
+    @Autowired
+    void configurarImportacion(@Value("${importacion.tamano-lote:1000}") int tamanoLote,
+                               @Value("${importacion.ops-iniciales-por-segundo:5000}") int opsIniciales,
+                               @Value("${importacion.ops-maximas-por-segundo:20000}") int opsMaximas) {
+        almacenFirestore.setImportacion(new ImportacionMasiva(tamanoLote, opsIniciales, opsMaximas));
+    }
+
+    /**
+     * Obtiene una instancia de Firestore desde Firebase (inicializándolo en el primer uso
+     * si el arranque es diferido).
      *
      * @return instancia de {@link Firestore}
      */
     protected Firestore firestore() {
-        return FirestoreClient.getFirestore();
+        return FirebaseConfig.firestore();
     }
 
     /**
@@ -45,10 +378,58 @@ public class ClienteService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public List<Cliente> listarClientes() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = firestore().collection(COLLECTION_NAME).get();
-        return future.get().getDocuments().stream()
-                .map(doc -> doc.toObject(Cliente.class))
-                .collect(Collectors.toList());
+        if (replicaLista()) {
+            return replica.listar();
+        }
+        List<Cliente> clientes = metricas.medir(MetricasFirestore.LISTAR, () -> almacen.listar());
+        metricas.documentos(MetricasFirestore.LISTAR, clientes.size());
+        return clientes;
+    }
+
+    /**
+     * Lista una página de clientes usando paginación por cursor.
+     * Solo se leen desde Firestore los documentos de la página solicitada.
+     *
+     * @param consulta límite, campo de ordenamiento, cursores y campos de la página
+     * @return página de objetos {@link Cliente} con los cursores siguiente/anterior
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public Pagina<Cliente> listarClientes(ConsultaPagina consulta) throws ExecutionException, InterruptedException {
+        PaginacionFirestore.validarCampos(consulta, CAMPOS_PROYECTABLES);
+        if (replicaLista() && ordenPorId(consulta)) {
+            return replica.paginar(consulta);
+        }
+        return metricas.listar(() -> almacen.paginar(consulta, List.of(), CAMPOS_ORDENABLES));
+    }
+
+    /**
+     * Recorre todos los clientes de la colección por lotes, sin cargarla completa en memoria.
+     * Pensado para exportaciones masivas que escriben cada lote a medida que se lee.
+     *
+     * @param tamanoLote cantidad de documentos leídos por cada consulta
+     * @param consumidor receptor de cada lote; si lanza {@link IOException} se aborta el recorrido
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     * @throws IOException          si el consumidor aborta el recorrido
+     */
+    public void recorrerClientes(int tamanoLote, ConsumidorLote<Cliente> consumidor)
+            throws ExecutionException, InterruptedException, IOException {
+        // * Se mide el recorrido completo y se cuentan los documentos entregados al consumidor
+        long[] leidos = {0};
+        Timer.Sample muestra = metricas.iniciar();
+        try {
+            almacen.recorrer(tamanoLote, lote -> {
+                leidos[0] += lote.size();
+                consumidor.aceptar(lote);
+            });
+            metricas.finalizar(muestra, MetricasFirestore.RECORRER, null);
+        } catch (ExecutionException | InterruptedException | IOException | RuntimeException e) {
+            metricas.finalizar(muestra, MetricasFirestore.RECORRER, e);
+            throw e;
+        } finally {
+            metricas.documentos(MetricasFirestore.RECORRER, leidos[0]);
+        }
     }
 
     /**
@@ -60,14 +441,15 @@ public class ClienteService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public Cliente obtenerCliente(String id) throws ExecutionException, InterruptedException {
-        DocumentReference docRef = firestore().collection(COLLECTION_NAME).document(id);
-        DocumentSnapshot snapshot = docRef.get().get();
-        if (snapshot.exists()) {
-            return snapshot.toObject(Cliente.class);
-        } else {
-            // ! Lanza excepción si el cliente no existe
-            throw new RuntimeException("Cliente no encontrado con id: " + id);
+        if (replicaLista()) {
+            Cliente replicado = replica.obtener(id);
+            if (replicado != null) {
+                return replicado;
+            }
         }
+        // * Lectura a través de la caché: solo se consulta el almacenamiento en caso de fallo
+        return cache.obtener(id, () -> existente(metricas.medir(MetricasFirestore.OBTENER, () -> almacen.obtener(id)), id))
+                .getEntidad();
     }
 
     /**
@@ -79,12 +461,55 @@ public class ClienteService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public Cliente crearCliente(Cliente cliente) throws ExecutionException, InterruptedException {
-        DocumentReference newDoc = firestore().collection(COLLECTION_NAME).document();
-        cliente.setId(newDoc.getId());
-        newDoc.set(cliente).get();
+        try {
+            escribirCreacion(cliente).get();
+        } catch (ExecutionException e) {
+            throw IndiceUnico.propagar(e);
+        }
+        publicar(cliente.getId(), cliente);
         return cliente;
     }
 
+    /**
+     * Importa masivamente clientes nuevos a partir de registros leídos de forma incremental.
+     * Cada registro recibe un ID nuevo; los fallos se informan por registro sin abortar el resto.
+     *
+     * @param registros registros de un arreglo JSON o de un flujo NDJSON
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public ResultadoImportacion importarClientes(MappingIterator<Cliente> registros) throws InterruptedException {
+        return metricas.importar(() -> almacen.importar(registros, this::publicar));
+    }
+
+    /**
+     * Importa masivamente clientes ya construidos en memoria, como los datos sintéticos de las
+     * pruebas de carga, con las mismas escrituras por lotes que {@link #importarClientes(MappingIterator)}
+     * pero a una tasa fija de operaciones por segundo.
+     *
+     * @param registros     clientes a crear; el iterador se consume de forma incremental
+     * @param opsPorSegundo operaciones por segundo del BulkWriter
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public ResultadoImportacion importarClientes(Iterator<Cliente> registros, int opsPorSegundo) throws InterruptedException {
+        return metricas.importar(() -> almacen.importar(registros, opsPorSegundo, this::publicar));
+    }
+
+    /**
+     * Crea las entradas del índice único de RUT que faltan para los clientes existentes (por
+     * ejemplo, los escritos antes de que el índice existiera). Puede repetirse sin efectos: las
+     * entradas existentes no se modifican y los valores repetidos se informan como conflictos.
+     *
+     * @param opsPorSegundo operaciones por segundo del BulkWriter
+     * @return clientes revisados, entradas creadas y conflictos
+     * @throws ExecutionException   si falla la lectura de la colección
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public ResultadoReindexado reconstruirIndiceRut(int opsPorSegundo) throws ExecutionException, InterruptedException {
+        return almacen.reconstruirIndice(opsPorSegundo);
+    }
+
     /**
      * Actualiza un cliente existente en Firestore.
      *
@@ -95,9 +520,39 @@ public class ClienteService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public Cliente actualizarCliente(String id, Cliente cliente) throws ExecutionException, InterruptedException {
-        DocumentReference docRef = firestore().collection(COLLECTION_NAME).document(id);
-        cliente.setId(id);
-        docRef.set(cliente).get();
+        try {
+            escribirActualizacion(id, cliente).get();
+        } catch (ExecutionException e) {
+            throw IndiceUnico.propagar(e);
+        }
+        cache.invalidar(id);
+        publicar(id, cliente);
+        return cliente;
+    }
+
+    /**
+     * Actualiza solo los campos indicados de un cliente: se envían a Firestore con
+     * {@code update()} y sus rutas de campo, sin reescribir el documento completo.
+     *
+     * @param id      ID del cliente a actualizar
+     * @param cambios campos y nuevos valores (nombres sin distinguir mayúsculas)
+     * @param version versión esperada del documento ({@code If-Match}), o {@code null} para no exigirla
+     * @return cliente completo tras aplicar los cambios
+     * @throws PrecondicionFallidaException si el documento no está en la versión esperada
+     * @throws ExecutionException           si ocurre un error durante la operación
+     * @throws InterruptedException         si la ejecución es interrumpida
+     */
+    public Cliente actualizarClienteParcial(String id, Map<String, Object> cambios, String version)
+            throws ExecutionException, InterruptedException {
+        Cliente cliente;
+        try {
+            cliente = modificar(id, PARCIAL.normalizar(cambios), version).get();
+        } catch (ExecutionException e) {
+            throw IndiceUnico.propagar(e);
+        }
+        existente(cliente, id);
+        cache.invalidar(id);
+        publicar(id, cliente);
         return cliente;
     }
 
@@ -109,19 +564,333 @@ public class ClienteService {
      * @throws InterruptedException si la ejecución es interrumpida
      */
     public void eliminarCliente(String id) throws ExecutionException, InterruptedException {
-        firestore().collection(COLLECTION_NAME).document(id).delete().get();
+        eliminar(id).get();
+        cache.invalidar(id);
+        retirar(id);
+    }
+
+    // * Variantes asíncronas: encadenan los futuros del almacenamiento sin bloquear el hilo
+    // * que las invoca mientras la RPC está en curso
+
+    /**
+     * Variante no bloqueante de {@link #listarClientes(ConsultaPagina)}.
+     *
+     * @param consulta límite, campo de ordenamiento y cursores de la página
+     * @return futuro con la página de clientes
+     */
+    public CompletableFuture<Pagina<Cliente>> listarClientesAsync(ConsultaPagina consulta) {
+        try {
+            PaginacionFirestore.validarCampos(consulta, CAMPOS_PROYECTABLES);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (replicaLista() && ordenPorId(consulta)) {
+            try {
+                return CompletableFuture.completedFuture(replica.paginar(consulta));
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return listadosEnCurso.leer(claveListado(consulta), () -> metricas.listarAsync(
+                () -> almacen.paginarAsync(consulta, List.of(), CAMPOS_ORDENABLES)));
+    }
+
+    /**
+     * Variante no bloqueante de {@link #obtenerCliente(String)}.
+     *
+     * @param id ID del cliente
+     * @return futuro con el cliente; falla con {@link RuntimeException} si no existe
+     */
+    public CompletableFuture<Cliente> obtenerClienteAsync(String id) {
+        return obtenerClienteVersionadoAsync(id).thenApply(Versionado::getEntidad);
+    }
+
+    /**
+     * Obtiene varios clientes por ID con una sola lectura a Firestore ({@code getAll}), o desde
+     * la réplica si está sincronizada. Los IDs inexistentes se informan en el resultado en
+     * lugar de hacer fallar la lectura completa.
+     *
+     * @param ids IDs de los clientes (los repetidos se leen una vez)
+     * @return futuro con los clientes encontrados, en el orden pedido, y los IDs que no existen
+     * @throws IllegalArgumentException si no hay IDs, son más de {@value LecturaPorIds#MAXIMO_IDS} o alguno es inválido
+     */
+    public CompletableFuture<LecturaMultiple<Cliente>> obtenerClientesPorIdsAsync(List<String> ids) {
+        List<String> pedidos = LecturaPorIds.validar(ids);
+        if (replicaLista()) {
+            return CompletableFuture.completedFuture(LecturaPorIds.reunir(pedidos, replica::obtener));
+        }
+        return metricas.medirAsync(MetricasFirestore.OBTENER_VARIOS, () -> almacen.obtenerVarios(pedidos))
+                .thenApply(existentes -> {
+                    metricas.documentos(MetricasFirestore.OBTENER_VARIOS, existentes.size());
+                    return LecturaPorIds.reunir(pedidos, existentes::get);
+                });
+    }
+
+    /**
+     * Obtiene un cliente junto con la versión de su documento (hora de la última actualización),
+     * usada para responder lecturas condicionales. Se resuelve desde la réplica si conoce la
+     * versión, o desde la caché, igual que {@link #obtenerClienteAsync(String)}.
+     *
+     * @param id ID del cliente
+     * @return futuro con el cliente y su versión; falla con {@link RuntimeException} si no existe
+     */
+    public CompletableFuture<Versionado<Cliente>> obtenerClienteVersionadoAsync(String id) {
+        if (replicaLista()) {
+            Versionado<Cliente> replicado = replica.obtenerVersionado(id);
+            if (replicado != null && (replicado.getVersion() != null)) {
+                return CompletableFuture.completedFuture(replicado);
+            }
+        }
+        return cache.obtenerAsync(id, () -> metricas.medirAsync(MetricasFirestore.OBTENER, () -> almacen.obtenerAsync(id))
+                .thenApply(versionado -> existente(versionado, id)));
+    }
+
+    /**
+     * Versión actual de la colección: cambia con cada escritura de clientes. Es una sola lectura
+     * de los fragmentos del marcador, más barata que consultar una página.
+     *
+     * @return futuro con la versión de la colección
+     */
+    public CompletableFuture<String> versionClientesAsync() {
+        return versionEnCurso.leer(COLLECTION_NAME,
+                () -> metricas.medirAsync(MetricasFirestore.VERSION, () -> almacen.version()));
+    }
+
+    /**
+     * Versión con la que se valida un listado, tomada de la misma fuente que la página.
+     * Las páginas que puede servir la réplica no tienen versión: la réplica va detrás de
+     * Firestore, y un ETag leído del marcador podría describir datos que la página aún no
+     * incluye. Se decide por la configuración y no por el estado de la réplica, que puede
+     * cambiar entre la lectura de la versión y la de la página.
+     *
+     * @param consulta límite, campo de ordenamiento y cursores de la página
+     * @return futuro con la versión, o {@code null} si el listado no admite ETag
+     * @see #listarClientesAsync(ConsultaPagina)
+     */
+    public CompletableFuture<String> versionListadoAsync(ConsultaPagina consulta) {
+        if (replica != null && ordenPorId(consulta)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return versionClientesAsync();
+    }
+
+    /**
+     * Estadísticas de la colección: total de clientes. Se calcula con una consulta de
+     * agregación {@code count()} (un solo resultado, sin leer los documentos) y se reutiliza
+     * durante el tiempo de vida configurado, por lo que puede no reflejar las últimas escrituras.
+     *
+     * @return futuro con las estadísticas
+     */
+    public CompletableFuture<EstadisticasClientes> estadisticasClientesAsync() {
+        return estadisticas.obtenerAsync(CLAVE_ESTADISTICAS, this::agregarEstadisticasAsync);
+    }
+
+    // * Una sola agregación: Firestore devuelve el total sin transferir documentos
+    CompletableFuture<EstadisticasClientes> agregarEstadisticasAsync() {
+        return metricas.medirAsync(MetricasFirestore.ESTADISTICAS, () -> almacen.agregar(List.of(), null))
+                .thenApply(resumen -> new EstadisticasClientes(resumen.cantidad()));
+    }
+
+    /**
+     * Variante no bloqueante de {@link #crearCliente(Cliente)}.
+     *
+     * @param cliente objeto {@link Cliente} a almacenar
+     * @return futuro con el cliente y su ID asignado, completado al confirmar la escritura
+     */
+    public CompletableFuture<Cliente> crearClienteAsync(Cliente cliente) {
+        return escribirCreacion(cliente).thenApply(resultado -> {
+            publicar(cliente.getId(), cliente);
+            return cliente;
+        });
+    }
+
+    /**
+     * Variante no bloqueante de {@link #actualizarCliente(String, Cliente)}.
+     *
+     * @param id      ID del cliente a actualizar
+     * @param cliente objeto {@link Cliente} con los nuevos datos
+     * @return futuro con el cliente actualizado
+     */
+    public CompletableFuture<Cliente> actualizarClienteAsync(String id, Cliente cliente) {
+        return escribirActualizacion(id, cliente)
+                .thenApply(resultado -> {
+                    cache.invalidar(id);
+                    publicar(id, cliente);
+                    return cliente;
+                });
+    }
+
+    /**
+     * Variante no bloqueante de {@link #actualizarClienteParcial(String, Map, String)}.
+     *
+     * @param id      ID del cliente a actualizar
+     * @param cambios campos y nuevos valores
+     * @param version versión esperada del documento, o {@code null}
+     * @return futuro con el cliente completo tras aplicar los cambios
+     */
+    public CompletableFuture<Cliente> actualizarClienteParcialAsync(String id, Map<String, Object> cambios, String version) {
+        Map<String, Object> normalizados;
+        try {
+            normalizados = PARCIAL.normalizar(cambios);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return modificar(id, normalizados, version)
+                .thenApply(cliente -> {
+                    existente(cliente, id);
+                    cache.invalidar(id);
+                    publicar(id, cliente);
+                    return cliente;
+                });
+    }
+
+    /**
+     * Variante no bloqueante de {@link #eliminarCliente(String)}.
+     *
+     * @param id ID del cliente a eliminar
+     * @return futuro completado al confirmar la eliminación
+     */
+    public CompletableFuture<Void> eliminarClienteAsync(String id) {
+        return eliminar(id)
+                .thenAccept(resultado -> {
+                    cache.invalidar(id);
+                    retirar(id);
+                });
+    }
+
+    /**
+     * Busca un cliente por su RUT mediante el índice único: una lectura puntual del
+     * documento de índice y luego la lectura por ID (que puede resolverse en caché).
+     *
+     * @param rut RUT del cliente, en cualquier formato equivalente
+     * @return el cliente con ese RUT
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public Cliente obtenerClientePorRut(String rut) throws ExecutionException, InterruptedException {
+        String clave = INDICE_RUT.claveDe(rut);
+        String dueno = clave == null ? null : metricas
+                .medirAsync(MetricasFirestore.BUSCAR_INDICE, () -> almacen.buscarUnico(clave)).get();
+        if (dueno == null) {
+            // ! Lanza excepción si ningún cliente tiene ese RUT
+            throw new RuntimeException("Cliente no encontrado con rut: " + rut);
+        }
+        return obtenerCliente(dueno);
+    }
+
+    /**
+     * Variante no bloqueante de {@link #obtenerClientePorRut(String)}.
+     *
+     * @param rut RUT del cliente, en cualquier formato equivalente
+     * @return futuro con el cliente; falla con {@link RuntimeException} si no existe
+     */
+    public CompletableFuture<Cliente> obtenerClientePorRutAsync(String rut) {
+        String clave;
+        try {
+            clave = INDICE_RUT.claveDe(rut);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (clave == null) {
+            return CompletableFuture.failedFuture(new RuntimeException("Cliente no encontrado con rut: " + rut));
+        }
+        return indiceEnCurso.leer(clave, () -> metricas.medirAsync(MetricasFirestore.BUSCAR_INDICE,
+                        () -> almacen.buscarUnico(clave)))
+                .thenCompose(dueno -> {
+                    if (dueno == null) {
+                        throw new RuntimeException("Cliente no encontrado con rut: " + rut);
+                    }
+                    return obtenerClienteAsync(dueno);
+                });
+    }
+
+    /**
+     * Busca clientes por nombre y apellidos sin distinguir tildes ni mayúsculas, aceptando
+     * términos incompletos ("per" encuentra a "Pérez") y pequeños errores de tipeo.
+     * Se resuelve en memoria, sin consultar Firestore.
+     *
+     * @param consulta texto buscado (uno o más términos)
+     * @param limite   cantidad máxima de resultados, o {@code null} para usar el valor por defecto
+     * @return clientes encontrados, de mayor a menor coincidencia
+     * @throws IllegalArgumentException      si la consulta está vacía o el límite está fuera de rango
+     * @throws BusquedaNoDisponibleException si el índice aún se está cargando o la búsqueda está deshabilitada
+     */
+    public List<Cliente> buscarClientes(String consulta, Integer limite) {
+        int efectivo = IndiceBusqueda.limiteEfectivo(consulta, limite);
+        if (!busquedaHabilitada) {
+            throw new BusquedaNoDisponibleException("La búsqueda de clientes está deshabilitada");
+        }
+        if (!busqueda.estaLista()) {
+            throw new BusquedaNoDisponibleException("El índice de búsqueda de clientes aún se está cargando");
+        }
+        return busqueda.buscar(consulta, efectivo);
+    }
+
+    // ! Falla si el cliente no existe
+    private static <V> V existente(V valor, String id) {
+        if (valor == null) {
+            throw new RuntimeException("Cliente no encontrado con id: " + id);
+        }
+        return valor;
+    }
+
+    // * Creación y reemplazo completo: en un lote agrupado si está habilitado, si no con su propia transacción.
+    // * El RUT se valida antes de escribir, para rechazar un valor inválido igual en ambos caminos
+
+    private CompletableFuture<Cliente> escribirCreacion(Cliente cliente) {
+        INDICE_RUT.clave(cliente);
+        if (escrituraAgrupada == null) {
+            return crearIndividual(cliente);
+        }
+        return escrituraAgrupada.crear(cliente);
+    }
+
+    private CompletableFuture<Cliente> escribirActualizacion(String id, Cliente cliente) {
+        INDICE_RUT.clave(cliente);
+        cliente.setId(id);
+        if (escrituraAgrupada == null) {
+            return actualizarIndividual(id, cliente);
+        }
+        return escrituraAgrupada.actualizar(id, cliente);
+    }
+
+    // * Escrituras individuales compartidas por las variantes síncronas y asíncronas: el almacenamiento
+    // * confirma el documento del cliente y su entrada en el índice de RUT juntos
+
+    private CompletableFuture<Cliente> crearIndividual(Cliente cliente) {
+        return metricas.medirAsync(MetricasFirestore.CREAR, () -> almacen.crear(cliente));
+    }
+
+    private CompletableFuture<Cliente> actualizarIndividual(String id, Cliente cliente) {
+        return metricas.medirAsync(MetricasFirestore.ACTUALIZAR, () -> almacen.reemplazar(id, cliente));
+    }
+
+    // * Verifica la versión y solo escribe los campos cambiados; null si el cliente no existe
+    private CompletableFuture<Cliente> modificar(String id, Map<String, Object> cambios, String version) {
+        return metricas.medirAsync(MetricasFirestore.ACTUALIZAR_PARCIAL, () -> almacen.modificar(id, cambios, version));
+    }
+
+    private CompletableFuture<Void> eliminar(String id) {
+        return metricas.medirAsync(MetricasFirestore.ELIMINAR, () -> almacen.eliminar(id));
     }
 
     /**
-     * Elimina todos los documentos (clientes) de la colección.
+     * Elimina todos los documentos (clientes) de la colección mediante lecturas paginadas
+     * y escrituras agrupadas, retornando solo cuando todas las eliminaciones fueron confirmadas.
      *
+     * @return cantidad de clientes eliminados
      * @throws ExecutionException   si ocurre un error durante la operación
      * @throws InterruptedException si la ejecución es interrumpida
      */
-    public void eliminarTodosClientes() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = firestore().collection(COLLECTION_NAME).get();
-        for (DocumentSnapshot doc : future.get().getDocuments()) {
-            doc.getReference().delete();
+    public long eliminarTodosClientes() throws ExecutionException, InterruptedException {
+        try {
+            long eliminados = metricas.medir(MetricasFirestore.ELIMINAR_TODOS, () -> almacen.eliminarTodos());
+            metricas.documentos(MetricasFirestore.ELIMINAR_TODOS, eliminados);
+            retirarTodos();
+            return eliminados;
+        } finally {
+            // * Aun si falla a mitad de camino, parte de la colección ya no existe
+            cache.invalidarTodo();
         }
     }
 }
@@ -0,0 +1,24 @@
+package com.proyect.abogados.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Recibe los lotes de documentos leídos al recorrer una colección completa.
+ *
+ * Puede lanzar {@link IOException} (por ejemplo, si el cliente HTTP cerró la
+ * conexión), lo que detiene el recorrido sin realizar más lecturas en Firestore.
+ *
+ * @param <T> tipo de los elementos del lote
+ */
+@FunctionalInterface
+public interface ConsumidorLote<T> {
+
+    /**
+     * Procesa un lote de elementos.
+     *
+     * @param lote elementos leídos en la iteración actual
+     * @throws IOException si el procesamiento falla y el recorrido debe abortarse
+     */
+    void aceptar(List<T> lote) throws IOException;
+}
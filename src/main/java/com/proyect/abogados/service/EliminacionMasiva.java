@@ -0,0 +1,79 @@
+package com.proyect.abogados.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Motor de eliminación masiva de colecciones de Firestore.
+ *
+ * Lee solo las referencias de los documentos (sin sus campos) en páginas ordenadas
+ * por ID y elimina cada página con un {@link BulkWriter}, que agrupa las escrituras
+ * en lotes, las envía en paralelo y reintenta las fallidas. Cada página se espera
+ * por completo antes de leer la siguiente, lo que acota la cantidad de escrituras
+ * en vuelo, y el método retorna solo cuando toda la colección fue eliminada.
+ */
+final class EliminacionMasiva {
+
+    /** Documentos leídos y eliminados por cada página. */
+    static final int TAMANO_PAGINA = 500;
+
+    /** Límite de operaciones por segundo del BulkWriter, para no saturar Firestore. */
+    static final int MAX_OPERACIONES_POR_SEGUNDO = 2_000;
+
+    private EliminacionMasiva() {
+    }
+
+    /**
+     * Elimina todos los documentos de la colección y espera a que cada eliminación
+     * sea confirmada. Informa el progreso por consola tras cada página.
+     *
+     * @param firestore instancia de Firestore
+     * @param coleccion colección a vaciar
+     * @return cantidad de documentos eliminados
+     * @throws ExecutionException   si alguna eliminación falla tras los reintentos
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    static long eliminarColeccion(Firestore firestore, CollectionReference coleccion)
+            throws ExecutionException, InterruptedException {
+        BulkWriter bulkWriter = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setMaxOpsPerSecond(MAX_OPERACIONES_POR_SEGUNDO)
+                .build());
+        long eliminados = 0;
+        try {
+            // * Solo se solicita el ID: no se transfieren ni mapean los campos
+            Query base = coleccion.orderBy(FieldPath.documentId()).select(FieldPath.documentId());
+            Query pagina = base.limit(TAMANO_PAGINA);
+            while (true) {
+                List<QueryDocumentSnapshot> documentos = pagina.get().get().getDocuments();
+                if (documentos.isEmpty()) {
+                    break;
+                }
+
+                List<ApiFuture<WriteResult>> pendientes = new ArrayList<>(documentos.size());
+                for (QueryDocumentSnapshot doc : documentos) {
+                    pendientes.add(bulkWriter.delete(doc.getReference()));
+                }
+                bulkWriter.flush().get();
+                // ! Propaga la primera eliminación fallida (ya reintentada por el BulkWriter)
+                for (ApiFuture<WriteResult> pendiente : pendientes) {
+                    pendiente.get();
+                }
+
+                eliminados += documentos.size();
+                System.out.println("Eliminados " + eliminados + " documentos de '" + coleccion.getId() + "'...");
+                if (documentos.size() < TAMANO_PAGINA) {
+                    break;
+                }
+                String ultimoId = documentos.get(documentos.size() - 1).getId();
+                pagina = base.startAfter(ultimoId).limit(TAMANO_PAGINA);
+            }
+        } finally {
+            bulkWriter.close();
+        }
+        return eliminados;
+    }
+}
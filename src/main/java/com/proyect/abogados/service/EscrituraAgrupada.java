@@ -0,0 +1,294 @@
+package com.proyect.abogados.service;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las creaciones y actualizaciones concurrentes de una colección en lotes (group
+ * commit): las escrituras se acumulan hasta completar un lote o hasta que vence la espera
+ * máxima desde la primera, y se confirman con una sola escritura del almacenamiento
+ * ({@link AlmacenEntidades#escribirLote}; en Firestore, un {@code WriteBatch}). Cada
+ * escritura se completa recién cuando su lote se confirma.
+ *
+ * El almacenamiento mantiene el índice único dentro del lote y deja fuera las escrituras
+ * que no puede verificar (actualizaciones que cambian la clave o de documentos
+ * inexistentes); esas, y las claves repetidas dentro del mismo lote, van por la
+ * escritura individual de la colección.
+ *
+ * Un lote es atómico: si falla por un conflicto (clave ya registrada, precondición
+ * vencida), sus escrituras se reintentan una a una por la escritura individual, que
+ * informa el error a quien corresponde.
+ *
+ * @param <T> tipo de entidad
+ */
+final class EscrituraAgrupada<T> {
+
+    /** Documentos máximos por lote: en Firestore cada uno ocupa dos escrituras (más el marcador) de las 500 de un commit. */
+    static final int TAMANO_MAXIMO = 200;
+
+    /** Distribución de escrituras confirmadas por cada lote. */
+    static final String TAMANO = "firestore.escritura_agrupada.tamano";
+
+    /** Timer desde la primera escritura encolada hasta la confirmación de su lote. */
+    static final String LATENCIA = "firestore.escritura_agrupada.latencia";
+
+    // * Conflictos de un lote: se reintenta cada escritura por separado para aislar la que falla
+    private static final Set<StatusCode.Code> CODIGOS_CONFLICTO = Set.of(StatusCode.Code.ALREADY_EXISTS,
+            StatusCode.Code.FAILED_PRECONDITION, StatusCode.Code.NOT_FOUND, StatusCode.Code.ABORTED);
+
+    // * Escritura encolada a la espera de su lote
+    private record Pendiente<T>(AlmacenEntidades.Escritura<T> escritura, long encolada, CompletableFuture<T> resultado) {
+    }
+
+    private final String coleccion;
+    private final Supplier<AlmacenEntidades<T>> almacen;
+    private final IndiceUnico<T> indice;
+    private final int tamanoLote;
+    private final long esperaMaximaNanos;
+    private final Function<T, CompletableFuture<T>> crearIndividual;
+    private final BiFunction<String, T, CompletableFuture<T>> actualizarIndividual;
+
+    private volatile DistributionSummary tamanos;
+    private volatile Timer latencias;
+
+    // * Estado protegido por el monitor de este objeto
+    private List<Pendiente<T>> lote = new ArrayList<>();
+    private long generacion;
+
+    /**
+     * Crea el agrupador de escrituras de una colección.
+     *
+     * @param coleccion            nombre de la colección (etiqueta de las métricas)
+     * @param almacen              almacenamiento de la colección (se resuelve al confirmar cada lote)
+     * @param indice               índice único de la colección
+     * @param tamanoLote           escrituras que completan un lote
+     * @param esperaMaxima         espera máxima de la primera escritura de un lote incompleto
+     * @param crearIndividual      creación individual de una entidad (reintento fuera del lote)
+     * @param actualizarIndividual actualización individual de una entidad (reintento fuera del lote)
+     */
+    EscrituraAgrupada(String coleccion, Supplier<AlmacenEntidades<T>> almacen, IndiceUnico<T> indice,
+                      int tamanoLote, Duration esperaMaxima,
+                      Function<T, CompletableFuture<T>> crearIndividual,
+                      BiFunction<String, T, CompletableFuture<T>> actualizarIndividual) {
+        if (tamanoLote < 1 || tamanoLote > TAMANO_MAXIMO || esperaMaxima.isNegative()) {
+            throw new IllegalArgumentException("Escritura agrupada inválida para " + coleccion);
+        }
+        this.coleccion = coleccion;
+        this.almacen = almacen;
+        this.indice = indice;
+        this.tamanoLote = tamanoLote;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.crearIndividual = crearIndividual;
+        this.actualizarIndividual = actualizarIndividual;
+        registrarMetricas(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Encola la creación de una entidad; el ID se le asigna al armar su lote.
+     *
+     * @param entidad entidad a crear
+     * @return futuro con la entidad, completado al confirmar su lote
+     * @throws IllegalArgumentException si el valor de la clave única es inválido
+     */
+    CompletableFuture<T> crear(T entidad) {
+        return encolar(new Pendiente<>(new AlmacenEntidades.Escritura<>(true, null, entidad, indice.clave(entidad)),
+                System.nanoTime(), new CompletableFuture<>()));
+    }
+
+    /**
+     * Encola el reemplazo completo de una entidad existente.
+     *
+     * @param id      ID de la entidad
+     * @param entidad nuevos datos
+     * @return futuro con la entidad, completado al confirmar su lote
+     * @throws IllegalArgumentException si el valor de la clave única es inválido
+     */
+    CompletableFuture<T> actualizar(String id, T entidad) {
+        return encolar(new Pendiente<>(new AlmacenEntidades.Escritura<>(false, id, entidad, indice.clave(entidad)),
+                System.nanoTime(), new CompletableFuture<>()));
+    }
+
+    /**
+     * Confirma de inmediato el lote en curso, sin esperar a que se complete (por ejemplo, al cerrar el contexto).
+     */
+    void confirmarPendientes() {
+        List<Pendiente<T>> pendientes;
+        synchronized (this) {
+            if (lote.isEmpty()) {
+                return;
+            }
+            pendientes = tomar();
+        }
+        confirmar(pendientes);
+    }
+
+    /**
+     * @return escrituras encoladas en el lote en curso
+     */
+    synchronized int pendientes() {
+        return lote.size();
+    }
+
+    /**
+     * Registra el tamaño de cada lote confirmado y la latencia de su confirmación.
+     *
+     * @param registry registro de métricas de Micrometer
+     */
+    void registrarMetricas(MeterRegistry registry) {
+        tamanos = DistributionSummary.builder(TAMANO)
+                .description("Escrituras confirmadas por cada lote")
+                .baseUnit("documents")
+                .tag("coleccion", coleccion)
+                .publishPercentileHistogram()
+                .register(registry);
+        latencias = Timer.builder(LATENCIA)
+                .description("Tiempo desde la primera escritura encolada hasta la confirmación del lote")
+                .tag("coleccion", coleccion)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private CompletableFuture<T> encolar(Pendiente<T> pendiente) {
+        List<Pendiente<T>> completo = null;
+        boolean programar;
+        long actual;
+        synchronized (this) {
+            programar = lote.isEmpty();
+            lote.add(pendiente);
+            actual = generacion;
+            if (lote.size() >= tamanoLote) {
+                completo = tomar();
+                programar = false;
+            }
+        }
+        if (programar) {
+            CompletableFuture.delayedExecutor(esperaMaximaNanos, TimeUnit.NANOSECONDS).execute(() -> vencer(actual));
+        }
+        if (completo != null) {
+            confirmar(completo);
+        }
+        return pendiente.resultado();
+    }
+
+    // * La espera del lote venció: se confirma aunque esté incompleto (si no se confirmó antes por tamaño)
+    private void vencer(long esperada) {
+        List<Pendiente<T>> pendientes;
+        synchronized (this) {
+            if (generacion != esperada || lote.isEmpty()) {
+                return;
+            }
+            pendientes = tomar();
+        }
+        confirmar(pendientes);
+    }
+
+    // * Debe invocarse con el monitor tomado
+    private List<Pendiente<T>> tomar() {
+        List<Pendiente<T>> pendientes = lote;
+        lote = new ArrayList<>(tamanoLote);
+        generacion++;
+        return pendientes;
+    }
+
+    // * Separa lo que el lote puede verificar y confirma el resto por la escritura individual
+    private void confirmar(List<Pendiente<T>> pendientes) {
+        AlmacenEntidades<T> destino;
+        try {
+            destino = almacen.get();
+        } catch (RuntimeException e) {
+            pendientes.forEach(pendiente -> pendiente.resultado().completeExceptionally(e));
+            return;
+        }
+        List<Pendiente<T>> agrupadas = new ArrayList<>(pendientes.size());
+        Set<String> claves = new HashSet<>();
+        for (Pendiente<T> pendiente : pendientes) {
+            AlmacenEntidades.Escritura<T> escritura = pendiente.escritura();
+            boolean verificable = escritura.nueva() || escritura.clave() != null;
+            if (!verificable || (escritura.clave() != null && !claves.add(escritura.clave()))) {
+                // * Sin clave que verificar, o con una clave repetida en el lote: va por la escritura individual
+                escribirIndividual(pendiente);
+                continue;
+            }
+            agrupadas.add(pendiente);
+        }
+        if (agrupadas.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<Set<Integer>> confirmacion;
+        try {
+            confirmacion = destino.escribirLote(agrupadas.stream().map(Pendiente::escritura).toList());
+        } catch (RuntimeException e) {
+            confirmacion = CompletableFuture.failedFuture(e);
+        }
+        confirmacion.whenComplete((fuera, error) -> {
+            if (error != null) {
+                if (esConflicto(error)) {
+                    agrupadas.forEach(this::escribirIndividual);
+                } else {
+                    agrupadas.forEach(pendiente -> pendiente.resultado().completeExceptionally(error));
+                }
+                return;
+            }
+            List<Pendiente<T>> enLote = new ArrayList<>(agrupadas.size());
+            for (int i = 0; i < agrupadas.size(); i++) {
+                if (fuera.contains(i)) {
+                    escribirIndividual(agrupadas.get(i));
+                } else {
+                    enLote.add(agrupadas.get(i));
+                }
+            }
+            if (enLote.isEmpty()) {
+                return;
+            }
+            tamanos.record(enLote.size());
+            latencias.record(System.nanoTime() - enLote.get(0).encolada(), TimeUnit.NANOSECONDS);
+            enLote.forEach(pendiente -> pendiente.resultado().complete(pendiente.escritura().entidad()));
+        });
+    }
+
+    // * Escritura fuera del lote, con la escritura individual de la colección
+    private void escribirIndividual(Pendiente<T> pendiente) {
+        AlmacenEntidades.Escritura<T> datos = pendiente.escritura();
+        CompletableFuture<T> escritura;
+        try {
+            escritura = datos.nueva()
+                    ? crearIndividual.apply(datos.entidad())
+                    : actualizarIndividual.apply(datos.id(), datos.entidad());
+        } catch (RuntimeException e) {
+            escritura = CompletableFuture.failedFuture(e);
+        }
+        escritura.whenComplete((valor, error) -> {
+            if (error != null) {
+                pendiente.resultado().completeExceptionally(error);
+            } else {
+                pendiente.resultado().complete(valor);
+            }
+        });
+    }
+
+    static boolean esConflicto(Throwable error) {
+        Throwable causa = error;
+        while ((causa instanceof CompletionException || causa instanceof ExecutionException) && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        return causa instanceof ApiException api && CODIGOS_CONFLICTO.contains(api.getStatusCode().getCode());
+    }
+}
@@ -0,0 +1,49 @@
+package com.proyect.abogados.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Puente entre los {@link ApiFuture} del SDK de Firestore y {@link CompletableFuture}.
+ *
+ * Permite encadenar operaciones sin bloquear el hilo que las invoca: el resultado
+ * se completa desde el hilo del cliente gRPC cuando Firestore responde.
+ */
+final class FuturosFirestore {
+
+    private FuturosFirestore() {
+    }
+
+    /**
+     * Convierte un {@link ApiFuture} en un {@link CompletableFuture}. Cancelar el
+     * resultado cancela también la operación original.
+     *
+     * @param futuro futuro devuelto por Firestore
+     * @param <T>    tipo del resultado
+     * @return futuro completable equivalente
+     */
+    static <T> CompletableFuture<T> aCompletable(ApiFuture<T> futuro) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        ApiFutures.addCallback(futuro, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable t) {
+                resultado.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(T valor) {
+                resultado.complete(valor);
+            }
+        }, MoreExecutors.directExecutor());
+        resultado.whenComplete((valor, error) -> {
+            if (resultado.isCancelled()) {
+                futuro.cancel(true);
+            }
+        });
+        return resultado;
+    }
+}
@@ -0,0 +1,315 @@
+package com.proyect.abogados.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.*;
+import com.proyect.abogados.model.ResultadoImportacion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Motor de importación masiva hacia una colección de Firestore.
+ *
+ * Lee los registros uno a uno desde un {@link MappingIterator} (arreglo JSON o NDJSON),
+ * de modo que la entrada nunca se carga completa en memoria, y los escribe con un
+ * {@link BulkWriter}, que agrupa y paraleliza las escrituras. Cada lote se confirma
+ * antes de seguir leyendo, lo que acota la memoria y las escrituras en vuelo.
+ */
+public class ImportacionMasiva {
+
+    /** Registros enviados al BulkWriter antes de esperar su confirmación. */
+    public static final int TAMANO_LOTE_POR_DEFECTO = 1_000;
+
+    /** Operaciones por segundo con las que arranca el BulkWriter. */
+    public static final int OPS_INICIALES_POR_DEFECTO = 5_000;
+
+    /** Límite de operaciones por segundo del BulkWriter. */
+    public static final int OPS_MAXIMAS_POR_DEFECTO = 20_000;
+
+    private final int tamanoLote;
+    private final int opsIniciales;
+    private final int opsMaximas;
+
+    /**
+     * Crea el motor de importación.
+     *
+     * @param tamanoLote   registros por lote confirmado
+     * @param opsIniciales operaciones por segundo iniciales del BulkWriter
+     * @param opsMaximas   operaciones por segundo máximas del BulkWriter
+     */
+    public ImportacionMasiva(int tamanoLote, int opsIniciales, int opsMaximas) {
+        this.tamanoLote = tamanoLote;
+        this.opsIniciales = opsIniciales;
+        this.opsMaximas = opsMaximas;
+    }
+
+    /**
+     * Copia del motor con una tasa fija de operaciones por segundo, sin la rampa de arranque
+     * del BulkWriter. Pensada para cargas sintéticas sobre una base que no atiende tráfico real.
+     *
+     * @param opsPorSegundo operaciones por segundo del BulkWriter
+     * @return motor con el mismo tamaño de lote y la tasa indicada
+     */
+    public ImportacionMasiva conTasa(int opsPorSegundo) {
+        return new ImportacionMasiva(tamanoLote, opsPorSegundo, opsPorSegundo);
+    }
+
+    // * Origen de los registros: el lector de la petición puede fallar por registro, un iterador en memoria no
+    private interface Fuente<T> {
+        boolean hayMas() throws IOException;
+
+        T siguiente() throws IOException;
+    }
+
+    // * Registro leído pendiente de escritura, con su documento de índice único (si corresponde)
+    private record Pendiente<T>(int indice, DocumentReference documento, T registro, DocumentReference documentoIndice) {
+    }
+
+    /**
+     * Importa todos los registros de la entrada como documentos nuevos.
+     *
+     * @param firestore instancia de Firestore
+     * @param coleccion colección de destino
+     * @param registros registros leídos incrementalmente desde el cuerpo de la petición
+     * @param asignarId asigna el ID generado al registro antes de escribirlo
+     * @param alCrear   se invoca por cada registro confirmado (ID, registro)
+     * @param <T>       tipo de entidad
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    public <T> ResultadoImportacion importar(Firestore firestore, CollectionReference coleccion,
+                                             MappingIterator<T> registros, BiConsumer<T, String> asignarId,
+                                             BiConsumer<String, T> alCrear) throws InterruptedException {
+        return importar(firestore, coleccion, registros, asignarId, null, null, alCrear);
+    }
+
+    /**
+     * Importa los registros manteniendo un índice único: por cada lote se reservan primero
+     * las claves del índice y solo se crean los registros cuya clave quedó reservada. Un
+     * valor ya registrado (o repetido en la entrada) se informa como fallo del registro.
+     * Si se indica un marcador, se toca junto con cada lote para invalidar los ETags de la colección.
+     *
+     * @param firestore instancia de Firestore
+     * @param coleccion colección de destino
+     * @param registros registros leídos incrementalmente desde el cuerpo de la petición
+     * @param asignarId asigna el ID generado al registro antes de escribirlo
+     * @param indice    índice único a mantener ({@code null} si la colección no tiene)
+     * @param marcador  marcador de versión de la colección ({@code null} si no tiene)
+     * @param alCrear   se invoca por cada registro confirmado (ID, registro)
+     * @param <T>       tipo de entidad
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    <T> ResultadoImportacion importar(Firestore firestore, CollectionReference coleccion,
+                                      MappingIterator<T> registros, BiConsumer<T, String> asignarId,
+                                      IndiceUnico<T> indice, MarcadorColeccion marcador,
+                                      BiConsumer<String, T> alCrear) throws InterruptedException {
+        return importar(firestore, coleccion, new Fuente<T>() {
+            @Override
+            public boolean hayMas() throws IOException {
+                return registros.hasNextValue();
+            }
+
+            @Override
+            public T siguiente() throws IOException {
+                return registros.nextValue();
+            }
+        }, asignarId, indice, marcador, alCrear);
+    }
+
+    /**
+     * Importa registros ya construidos en memoria (por ejemplo, datos sintéticos), con el
+     * mismo índice único, marcador y escritura por lotes que la importación desde JSON.
+     * El iterador se consume de forma incremental.
+     *
+     * @param firestore instancia de Firestore
+     * @param coleccion colección de destino
+     * @param registros registros a crear
+     * @param asignarId asigna el ID generado al registro antes de escribirlo
+     * @param indice    índice único a mantener ({@code null} si la colección no tiene)
+     * @param marcador  marcador de versión de la colección ({@code null} si no tiene)
+     * @param alCrear   se invoca por cada registro confirmado (ID, registro)
+     * @param <T>       tipo de entidad
+     * @return IDs creados y fallos por registro
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    <T> ResultadoImportacion importar(Firestore firestore, CollectionReference coleccion,
+                                      Iterator<T> registros, BiConsumer<T, String> asignarId,
+                                      IndiceUnico<T> indice, MarcadorColeccion marcador,
+                                      BiConsumer<String, T> alCrear) throws InterruptedException {
+        return importar(firestore, coleccion, new Fuente<T>() {
+            @Override
+            public boolean hayMas() {
+                return registros.hasNext();
+            }
+
+            @Override
+            public T siguiente() {
+                return registros.next();
+            }
+        }, asignarId, indice, marcador, alCrear);
+    }
+
+    private <T> ResultadoImportacion importar(Firestore firestore, CollectionReference coleccion,
+                                              Fuente<T> registros, BiConsumer<T, String> asignarId,
+                                              IndiceUnico<T> indice, MarcadorColeccion marcador,
+                                              BiConsumer<String, T> alCrear) throws InterruptedException {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        BulkWriter bulkWriter = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(opsIniciales)
+                .setMaxOpsPerSecond(opsMaximas)
+                .build());
+        List<Pendiente<T>> pendientes = new ArrayList<>(tamanoLote);
+        int posicion = 0;
+        try {
+            while (true) {
+                T registro;
+                try {
+                    if (!registros.hayMas()) {
+                        break;
+                    }
+                    registro = registros.siguiente();
+                } catch (JsonParseException e) {
+                    // ! JSON mal formado: no es posible ubicar el siguiente registro
+                    resultado.getFallos().add(new ResultadoImportacion.Fallo(posicion, "JSON inválido: " + e.getOriginalMessage()));
+                    break;
+                } catch (IOException e) {
+                    // * Registro con campos incompatibles: se informa y se continúa con el siguiente
+                    resultado.getFallos().add(new ResultadoImportacion.Fallo(posicion, e.getMessage()));
+                    posicion++;
+                    continue;
+                }
+
+                DocumentReference nuevo = coleccion.document();
+                asignarId.accept(registro, nuevo.getId());
+                DocumentReference documentoIndice;
+                try {
+                    String clave = indice == null ? null : indice.clave(registro);
+                    documentoIndice = clave == null ? null : indice.referencia(firestore, clave);
+                } catch (IllegalArgumentException e) {
+                    resultado.getFallos().add(new ResultadoImportacion.Fallo(posicion, e.getMessage()));
+                    posicion++;
+                    continue;
+                }
+                pendientes.add(new Pendiente<>(posicion, nuevo, registro, documentoIndice));
+                posicion++;
+
+                if (pendientes.size() >= tamanoLote) {
+                    confirmar(firestore, bulkWriter, pendientes, indice, marcador, resultado, alCrear);
+                }
+            }
+            confirmar(firestore, bulkWriter, pendientes, indice, marcador, resultado, alCrear);
+        } finally {
+            cerrar(bulkWriter);
+        }
+        return resultado;
+    }
+
+    // * Escribe el lote en dos fases (claves del índice y luego registros) y registra el resultado
+    private <T> void confirmar(Firestore firestore, BulkWriter bulkWriter, List<Pendiente<T>> pendientes,
+                               IndiceUnico<T> indice, MarcadorColeccion marcador,
+                               ResultadoImportacion resultado, BiConsumer<String, T> alCrear)
+            throws InterruptedException {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        // * Fase 1: create falla si la clave ya existe, incluso si se repite dentro del mismo lote
+        List<ApiFuture<WriteResult>> reservas = new ArrayList<>(pendientes.size());
+        boolean hayReservas = false;
+        for (Pendiente<T> pendiente : pendientes) {
+            if (pendiente.documentoIndice() != null) {
+                reservas.add(bulkWriter.create(pendiente.documentoIndice(),
+                        Map.of(IndiceUnico.CAMPO_ID, pendiente.documento().getId())));
+                hayReservas = true;
+            } else {
+                reservas.add(null);
+            }
+        }
+        if (hayReservas) {
+            esperar(bulkWriter);
+        }
+
+        // * Fase 2: solo se crean los registros cuya clave quedó reservada
+        List<ApiFuture<WriteResult>> escrituras = new ArrayList<>(pendientes.size());
+        for (int i = 0; i < pendientes.size(); i++) {
+            Pendiente<T> pendiente = pendientes.get(i);
+            ApiFuture<WriteResult> reserva = reservas.get(i);
+            Throwable errorReserva = reserva == null ? null : fallo(reserva);
+            if (errorReserva != null) {
+                // * Solo una clave existente es un duplicado; cualquier otro error se informa tal cual
+                String mensaje = yaExiste(errorReserva)
+                        ? indice.duplicado(pendiente.registro()).getMessage()
+                        : errorReserva.getMessage();
+                resultado.getFallos().add(new ResultadoImportacion.Fallo(pendiente.indice(), mensaje));
+                escrituras.add(null);
+            } else {
+                escrituras.add(bulkWriter.create(pendiente.documento(), pendiente.registro()));
+            }
+        }
+        if (marcador != null) {
+            marcador.tocar(bulkWriter, firestore);
+        }
+        esperar(bulkWriter);
+
+        for (int i = 0; i < pendientes.size(); i++) {
+            Pendiente<T> pendiente = pendientes.get(i);
+            ApiFuture<WriteResult> escritura = escrituras.get(i);
+            if (escritura == null) {
+                continue;
+            }
+            Throwable error = fallo(escritura);
+            if (error == null) {
+                resultado.getCreados().add(pendiente.documento().getId());
+                alCrear.accept(pendiente.documento().getId(), pendiente.registro());
+            } else {
+                resultado.getFallos().add(new ResultadoImportacion.Fallo(pendiente.indice(), error.getMessage()));
+                if (pendiente.documentoIndice() != null) {
+                    // * Libera la clave reservada para un registro que no se pudo crear
+                    bulkWriter.delete(pendiente.documentoIndice());
+                }
+            }
+        }
+        pendientes.clear();
+    }
+
+    // * Espera a que se escriba todo lo encolado; los errores individuales se leen de cada escritura
+    private void esperar(BulkWriter bulkWriter) throws InterruptedException {
+        try {
+            bulkWriter.flush().get();
+        } catch (ExecutionException e) {
+            // * Los errores individuales se informan a través de cada escritura
+        }
+    }
+
+    // * Error de una escritura ya confirmada, o null si tuvo éxito
+    private static Throwable fallo(ApiFuture<WriteResult> escritura) throws InterruptedException {
+        try {
+            escritura.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    private static boolean yaExiste(Throwable error) {
+        return error instanceof ApiException api && api.getStatusCode().getCode() == StatusCode.Code.ALREADY_EXISTS;
+    }
+
+    private void cerrar(BulkWriter bulkWriter) throws InterruptedException {
+        try {
+            bulkWriter.close();
+        } catch (ExecutionException e) {
+            System.err.println("Error al cerrar el BulkWriter de la importación: " + e.getMessage());
+        }
+    }
+}
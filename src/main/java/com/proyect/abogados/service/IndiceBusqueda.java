@@ -0,0 +1,465 @@
+package com.proyect.abogados.service;
+
+import com.proyect.abogados.model.Persona;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria para buscar personas por nombre mientras se escribe (autocompletar).
+ *
+ * Indexa los términos de {@code pNombre}, {@code sNombre}, {@code pApellido} y
+ * {@code sApellido} sin tildes ni mayúsculas, por lo que "Perez" encuentra a "Pérez".
+ * Cada término de la consulta debe coincidir con algún término del nombre. Se puntúa
+ * cada coincidencia: término exacto, prefijo del término (más puntaje cuanto más del
+ * término cubre) o término parecido según los trigramas que comparten (para errores de
+ * tipeo como "Peres").
+ *
+ * Los candidatos se obtienen a partir del término más largo de la consulta, recorriendo
+ * primero las coincidencias exactas, luego los prefijos (sobre un mapa ordenado) y por
+ * último los términos parecidos. Los mejores se conservan en un montículo acotado al
+ * límite, y cada fase se omite cuando ninguno de sus candidatos puede superar a los ya
+ * elegidos. Como mucho se puntúan {@value #CANDIDATOS_MAXIMOS} documentos por búsqueda,
+ * por lo que el costo no crece con el tamaño de la colección.
+ *
+ * Las lecturas se hacen en paralelo bajo un cerrojo de lectura; cada escritura toma el
+ * cerrojo exclusivo solo para actualizar los términos de un documento.
+ *
+ * @param <T> tipo de persona indexada
+ */
+final class IndiceBusqueda<T extends Persona> implements ReplicaColeccion.Oyente<T> {
+
+    /** Resultados devueltos si no se indica un límite. */
+    static final int LIMITE_POR_DEFECTO = 10;
+
+    /** Máximo de resultados por búsqueda. */
+    static final int LIMITE_MAXIMO = 50;
+
+    /** Similitud mínima (coeficiente de Dice sobre trigramas) para aceptar un término parecido. */
+    static final double SIMILITUD_MINIMA = 0.5;
+
+    /** Documentos puntuados como máximo por búsqueda, para acotar el costo de los términos muy comunes. */
+    static final int CANDIDATOS_MAXIMOS = 5000;
+
+    // * Términos de la consulta considerados (un nombre completo tiene cuatro)
+    private static final int TERMINOS_MAXIMOS = 4;
+
+    // * Largo mínimo de un término para buscar términos parecidos
+    private static final int LARGO_MINIMO_PARECIDOS = 3;
+
+    // * Puntaje de cada término de la consulta según cómo coincide
+    private static final double PUNTAJE_EXACTO = 3;
+    private static final double PUNTAJE_PREFIJO = 2;
+
+    // * Un parecido nunca supera una similitud de 1
+    private static final double PUNTAJE_PARECIDO = 1;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // * Documento indexado: la entidad que se devuelve y sus términos normalizados
+    private record Entrada<T>(T entidad, String[] terminos) {
+    }
+
+    // * Documento puntuado y su orden de evaluación
+    private record Candidato(String id, double puntaje, int orden) {
+    }
+
+    // * A igual puntaje es peor el que llegó después (exactos, prefijos, parecidos)
+    private static final Comparator<Candidato> PEOR_PRIMERO = Comparator.comparingDouble(Candidato::puntaje)
+            .thenComparing(Comparator.comparingInt(Candidato::orden).reversed());
+
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private final Map<String, Entrada<T>> entradas = new HashMap<>();
+
+    // * Término -> IDs que lo contienen (en orden de llegada); ordenado para recorrer los prefijos
+    private final TreeMap<String, Set<String>> porTermino = new TreeMap<>();
+
+    // * Trigrama -> términos que lo contienen, para los términos parecidos
+    private final Map<String, Set<String>> porTrigrama = new HashMap<>();
+
+    private volatile boolean lista;
+
+    /**
+     * Indica si el índice terminó su carga inicial y puede responder búsquedas.
+     *
+     * @return {@code true} si el índice está cargado
+     */
+    boolean estaLista() {
+        return lista;
+    }
+
+    /**
+     * Marca el índice como cargado.
+     */
+    void marcarLista() {
+        lista = true;
+    }
+
+    /**
+     * @return cantidad de documentos indexados
+     */
+    int tamano() {
+        cerrojo.readLock().lock();
+        try {
+            return entradas.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza el contenido completo del índice y lo marca como cargado.
+     *
+     * @param contenido entidades por ID
+     */
+    @Override
+    public void reemplazar(Map<String, T> contenido) {
+        cerrojo.writeLock().lock();
+        try {
+            entradas.clear();
+            porTermino.clear();
+            porTrigrama.clear();
+            contenido.forEach(this::agregar);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        lista = true;
+    }
+
+    /**
+     * Indexa (o reindexa) una entidad.
+     *
+     * @param id      ID del documento
+     * @param entidad entidad escrita
+     */
+    @Override
+    public void aplicar(String id, T entidad) {
+        cerrojo.writeLock().lock();
+        try {
+            retirar(id);
+            agregar(id, entidad);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita una entidad del índice.
+     *
+     * @param id ID del documento
+     */
+    @Override
+    public void quitar(String id) {
+        cerrojo.writeLock().lock();
+        try {
+            retirar(id);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el índice tras una eliminación completa de la colección.
+     */
+    void vaciar() {
+        reemplazar(Map.of());
+    }
+
+    /**
+     * Valida los parámetros de una búsqueda.
+     *
+     * @param consulta texto buscado
+     * @param limite   cantidad de resultados pedida, o {@code null} para usar el valor por defecto
+     * @return límite efectivo
+     * @throws IllegalArgumentException si la consulta está vacía o el límite está fuera de rango
+     */
+    static int limiteEfectivo(String consulta, Integer limite) {
+        if (consulta == null || terminos(consulta).length == 0) {
+            throw new IllegalArgumentException("q debe contener al menos una letra o número");
+        }
+        if (limite == null) {
+            return LIMITE_POR_DEFECTO;
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return limite;
+    }
+
+    /**
+     * Busca las personas cuyo nombre coincide con la consulta, de mayor a menor puntaje.
+     *
+     * @param consulta texto buscado (uno o más términos, completos o iniciales)
+     * @param limite   cantidad máxima de resultados
+     * @return entidades encontradas
+     */
+    List<T> buscar(String consulta, int limite) {
+        String[] buscados = terminos(consulta);
+        if (buscados.length == 0) {
+            return List.of();
+        }
+        if (buscados.length > TERMINOS_MAXIMOS) {
+            buscados = Arrays.copyOf(buscados, TERMINOS_MAXIMOS);
+        }
+        // * El término más largo suele ser el más selectivo: de él salen los candidatos
+        String guia = buscados[0];
+        for (String buscado : buscados) {
+            if (buscado.length() > guia.length()) {
+                guia = buscado;
+            }
+        }
+
+        // * Cota de cada fase: el término guía aporta a lo sumo su tipo de coincidencia y el resto, exactos
+        double otros = PUNTAJE_EXACTO * (buscados.length - 1);
+        Seleccion seleccion = new Seleccion(buscados, limite);
+        cerrojo.readLock().lock();
+        try {
+            seleccion.evaluar(porTermino.get(guia));
+            for (Set<String> ids : porTermino.subMap(guia, false, guia + Character.MAX_VALUE, false).values()) {
+                if (seleccion.terminada(otros + PUNTAJE_PREFIJO)) {
+                    break;
+                }
+                seleccion.evaluar(ids);
+            }
+            if (guia.length() >= LARGO_MINIMO_PARECIDOS && !seleccion.terminada(otros + PUNTAJE_PARECIDO)) {
+                for (String parecido : parecidos(guia)) {
+                    if (seleccion.terminada(otros + PUNTAJE_PARECIDO)) {
+                        break;
+                    }
+                    seleccion.evaluar(porTermino.get(parecido));
+                }
+            }
+            return seleccion.resultado();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Texto sin tildes ni diacríticos y en minúsculas.
+     *
+     * @param texto texto original
+     * @return texto normalizado
+     */
+    static String normalizar(String texto) {
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // * Términos normalizados de un texto, separados por cualquier carácter que no sea letra o número
+    static String[] terminos(String texto) {
+        return Arrays.stream(SEPARADORES.split(normalizar(texto)))
+                .filter(termino -> !termino.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    // * Los mejores candidatos de una búsqueda, en un montículo con el peor en la cima (bajo el cerrojo de lectura)
+    private final class Seleccion {
+
+        private final String[] buscados;
+        private final int limite;
+        private final PriorityQueue<Candidato> mejores = new PriorityQueue<>(PEOR_PRIMERO);
+        private final Set<String> vistos = new HashSet<>();
+
+        Seleccion(String[] buscados, int limite) {
+            this.buscados = buscados;
+            this.limite = limite;
+        }
+
+        // * Puntúa los candidatos aún no vistos, hasta agotar el máximo de candidatos
+        void evaluar(Set<String> ids) {
+            if (ids == null) {
+                return;
+            }
+            for (String id : ids) {
+                if (vistos.size() >= CANDIDATOS_MAXIMOS) {
+                    return;
+                }
+                if (!vistos.add(id)) {
+                    continue;
+                }
+                double puntaje = puntaje(entradas.get(id).terminos(), buscados);
+                if (puntaje <= 0) {
+                    continue;
+                }
+                Candidato candidato = new Candidato(id, puntaje, vistos.size());
+                if (mejores.size() < limite) {
+                    mejores.add(candidato);
+                } else if (PEOR_PRIMERO.compare(candidato, mejores.peek()) > 0) {
+                    mejores.poll();
+                    mejores.add(candidato);
+                }
+            }
+        }
+
+        // * Sin más candidatos por puntuar, o con el límite cubierto por puntajes que la fase no puede superar
+        boolean terminada(double puntajeMaximo) {
+            return vistos.size() >= CANDIDATOS_MAXIMOS
+                    || (mejores.size() >= limite && mejores.peek().puntaje() >= puntajeMaximo);
+        }
+
+        List<T> resultado() {
+            List<Candidato> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(PEOR_PRIMERO.reversed());
+            List<T> resultado = new ArrayList<>(ordenados.size());
+            for (Candidato candidato : ordenados) {
+                resultado.add(entradas.get(candidato.id()).entidad());
+            }
+            return resultado;
+        }
+    }
+
+    // * Suma la mejor coincidencia de cada término buscado; 0 si alguno no coincide con ningún término del nombre
+    private static double puntaje(String[] nombre, String[] buscados) {
+        double total = 0;
+        for (String buscado : buscados) {
+            double mejor = 0;
+            for (String termino : nombre) {
+                if (termino.equals(buscado)) {
+                    mejor = PUNTAJE_EXACTO;
+                    break;
+                }
+                if (termino.startsWith(buscado)) {
+                    mejor = Math.max(mejor, prefijo(buscado, termino));
+                }
+            }
+            if (mejor == 0 && buscado.length() >= LARGO_MINIMO_PARECIDOS) {
+                Set<String> trigramasBuscado = null;
+                for (String termino : nombre) {
+                    // * Un término rodeado de espacios tiene tantos trigramas como letras: si los largos
+                    // * difieren demasiado, la similitud no puede alcanzar el mínimo
+                    int menor = Math.min(buscado.length(), termino.length());
+                    if (2.0 * menor / (buscado.length() + termino.length()) < SIMILITUD_MINIMA) {
+                        continue;
+                    }
+                    if (trigramasBuscado == null) {
+                        trigramasBuscado = trigramas(buscado);
+                    }
+                    double similitud = similitud(trigramasBuscado, termino);
+                    if (similitud >= SIMILITUD_MINIMA) {
+                        mejor = Math.max(mejor, similitud);
+                    }
+                }
+            }
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    // * Entre 1 y el puntaje de prefijo según cuánto del término cubre: "per" coincide más con "perez" que con "peralta"
+    private static double prefijo(String buscado, String termino) {
+        return 1 + (PUNTAJE_PREFIJO - 1) * buscado.length() / termino.length();
+    }
+
+    // * Términos indexados que comparten suficientes trigramas con el buscado, de más a menos parecido
+    private List<String> parecidos(String buscado) {
+        Set<String> propios = trigramas(buscado);
+        Map<String, Integer> compartidos = new HashMap<>();
+        for (String trigrama : propios) {
+            Set<String> terminos = porTrigrama.get(trigrama);
+            if (terminos != null) {
+                for (String termino : terminos) {
+                    compartidos.merge(termino, 1, Integer::sum);
+                }
+            }
+        }
+        Map<String, Double> similitudes = new HashMap<>();
+        compartidos.forEach((termino, cantidad) -> {
+            double similitud = 2.0 * cantidad / (propios.size() + trigramas(termino).size());
+            if (similitud >= SIMILITUD_MINIMA && !termino.startsWith(buscado)) {
+                similitudes.put(termino, similitud);
+            }
+        });
+        List<String> ordenados = new ArrayList<>(similitudes.keySet());
+        ordenados.sort((a, b) -> Double.compare(similitudes.get(b), similitudes.get(a)));
+        return ordenados;
+    }
+
+    // * Coeficiente de Dice entre los trigramas del término buscado y los de un término del nombre
+    private static double similitud(Set<String> trigramasBuscado, String termino) {
+        Set<String> trigramasTermino = trigramas(termino);
+        int compartidos = 0;
+        for (String trigrama : trigramasTermino) {
+            if (trigramasBuscado.contains(trigrama)) {
+                compartidos++;
+            }
+        }
+        return 2.0 * compartidos / (trigramasBuscado.size() + trigramasTermino.size());
+    }
+
+    // * Trigramas del término rodeado de espacios, para que el inicio y el final pesen
+    private static Set<String> trigramas(String termino) {
+        String relleno = " " + termino + " ";
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= relleno.length(); i++) {
+            trigramas.add(relleno.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    // * Términos distintos de los campos de nombre (con el cerrojo de escritura tomado)
+    private void agregar(String id, T entidad) {
+        Set<String> terminos = new LinkedHashSet<>();
+        for (String campo : new String[]{entidad.getPNombre(), entidad.getSNombre(),
+                entidad.getPApellido(), entidad.getSApellido()}) {
+            if (campo != null) {
+                terminos.addAll(Arrays.asList(terminos(campo)));
+            }
+        }
+        entradas.put(id, new Entrada<>(entidad, terminos.toArray(String[]::new)));
+        for (String termino : terminos) {
+            Set<String> ids = porTermino.get(termino);
+            if (ids == null) {
+                ids = new LinkedHashSet<>();
+                porTermino.put(termino, ids);
+                for (String trigrama : trigramas(termino)) {
+                    porTrigrama.computeIfAbsent(trigrama, t -> new HashSet<>()).add(termino);
+                }
+            }
+            ids.add(id);
+        }
+    }
+
+    // * Quita los términos de un documento; los términos que quedan sin documentos salen del índice
+    private void retirar(String id) {
+        Entrada<T> anterior = entradas.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String termino : anterior.terminos()) {
+            Set<String> ids = porTermino.get(termino);
+            if (ids == null) {
+                continue;
+            }
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                porTermino.remove(termino);
+                for (String trigrama : trigramas(termino)) {
+                    Set<String> terminos = porTrigrama.get(trigrama);
+                    if (terminos != null) {
+                        terminos.remove(termino);
+                        if (terminos.isEmpty()) {
+                            porTrigrama.remove(trigrama);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.proyect.abogados.service;
+
+import com.google.cloud.firestore.*;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Índice secundario único mantenido como documentos de Firestore.
+ *
+ * Cada valor indexado (normalizado) es el ID de un documento en una colección de
+ * índice que guarda el ID de la entidad dueña. Así una búsqueda por ese valor es una
+ * lectura puntual, y la unicidad se verifica dentro de la misma transacción que
+ * escribe la entidad, sin recorrer la colección.
+ *
+ * @param <T> tipo de entidad indexada
+ */
+final class IndiceUnico<T> {
+
+    /** Campo del documento de índice con el ID de la entidad dueña. */
+    static final String CAMPO_ID = "id";
+
+    private final String coleccion;
+    private final String campo;
+    private final Function<T, String> valor;
+    private final UnaryOperator<String> normalizar;
+
+    /**
+     * Crea el índice.
+     *
+     * @param coleccion  colección de Firestore donde se guardan los documentos de índice
+     * @param campo      propiedad indexada, con el nombre que usa Firestore al mapear la entidad
+     * @param valor      obtiene el valor indexado de una entidad
+     * @param normalizar forma canónica del valor (dos valores equivalentes comparten clave)
+     */
+    IndiceUnico(String coleccion, String campo, Function<T, String> valor, UnaryOperator<String> normalizar) {
+        this.coleccion = coleccion;
+        this.campo = campo;
+        this.valor = valor;
+        this.normalizar = normalizar;
+    }
+
+    /**
+     * RUT sin puntos ni espacios y con el dígito verificador en mayúscula: {@code 11.111.111-k -> 11111111-K}.
+     *
+     * @param rut RUT tal como fue ingresado
+     * @return RUT normalizado
+     */
+    static String normalizarRut(String rut) {
+        return rut.replace(".", "").replace(" ", "").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Valor sin espacios en los extremos y en mayúsculas.
+     *
+     * @param valor valor tal como fue ingresado
+     * @return valor normalizado
+     */
+    static String normalizarTexto(String valor) {
+        return valor.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Clave del índice para una entidad.
+     *
+     * @param entidad entidad indexada
+     * @return clave normalizada o {@code null} si la entidad no tiene valor (no se indexa)
+     */
+    String clave(T entidad) {
+        return entidad == null ? null : claveDe(valor.apply(entidad));
+    }
+
+    /**
+     * Valor indexado de una entidad, tal como está almacenado (sin normalizar).
+     *
+     * @param entidad entidad indexada
+     * @return valor del campo indexado, o {@code null} si no tiene
+     */
+    String valor(T entidad) {
+        return valor.apply(entidad);
+    }
+
+    /**
+     * Clave del índice para un documento almacenado; el campo indexado se lee por su
+     * nombre de propiedad en Firestore, sin mapear el documento completo.
+     *
+     * @param snapshot documento de la entidad
+     * @return clave normalizada o {@code null} si el documento no existe o no tiene valor
+     */
+    String clave(DocumentSnapshot snapshot) {
+        return snapshot.exists() ? claveDe(snapshot.getString(campo)) : null;
+    }
+
+    /**
+     * Indica si una actualización parcial modifica el campo indexado.
+     *
+     * @param cambios campos modificados, con el nombre que usa Firestore
+     * @return {@code true} si el índice debe actualizarse
+     */
+    boolean afectadoPor(Map<String, ?> cambios) {
+        return cambios.containsKey(campo);
+    }
+
+    /**
+     * Clave del índice para un valor buscado.
+     *
+     * @param valor valor tal como fue ingresado
+     * @return clave normalizada o {@code null} si el valor está vacío
+     */
+    String claveDe(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        // * "/" separa segmentos de ruta en Firestore: se escapa para que la clave sea un único ID
+        String clave = normalizar.apply(valor).replace("%", "%25").replace("/", "%2F");
+        if (clave.equals(".") || clave.equals("..")) {
+            throw new IllegalArgumentException(campo + " inválido: " + valor);
+        }
+        return clave;
+    }
+
+    /**
+     * Colección que guarda los documentos de índice.
+     *
+     * @param firestore instancia de Firestore
+     * @return referencia a la colección de índice
+     */
+    CollectionReference coleccion(Firestore firestore) {
+        return firestore.collection(coleccion);
+    }
+
+    /**
+     * Documento de índice para la clave indicada.
+     *
+     * @param firestore instancia de Firestore
+     * @param clave     clave normalizada
+     * @return referencia al documento de índice
+     */
+    DocumentReference referencia(Firestore firestore, String clave) {
+        return coleccion(firestore).document(clave);
+    }
+
+    /**
+     * Actualiza el índice dentro de una transacción: reserva la clave nueva para la entidad
+     * y libera la anterior. Realiza todas sus lecturas antes de escribir, por lo que debe
+     * invocarse después de las lecturas de la transacción y antes de sus otras escrituras.
+     *
+     * @param transaccion transacción en curso
+     * @param firestore   instancia de Firestore
+     * @param id          ID de la entidad dueña
+     * @param anterior    clave actual de la entidad ({@code null} si no tenía o es nueva)
+     * @param nueva       clave que tendrá la entidad ({@code null} si se elimina o queda sin valor)
+     * @param valorNuevo  valor original de la clave nueva (para el mensaje de error)
+     * @throws RegistroDuplicadoException si la clave nueva pertenece a otra entidad
+     * @throws ExecutionException         si falla la lectura del índice
+     * @throws InterruptedException       si la ejecución es interrumpida
+     */
+    void actualizar(Transaction transaccion, Firestore firestore, String id, String anterior, String nueva,
+                    String valorNuevo) throws ExecutionException, InterruptedException {
+        DocumentSnapshot actualNueva = nueva == null
+                ? null
+                : transaccion.get(referencia(firestore, nueva)).get();
+        DocumentSnapshot actualAnterior = anterior == null || anterior.equals(nueva)
+                ? null
+                : transaccion.get(referencia(firestore, anterior)).get();
+
+        if (actualNueva != null && actualNueva.exists() && !id.equals(actualNueva.getString(CAMPO_ID))) {
+            // ! La clave ya pertenece a otra entidad
+            throw new RegistroDuplicadoException(campo, valorNuevo);
+        }
+        if (actualNueva != null && !actualNueva.exists()) {
+            transaccion.create(referencia(firestore, nueva), Map.of(CAMPO_ID, id));
+        }
+        // * Solo se libera la clave anterior si sigue apuntando a esta entidad
+        if (actualAnterior != null && actualAnterior.exists() && id.equals(actualAnterior.getString(CAMPO_ID))) {
+            transaccion.delete(referencia(firestore, anterior));
+        }
+    }
+
+    /**
+     * Error para una entidad cuyo valor ya está registrado.
+     *
+     * @param entidad entidad rechazada
+     * @return violación de unicidad con el campo y el valor duplicado
+     */
+    RegistroDuplicadoException duplicado(T entidad) {
+        return new RegistroDuplicadoException(campo, valor.apply(entidad));
+    }
+
+    /**
+     * Extrae la violación de unicidad (o la precondición fallida) de un error de transacción
+     * para propagarla tal cual.
+     *
+     * @param e error devuelto por la transacción
+     * @return el mismo error si no se trata de una violación de unicidad ni de una precondición
+     */
+    static ExecutionException propagar(ExecutionException e) {
+        if (e.getCause() instanceof RegistroDuplicadoException duplicado) {
+            throw duplicado;
+        }
+        if (e.getCause() instanceof PrecondicionFallidaException precondicion) {
+            throw precondicion;
+        }
+        return e;
+    }
+}
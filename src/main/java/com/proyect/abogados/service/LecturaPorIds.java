@@ -0,0 +1,67 @@
+package com.proyect.abogados.service;
+
+import com.proyect.abogados.model.LecturaMultiple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Lectura de varios documentos por ID con una sola operación del almacenamiento (un
+ * {@code getAll} en Firestore), en lugar de una lectura por documento. Los IDs
+ * inexistentes se informan en el resultado.
+ */
+final class LecturaPorIds {
+
+    /** IDs que se pueden pedir en una misma lectura. */
+    static final int MAXIMO_IDS = 500;
+
+    private LecturaPorIds() {
+    }
+
+    /**
+     * Valida los IDs pedidos y descarta los repetidos, conservando el orden.
+     *
+     * @param ids IDs recibidos en la petición
+     * @return IDs distintos a leer
+     * @throws IllegalArgumentException si no hay IDs, son más de {@value #MAXIMO_IDS} o alguno es inválido
+     */
+    static List<String> validar(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Se debe indicar al menos un id");
+        }
+        List<String> distintos = ids.stream().distinct().toList();
+        if (distintos.size() > MAXIMO_IDS) {
+            throw new IllegalArgumentException("Se pueden leer como máximo " + MAXIMO_IDS + " ids por petición");
+        }
+        for (String id : distintos) {
+            // ! "/" separa segmentos de ruta en Firestore: no es parte de un ID de documento
+            if (id == null || id.isBlank() || id.contains("/")) {
+                throw new IllegalArgumentException("id inválido: " + id);
+            }
+        }
+        return distintos;
+    }
+
+    /**
+     * Arma el resultado buscando cada ID en una fuente ya disponible (réplica, entidades leídas).
+     *
+     * @param ids    IDs validados
+     * @param buscar entidad de un ID, o {@code null} si no existe
+     * @param <T>    tipo de entidad
+     * @return entidades encontradas e IDs faltantes, en el orden pedido
+     */
+    static <T> LecturaMultiple<T> reunir(List<String> ids, Function<String, T> buscar) {
+        List<T> encontrados = new ArrayList<>(ids.size());
+        List<String> noEncontrados = new ArrayList<>();
+        for (String id : ids) {
+            T entidad = buscar.apply(id);
+            if (entidad != null) {
+                encontrados.add(entidad);
+            } else {
+                noEncontrados.add(id);
+            }
+        }
+        return new LecturaMultiple<>(encontrados, noEncontrados);
+    }
+}
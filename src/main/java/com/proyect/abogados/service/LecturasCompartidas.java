@@ -0,0 +1,112 @@
+package com.proyect.abogados.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa lecturas concurrentes idénticas (single-flight): mientras una lectura está en
+ * curso, las peticiones con la misma clave reciben su resultado en lugar de iniciar otra
+ * lectura a Firestore.
+ *
+ * Solo se comparten lecturas en curso: al completarse, la entrada se descarta y la
+ * siguiente petición vuelve a leer, por lo que no se sirven datos de una lectura ya
+ * terminada. Tras una escritura local se llama a {@link #olvidarTodo()} para que las
+ * lecturas posteriores no se sumen a una iniciada antes de la escritura.
+ *
+ * Cada petición recibe su propia copia del futuro: cancelarla no afecta a las demás.
+ *
+ * @param <K> tipo de la clave de la lectura
+ * @param <V> tipo del resultado
+ */
+final class LecturasCompartidas<K, V> {
+
+    /** Contador de lecturas resueltas con una lectura ya en curso. */
+    static final String COMPARTIDAS = "firestore.lecturas.compartidas";
+
+    private final String coleccion;
+    private final String operacion;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+    private final LongAdder compartidas = new LongAdder();
+
+    /**
+     * Crea el agrupador de una operación.
+     *
+     * @param coleccion nombre de la colección (etiqueta de las métricas)
+     * @param operacion nombre de la operación (etiqueta de las métricas)
+     */
+    LecturasCompartidas(String coleccion, String operacion) {
+        this.coleccion = coleccion;
+        this.operacion = operacion;
+    }
+
+    /**
+     * Devuelve el resultado de la lectura en curso con la misma clave, o inicia una nueva.
+     *
+     * @param clave   identifica la lectura (ID, parámetros de la consulta)
+     * @param lectura inicia la lectura si no hay una en curso
+     * @return futuro con el resultado de la lectura
+     */
+    CompletableFuture<V> leer(K clave, Supplier<CompletableFuture<V>> lectura) {
+        CompletableFuture<V> nueva = new CompletableFuture<>();
+        CompletableFuture<V> existente = enCurso.putIfAbsent(clave, nueva);
+        if (existente != null) {
+            compartidas.increment();
+            return existente.copy();
+        }
+        CompletableFuture<V> origen;
+        try {
+            origen = lectura.get();
+        } catch (RuntimeException e) {
+            origen = CompletableFuture.failedFuture(e);
+        }
+        origen.whenComplete((valor, error) -> {
+            // * Se descarta antes de completar: quien llegue después inicia una lectura nueva
+            enCurso.remove(clave, nueva);
+            if (error != null) {
+                nueva.completeExceptionally(error);
+            } else {
+                nueva.complete(valor);
+            }
+        });
+        return nueva.copy();
+    }
+
+    /**
+     * Deja de compartir las lecturas en curso (las peticiones que ya esperan las reciben igual).
+     */
+    void olvidarTodo() {
+        enCurso.clear();
+    }
+
+    /**
+     * @return lecturas en curso
+     */
+    int enCurso() {
+        return enCurso.size();
+    }
+
+    /**
+     * @return lecturas resueltas con una lectura ya en curso
+     */
+    long compartidas() {
+        return compartidas.sum();
+    }
+
+    /**
+     * Registra el contador de lecturas compartidas.
+     *
+     * @param registry registro de métricas de Micrometer
+     */
+    void registrarMetricas(MeterRegistry registry) {
+        FunctionCounter.builder(COMPARTIDAS, compartidas, LongAdder::doubleValue)
+                .description("Lecturas resueltas con una lectura idéntica ya en curso")
+                .tag("coleccion", coleccion)
+                .tag("operacion", operacion)
+                .register(registry);
+    }
+}
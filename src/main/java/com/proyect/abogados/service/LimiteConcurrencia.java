@@ -0,0 +1,279 @@
+package com.proyect.abogados.service;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Límite adaptativo de llamadas concurrentes a Firestore, con cola de espera acotada.
+ *
+ * El límite se ajusta con AIMD según la latencia observada de las llamadas que lo liberan
+ * con {@link Permiso#liberar(Throwable)}: mientras la latencia se mantiene bajo el objetivo
+ * y el límite está en uso, crece de a un permiso por cada ventana de llamadas completada; si
+ * una llamada supera el objetivo o Firestore responde con un error de sobrecarga (plazo
+ * vencido, recursos agotados, no disponible), se reduce un {@value #REDUCCION_PORCENTAJE}%
+ * como máximo una vez por latencia objetivo. Las llamadas pesadas lo liberan con
+ * {@link Permiso#devolver()}: ocupan capacidad, pero no ajustan el límite.
+ *
+ * Con el límite completo, las llamadas esperan en una cola FIFO sin ocupar el hilo que
+ * las invoca; si la cola está llena o la espera vence, se descartan de inmediato con
+ * {@link ServicioSobrecargadoException}, en lugar de acumular hilos bloqueados detrás de
+ * un Firestore lento.
+ */
+final class LimiteConcurrencia {
+
+    /** Porcentaje en que se reduce el límite ante latencia alta o sobrecarga. */
+    static final int REDUCCION_PORCENTAJE = 10;
+
+    // * Errores con los que Firestore indica que está saturado o no responde a tiempo
+    private static final Set<StatusCode.Code> CODIGOS_SOBRECARGA = Set.of(StatusCode.Code.DEADLINE_EXCEEDED,
+            StatusCode.Code.RESOURCE_EXHAUSTED, StatusCode.Code.UNAVAILABLE);
+
+    /**
+     * Autorización para una llamada en curso. Debe liberarse exactamente una vez al
+     * completarse la llamada; las liberaciones adicionales se ignoran.
+     */
+    final class Permiso {
+
+        private final long inicio = System.nanoTime();
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        /**
+         * Libera el permiso y ajusta el límite con la latencia de la llamada.
+         *
+         * @param error error de la llamada, o {@code null} si tuvo éxito
+         */
+        void liberar(Throwable error) {
+            if (liberado.compareAndSet(false, true)) {
+                LimiteConcurrencia.this.liberar(System.nanoTime() - inicio, error);
+            }
+        }
+
+        /**
+         * Libera el permiso de una llamada cuya latencia no es comparable con el objetivo
+         * (transacciones, lecturas de varios documentos, agregaciones), sin ajustar el límite.
+         */
+        void devolver() {
+            if (liberado.compareAndSet(false, true)) {
+                LimiteConcurrencia.this.liberar(-1, null);
+            }
+        }
+
+        // * La llamada no llegó a iniciarse: se devuelve el permiso sin ajustar el límite
+        void descartar() {
+            devolver();
+        }
+    }
+
+    private final String coleccion;
+    private final int minimo;
+    private final int maximo;
+    private final int capacidadCola;
+    private final long esperaMaximaNanos;
+    private final long latenciaObjetivoNanos;
+    private final long reintentoSegundos;
+
+    // * Estado protegido por el monitor de este objeto
+    private double limite;
+    private int enVuelo;
+    private long ultimaReduccion = System.nanoTime();
+    private long rechazados;
+    private final ArrayDeque<CompletableFuture<Permiso>> cola = new ArrayDeque<>();
+
+    /**
+     * Crea el límite de una colección.
+     *
+     * @param coleccion         nombre de la colección (etiqueta de las métricas)
+     * @param inicial           llamadas concurrentes permitidas al iniciar
+     * @param minimo            límite mínimo, aun con Firestore degradado
+     * @param maximo            límite máximo
+     * @param capacidadCola     llamadas que pueden esperar un permiso
+     * @param esperaMaxima      tiempo máximo de espera en la cola
+     * @param latenciaObjetivo  latencia por encima de la cual se reduce el límite
+     */
+    LimiteConcurrencia(String coleccion, int inicial, int minimo, int maximo, int capacidadCola,
+                       Duration esperaMaxima, Duration latenciaObjetivo) {
+        if (minimo < 1 || maximo < minimo || inicial < minimo || inicial > maximo || capacidadCola < 0) {
+            throw new IllegalArgumentException("Límite de concurrencia inválido para " + coleccion);
+        }
+        this.coleccion = coleccion;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.capacidadCola = capacidadCola;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.latenciaObjetivoNanos = latenciaObjetivo.toNanos();
+        this.reintentoSegundos = Math.max(1, (esperaMaxima.toMillis() + 999) / 1000);
+        this.limite = inicial;
+    }
+
+    /**
+     * Solicita un permiso para iniciar una llamada.
+     *
+     * @return futuro completado con el permiso (de inmediato si hay capacidad), o fallido
+     *         con {@link ServicioSobrecargadoException} si la espera vence
+     * @throws ServicioSobrecargadoException si el límite está completo y la cola llena
+     */
+    CompletableFuture<Permiso> adquirir() {
+        CompletableFuture<Permiso> espera = new CompletableFuture<>();
+        synchronized (this) {
+            if (enVuelo < (int) limite && cola.isEmpty()) {
+                enVuelo++;
+                return CompletableFuture.completedFuture(new Permiso());
+            }
+            if (cola.size() >= capacidadCola) {
+                rechazados++;
+                throw new ServicioSobrecargadoException(coleccion, reintentoSegundos);
+            }
+            cola.addLast(espera);
+        }
+        CompletableFuture.delayedExecutor(esperaMaximaNanos, TimeUnit.NANOSECONDS).execute(() -> vencer(espera));
+        return espera;
+    }
+
+    /**
+     * Espera un permiso en el hilo actual, para las operaciones síncronas.
+     *
+     * @return permiso concedido
+     * @throws ServicioSobrecargadoException si el límite está completo y la cola llena, o la espera vence
+     * @throws InterruptedException          si el hilo es interrumpido durante la espera
+     */
+    Permiso esperar() throws InterruptedException {
+        CompletableFuture<Permiso> espera = adquirir();
+        try {
+            return espera.get();
+        } catch (ExecutionException e) {
+            throw (ServicioSobrecargadoException) e.getCause();
+        } catch (InterruptedException e) {
+            // * Si el permiso llega después, se devuelve sin usarlo
+            espera.thenAccept(Permiso::descartar);
+            throw e;
+        }
+    }
+
+    /**
+     * Registra las métricas del límite: valor actual, llamadas en curso, en espera y rechazadas.
+     *
+     * @param registry registro de métricas de Micrometer
+     */
+    void registrarMetricas(MeterRegistry registry) {
+        Gauge.builder("firestore.limite", this, LimiteConcurrencia::limite)
+                .description("Llamadas concurrentes a Firestore permitidas")
+                .tag("coleccion", coleccion)
+                .register(registry);
+        Gauge.builder("firestore.limite.en_vuelo", this, LimiteConcurrencia::enVuelo)
+                .description("Llamadas a Firestore en curso")
+                .tag("coleccion", coleccion)
+                .register(registry);
+        Gauge.builder("firestore.limite.en_cola", this, LimiteConcurrencia::enCola)
+                .description("Llamadas a Firestore esperando un permiso")
+                .tag("coleccion", coleccion)
+                .register(registry);
+        FunctionCounter.builder("firestore.limite.rechazos", this, LimiteConcurrencia::rechazados)
+                .description("Llamadas a Firestore descartadas por sobrecarga")
+                .tag("coleccion", coleccion)
+                .register(registry);
+    }
+
+    /**
+     * @return llamadas concurrentes permitidas actualmente
+     */
+    synchronized int limite() {
+        return (int) limite;
+    }
+
+    /**
+     * @return llamadas en curso
+     */
+    synchronized int enVuelo() {
+        return enVuelo;
+    }
+
+    /**
+     * @return llamadas esperando un permiso
+     */
+    synchronized int enCola() {
+        return cola.size();
+    }
+
+    /**
+     * @return llamadas descartadas desde el inicio
+     */
+    synchronized long rechazados() {
+        return rechazados;
+    }
+
+    // * La espera venció sin recibir permiso: sale de la cola y se descarta
+    private void vencer(CompletableFuture<Permiso> espera) {
+        synchronized (this) {
+            if (!cola.remove(espera)) {
+                return;
+            }
+            rechazados++;
+        }
+        espera.completeExceptionally(new ServicioSobrecargadoException(coleccion, reintentoSegundos));
+    }
+
+    // * Ajusta el límite y concede los permisos liberados a las llamadas en espera (fuera del
+    // * monitor, porque completar el futuro inicia la llamada en este mismo hilo)
+    private void liberar(long latenciaNanos, Throwable error) {
+        List<CompletableFuture<Permiso>> concedidas = new ArrayList<>();
+        synchronized (this) {
+            if (latenciaNanos >= 0) {
+                ajustar(latenciaNanos, error);
+            }
+            enVuelo--;
+            while (enVuelo < (int) limite && !cola.isEmpty()) {
+                concedidas.add(cola.pollFirst());
+                enVuelo++;
+            }
+        }
+        for (CompletableFuture<Permiso> espera : concedidas) {
+            Permiso permiso = new Permiso();
+            if (!espera.complete(permiso)) {
+                // ! Quien esperaba canceló el futuro
+                permiso.descartar();
+            }
+        }
+    }
+
+    // * AIMD: +1 permiso por ventana (1/límite por llamada) si el límite se está usando;
+    // * -10% si la llamada fue lenta o Firestore indicó sobrecarga
+    private void ajustar(long latenciaNanos, Throwable error) {
+        long ahora = System.nanoTime();
+        if (latenciaNanos > latenciaObjetivoNanos || esSobrecarga(error)) {
+            // * Una sola reducción por intervalo: las llamadas lentas que ya estaban en curso no la repiten
+            if (ahora - ultimaReduccion >= latenciaObjetivoNanos) {
+                limite = Math.max(minimo, limite * (100 - REDUCCION_PORCENTAJE) / 100);
+                ultimaReduccion = ahora;
+            }
+        } else if (enVuelo * 2 >= limite) {
+            limite = Math.min(maximo, limite + 1 / limite);
+        }
+    }
+
+    // * Plazo vencido o Firestore saturado; los errores de negocio no dicen nada de la carga
+    static boolean esSobrecarga(Throwable error) {
+        Throwable causa = error;
+        while ((causa instanceof CompletionException || causa instanceof ExecutionException) && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        if (causa instanceof TimeoutException) {
+            return true;
+        }
+        return causa instanceof ApiException api && CODIGOS_SOBRECARGA.contains(api.getStatusCode().getCode());
+    }
+}
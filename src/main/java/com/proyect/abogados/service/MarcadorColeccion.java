@@ -0,0 +1,141 @@
+package com.proyect.abogados.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Marcador de versión de una colección, guardado como un contador fragmentado en Firestore.
+ *
+ * Cada escritura sobre la colección incrementa uno de los {@value #FRAGMENTOS} fragmentos
+ * en {@code metadatos/{coleccion}/fragmentos}, elegido al azar, en la misma transacción
+ * (o en el mismo lote de importación). Así las escrituras concurrentes se reparten entre
+ * documentos distintos en vez de disputar uno solo. La versión es la suma de los
+ * fragmentos: crece con cada escritura y se lee con un único {@code getAll}, mucho más
+ * barato que la consulta de una página, lo que permite responder {@code 304 Not Modified}
+ * a los listados sin consultarlos.
+ */
+final class MarcadorColeccion {
+
+    /** Colección que agrupa los marcadores de todas las colecciones. */
+    static final String COLECCION = "metadatos";
+
+    /** Subcolección con los fragmentos del contador de cada colección. */
+    static final String SUBCOLECCION = "fragmentos";
+
+    /** Cantidad de fragmentos: cada uno admite del orden de una escritura por segundo sostenida. */
+    static final int FRAGMENTOS = 16;
+
+    private static final String CAMPO_CAMBIOS = "cambios";
+
+    private final String documento;
+
+    /**
+     * Crea el marcador.
+     *
+     * @param documento ID del documento que agrupa los fragmentos (normalmente, el nombre de la colección)
+     */
+    MarcadorColeccion(String documento) {
+        this.documento = documento;
+    }
+
+    /**
+     * Versión en el formato usado por la API: segundos y nanosegundos de la hora de actualización.
+     *
+     * @param actualizado hora de la última actualización del documento
+     * @return versión, o {@code null} si la hora se desconoce
+     */
+    static String version(Timestamp actualizado) {
+        return actualizado == null ? null : actualizado.getSeconds() + "." + actualizado.getNanos();
+    }
+
+    /**
+     * Fragmento del contador.
+     *
+     * @param firestore instancia de Firestore
+     * @param numero    número de fragmento, entre 0 y {@link #FRAGMENTOS} - 1
+     * @return referencia al fragmento
+     */
+    DocumentReference fragmento(Firestore firestore, int numero) {
+        return firestore.collection(COLECCION).document(documento)
+                .collection(SUBCOLECCION).document(String.valueOf(numero));
+    }
+
+    // * Cada escritura elige un fragmento al azar para repartir la contención
+    private DocumentReference referencia(Firestore firestore) {
+        return fragmento(firestore, ThreadLocalRandom.current().nextInt(FRAGMENTOS));
+    }
+
+    /**
+     * Marca un cambio dentro de una transacción. Es una escritura sin lectura previa,
+     * por lo que puede invocarse después de las lecturas de la transacción.
+     *
+     * @param transaccion transacción en curso
+     * @param firestore   instancia de Firestore
+     */
+    void tocar(Transaction transaccion, Firestore firestore) {
+        transaccion.set(referencia(firestore), cambio(), SetOptions.merge());
+    }
+
+    /**
+     * Marca un cambio junto con las escrituras encoladas en un BulkWriter.
+     *
+     * @param bulkWriter escritor del lote en curso
+     * @param firestore  instancia de Firestore
+     * @return futuro de la escritura del marcador
+     */
+    ApiFuture<WriteResult> tocar(BulkWriter bulkWriter, Firestore firestore) {
+        return bulkWriter.set(referencia(firestore), cambio(), SetOptions.merge());
+    }
+
+    /**
+     * Marca un cambio junto con las escrituras de un {@link WriteBatch}, una sola vez por lote.
+     *
+     * @param batch     lote en construcción
+     * @param firestore instancia de Firestore
+     */
+    void tocar(WriteBatch batch, Firestore firestore) {
+        batch.set(referencia(firestore), cambio(), SetOptions.merge());
+    }
+
+    /**
+     * Marca un cambio con una escritura independiente (por ejemplo, tras vaciar la colección).
+     *
+     * @param firestore instancia de Firestore
+     * @return futuro de la escritura del marcador
+     */
+    ApiFuture<WriteResult> tocar(Firestore firestore) {
+        return referencia(firestore).set(cambio(), SetOptions.merge());
+    }
+
+    /**
+     * Lee la versión actual de la colección: la suma de todos los fragmentos, en una sola lectura.
+     *
+     * @param firestore instancia de Firestore
+     * @return futuro con la versión; {@code "0"} si la colección nunca se modificó
+     */
+    CompletableFuture<String> versionAsync(Firestore firestore) {
+        DocumentReference[] fragmentos = new DocumentReference[FRAGMENTOS];
+        for (int i = 0; i < FRAGMENTOS; i++) {
+            fragmentos[i] = fragmento(firestore, i);
+        }
+        return FuturosFirestore.aCompletable(firestore.getAll(fragmentos))
+                .thenApply(snapshots -> {
+                    long cambios = 0;
+                    for (DocumentSnapshot snapshot : snapshots) {
+                        Long valor = snapshot.exists() ? snapshot.getLong(CAMPO_CAMBIOS) : null;
+                        cambios += valor == null ? 0 : valor;
+                    }
+                    return String.valueOf(cambios);
+                });
+    }
+
+    // * Incremento atómico: la suma de los fragmentos crece con cada escritura
+    private static Map<String, Object> cambio() {
+        return Map.of(CAMPO_CAMBIOS, FieldValue.increment(1));
+    }
+}
@@ -0,0 +1,404 @@
+package com.proyect.abogados.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Métricas de las operaciones de un servicio contra Firestore.
+ *
+ * Cada operación se mide con el timer {@value #OPERACIONES}, etiquetado por colección,
+ * operación y resultado, con histograma de percentiles para alertar sobre la latencia
+ * p99 desde Prometheus. La cantidad de documentos que entrega cada lectura de la
+ * colección se registra en {@value #DOCUMENTOS}, para detectar recorridos que crecen.
+ *
+ * Las operaciones puntuales pasan además por el {@link LimiteConcurrencia} de la colección,
+ * si está configurado: el timer incluye la espera en la cola, y las operaciones descartadas
+ * por sobrecarga se registran con resultado {@code rechazado}. Solo las lecturas de un
+ * documento, los listados y las búsquedas por índice ajustan el límite con su latencia; las
+ * transacciones, las lecturas de varios documentos y las agregaciones ocupan un permiso pero
+ * tardan por naturaleza más que el objetivo, y reducirían el límite compartido sin que
+ * Firestore esté saturado. Los recorridos, la importación y la eliminación masiva no ocupan
+ * permisos: duran minutos.
+ *
+ * Sin registro de métricas (por ejemplo, en las pruebas unitarias) los medidores son nulos,
+ * y sin límite configurado las operaciones no esperan.
+ */
+final class MetricasFirestore {
+
+    /** Timer de las operaciones contra Firestore. */
+    static final String OPERACIONES = "firestore.operaciones";
+
+    /** Distribución de documentos entregados por cada lectura de la colección. */
+    static final String DOCUMENTOS = "firestore.documentos";
+
+    // * Nombres de operación usados en la etiqueta "operacion"
+    static final String LISTAR = "listar";
+    static final String RECORRER = "recorrer";
+    static final String OBTENER = "obtener";
+    static final String OBTENER_VARIOS = "obtener_varios";
+    static final String LEER_LOTE = "leer_lote";
+    static final String BUSCAR_INDICE = "buscar_indice";
+    static final String VERSION = "version";
+    static final String ESTADISTICAS = "estadisticas";
+    static final String CREAR = "crear";
+    static final String IMPORTAR = "importar";
+    static final String ACTUALIZAR = "actualizar";
+    static final String ESCRIBIR_LOTE = "escribir_lote";
+    static final String ACTUALIZAR_PARCIAL = "actualizar_parcial";
+    static final String ELIMINAR = "eliminar";
+    static final String ELIMINAR_TODOS = "eliminar_todos";
+
+    /**
+     * Operación síncrona contra Firestore.
+     *
+     * @param <R> tipo del resultado
+     */
+    @FunctionalInterface
+    interface OperacionFirestore<R> {
+        R ejecutar() throws ExecutionException, InterruptedException;
+    }
+
+    /**
+     * Importación masiva contra Firestore.
+     */
+    @FunctionalInterface
+    interface OperacionImportacion {
+        ResultadoImportacion ejecutar() throws InterruptedException;
+    }
+
+    // * Permiso "nulo" para las operaciones sin límite
+    private static final CompletableFuture<LimiteConcurrencia.Permiso> SIN_LIMITE = CompletableFuture.completedFuture(null);
+
+    private final String coleccion;
+    private volatile MeterRegistry registry = new CompositeMeterRegistry();
+    private volatile LimiteConcurrencia limite;
+
+    // * Los medidores se resuelven una vez por combinación de etiquetas
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, DistributionSummary> documentos = new ConcurrentHashMap<>();
+
+    /**
+     * Crea las métricas de una colección.
+     *
+     * @param coleccion nombre de la colección (etiqueta {@code coleccion})
+     */
+    MetricasFirestore(String coleccion) {
+        this.coleccion = coleccion;
+    }
+
+    /**
+     * Publica las métricas en el registro indicado.
+     *
+     * @param registry registro de métricas de Micrometer
+     */
+    void registrarMetricas(MeterRegistry registry) {
+        this.registry = registry;
+        timers.clear();
+        documentos.clear();
+    }
+
+    /**
+     * Limita la concurrencia de las operaciones puntuales contra Firestore.
+     *
+     * @param limite límite adaptativo de la colección, o {@code null} para no limitar
+     */
+    void limitarCon(LimiteConcurrencia limite) {
+        this.limite = limite;
+    }
+
+    /**
+     * Mide una operación síncrona.
+     *
+     * @param operacion nombre de la operación
+     * @param llamada   operación a ejecutar
+     * @param <R>       tipo del resultado
+     * @return resultado de la operación
+     * @throws ExecutionException   si la operación falla
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    <R> R medir(String operacion, OperacionFirestore<R> llamada) throws ExecutionException, InterruptedException {
+        Timer.Sample muestra = iniciar();
+        LimiteConcurrencia.Permiso permiso = null;
+        try {
+            LimiteConcurrencia actual = limite;
+            if (actual != null && limitada(operacion)) {
+                permiso = actual.esperar();
+            }
+            R resultado = llamada.ejecutar();
+            liberar(permiso, operacion, null);
+            finalizar(muestra, operacion, null);
+            return resultado;
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            liberar(permiso, operacion, e);
+            finalizar(muestra, operacion, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Mide una RPC de Firestore hasta que su futuro se completa. Si el límite de concurrencia
+     * está completo, la RPC se inicia recién al obtener un permiso.
+     *
+     * @param operacion nombre de la operación
+     * @param llamada   inicia la RPC
+     * @param <R>       tipo del resultado
+     * @return el futuro de la RPC, fallido con {@link ServicioSobrecargadoException} si se descarta
+     */
+    <R> ApiFuture<R> medirRpc(String operacion, Supplier<ApiFuture<R>> llamada) {
+        Timer.Sample muestra = iniciar();
+        CompletableFuture<LimiteConcurrencia.Permiso> permiso;
+        try {
+            permiso = adquirir(operacion);
+        } catch (ServicioSobrecargadoException e) {
+            finalizar(muestra, operacion, e);
+            return ApiFutures.immediateFailedFuture(e);
+        }
+        if (permiso.isDone() && !permiso.isCompletedExceptionally()) {
+            return iniciarRpc(muestra, operacion, llamada, permiso.join());
+        }
+        // * Sin permiso disponible: la RPC se inicia al recibirlo, desde el hilo que lo libera
+        SettableApiFuture<R> resultado = SettableApiFuture.create();
+        permiso.whenComplete((concedido, error) -> {
+            if (error != null) {
+                finalizar(muestra, operacion, error);
+                resultado.setException(error);
+                return;
+            }
+            ApiFuture<R> futuro;
+            try {
+                futuro = iniciarRpc(muestra, operacion, llamada, concedido);
+            } catch (RuntimeException e) {
+                resultado.setException(e);
+                return;
+            }
+            ApiFutures.addCallback(futuro, new ApiFutureCallback<R>() {
+                @Override
+                public void onFailure(Throwable t) {
+                    resultado.setException(t);
+                }
+
+                @Override
+                public void onSuccess(R valor) {
+                    resultado.set(valor);
+                }
+            }, MoreExecutors.directExecutor());
+        });
+        return resultado;
+    }
+
+    /**
+     * Mide una operación asíncrona hasta que su futuro se completa. Un error lanzado al
+     * iniciarla, o el descarte por sobrecarga, se entrega como futuro fallido.
+     *
+     * @param operacion nombre de la operación
+     * @param llamada   inicia la operación
+     * @param <R>       tipo del resultado
+     * @return futuro con el resultado de la operación
+     */
+    <R> CompletableFuture<R> medirAsync(String operacion, Supplier<CompletableFuture<R>> llamada) {
+        Timer.Sample muestra = iniciar();
+        CompletableFuture<LimiteConcurrencia.Permiso> permiso;
+        try {
+            permiso = adquirir(operacion);
+        } catch (ServicioSobrecargadoException e) {
+            finalizar(muestra, operacion, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return permiso.thenCompose(concedido -> {
+            CompletableFuture<R> futuro;
+            try {
+                futuro = llamada.get();
+            } catch (RuntimeException e) {
+                liberar(concedido, operacion, e);
+                return CompletableFuture.<R>failedFuture(e);
+            }
+            return futuro.whenComplete((valor, error) -> liberar(concedido, operacion, error));
+        }).whenComplete((valor, error) -> finalizar(muestra, operacion, error));
+    }
+
+    /**
+     * Mide la lectura de una página y registra cuántos documentos entregó.
+     *
+     * @param llamada lectura de la página
+     * @param <T>     tipo de entidad
+     * @return la página leída
+     * @throws ExecutionException   si la lectura falla
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    <T> Pagina<T> listar(OperacionFirestore<Pagina<T>> llamada) throws ExecutionException, InterruptedException {
+        Pagina<T> pagina = medir(LISTAR, llamada);
+        documentos(LISTAR, pagina.getElementos().size());
+        return pagina;
+    }
+
+    /**
+     * Variante asíncrona de {@link #listar(OperacionFirestore)}.
+     *
+     * @param llamada inicia la lectura de la página
+     * @param <T>     tipo de entidad
+     * @return futuro con la página leída
+     */
+    <T> CompletableFuture<Pagina<T>> listarAsync(Supplier<CompletableFuture<Pagina<T>>> llamada) {
+        return medirAsync(LISTAR, llamada).thenApply(pagina -> {
+            documentos(LISTAR, pagina.getElementos().size());
+            return pagina;
+        });
+    }
+
+    /**
+     * Mide una importación masiva y registra cuántos documentos creó.
+     *
+     * @param llamada importación a ejecutar
+     * @return resultado de la importación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    ResultadoImportacion importar(OperacionImportacion llamada) throws InterruptedException {
+        Timer.Sample muestra = iniciar();
+        try {
+            ResultadoImportacion resultado = llamada.ejecutar();
+            finalizar(muestra, IMPORTAR, null);
+            documentos(IMPORTAR, resultado.getCreados().size());
+            return resultado;
+        } catch (InterruptedException | RuntimeException e) {
+            finalizar(muestra, IMPORTAR, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Registra la cantidad de documentos entregados (o eliminados) por una operación sobre la colección.
+     *
+     * @param operacion nombre de la operación
+     * @param cantidad  documentos leídos
+     */
+    void documentos(String operacion, long cantidad) {
+        documentos.computeIfAbsent(operacion, op -> DistributionSummary.builder(DOCUMENTOS)
+                        .description("Documentos entregados por cada lectura de la colección")
+                        .baseUnit("documents")
+                        .tag("coleccion", coleccion)
+                        .tag("operacion", op)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(cantidad);
+    }
+
+    /**
+     * Inicia una medición manual, para operaciones que no encajan en los demás métodos.
+     *
+     * @return muestra en curso
+     */
+    Timer.Sample iniciar() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Completa una medición manual.
+     *
+     * @param muestra   muestra devuelta por {@link #iniciar()}
+     * @param operacion nombre de la operación
+     * @param error     error de la operación, o {@code null} si tuvo éxito
+     */
+    void finalizar(Timer.Sample muestra, String operacion, Throwable error) {
+        String resultado = resultado(error);
+        muestra.stop(timers.computeIfAbsent(operacion + '|' + resultado, clave -> Timer.builder(OPERACIONES)
+                .description("Latencia de las operaciones contra Firestore")
+                .tag("coleccion", coleccion)
+                .tag("operacion", operacion)
+                .tag("resultado", resultado)
+                .publishPercentileHistogram()
+                .register(registry)));
+    }
+
+    // * Inicia la RPC con el permiso concedido y lo libera cuando Firestore responde
+    private <R> ApiFuture<R> iniciarRpc(Timer.Sample muestra, String operacion, Supplier<ApiFuture<R>> llamada,
+                                        LimiteConcurrencia.Permiso permiso) {
+        ApiFuture<R> futuro;
+        try {
+            futuro = llamada.get();
+        } catch (RuntimeException e) {
+            liberar(permiso, operacion, e);
+            finalizar(muestra, operacion, e);
+            throw e;
+        }
+        ApiFutures.addCallback(futuro, new ApiFutureCallback<R>() {
+            @Override
+            public void onFailure(Throwable t) {
+                liberar(permiso, operacion, t);
+                finalizar(muestra, operacion, t);
+            }
+
+            @Override
+            public void onSuccess(R valor) {
+                liberar(permiso, operacion, null);
+                finalizar(muestra, operacion, null);
+            }
+        }, MoreExecutors.directExecutor());
+        return futuro;
+    }
+
+    // * Permiso para una operación puntual (inmediato si no hay límite o la operación no se limita)
+    private CompletableFuture<LimiteConcurrencia.Permiso> adquirir(String operacion) {
+        LimiteConcurrencia actual = limite;
+        return actual != null && limitada(operacion) ? actual.adquirir() : SIN_LIMITE;
+    }
+
+    private static void liberar(LimiteConcurrencia.Permiso permiso, String operacion, Throwable error) {
+        if (permiso == null) {
+            return;
+        }
+        if (ajustaLimite(operacion)) {
+            permiso.liberar(error);
+        } else {
+            permiso.devolver();
+        }
+    }
+
+    // * Las operaciones masivas duran minutos: no ocupan permisos ni ajustan el límite
+    private static boolean limitada(String operacion) {
+        return !ELIMINAR_TODOS.equals(operacion) && !IMPORTAR.equals(operacion) && !RECORRER.equals(operacion);
+    }
+
+    // * Señal del AIMD: solo operaciones baratas y de latencia comparable entre sí
+    static boolean ajustaLimite(String operacion) {
+        return OBTENER.equals(operacion) || LISTAR.equals(operacion) || BUSCAR_INDICE.equals(operacion);
+    }
+
+    // * Clasifica el error con un conjunto acotado de valores (la etiqueta no debe crecer sin límite)
+    static String resultado(Throwable error) {
+        Throwable causa = error;
+        while ((causa instanceof CompletionException || causa instanceof ExecutionException) && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        if (causa == null) {
+            return "exito";
+        }
+        if (causa instanceof RegistroDuplicadoException) {
+            return "duplicado";
+        }
+        if (causa instanceof PrecondicionFallidaException) {
+            return "precondicion";
+        }
+        if (causa instanceof IllegalArgumentException) {
+            return "invalido";
+        }
+        if (causa instanceof ServicioSobrecargadoException) {
+            return "rechazado";
+        }
+        return "error";
+    }
+}
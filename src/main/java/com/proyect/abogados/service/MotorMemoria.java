@@ -0,0 +1,580 @@
+package com.proyect.abogados.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.model.Versionado;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Motor de almacenamiento embebido que reemplaza a Firestore en el perfil {@code memoria}.
+ *
+ * Los documentos se indexan por ID en un {@link ConcurrentHashMap} (lecturas en O(1))
+ * y los IDs se mantienen además en un {@link ConcurrentSkipListSet}, lo que permite
+ * recorrer y paginar en orden sin ordenar la colección en cada consulta. Cada
+ * documento se guarda y se entrega como copia, igual que al leer desde Firestore,
+ * para que los llamadores no compartan instancias.
+ *
+ * Opcionalmente se inyecta una latencia fija más una variación aleatoria por operación,
+ * de modo que las pruebas de carga modelen el tiempo de una RPC real: las variantes
+ * síncronas duermen el hilo y las asíncronas completan el futuro tras la demora sin
+ * ocupar ninguno.
+ *
+ * Puede mantener además un índice único (por ejemplo RUT o licencia) con las mismas
+ * reglas que {@link IndiceUnico} sobre Firestore; en ese caso las escrituras se
+ * serializan para que la verificación de unicidad y el guardado sean atómicos. Las
+ * modificaciones parciales toman el mismo cerrojo para leer, verificar y guardar.
+ *
+ * Cada escritura incrementa un contador de versión de la colección; el documento
+ * escrito guarda el valor resultante como su propia versión (equivalente a la hora de
+ * actualización de Firestore para los ETags).
+ *
+ * @param <T> tipo de entidad almacenada
+ */
+public class MotorMemoria<T> {
+
+    private static final ObjectMapper COPIADOR = new ObjectMapper();
+    private static final char[] ALFABETO_ID =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final int LARGO_ID = 20;
+
+    private final Class<T> tipo;
+    private final Function<T, String> id;
+    private final long latenciaNanos;
+    private final long variacionNanos;
+
+    // * Índice principal por ID y orden de los IDs para recorridos y paginación
+    private final ConcurrentHashMap<String, T> porId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> ids = new ConcurrentSkipListSet<>();
+
+    // * Versión de la colección y de cada documento (valor del contador al escribirlo)
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> versiones = new ConcurrentHashMap<>();
+
+    // * Índice único opcional: clave normalizada -> ID dueño
+    private IndiceUnico<T> unico;
+    private final ConcurrentHashMap<String, String> duenos = new ConcurrentHashMap<>();
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    // * Receptor opcional de las escrituras (por ejemplo, el índice de búsqueda)
+    private ReplicaColeccion.Oyente<T> oyente;
+
+    /**
+     * Crea el motor.
+     *
+     * @param tipo      clase de la entidad (para copiar los documentos)
+     * @param id        obtiene el ID de una entidad
+     * @param latencia  demora fija agregada a cada operación
+     * @param variacion demora aleatoria adicional máxima por operación
+     */
+    public MotorMemoria(Class<T> tipo, Function<T, String> id, Duration latencia, Duration variacion) {
+        this.tipo = tipo;
+        this.id = id;
+        this.latenciaNanos = latencia.toNanos();
+        this.variacionNanos = variacion.toNanos();
+    }
+
+    /**
+     * Mantiene un índice único sobre la colección; debe configurarse antes de guardar documentos.
+     *
+     * @param indice definición del índice (campo y normalización)
+     * @return este motor
+     */
+    MotorMemoria<T> conIndiceUnico(IndiceUnico<T> indice) {
+        this.unico = indice;
+        return this;
+    }
+
+    /**
+     * Notifica cada escritura y eliminación a un oyente, en el mismo orden en que se aplican
+     * sobre cada documento; debe configurarse antes de guardar documentos.
+     *
+     * @param oyente receptor de los cambios (recibe sus propias copias de las entidades)
+     * @return este motor
+     */
+    MotorMemoria<T> conOyente(ReplicaColeccion.Oyente<T> oyente) {
+        this.oyente = oyente;
+        return this;
+    }
+
+    /**
+     * Busca el documento dueño de una clave del índice único.
+     *
+     * @param clave clave ya normalizada
+     * @return ID del documento o {@code null} si ninguno tiene esa clave
+     */
+    String dueno(String clave) {
+        return duenos.get(clave);
+    }
+
+    /**
+     * Genera un ID aleatorio con el mismo formato que los IDs automáticos de Firestore.
+     *
+     * @return ID de 20 caracteres alfanuméricos
+     */
+    public String nuevoId() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        char[] id = new char[LARGO_ID];
+        for (int i = 0; i < LARGO_ID; i++) {
+            id[i] = ALFABETO_ID[aleatorio.nextInt(ALFABETO_ID.length)];
+        }
+        return new String(id);
+    }
+
+    /**
+     * Obtiene una copia del documento.
+     *
+     * @param id ID del documento
+     * @return copia de la entidad o {@code null} si no existe
+     */
+    public T obtener(String id) {
+        T valor = porId.get(id);
+        return valor == null ? null : copiar(valor);
+    }
+
+    /**
+     * Obtiene una copia del documento junto con su versión.
+     *
+     * @param id ID del documento
+     * @return entidad y versión, o {@code null} si no existe
+     */
+    public Versionado<T> obtenerVersionado(String id) {
+        T valor = porId.get(id);
+        Long actual = versiones.get(id);
+        return valor == null ? null : new Versionado<>(copiar(valor), actual == null ? null : actual.toString());
+    }
+
+    /**
+     * Versión actual de la colección; cambia con cada escritura.
+     *
+     * @return versión de la colección
+     */
+    public String version() {
+        return Long.toString(version.get());
+    }
+
+    /**
+     * Lista copias de todos los documentos en orden de ID.
+     *
+     * @return entidades almacenadas
+     */
+    public List<T> listar() {
+        List<T> resultado = new ArrayList<>(porId.size());
+        for (String clave : ids) {
+            T valor = porId.get(clave);
+            if (valor != null) {
+                resultado.add(copiar(valor));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Crea o reemplaza un documento.
+     *
+     * @param id    ID del documento
+     * @param valor entidad a guardar (se almacena una copia)
+     * @throws RegistroDuplicadoException si el valor del índice único pertenece a otro documento
+     */
+    public void guardar(String id, T valor) {
+        T copia = copiar(valor);
+        if (unico != null) {
+            guardarIndexado(id, copia);
+            return;
+        }
+        // * compute es atómico por clave: índice y orden se actualizan juntos
+        porId.compute(id, (clave, anterior) -> {
+            ids.add(clave);
+            versiones.put(clave, version.incrementAndGet());
+            notificarGuardado(clave, copia);
+            return copia;
+        });
+    }
+
+    /**
+     * Modifica un documento existente de forma atómica respecto de las demás escrituras,
+     * verificando antes su versión si se indica.
+     *
+     * @param id      ID del documento
+     * @param version versión esperada, o {@code null} para no verificarla
+     * @param cambio  recibe una copia del documento actual y devuelve el documento modificado
+     * @return copia del documento guardado, o {@code null} si no existe
+     * @throws PrecondicionFallidaException si el documento no está en la versión esperada
+     * @throws RegistroDuplicadoException   si el valor del índice único pertenece a otro documento
+     */
+    public T modificar(String id, String version, UnaryOperator<T> cambio) {
+        escritura.lock();
+        try {
+            T actual = porId.get(id);
+            if (actual == null) {
+                return null;
+            }
+            if (version != null && !version.equals(String.valueOf(versiones.get(id)))) {
+                throw new PrecondicionFallidaException(id, version);
+            }
+            T modificado = cambio.apply(copiar(actual));
+            guardar(id, modificado);
+            return copiar(modificado);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Elimina un documento (no falla si no existe, igual que Firestore).
+     *
+     * @param id ID del documento
+     * @return {@code true} si el documento existía
+     */
+    public boolean eliminar(String id) {
+        if (unico != null) {
+            escritura.lock();
+            try {
+                T anterior = porId.remove(id);
+                if (anterior == null) {
+                    return false;
+                }
+                ids.remove(id);
+                versiones.remove(id);
+                version.incrementAndGet();
+                liberar(unico.clave(anterior), id);
+                notificarEliminado(id);
+                return true;
+            } finally {
+                escritura.unlock();
+            }
+        }
+        boolean[] existia = {false};
+        porId.computeIfPresent(id, (clave, anterior) -> {
+            ids.remove(clave);
+            versiones.remove(clave);
+            version.incrementAndGet();
+            notificarEliminado(clave);
+            existia[0] = true;
+            return null;
+        });
+        return existia[0];
+    }
+
+    /**
+     * Elimina todos los documentos.
+     *
+     * @return cantidad de documentos eliminados
+     */
+    public long vaciar() {
+        long eliminados = 0;
+        for (String clave : ids) {
+            if (eliminar(clave)) {
+                eliminados++;
+            }
+        }
+        return eliminados;
+    }
+
+    /**
+     * Cantidad de documentos almacenados.
+     *
+     * @return tamaño de la colección
+     */
+    public int tamano() {
+        return porId.size();
+    }
+
+    /**
+     * Obtiene una página de documentos con los mismos cursores que la paginación de Firestore.
+     * Ordenando por ID se navega directamente el índice ordenado; con otro orden se
+     * ordenan los documentos que cumplen el filtro (desempatando por ID).
+     *
+     * @param consulta límite y cursores solicitados
+     * @param filtro   condición que deben cumplir los documentos ({@code null} para todos)
+     * @param orden    orden de la página ({@code null} para ordenar por ID)
+     * @return página con los cursores siguiente/anterior
+     */
+    public Pagina<T> paginar(ConsultaPagina consulta, Predicate<T> filtro, Comparator<T> orden) {
+        Predicate<T> condicion = filtro != null ? filtro : valor -> true;
+        return orden == null ? paginarPorId(consulta, condicion) : paginarOrdenado(consulta, condicion, orden);
+    }
+
+    /**
+     * Recorre la colección por lotes en orden de ID.
+     *
+     * @param tamanoLote cantidad de documentos por lote
+     * @param consumidor receptor de cada lote
+     * @throws IOException si el consumidor aborta el recorrido
+     */
+    public void recorrer(int tamanoLote, ConsumidorLote<T> consumidor) throws IOException {
+        List<T> lote = new ArrayList<>(tamanoLote);
+        for (String clave : ids) {
+            T valor = porId.get(clave);
+            if (valor == null) {
+                continue;
+            }
+            lote.add(copiar(valor));
+            if (lote.size() == tamanoLote) {
+                consumidor.aceptar(lote);
+                lote = new ArrayList<>(tamanoLote);
+            }
+        }
+        if (!lote.isEmpty()) {
+            consumidor.aceptar(lote);
+        }
+    }
+
+    /**
+     * Importa registros leídos incrementalmente con las mismas reglas que la importación
+     * masiva a Firestore: un JSON mal formado detiene la importación y un registro con
+     * campos incompatibles se informa como fallo sin abortar el resto.
+     *
+     * @param registros registros de un arreglo JSON o de un flujo NDJSON
+     * @param asignarId asigna el ID generado al registro antes de guardarlo
+     * @return IDs creados y fallos por registro
+     */
+    public ResultadoImportacion importar(MappingIterator<T> registros, BiConsumer<T, String> asignarId) {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        int indice = 0;
+        while (true) {
+            T registro;
+            try {
+                if (!registros.hasNextValue()) {
+                    break;
+                }
+                registro = registros.nextValue();
+            } catch (JsonParseException e) {
+                resultado.getFallos().add(new ResultadoImportacion.Fallo(indice, "JSON inválido: " + e.getOriginalMessage()));
+                break;
+            } catch (IOException e) {
+                resultado.getFallos().add(new ResultadoImportacion.Fallo(indice, e.getMessage()));
+                indice++;
+                continue;
+            }
+            crearImportado(resultado, indice, registro, asignarId);
+            indice++;
+        }
+        return resultado;
+    }
+
+    /**
+     * Importa registros ya construidos en memoria (por ejemplo, datos sintéticos).
+     *
+     * @param registros registros a crear
+     * @param asignarId asigna el ID generado al registro antes de guardarlo
+     * @return IDs creados y fallos por registro
+     */
+    public ResultadoImportacion importar(Iterator<T> registros, BiConsumer<T, String> asignarId) {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        for (int indice = 0; registros.hasNext(); indice++) {
+            crearImportado(resultado, indice, registros.next(), asignarId);
+        }
+        return resultado;
+    }
+
+    private void crearImportado(ResultadoImportacion resultado, int indice, T registro, BiConsumer<T, String> asignarId) {
+        String nuevo = nuevoId();
+        asignarId.accept(registro, nuevo);
+        try {
+            guardar(nuevo, registro);
+            resultado.getCreados().add(nuevo);
+        } catch (RegistroDuplicadoException e) {
+            // * Igual que en Firestore, un duplicado se informa sin abortar el resto
+            resultado.getFallos().add(new ResultadoImportacion.Fallo(indice, e.getMessage()));
+        }
+    }
+
+    /**
+     * Aplica la latencia configurada al hilo actual (variantes síncronas).
+     *
+     * @throws InterruptedException si el hilo es interrumpido durante la espera
+     */
+    public void esperar() throws InterruptedException {
+        long demora = demoraNanos();
+        if (demora > 0) {
+            TimeUnit.NANOSECONDS.sleep(demora);
+        }
+    }
+
+    /**
+     * Ejecuta la operación y entrega su resultado tras la latencia configurada,
+     * sin bloquear el hilo que la invoca (variantes asíncronas).
+     *
+     * @param operacion operación sobre el motor
+     * @param <R>       tipo del resultado
+     * @return futuro con el resultado o con la excepción lanzada por la operación
+     */
+    public <R> CompletableFuture<R> diferir(Supplier<R> operacion) {
+        long demora = demoraNanos();
+        if (demora <= 0) {
+            try {
+                return CompletableFuture.completedFuture(operacion.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(operacion,
+                CompletableFuture.delayedExecutor(demora, TimeUnit.NANOSECONDS));
+    }
+
+    private long demoraNanos() {
+        if (variacionNanos <= 0) {
+            return latenciaNanos;
+        }
+        return latenciaNanos + ThreadLocalRandom.current().nextLong(variacionNanos + 1);
+    }
+
+    // * Reserva la clave nueva, libera la anterior y guarda, todo bajo el mismo cerrojo
+    private void guardarIndexado(String id, T copia) {
+        escritura.lock();
+        try {
+            String nueva = unico.clave(copia);
+            if (nueva != null) {
+                String dueno = duenos.get(nueva);
+                if (dueno != null && !dueno.equals(id)) {
+                    // ! La clave ya pertenece a otro documento
+                    throw unico.duplicado(copia);
+                }
+            }
+            String anterior = unico.clave(porId.get(id));
+            if (nueva != null) {
+                duenos.put(nueva, id);
+            }
+            if (anterior != null && !anterior.equals(nueva)) {
+                liberar(anterior, id);
+            }
+            ids.add(id);
+            versiones.put(id, version.incrementAndGet());
+            porId.put(id, copia);
+            notificarGuardado(id, copia);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // * Se notifica dentro de la escritura para que el oyente vea los cambios de cada documento en orden
+    private void notificarGuardado(String id, T copia) {
+        if (oyente != null) {
+            oyente.aplicar(id, copiar(copia));
+        }
+    }
+
+    private void notificarEliminado(String id) {
+        if (oyente != null) {
+            oyente.quitar(id);
+        }
+    }
+
+    // * Solo se libera la clave si sigue apuntando a este documento
+    private void liberar(String clave, String id) {
+        if (clave != null) {
+            duenos.remove(clave, id);
+        }
+    }
+
+    // * Navega el índice ordenado desde el cursor, leyendo solo hasta completar la página
+    private Pagina<T> paginarPorId(ConsultaPagina consulta, Predicate<T> condicion) {
+        int limite = consulta.limiteEfectivo();
+        boolean haciaAtras = consulta.getAntesDe() != null;
+
+        NavigableSet<String> rango;
+        if (haciaAtras) {
+            rango = ids.headSet(PaginacionFirestore.decodificarCursor(consulta.getAntesDe()), false).descendingSet();
+        } else if (consulta.getDespuesDe() != null) {
+            rango = ids.tailSet(PaginacionFirestore.decodificarCursor(consulta.getDespuesDe()), false);
+        } else {
+            rango = ids;
+        }
+
+        List<T> encontrados = new ArrayList<>(limite + 1);
+        for (String clave : rango) {
+            T valor = porId.get(clave);
+            if (valor != null && condicion.test(valor)) {
+                encontrados.add(valor);
+                if (encontrados.size() > limite) {
+                    break;
+                }
+            }
+        }
+        return armar(consulta, encontrados, limite, haciaAtras);
+    }
+
+    // * Ordena los documentos que cumplen la condición y se posiciona después (o antes) del cursor
+    private Pagina<T> paginarOrdenado(ConsultaPagina consulta, Predicate<T> condicion, Comparator<T> orden) {
+        int limite = consulta.limiteEfectivo();
+        boolean haciaAtras = consulta.getAntesDe() != null;
+        Comparator<T> completo = orden.thenComparing(id);
+
+        List<T> ordenados = new ArrayList<>();
+        for (T valor : porId.values()) {
+            if (condicion.test(valor)) {
+                ordenados.add(valor);
+            }
+        }
+        ordenados.sort(completo);
+
+        String cursor = haciaAtras ? consulta.getAntesDe() : consulta.getDespuesDe();
+        int desde = 0;
+        int hasta = ordenados.size();
+        if (cursor != null) {
+            T referencia = porId.get(PaginacionFirestore.decodificarCursor(cursor));
+            if (referencia == null) {
+                throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+            }
+            int posicion = Collections.binarySearch(ordenados, referencia, completo);
+            int punto = posicion >= 0 ? posicion : -posicion - 1;
+            if (haciaAtras) {
+                hasta = punto;
+            } else {
+                desde = posicion >= 0 ? posicion + 1 : punto;
+            }
+        }
+
+        List<T> encontrados;
+        if (haciaAtras) {
+            encontrados = new ArrayList<>(ordenados.subList(Math.max(desde, hasta - limite - 1), hasta));
+            Collections.reverse(encontrados);
+        } else {
+            encontrados = new ArrayList<>(ordenados.subList(desde, Math.min(hasta, desde + limite + 1)));
+        }
+        return armar(consulta, encontrados, limite, haciaAtras);
+    }
+
+    // * encontrados viene en el sentido de la navegación, con hasta un elemento extra
+    private Pagina<T> armar(ConsultaPagina consulta, List<T> encontrados, int limite, boolean haciaAtras) {
+        boolean hayMas = encontrados.size() > limite;
+        if (hayMas) {
+            encontrados.remove(limite);
+        }
+        if (haciaAtras) {
+            Collections.reverse(encontrados);
+        }
+        List<T> elementos = new ArrayList<>(encontrados.size());
+        encontrados.forEach(valor -> elementos.add(copiar(valor)));
+        if (elementos.isEmpty()) {
+            return PaginacionFirestore.armarPagina(consulta, elementos, null, null, false);
+        }
+        return PaginacionFirestore.armarPagina(consulta, elementos, id.apply(encontrados.get(0)),
+                id.apply(encontrados.get(encontrados.size() - 1)), hayMas);
+    }
+
+    // * Copia profunda mediante Jackson: el motor nunca comparte instancias con los llamadores
+    private T copiar(T valor) {
+        try {
+            return COPIADOR.readValue(COPIADOR.writeValueAsBytes(valor), tipo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo copiar el documento", e);
+        }
+    }
+}
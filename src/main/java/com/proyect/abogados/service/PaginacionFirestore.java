@@ -0,0 +1,328 @@
+package com.proyect.abogados.service;
+
+import com.google.cloud.firestore.*;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.Pagina;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Utilidad compartida por los servicios para paginar colecciones de Firestore
+ * mediante cursores (keyset pagination).
+ *
+ * Cada página se obtiene con una consulta {@code orderBy + startAfter/endBefore + limit},
+ * por lo que nunca se materializa más de una página en memoria. Se solicita un
+ * documento adicional para saber si existe una página siguiente sin una lectura extra.
+ */
+final class PaginacionFirestore {
+
+    /** Propiedad de Firestore con el ID de la entidad; toda proyección la incluye. */
+    static final String CAMPO_ID = "id";
+
+    private PaginacionFirestore() {
+    }
+
+    /**
+     * Valida los campos de la proyección solicitada y los reemplaza en la consulta por
+     * sus nombres de propiedad en Firestore. Se aceptan sin distinguir mayúsculas, de
+     * modo que {@code pNombre} equivale a {@code pnombre}.
+     *
+     * @param consulta           consulta cuya proyección se normaliza
+     * @param camposProyectables propiedades que se pueden seleccionar (además del ID)
+     * @throws IllegalArgumentException si se solicita un campo desconocido
+     */
+    static void validarCampos(ConsultaPagina consulta, Set<String> camposProyectables) {
+        if (!consulta.tieneProyeccion()) {
+            return;
+        }
+        List<String> normalizados = new ArrayList<>(consulta.getCampos().size());
+        for (String solicitado : consulta.getCampos()) {
+            String campo = solicitado.trim();
+            if (campo.isEmpty()) {
+                continue;
+            }
+            String propiedad = CAMPO_ID.equalsIgnoreCase(campo) ? CAMPO_ID : camposProyectables.stream()
+                    .filter(permitido -> permitido.equalsIgnoreCase(campo))
+                    .findFirst()
+                    // ! Solo se permite proyectar propiedades conocidas de la entidad
+                    .orElseThrow(() -> new IllegalArgumentException("Campo no permitido en fields: " + campo));
+            if (!normalizados.contains(propiedad)) {
+                normalizados.add(propiedad);
+            }
+        }
+        consulta.setCampos(normalizados);
+    }
+
+    /**
+     * Obtiene una página de la colección según los parámetros de la consulta.
+     *
+     * @param coleccion        colección de Firestore a recorrer
+     * @param consulta         límite, ordenamiento y cursores solicitados
+     * @param camposOrdenables campos permitidos en {@code ordenarPor} además del ID
+     * @param tipo             clase a la que se mapean los documentos
+     * @param <T>              tipo de los elementos
+     * @return página con los elementos y los cursores siguiente/anterior
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    static <T> Pagina<T> paginar(CollectionReference coleccion, ConsultaPagina consulta,
+                                 Set<String> camposOrdenables, Class<T> tipo)
+            throws ExecutionException, InterruptedException {
+        return paginar(coleccion, coleccion, consulta, camposOrdenables, tipo);
+    }
+
+    /**
+     * Obtiene una página de una consulta filtrada de la colección. Los filtros de
+     * {@code base} se mantienen y sobre ella se aplican el orden, los cursores y el límite.
+     *
+     * @param coleccion        colección a la que pertenecen los documentos (para resolver cursores)
+     * @param base             consulta con los filtros ya aplicados
+     * @param consulta         límite, ordenamiento y cursores solicitados
+     * @param camposOrdenables campos permitidos en {@code ordenarPor} además del ID
+     * @param tipo             clase a la que se mapean los documentos
+     * @param <T>              tipo de los elementos
+     * @return página con los elementos y los cursores siguiente/anterior
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    static <T> Pagina<T> paginar(CollectionReference coleccion, Query base, ConsultaPagina consulta,
+                                 Set<String> camposOrdenables, Class<T> tipo)
+            throws ExecutionException, InterruptedException {
+        boolean porId = ordenaPorId(consulta, camposOrdenables);
+        String idCursor = idCursor(consulta);
+        DocumentSnapshot snapshotCursor = porId || idCursor == null
+                ? null
+                : validarCursor(coleccion.document(idCursor).get().get());
+
+        Query query = construirConsulta(base, consulta, porId, snapshotCursor);
+        return armarDesdeDocumentos(query.get().get().getDocuments(), consulta, tipo);
+    }
+
+    /**
+     * Variante no bloqueante de {@link #paginar}: encadena las lecturas a Firestore
+     * sin ocupar el hilo que la invoca.
+     *
+     * @param coleccion        colección de Firestore a recorrer
+     * @param consulta         límite, ordenamiento y cursores solicitados
+     * @param camposOrdenables campos permitidos en {@code ordenarPor} además del ID
+     * @param tipo             clase a la que se mapean los documentos
+     * @param <T>              tipo de los elementos
+     * @return futuro con la página y los cursores siguiente/anterior
+     */
+    static <T> CompletableFuture<Pagina<T>> paginarAsync(CollectionReference coleccion, ConsultaPagina consulta,
+                                                         Set<String> camposOrdenables, Class<T> tipo) {
+        return paginarAsync(coleccion, coleccion, consulta, camposOrdenables, tipo);
+    }
+
+    /**
+     * Variante no bloqueante de {@link #paginar(CollectionReference, Query, ConsultaPagina, Set, Class)}.
+     *
+     * @param coleccion        colección a la que pertenecen los documentos (para resolver cursores)
+     * @param base             consulta con los filtros ya aplicados
+     * @param consulta         límite, ordenamiento y cursores solicitados
+     * @param camposOrdenables campos permitidos en {@code ordenarPor} además del ID
+     * @param tipo             clase a la que se mapean los documentos
+     * @param <T>              tipo de los elementos
+     * @return futuro con la página y los cursores siguiente/anterior
+     */
+    static <T> CompletableFuture<Pagina<T>> paginarAsync(CollectionReference coleccion, Query base,
+                                                         ConsultaPagina consulta,
+                                                         Set<String> camposOrdenables, Class<T> tipo) {
+        boolean porId;
+        String idCursor;
+        try {
+            porId = ordenaPorId(consulta, camposOrdenables);
+            idCursor = idCursor(consulta);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<DocumentSnapshot> snapshotCursor = porId || idCursor == null
+                ? CompletableFuture.completedFuture(null)
+                : FuturosFirestore.aCompletable(coleccion.document(idCursor).get())
+                        .thenApply(PaginacionFirestore::validarCursor);
+
+        return snapshotCursor
+                .thenCompose(snapshot -> FuturosFirestore.aCompletable(
+                        construirConsulta(base, consulta, porId, snapshot).get()))
+                .thenApply(resultado -> armarDesdeDocumentos(resultado.getDocuments(), consulta, tipo));
+    }
+
+    // * Valida el campo de ordenamiento; devuelve true si se ordena por ID del documento
+    private static boolean ordenaPorId(ConsultaPagina consulta, Set<String> camposOrdenables) {
+        String campo = consulta.getOrdenarPor();
+        boolean porId = campo == null || campo.isBlank() || "id".equals(campo);
+        if (!porId && !camposOrdenables.contains(campo)) {
+            // ! Solo se permite ordenar por campos conocidos (e indexados)
+            throw new IllegalArgumentException("Campo de ordenamiento no permitido: " + campo);
+        }
+        return porId;
+    }
+
+    // * ID del documento cursor (anterior o siguiente), o null en la primera página
+    private static String idCursor(ConsultaPagina consulta) {
+        if (consulta.getAntesDe() != null) {
+            return decodificarCursor(consulta.getAntesDe());
+        }
+        if (consulta.getDespuesDe() != null) {
+            return decodificarCursor(consulta.getDespuesDe());
+        }
+        return null;
+    }
+
+    // * Arma la consulta orderBy + startAfter/endBefore + limit (con un documento extra)
+    private static Query construirConsulta(Query base, ConsultaPagina consulta,
+                                           boolean porId, DocumentSnapshot snapshotCursor) {
+        Query query = porId ? base.orderBy(FieldPath.documentId()) : base.orderBy(consulta.getOrdenarPor());
+        int limite = consulta.limiteEfectivo();
+        if (consulta.tieneProyeccion()) {
+            // * Firestore solo transfiere los campos pedidos y toObject mapea únicamente esos
+            List<String> seleccion = new ArrayList<>(consulta.getCampos());
+            if (!seleccion.contains(CAMPO_ID)) {
+                seleccion.add(CAMPO_ID);
+            }
+            query = query.select(seleccion.toArray(String[]::new));
+        }
+
+        if (consulta.getAntesDe() != null) {
+            query = porId
+                    ? query.endBefore(decodificarCursor(consulta.getAntesDe()))
+                    : query.endBefore(snapshotCursor);
+            return query.limitToLast(limite + 1);
+        }
+        if (consulta.getDespuesDe() != null) {
+            query = porId
+                    ? query.startAfter(decodificarCursor(consulta.getDespuesDe()))
+                    : query.startAfter(snapshotCursor);
+        }
+        return query.limit(limite + 1);
+    }
+
+    // * Recorta el documento extra, mapea los documentos y calcula los cursores
+    private static <T> Pagina<T> armarDesdeDocumentos(List<QueryDocumentSnapshot> documentos,
+                                                      ConsultaPagina consulta, Class<T> tipo) {
+        int limite = consulta.limiteEfectivo();
+        boolean haciaAtras = consulta.getAntesDe() != null;
+        boolean hayMas = documentos.size() > limite;
+        if (hayMas) {
+            // * El documento extra solo indica que hay más páginas; no se devuelve
+            documentos = haciaAtras
+                    ? documentos.subList(1, documentos.size())
+                    : documentos.subList(0, limite);
+        }
+
+        List<T> elementos = documentos.stream()
+                .map(doc -> doc.toObject(tipo))
+                .collect(Collectors.toList());
+
+        if (documentos.isEmpty()) {
+            return armarPagina(consulta, elementos, null, null, false);
+        }
+        return armarPagina(consulta, elementos, documentos.get(0).getId(),
+                documentos.get(documentos.size() - 1).getId(), hayMas);
+    }
+
+    /**
+     * Construye la página y sus cursores a partir de los elementos ya recortados.
+     *
+     * @param consulta consulta original (define la dirección de la navegación)
+     * @param elementos elementos de la página, en orden ascendente
+     * @param primerId  ID del primer elemento (o {@code null} si la página está vacía)
+     * @param ultimoId  ID del último elemento (o {@code null} si la página está vacía)
+     * @param hayMas    si existen más elementos en la dirección de la navegación
+     * @param <T>       tipo de los elementos
+     * @return página con los cursores siguiente/anterior
+     */
+    static <T> Pagina<T> armarPagina(ConsultaPagina consulta, List<T> elementos,
+                                     String primerId, String ultimoId, boolean hayMas) {
+        boolean haciaAtras = consulta.getAntesDe() != null;
+        if (elementos.isEmpty()) {
+            return new Pagina<>(elementos, haciaAtras ? consulta.getAntesDe() : null, null);
+        }
+
+        String primero = codificarCursor(primerId);
+        String ultimo = codificarCursor(ultimoId);
+        if (haciaAtras) {
+            return new Pagina<>(elementos, ultimo, hayMas ? primero : null);
+        }
+        return new Pagina<>(elementos, hayMas ? ultimo : null, consulta.getDespuesDe() != null ? primero : null);
+    }
+
+    /**
+     * Recorre la colección completa por lotes ordenados por ID, entregando cada lote
+     * al consumidor antes de leer el siguiente. Solo un lote permanece en memoria.
+     *
+     * Si el consumidor lanza {@link IOException} el recorrido se detiene de inmediato
+     * y no se emiten más lecturas a Firestore.
+     *
+     * @param coleccion  colección de Firestore a recorrer
+     * @param tamanoLote cantidad de documentos por lectura
+     * @param tipo       clase a la que se mapean los documentos
+     * @param consumidor receptor de cada lote
+     * @param <T>        tipo de los elementos
+     * @throws ExecutionException   si ocurre un error durante la operación
+     * @throws InterruptedException si la ejecución es interrumpida
+     * @throws IOException          si el consumidor aborta el recorrido
+     */
+    static <T> void recorrer(CollectionReference coleccion, int tamanoLote, Class<T> tipo,
+                             ConsumidorLote<T> consumidor)
+            throws ExecutionException, InterruptedException, IOException {
+        Query query = coleccion.orderBy(FieldPath.documentId()).limit(tamanoLote);
+        while (true) {
+            List<QueryDocumentSnapshot> documentos = query.get().get().getDocuments();
+            if (documentos.isEmpty()) {
+                return;
+            }
+            consumidor.aceptar(documentos.stream()
+                    .map(doc -> doc.toObject(tipo))
+                    .collect(Collectors.toList()));
+            if (documentos.size() < tamanoLote) {
+                return;
+            }
+            String ultimoId = documentos.get(documentos.size() - 1).getId();
+            query = coleccion.orderBy(FieldPath.documentId()).startAfter(ultimoId).limit(tamanoLote);
+        }
+    }
+
+    /**
+     * Codifica el ID de un documento como cursor opaco y seguro para URLs.
+     *
+     * @param id ID del documento
+     * @return cursor codificado
+     */
+    static String codificarCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor opaco al ID del documento que representa.
+     *
+     * @param cursor cursor recibido del cliente
+     * @return ID del documento
+     */
+    static String decodificarCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // ! Cursor manipulado o corrupto
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+        }
+    }
+
+    // * Cuando se ordena por un campo distinto del ID, Firestore necesita el snapshot
+    // * del documento cursor para continuar desde su valor (y desempatar por ID)
+    private static DocumentSnapshot validarCursor(DocumentSnapshot snapshot) {
+        if (!snapshot.exists()) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + snapshot.getId());
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,19 @@
+package com.proyect.abogados.service;
+
+/**
+ * Se lanza cuando una escritura condicional ({@code If-Match}) encuentra el documento en
+ * una versión distinta de la esperada, es decir, fue modificado desde que el cliente lo
+ * leyó. Los controladores la traducen a {@code 412 Precondition Failed}.
+ */
+public class PrecondicionFallidaException extends RuntimeException {
+
+    /**
+     * Crea la excepción para el documento modificado.
+     *
+     * @param id      ID del documento
+     * @param version versión que esperaba el cliente
+     */
+    public PrecondicionFallidaException(String id, String version) {
+        super("El registro " + id + " fue modificado después de la versión " + version);
+    }
+}
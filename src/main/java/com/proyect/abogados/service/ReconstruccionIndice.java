@@ -0,0 +1,149 @@
+package com.proyect.abogados.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.proyect.abogados.model.ResultadoReindexado;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Reconstrucción de un {@link IndiceUnico} a partir de los documentos ya existentes.
+ *
+ * El índice solo se mantiene en las escrituras: los documentos creados antes de que
+ * existiera no tienen entrada y no se encuentran por ese valor ni se protegen contra
+ * duplicados. Este proceso recorre la colección por lotes y, con un {@link BulkWriter},
+ * ejecuta {@code create} sobre la entrada de cada documento. Como {@code create} falla si
+ * la entrada existe, se puede repetir sin efectos; las entradas que fallan se leen en una
+ * sola lectura por lote para distinguir las que ya apuntaban al documento de los
+ * conflictos (dos documentos con el mismo valor), que se informan sin modificar nada.
+ */
+final class ReconstruccionIndice {
+
+    /** Documentos leídos y reservados por lote. */
+    static final int TAMANO_LOTE = 500;
+
+    private ReconstruccionIndice() {
+    }
+
+    // * Entrada de índice enviada al BulkWriter para un documento del lote
+    private record Reserva(String id, String valor, DocumentReference entrada, ApiFuture<WriteResult> escritura) {
+    }
+
+    /**
+     * Crea las entradas de índice que faltan para todos los documentos de la colección.
+     *
+     * @param firestore     instancia de Firestore
+     * @param coleccion     colección indexada
+     * @param tipo          clase a la que se mapean los documentos
+     * @param idDe          obtiene el ID de una entidad
+     * @param indice        índice único a reconstruir
+     * @param opsPorSegundo operaciones por segundo del BulkWriter
+     * @param <T>           tipo de entidad
+     * @return documentos revisados, entradas creadas y conflictos
+     * @throws ExecutionException   si falla la lectura de la colección
+     * @throws InterruptedException si la ejecución es interrumpida
+     */
+    static <T> ResultadoReindexado reconstruir(Firestore firestore, CollectionReference coleccion, Class<T> tipo,
+                                               Function<T, String> idDe, IndiceUnico<T> indice, int opsPorSegundo)
+            throws ExecutionException, InterruptedException {
+        ResultadoReindexado resultado = new ResultadoReindexado();
+        BulkWriter bulkWriter = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(opsPorSegundo)
+                .setMaxOpsPerSecond(opsPorSegundo)
+                .build());
+        try {
+            PaginacionFirestore.recorrer(coleccion, TAMANO_LOTE, tipo, lote -> {
+                try {
+                    reservar(firestore, bulkWriter, lote, idDe, indice, resultado);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException(e.getMessage());
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+            });
+        } catch (InterruptedIOException e) {
+            throw new InterruptedException(e.getMessage());
+        } catch (IOException e) {
+            // * El consumidor solo aborta por interrupción o por fallo al leer las entradas existentes
+            throw new ExecutionException(e.getCause());
+        } finally {
+            try {
+                bulkWriter.close();
+            } catch (ExecutionException e) {
+                System.err.println("Error al cerrar el BulkWriter del índice: " + e.getMessage());
+            }
+        }
+        return resultado;
+    }
+
+    // * Reserva las entradas del lote y clasifica las que ya existían
+    private static <T> void reservar(Firestore firestore, BulkWriter bulkWriter, List<T> lote,
+                                     Function<T, String> idDe, IndiceUnico<T> indice, ResultadoReindexado resultado)
+            throws ExecutionException, InterruptedException {
+        resultado.sumarRevisados(lote.size());
+        List<Reserva> reservas = new ArrayList<>(lote.size());
+        for (T entidad : lote) {
+            String id = idDe.apply(entidad);
+            String clave;
+            try {
+                clave = indice.clave(entidad);
+            } catch (IllegalArgumentException e) {
+                resultado.getConflictos().add(new ResultadoReindexado.Conflicto(id, indice.valor(entidad), null,
+                        e.getMessage()));
+                continue;
+            }
+            if (clave == null) {
+                resultado.sumarSinValor();
+                continue;
+            }
+            DocumentReference entrada = indice.referencia(firestore, clave);
+            reservas.add(new Reserva(id, indice.valor(entidad), entrada,
+                    bulkWriter.create(entrada, Map.of(IndiceUnico.CAMPO_ID, id))));
+        }
+        if (reservas.isEmpty()) {
+            return;
+        }
+        try {
+            bulkWriter.flush().get();
+        } catch (ExecutionException e) {
+            // * Los errores individuales se leen de cada escritura
+        }
+
+        List<Reserva> fallidas = new ArrayList<>();
+        for (Reserva reserva : reservas) {
+            try {
+                reserva.escritura().get();
+                resultado.sumarCreada();
+            } catch (ExecutionException e) {
+                fallidas.add(reserva);
+            }
+        }
+        if (fallidas.isEmpty()) {
+            return;
+        }
+        // * Una sola lectura para todas las entradas que ya existían (o que no se pudieron escribir)
+        List<DocumentSnapshot> entradas = firestore.getAll(fallidas.stream()
+                .map(Reserva::entrada)
+                .toArray(DocumentReference[]::new)).get();
+        for (int i = 0; i < fallidas.size(); i++) {
+            Reserva reserva = fallidas.get(i);
+            DocumentSnapshot entrada = entradas.get(i);
+            String dueno = entrada.exists() ? entrada.getString(IndiceUnico.CAMPO_ID) : null;
+            if (reserva.id().equals(dueno)) {
+                resultado.sumarExistente();
+            } else if (dueno != null) {
+                resultado.getConflictos().add(new ResultadoReindexado.Conflicto(reserva.id(), reserva.valor(), dueno,
+                        "El valor ya pertenece a otro documento"));
+            } else {
+                resultado.getConflictos().add(new ResultadoReindexado.Conflicto(reserva.id(), reserva.valor(), null,
+                        "No se pudo crear la entrada del índice"));
+            }
+        }
+    }
+}
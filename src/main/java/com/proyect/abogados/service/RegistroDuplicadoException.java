@@ -0,0 +1,19 @@
+package com.proyect.abogados.service;
+
+/**
+ * Se lanza cuando una escritura violaría un índice único (por ejemplo, un RUT o una
+ * licencia que ya pertenece a otro registro). Los controladores la traducen a
+ * {@code 409 Conflict}.
+ */
+public class RegistroDuplicadoException extends RuntimeException {
+
+    /**
+     * Crea la excepción para el campo y valor duplicados.
+     *
+     * @param campo nombre del campo único
+     * @param valor valor que ya está registrado
+     */
+    public RegistroDuplicadoException(String campo, String valor) {
+        super("Ya existe un registro con " + campo + " " + valor);
+    }
+}
@@ -0,0 +1,389 @@
+package com.proyect.abogados.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.Versionado;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Réplica en memoria de una colección de Firestore, mantenida al día por un
+ * snapshot listener a partir de los cambios incrementales de documentos.
+ *
+ * Mientras la réplica no está sincronizada (antes de la primera instantánea o
+ * tras una desconexión) los servicios deben leer desde Firestore. Si el listener
+ * falla, se vuelve a registrar con espera exponencial y la primera instantánea
+ * tras reconectar reemplaza por completo el contenido, descartando documentos
+ * eliminados mientras estaba desconectada.
+ *
+ * @param <T> tipo de entidad replicada
+ */
+public class ReplicaColeccion<T> {
+
+    /** Estado de sincronización de la réplica. */
+    public enum Estado {
+        INICIANDO, SINCRONIZADA, DESCONECTADA, DETENIDA
+    }
+
+    /**
+     * Recibe los cambios que se aplican a la réplica, para mantener al día estructuras
+     * derivadas de ella (por ejemplo, un índice de búsqueda).
+     *
+     * @param <T> tipo de entidad replicada
+     */
+    public interface Oyente<T> {
+
+        /**
+         * Contenido completo de la colección, tras la primera instantánea o tras reconectar.
+         *
+         * @param contenido entidades por ID
+         */
+        void reemplazar(Map<String, T> contenido);
+
+        /**
+         * Documento creado o modificado.
+         *
+         * @param id      ID del documento
+         * @param entidad valor actual
+         */
+        void aplicar(String id, T entidad);
+
+        /**
+         * Documento eliminado.
+         *
+         * @param id ID del documento
+         */
+        void quitar(String id);
+    }
+
+    private static final long ESPERA_INICIAL_MS = 1_000;
+    private static final long ESPERA_MAXIMA_MS = 60_000;
+
+    private final String nombre;
+    private final Class<T> tipo;
+    private final Supplier<CollectionReference> coleccion;
+    private final ScheduledExecutorService reconexion;
+
+    // * Mapa ordenado por ID: permite paginar por cursor sin copiar la colección
+    // * Cada entidad se guarda con su versión para que ambas se lean siempre juntas
+    private volatile ConcurrentSkipListMap<String, Versionado<T>> datos = new ConcurrentSkipListMap<>();
+    private volatile Estado estado = Estado.INICIANDO;
+    private volatile boolean esperandoInstantaneaCompleta = true;
+    // * Hora de lectura de la última instantánea recibida (antes de la primera, la de creación)
+    private volatile long lecturaMs = System.currentTimeMillis();
+    private ListenerRegistration registro;
+    private long esperaMs = ESPERA_INICIAL_MS;
+    private volatile Oyente<T> oyente;
+
+    /**
+     * Crea la réplica (sin registrar aún el listener).
+     *
+     * @param nombre    nombre de la colección (tag de las métricas)
+     * @param tipo      clase a la que se mapean los documentos
+     * @param coleccion proveedor de la referencia a la colección
+     */
+    public ReplicaColeccion(String nombre, Class<T> tipo, Supplier<CollectionReference> coleccion) {
+        this.nombre = nombre;
+        this.tipo = tipo;
+        this.coleccion = coleccion;
+        this.reconexion = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "replica-" + nombre);
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Registra quién recibe los cambios de la réplica. Debe hacerse antes de {@link #iniciar()}
+     * para que reciba la instantánea inicial.
+     *
+     * @param oyente receptor de los cambios
+     */
+    public void setOyente(Oyente<T> oyente) {
+        this.oyente = oyente;
+    }
+
+    /**
+     * Registra el snapshot listener sobre la colección.
+     */
+    public synchronized void iniciar() {
+        if (estado == Estado.DETENIDA) {
+            return;
+        }
+        esperandoInstantaneaCompleta = true;
+        registro = coleccion.get().addSnapshotListener(this::alRecibir);
+    }
+
+    /**
+     * Elimina el listener y detiene los reintentos de reconexión.
+     */
+    public synchronized void detener() {
+        estado = Estado.DETENIDA;
+        if (registro != null) {
+            registro.remove();
+            registro = null;
+        }
+        reconexion.shutdownNow();
+    }
+
+    /**
+     * Indica si la réplica está sincronizada y puede responder lecturas.
+     *
+     * @return {@code true} si el listener está activo y recibió la instantánea inicial
+     */
+    public boolean estaLista() {
+        return estado == Estado.SINCRONIZADA;
+    }
+
+    /**
+     * @return estado actual de la réplica
+     */
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * Antigüedad de los datos replicados: segundos desde la hora de lectura
+     * ({@code readTime}) de la última instantánea recibida. Crece tanto si el listener
+     * se desconecta como si, conectado, entrega los cambios con retraso. Firestore solo
+     * envía instantáneas cuando hay cambios, por lo que en una colección sin escrituras
+     * el valor es una cota superior del desfase real.
+     *
+     * @return desfase estimado en segundos
+     */
+    public double desfaseSegundos() {
+        return Math.max(0, System.currentTimeMillis() - lecturaMs) / 1000.0;
+    }
+
+    /**
+     * @return cantidad de documentos en la réplica
+     */
+    public int tamano() {
+        return datos.size();
+    }
+
+    /**
+     * Obtiene una entidad de la réplica.
+     *
+     * @param id ID del documento
+     * @return entidad, o {@code null} si no está replicada
+     */
+    public T obtener(String id) {
+        Versionado<T> versionado = datos.get(id);
+        return versionado == null ? null : versionado.getEntidad();
+    }
+
+    /**
+     * Obtiene una entidad de la réplica junto con la versión de su documento.
+     *
+     * @param id ID del documento
+     * @return entidad versionada (con versión {@code null} si proviene de una escritura
+     *         local aún no confirmada por el listener), o {@code null} si no está replicada
+     */
+    public Versionado<T> obtenerVersionado(String id) {
+        return datos.get(id);
+    }
+
+    /**
+     * @return copia de todas las entidades replicadas, ordenadas por ID
+     */
+    public List<T> listar() {
+        List<T> entidades = new ArrayList<>(datos.size());
+        datos.values().forEach(versionado -> entidades.add(versionado.getEntidad()));
+        return entidades;
+    }
+
+    /**
+     * Pagina la réplica por ID usando los mismos cursores que las consultas a Firestore.
+     *
+     * @param consulta límite y cursores solicitados (se ignora {@code ordenarPor})
+     * @return página con los elementos y los cursores siguiente/anterior
+     */
+    public Pagina<T> paginar(ConsultaPagina consulta) {
+        int limite = consulta.limiteEfectivo();
+        boolean haciaAtras = consulta.getAntesDe() != null;
+        ConcurrentSkipListMap<String, Versionado<T>> actuales = datos;
+
+        NavigableMap<String, Versionado<T>> rango;
+        if (haciaAtras) {
+            rango = actuales.headMap(PaginacionFirestore.decodificarCursor(consulta.getAntesDe()), false)
+                    .descendingMap();
+        } else if (consulta.getDespuesDe() != null) {
+            rango = actuales.tailMap(PaginacionFirestore.decodificarCursor(consulta.getDespuesDe()), false);
+        } else {
+            rango = actuales;
+        }
+
+        List<Map.Entry<String, Versionado<T>>> entradas = new ArrayList<>(limite + 1);
+        for (Map.Entry<String, Versionado<T>> entrada : rango.entrySet()) {
+            entradas.add(entrada);
+            if (entradas.size() > limite) {
+                break;
+            }
+        }
+        boolean hayMas = entradas.size() > limite;
+        if (hayMas) {
+            entradas.remove(limite);
+        }
+        if (haciaAtras) {
+            Collections.reverse(entradas);
+        }
+
+        List<T> elementos = new ArrayList<>(entradas.size());
+        entradas.forEach(entrada -> elementos.add(entrada.getValue().getEntidad()));
+        if (entradas.isEmpty()) {
+            return PaginacionFirestore.armarPagina(consulta, elementos, null, null, false);
+        }
+        return PaginacionFirestore.armarPagina(consulta, elementos, entradas.get(0).getKey(),
+                entradas.get(entradas.size() - 1).getKey(), hayMas);
+    }
+
+    /**
+     * Aplica una escritura local confirmada para que la propia instancia lea sus escrituras
+     * sin esperar el evento del listener.
+     *
+     * @param id      ID del documento
+     * @param entidad valor escrito
+     */
+    public void aplicar(String id, T entidad) {
+        // * La versión se conocerá cuando el listener entregue el cambio confirmado
+        datos.put(id, new Versionado<>(entidad, null));
+        Oyente<T> actual = oyente;
+        if (actual != null) {
+            actual.aplicar(id, entidad);
+        }
+    }
+
+    /**
+     * Quita un documento eliminado localmente.
+     *
+     * @param id ID del documento
+     */
+    public void quitar(String id) {
+        datos.remove(id);
+        Oyente<T> actual = oyente;
+        if (actual != null) {
+            actual.quitar(id);
+        }
+    }
+
+    /**
+     * Vacía la réplica tras una eliminación completa de la colección.
+     */
+    public void vaciar() {
+        datos.clear();
+        Oyente<T> actual = oyente;
+        if (actual != null) {
+            actual.reemplazar(Map.of());
+        }
+    }
+
+    /**
+     * Registra las métricas de la réplica: documentos, si está lista y su desfase.
+     *
+     * @param registry registro de métricas de Micrometer
+     */
+    public void registrarMetricas(MeterRegistry registry) {
+        Gauge.builder("replica.documentos", this, ReplicaColeccion::tamano)
+                .tag("coleccion", nombre)
+                .register(registry);
+        Gauge.builder("replica.lista", this, r -> r.estaLista() ? 1 : 0)
+                .tag("coleccion", nombre)
+                .register(registry);
+        Gauge.builder("replica.desfase", this, ReplicaColeccion::desfaseSegundos)
+                .tag("coleccion", nombre)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    // * Callback del snapshot listener (Firestore entrega los eventos en orden)
+    private void alRecibir(QuerySnapshot snapshot, FirestoreException error) {
+        if (error != null) {
+            manejarDesconexion(error);
+            return;
+        }
+        Timestamp lectura = snapshot.getReadTime();
+        if (lectura != null) {
+            lecturaMs = lectura.getSeconds() * 1000 + lectura.getNanos() / 1_000_000;
+        }
+        Oyente<T> actual = oyente;
+        if (esperandoInstantaneaCompleta) {
+            // * Primera instantánea (o tras reconectar): reemplaza el contenido completo
+            ConcurrentSkipListMap<String, Versionado<T>> nuevos = new ConcurrentSkipListMap<>();
+            for (QueryDocumentSnapshot doc : snapshot.getDocuments()) {
+                nuevos.put(doc.getId(), versionar(doc));
+            }
+            datos = nuevos;
+            if (actual != null) {
+                Map<String, T> contenido = new HashMap<>(nuevos.size());
+                nuevos.forEach((id, versionado) -> contenido.put(id, versionado.getEntidad()));
+                actual.reemplazar(contenido);
+            }
+            esperandoInstantaneaCompleta = false;
+            synchronized (this) {
+                esperaMs = ESPERA_INICIAL_MS;
+            }
+        } else {
+            for (DocumentChange cambio : snapshot.getDocumentChanges()) {
+                QueryDocumentSnapshot doc = cambio.getDocument();
+                if (cambio.getType() == DocumentChange.Type.REMOVED) {
+                    datos.remove(doc.getId());
+                    if (actual != null) {
+                        actual.quitar(doc.getId());
+                    }
+                } else {
+                    Versionado<T> versionado = versionar(doc);
+                    datos.put(doc.getId(), versionado);
+                    if (actual != null) {
+                        actual.aplicar(doc.getId(), versionado.getEntidad());
+                    }
+                }
+            }
+        }
+        if (estado != Estado.DETENIDA) {
+            estado = Estado.SINCRONIZADA;
+        }
+    }
+
+    private Versionado<T> versionar(QueryDocumentSnapshot doc) {
+        return new Versionado<>(doc.toObject(tipo), MarcadorColeccion.version(doc.getUpdateTime()));
+    }
+
+    // * Los errores del listener son terminales: se quita y se reprograma el registro
+    private synchronized void manejarDesconexion(Exception error) {
+        if (estado == Estado.DETENIDA) {
+            return;
+        }
+        estado = Estado.DESCONECTADA;
+        System.err.println("Listener de la réplica '" + nombre + "' desconectado: " + error.getMessage());
+        if (registro != null) {
+            registro.remove();
+            registro = null;
+        }
+        long espera = esperaMs;
+        esperaMs = Math.min(esperaMs * 2, ESPERA_MAXIMA_MS);
+        reconexion.schedule(this::reconectar, espera, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconectar() {
+        try {
+            iniciar();
+        } catch (RuntimeException e) {
+            manejarDesconexion(e);
+        }
+    }
+}
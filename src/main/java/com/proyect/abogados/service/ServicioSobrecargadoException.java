@@ -0,0 +1,29 @@
+package com.proyect.abogados.service;
+
+/**
+ * Se lanza cuando una llamada a Firestore se descarta porque el límite de concurrencia
+ * está completo y la cola de espera está llena (o la espera venció). Los controladores
+ * la traducen a {@code 503 Service Unavailable} con {@code Retry-After}.
+ */
+public class ServicioSobrecargadoException extends RuntimeException {
+
+    private final long reintentoSegundos;
+
+    /**
+     * Crea la excepción para la colección indicada.
+     *
+     * @param coleccion         colección cuyas llamadas están saturadas
+     * @param reintentoSegundos segundos sugeridos antes de reintentar
+     */
+    public ServicioSobrecargadoException(String coleccion, long reintentoSegundos) {
+        super("Demasiadas operaciones en curso sobre " + coleccion + "; reintente en " + reintentoSegundos + " s");
+        this.reintentoSegundos = reintentoSegundos;
+    }
+
+    /**
+     * @return segundos sugeridos antes de reintentar (valor de {@code Retry-After})
+     */
+    public long getReintentoSegundos() {
+        return reintentoSegundos;
+    }
+}
@@ -0,0 +1,132 @@
+package com.proyect.abogados.testDataFaker;
+
+import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.model.Cliente;
+import net.datafaker.Faker;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+/**
+ * Fábrica de abogados y clientes sintéticos con DataFaker.
+ *
+ * Cada registro depende solo de la semilla y de su número de secuencia: el {@link Random}
+ * se reinicia antes de generar cada registro, por lo que la misma semilla produce los mismos
+ * datos sin importar cuántos hilos los generen ni en qué orden. El RUT y la licencia se derivan
+ * del número de secuencia, de modo que no se repiten dentro de una carga y respetan los
+ * índices únicos.
+ *
+ * No es segura para uso concurrente: cada hilo debe usar su propia instancia.
+ *
+ * @author PythonLovers
+ */
+public class FabricaDatos {
+
+    /** Primer cuerpo de RUT generado (número de secuencia 0). */
+    static final long RUT_BASE = 10_000_000L;
+
+    private final long semilla;
+    private final Random random = new Random();
+    private final Faker faker = new Faker(Locale.of("es"), random);
+
+    /**
+     * Crea una fábrica reproducible.
+     *
+     * @param semilla semilla de la carga
+     */
+    public FabricaDatos(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /**
+     * Genera el abogado con el número de secuencia indicado.
+     *
+     * @param numero número de secuencia
+     * @return abogado sin ID
+     */
+    public Abogado abogado(long numero) {
+        reiniciar(numero);
+        Abogado abogado = new Abogado();
+        abogado.setRut(rut(RUT_BASE + numero));
+        abogado.setPNombre(faker.name().firstName());
+        abogado.setSNombre(faker.name().firstName());
+        abogado.setPApellido(faker.name().lastName());
+        abogado.setSApellido(faker.name().lastName());
+        abogado.setDocumento(faker.idNumber().valid());
+        abogado.setEspecialidad(faker.job().field());
+        abogado.setUniversidad(faker.university().name());
+        abogado.setLicencia(String.format(Locale.ROOT, "LIC%09d", numero));
+        abogado.setAniosExperiencia(faker.number().numberBetween(1, 40));
+        return abogado;
+    }
+
+    /**
+     * Genera el cliente con el número de secuencia indicado.
+     *
+     * @param numero número de secuencia
+     * @return cliente sin ID
+     */
+    public Cliente cliente(long numero) {
+        reiniciar(numero);
+        Cliente cliente = new Cliente();
+        cliente.setRut(rut(RUT_BASE + numero));
+        cliente.setPNombre(faker.name().firstName());
+        cliente.setSNombre(faker.name().firstName());
+        cliente.setPApellido(faker.name().lastName());
+        cliente.setSApellido(faker.name().lastName());
+        cliente.setDocumento(faker.idNumber().valid());
+        cliente.setDireccion(faker.address().fullAddress());
+        cliente.setTelefono(faker.phoneNumber().cellPhone());
+        cliente.setEmail(faker.internet().emailAddress());
+        return cliente;
+    }
+
+    /**
+     * Abogados con números de secuencia en {@code [desde, hasta)}, generados a medida que se recorren.
+     *
+     * @param desde primer número de secuencia (incluido)
+     * @param hasta último número de secuencia (excluido)
+     * @return iterador de abogados
+     */
+    public Iterator<Abogado> abogados(long desde, long hasta) {
+        return LongStream.range(desde, hasta).mapToObj(this::abogado).iterator();
+    }
+
+    /**
+     * Clientes con números de secuencia en {@code [desde, hasta)}, generados a medida que se recorren.
+     *
+     * @param desde primer número de secuencia (incluido)
+     * @param hasta último número de secuencia (excluido)
+     * @return iterador de clientes
+     */
+    public Iterator<Cliente> clientes(long desde, long hasta) {
+        return LongStream.range(desde, hasta).mapToObj(this::cliente).iterator();
+    }
+
+    // * La secuencia aleatoria de cada registro depende solo de la semilla y de su número
+    private void reiniciar(long numero) {
+        random.setSeed(semilla * 0x9E3779B97F4A7C15L + numero);
+    }
+
+    /**
+     * RUT con puntos y dígito verificador (módulo 11) para el cuerpo indicado.
+     *
+     * @param cuerpo número del RUT sin dígito verificador
+     * @return RUT con formato {@code 12.345.678-5}
+     */
+    static String rut(long cuerpo) {
+        long resto = cuerpo;
+        int suma = 0;
+        int factor = 2;
+        while (resto > 0) {
+            suma += (int) (resto % 10) * factor;
+            resto /= 10;
+            factor = factor == 7 ? 2 : factor + 1;
+        }
+        int digito = 11 - suma % 11;
+        String verificador = digito == 11 ? "0" : digito == 10 ? "K" : String.valueOf(digito);
+        return String.format(Locale.ROOT, "%,d", cuerpo).replace(',', '.') + "-" + verificador;
+    }
+}
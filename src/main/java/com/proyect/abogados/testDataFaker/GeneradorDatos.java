@@ -0,0 +1,139 @@
+package com.proyect.abogados.testDataFaker;
+
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.service.AbogadoService;
+import com.proyect.abogados.service.ClienteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Comando de carga de datos sintéticos para pruebas de carga.
+ *
+ * Solo se registra con el perfil {@code generador}, que además desactiva el servidor web:
+ * la aplicación genera los registros, los escribe y termina. Nunca se ejecuta en un arranque
+ * normal.
+ *
+ * Los registros se reparten en rangos contiguos entre varios hilos. Cada hilo los genera con
+ * {@link FabricaDatos} y los entrega por tramos a la importación masiva de los servicios, que
+ * escribe con un BulkWriter por lotes (manteniendo índices únicos, marcador de versión y
+ * réplica) a la tasa indicada. La memoria se mantiene acotada aunque la carga sea de millones.
+ *
+ * @author PythonLovers
+ */
+@Component
+@Profile("generador")
+@RequiredArgsConstructor
+public class GeneradorDatos implements CommandLineRunner {
+
+    /** Registros que cada hilo entrega por llamada a la importación (acota los IDs retenidos). */
+    static final int REGISTROS_POR_TRAMO = 50_000;
+
+    private final AbogadoService abogadoService;
+    private final ClienteService clienteService;
+    private final ConfigurableApplicationContext contexto;
+
+    // * Cantidad de registros a generar por colección
+    @Value("${generador.abogados:0}")
+    private long abogados;
+
+    @Value("${generador.clientes:0}")
+    private long clientes;
+
+    // * Misma semilla y mismo inicio producen exactamente los mismos registros
+    @Value("${generador.semilla:42}")
+    private long semilla;
+
+    // * Primer número de secuencia: permite agregar una carga nueva sin repetir RUT ni licencias
+    @Value("${generador.inicio:0}")
+    private long inicio;
+
+    @Value("${generador.hilos:4}")
+    private int hilos;
+
+    // * Operaciones por segundo en total (cada registro usa dos: el documento y su índice único)
+    @Value("${generador.tasa:10000}")
+    private int tasa;
+
+    // * Importación de un tramo de registros a una colección
+    @FunctionalInterface
+    private interface Tramo {
+        ResultadoImportacion importar(FabricaDatos fabrica, long desde, long hasta, int opsPorSegundo)
+                throws InterruptedException;
+    }
+
+    @Override
+    public void run(String... args) {
+        int codigo = 0;
+        try {
+            cargar("abogados", abogados, (fabrica, desde, hasta, ops) ->
+                    abogadoService.importarAbogados(fabrica.abogados(desde, hasta), ops));
+            cargar("clientes", clientes, (fabrica, desde, hasta, ops) ->
+                    clienteService.importarClientes(fabrica.clientes(desde, hasta), ops));
+        } catch (Exception e) {
+            // ! La carga se detiene ante el primer error que no sea de un registro individual
+            System.err.println("❌ Error al generar datos de prueba:");
+            e.printStackTrace();
+            codigo = 1;
+        }
+        // * Es un comando: al terminar la carga se cierra la aplicación
+        int salida = codigo;
+        System.exit(SpringApplication.exit(contexto, () -> salida));
+    }
+
+    // * Reparte la carga en rangos por hilo y la importa por tramos, informando el avance
+    private void cargar(String coleccion, long total, Tramo tramo) throws Exception {
+        if (total <= 0) {
+            return;
+        }
+        int opsPorHilo = Math.max(1, tasa / hilos);
+        long porHilo = (total + hilos - 1) / hilos;
+        AtomicLong creados = new AtomicLong();
+        AtomicLong fallidos = new AtomicLong();
+        long comienzo = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Void>> tareas = new ArrayList<>(hilos);
+            for (int hilo = 0; hilo < hilos; hilo++) {
+                long desde = inicio + hilo * porHilo;
+                long hasta = Math.min(inicio + total, desde + porHilo);
+                if (desde >= hasta) {
+                    break;
+                }
+                tareas.add(pool.submit(() -> {
+                    FabricaDatos fabrica = new FabricaDatos(semilla);
+                    for (long tramoDesde = desde; tramoDesde < hasta; tramoDesde += REGISTROS_POR_TRAMO) {
+                        ResultadoImportacion resultado = tramo.importar(fabrica, tramoDesde,
+                                Math.min(hasta, tramoDesde + REGISTROS_POR_TRAMO), opsPorHilo);
+                        long listos = creados.addAndGet(resultado.getCreados().size());
+                        fallidos.addAndGet(resultado.getFallos().size());
+                        System.out.printf("%s: %,d / %,d creados%n", coleccion, listos, total);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double segundos = Math.max(1e-3, (System.nanoTime() - comienzo) / (double) TimeUnit.SECONDS.toNanos(1));
+        System.out.printf("Se generaron %,d %s en %.1f s (%,.0f registros/s, %,d fallidos).%n",
+                creados.get(), coleccion, segundos, creados.get() / segundos, fallidos.get());
+    }
+}
@@ -0,0 +1,94 @@
+package com.proyect.abogados.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.proyect.abogados.assemblers.AbogadoAssemblers;
+import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.service.AbogadoServiceMemoria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// * Pruebas de la negociación de formatos del controlador de abogados, con el backend en memoria
+class AbogadoControllerTest {
+
+    // * Controlador servido por MockMvc y mapper para decodificar las respuestas CBOR
+    private MockMvc mockMvc;
+    private ObjectMapper cbor;
+
+    // * Configuración inicial antes de cada test: conversores HAL para JSON y CBOR, como en la aplicación
+    @BeforeEach
+    void setUp() throws Exception {
+        AbogadoServiceMemoria abogadoService = new AbogadoServiceMemoria();
+        Abogado abogado = new Abogado();
+        abogado.setEspecialidad("Derecho Civil");
+        abogadoService.crearAbogado(abogado);
+
+        cbor = conHal(new ObjectMapper(new CBORFactory()));
+        ObjectMapper json = conHal(new ObjectMapper());
+        MappingJackson2HttpMessageConverter conversorJson = new MappingJackson2HttpMessageConverter(json);
+        conversorJson.setSupportedMediaTypes(List.of(MediaType.APPLICATION_JSON, MediaType.parseMediaType("application/hal+json")));
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new AbogadoController(abogadoService, new AbogadoAssemblers(), json))
+                .setMessageConverters(conversorJson, new MappingJackson2CborHttpMessageConverter(cbor))
+                .build();
+    }
+
+    // * Test: Un listado pedido como CBOR conserva la estructura HAL y recibe el ETag con sufijo de formato
+    @Test
+    void testListarAbogadosEnCbor() throws Exception {
+        MvcResult resultado = listar(MediaType.APPLICATION_CBOR_VALUE);
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, resultado.getResponse().getContentType());
+        JsonNode cuerpo = cbor.readTree(resultado.getResponse().getContentAsByteArray());
+        assertTrue(cuerpo.path("_embedded").isObject());
+        assertEquals(1, cuerpo.path("_embedded").elements().next().size());
+        assertTrue(cuerpo.path("_links").has("self"));
+        assertTrue(resultado.getResponse().getHeader(HttpHeaders.ETAG).endsWith("-cbor\""));
+    }
+
+    // * Test: El ETag sigue el formato que elige la negociación según los factores q, no el orden del Accept
+    @Test
+    void testEtagRespetaFactoresDeCalidad() throws Exception {
+        MvcResult cborPreferido = listar("application/json;q=0.5, application/cbor");
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, cborPreferido.getResponse().getContentType());
+        assertTrue(cborPreferido.getResponse().getHeader(HttpHeaders.ETAG).endsWith("-cbor\""));
+
+        MvcResult jsonPreferido = listar("application/cbor;q=0.2, application/json");
+        assertTrue(jsonPreferido.getResponse().getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+        assertFalse(jsonPreferido.getResponse().getHeader(HttpHeaders.ETAG).endsWith("-cbor\""));
+    }
+
+    // * Lista los abogados con el Accept indicado y espera la respuesta asíncrona
+    private MvcResult listar(String accept) throws Exception {
+        MvcResult inicio = mockMvc.perform(get("/api/abogados").header(HttpHeaders.ACCEPT, accept)).andReturn();
+        return mockMvc.perform(asyncDispatch(inicio)).andExpect(status().isOk()).andReturn();
+    }
+
+    // * Registra el módulo HAL, igual que FormatosBinariosConfig para los conversores binarios
+    private static ObjectMapper conHal(ObjectMapper mapper) {
+        mapper.registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DefaultLinkRelationProvider(),
+                CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+}
@@ -1,15 +1,39 @@
 package com.proyect.abogados.service;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import com.proyect.abogados.model.Abogado;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.EstadisticasAbogados;
+import com.proyect.abogados.model.FiltroAbogados;
+import com.proyect.abogados.model.LecturaMultiple;
+import com.proyect.abogados.model.Pagina;
+import com.proyect.abogados.model.ResultadoImportacion;
+import com.proyect.abogados.model.ResultadoReindexado;
+import com.proyect.abogados.model.Versionado;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,6 +48,7 @@ class AbogadoServiceTest {
     private CollectionReference collectionMock;
     private DocumentReference documentMock;
     private DocumentSnapshot snapshotMock;
+    private DocumentReference marcadorMock;
 
     // * Configuración inicial antes de cada test
     @BeforeEach
@@ -33,6 +58,17 @@ class AbogadoServiceTest {
         documentMock = mock(DocumentReference.class);
         snapshotMock = mock(DocumentSnapshot.class);
 
+        // * Fragmentos del marcador de versión de la colección: cada escritura toca uno
+        marcadorMock = mock(DocumentReference.class);
+        CollectionReference metadatosMock = mock(CollectionReference.class);
+        DocumentReference contadorMock = mock(DocumentReference.class);
+        CollectionReference fragmentosMock = mock(CollectionReference.class);
+        when(firestoreMock.collection(MarcadorColeccion.COLECCION)).thenReturn(metadatosMock);
+        when(metadatosMock.document(anyString())).thenReturn(contadorMock);
+        when(contadorMock.collection(MarcadorColeccion.SUBCOLECCION)).thenReturn(fragmentosMock);
+        when(fragmentosMock.document(anyString())).thenReturn(marcadorMock);
+        when(marcadorMock.set(anyMap(), any(SetOptions.class))).thenReturn(ApiFutures.immediateFuture(null));
+
         // * Servicio con Firestore mockeado
         abogadoService = new AbogadoService() {
             @Override
@@ -55,15 +91,70 @@ class AbogadoServiceTest {
         when(collectionMock.document()).thenReturn(documentMock);
         when(documentMock.getId()).thenReturn("mock-id-123");
 
-        @SuppressWarnings("unchecked")
-        ApiFuture<WriteResult> writeResultFuture = mock(ApiFuture.class);
-        when(documentMock.set(abogado)).thenReturn(writeResultFuture);
+        // * La licencia se reserva en el índice dentro de la misma transacción
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        DocumentReference claveMock = mock(DocumentReference.class);
+        when(firestoreMock.collection("indice_abogados_licencia")).thenReturn(indiceMock);
+        when(indiceMock.document("LIC123")).thenReturn(claveMock);
+        Transaction transaccion = transaccionEnLinea();
 
         Abogado creado = abogadoService.crearAbogado(abogado);
 
         assertNotNull(creado.getId());
         assertEquals("Derecho Penal", creado.getEspecialidad());
         assertEquals("mock-id-123", creado.getId());
+        verify(transaccion).create(claveMock, Map.of("id", "mock-id-123"));
+        verify(transaccion).create(documentMock, abogado);
+    }
+
+    // * Test: La creación asíncrona no bloquea y se completa cuando Firestore confirma la escritura
+    @Test
+    void testCrearAbogadoAsync() throws Exception {
+        Abogado abogado = new Abogado();
+        abogado.setEspecialidad("Derecho Laboral");
+
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("mock-id-async");
+
+        SettableApiFuture<Abogado> escritura = SettableApiFuture.create();
+        doReturn(escritura).when(firestoreMock).runTransaction(any());
+
+        CompletableFuture<Abogado> futuro = abogadoService.crearAbogadoAsync(abogado);
+        assertFalse(futuro.isDone());
+
+        escritura.set(abogado);
+
+        assertTrue(futuro.isDone());
+        assertEquals("mock-id-async", futuro.get().getId());
+    }
+
+    // * Test: Cada transacción se mide en el timer de operaciones, etiquetada por operación y resultado
+    @Test
+    void testMetricasOperacionesFirestore() throws Exception {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> proveedor = mock(ObjectProvider.class);
+        doAnswer(invocacion -> {
+            invocacion.<Consumer<MeterRegistry>>getArgument(0).accept(registro);
+            return null;
+        }).when(proveedor).ifAvailable(any());
+        abogadoService.configurarMetricas(proveedor);
+
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("mock-id-metricas");
+        doReturn(ApiFutures.immediateFuture(new Abogado()))
+                .doReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("sin conexión")))
+                .when(firestoreMock).runTransaction(any());
+
+        abogadoService.crearAbogadoAsync(new Abogado()).get();
+        assertThrows(ExecutionException.class, () -> abogadoService.crearAbogadoAsync(new Abogado()).get());
+
+        assertEquals(1, registro.get(MetricasFirestore.OPERACIONES)
+                .tags("coleccion", "abogados", "operacion", "crear", "resultado", "exito").timer().count());
+        assertEquals(1, registro.get(MetricasFirestore.OPERACIONES)
+                .tags("coleccion", "abogados", "operacion", "crear", "resultado", "error").timer().count());
     }
 
     // * Test: Obtener un abogado por ID
@@ -89,6 +180,35 @@ class AbogadoServiceTest {
         assertEquals("Derecho Civil", abogadoObtenido.getEspecialidad());
     }
 
+    // * Test: Lecturas repetidas por ID se sirven desde la caché hasta que se actualiza
+    @Test
+    void testObtenerAbogadoUsaCacheEInvalida() throws Exception {
+        String id = "abg002";
+        Abogado abogadoEsperado = new Abogado();
+        abogadoEsperado.setId(id);
+
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document(id)).thenReturn(documentMock);
+
+        @SuppressWarnings("unchecked")
+        ApiFuture<DocumentSnapshot> futureMock = mock(ApiFuture.class);
+        when(documentMock.get()).thenReturn(futureMock);
+        when(futureMock.get()).thenReturn(snapshotMock);
+        when(snapshotMock.exists()).thenReturn(true);
+        when(snapshotMock.toObject(Abogado.class)).thenReturn(abogadoEsperado);
+
+        abogadoService.obtenerAbogadoPorId(id);
+        abogadoService.obtenerAbogadoPorId(id);
+        verify(documentMock, times(1)).get();
+
+        transaccionEnLinea();
+        abogadoService.actualizarAbogado(id, new Abogado());
+
+        // * Tras actualizar, la siguiente lectura vuelve a consultar Firestore
+        abogadoService.obtenerAbogadoPorId(id);
+        verify(documentMock, times(2)).get();
+    }
+
     // * Test: Listar abogados cuando la colección está vacía
     @Test
     void testListarAbogadosVacio() throws ExecutionException, InterruptedException {
@@ -107,6 +227,192 @@ class AbogadoServiceTest {
         assertTrue(abogados.isEmpty());
     }
 
+    // * Test: Listar una página de abogados con más resultados disponibles
+    @Test
+    void testListarAbogadosPaginado() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        // * Se pide un documento extra para saber si existe página siguiente
+        when(queryMock.limit(3)).thenReturn(queryMock);
+
+        List<QueryDocumentSnapshot> docs = Arrays.asList(
+                documentoConId("abg1"), documentoConId("abg2"), documentoConId("abg3"));
+        QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+        when(querySnapshot.getDocuments()).thenReturn(docs);
+
+        @SuppressWarnings("unchecked")
+        ApiFuture<QuerySnapshot> futureMock = mock(ApiFuture.class);
+        when(queryMock.get()).thenReturn(futureMock);
+        when(futureMock.get()).thenReturn(querySnapshot);
+
+        Pagina<Abogado> pagina = abogadoService.listarAbogados(new ConsultaPagina(2, null, null, null));
+
+        assertEquals(2, pagina.getElementos().size());
+        assertEquals("abg2", PaginacionFirestore.decodificarCursor(pagina.getCursorSiguiente()));
+        assertNull(pagina.getCursorAnterior());
+    }
+
+    // * Test: Rechazar ordenamiento por un campo no permitido
+    @Test
+    void testListarAbogadosOrdenInvalido() {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> abogadoService.listarAbogados(new ConsultaPagina(10, "documento", null, null)));
+    }
+
+    // * Test: fields se traduce a una proyección select con los nombres de propiedad de Firestore
+    @Test
+    void testListarAbogadosConProyeccion() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.select(any(String[].class))).thenReturn(queryMock);
+        when(queryMock.limit(anyInt())).thenReturn(queryMock);
+
+        QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+        when(querySnapshot.getDocuments()).thenReturn(Collections.emptyList());
+        when(queryMock.get()).thenReturn(ApiFutures.immediateFuture(querySnapshot));
+
+        abogadoService.listarAbogados(new ConsultaPagina(10, null, null, null,
+                List.of("pNombre", "pApellido", "especialidad")));
+
+        verify(queryMock).select("pnombre", "papellido", "especialidad", "id");
+        assertThrows(IllegalArgumentException.class, () -> abogadoService.listarAbogados(
+                new ConsultaPagina(10, null, null, null, List.of("password"))));
+    }
+
+    // * Test: El filtro se traduce a condiciones de Firestore y el rango ordena por años de experiencia
+    @Test
+    void testListarAbogadosFiltrados() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+
+        Query filtradaMock = mock(Query.class);
+        Query ordenadaMock = mock(Query.class);
+        Query limitadaMock = mock(Query.class);
+        when(collectionMock.whereEqualTo("especialidad", "Derecho Penal")).thenReturn(filtradaMock);
+        when(filtradaMock.whereGreaterThanOrEqualTo("aniosExperiencia", 5)).thenReturn(filtradaMock);
+        when(filtradaMock.orderBy("aniosExperiencia")).thenReturn(ordenadaMock);
+        when(ordenadaMock.limit(11)).thenReturn(limitadaMock);
+
+        QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+        List<QueryDocumentSnapshot> docs = List.of(documentoConId("abg1"));
+        when(querySnapshot.getDocuments()).thenReturn(docs);
+
+        @SuppressWarnings("unchecked")
+        ApiFuture<QuerySnapshot> futureMock = mock(ApiFuture.class);
+        when(limitadaMock.get()).thenReturn(futureMock);
+        when(futureMock.get()).thenReturn(querySnapshot);
+
+        Pagina<Abogado> pagina = abogadoService.listarAbogados(new ConsultaPagina(10, null, null, null),
+                new FiltroAbogados("Derecho Penal", null, 5, null));
+
+        assertEquals(1, pagina.getElementos().size());
+        assertNull(pagina.getCursorSiguiente());
+        verify(collectionMock, never()).get();
+    }
+
+    // * Test: Con un rango de años no se permite ordenar por otro campo
+    @Test
+    void testListarAbogadosFiltradosOrdenInvalido() {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.whereGreaterThanOrEqualTo("aniosExperiencia", 3)).thenReturn(collectionMock);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> abogadoService.listarAbogados(new ConsultaPagina(10, "papellido", null, null),
+                        new FiltroAbogados(null, null, 3, null)));
+    }
+
+    // * Test: Recorrer la colección por lotes hasta agotar los documentos
+    @Test
+    void testRecorrerAbogadosPorLotes() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.limit(2)).thenReturn(queryMock);
+        when(queryMock.startAfter("abg2")).thenReturn(queryMock);
+
+        QuerySnapshot primerLote = mock(QuerySnapshot.class);
+        when(primerLote.getDocuments()).thenReturn(Arrays.asList(documentoConId("abg1"), documentoConId("abg2")));
+        QuerySnapshot segundoLote = mock(QuerySnapshot.class);
+        when(segundoLote.getDocuments()).thenReturn(List.of(documentoConId("abg3")));
+
+        @SuppressWarnings("unchecked")
+        ApiFuture<QuerySnapshot> primerFuture = mock(ApiFuture.class);
+        when(primerFuture.get()).thenReturn(primerLote);
+        @SuppressWarnings("unchecked")
+        ApiFuture<QuerySnapshot> segundoFuture = mock(ApiFuture.class);
+        when(segundoFuture.get()).thenReturn(segundoLote);
+        when(queryMock.get()).thenReturn(primerFuture, segundoFuture);
+
+        List<Integer> tamanos = new ArrayList<>();
+        abogadoService.recorrerAbogados(2, lote -> tamanos.add(lote.size()));
+
+        // * El lote incompleto indica el fin de la colección: no hay una tercera lectura
+        assertEquals(List.of(2, 1), tamanos);
+        verify(queryMock, times(2)).get();
+    }
+
+    // * Test: Con la réplica sincronizada, listado y lectura por ID se responden desde memoria
+    @Test
+    void testReplicaSirveLecturasDesdeMemoria() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> sinMetricas = mock(ObjectProvider.class);
+        abogadoService.configurarReplica(true, sinMetricas);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<EventListener<QuerySnapshot>> listener = ArgumentCaptor.forClass(EventListener.class);
+        when(collectionMock.addSnapshotListener(listener.capture())).thenReturn(mock(ListenerRegistration.class));
+        abogadoService.iniciarReplica();
+
+        // * Primera instantánea del listener: contenido completo de la colección
+        QuerySnapshot instantanea = mock(QuerySnapshot.class);
+        when(instantanea.getDocuments()).thenReturn(Arrays.asList(documentoConId("abg1"), documentoConId("abg2")));
+        listener.getValue().onEvent(instantanea, null);
+
+        assertEquals(2, abogadoService.listarAbogados().size());
+        assertEquals("abg2", abogadoService.obtenerAbogadoPorId("abg2").getId());
+        Pagina<Abogado> pagina = abogadoService.listarAbogados(new ConsultaPagina(1, null, null, null));
+        assertEquals("abg1", pagina.getElementos().get(0).getId());
+        assertEquals("abg1", PaginacionFirestore.decodificarCursor(pagina.getCursorSiguiente()));
+
+        verify(collectionMock, never()).get();
+        abogadoService.detenerReplica();
+    }
+
+    // * Test: El desfase de la réplica es la antigüedad de la última instantánea, aunque el listener siga conectado
+    @Test
+    void testDesfaseReplicaDesdeHoraDeLectura() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<EventListener<QuerySnapshot>> listener = ArgumentCaptor.forClass(EventListener.class);
+        when(collectionMock.addSnapshotListener(listener.capture())).thenReturn(mock(ListenerRegistration.class));
+        ReplicaColeccion<Abogado> replica = new ReplicaColeccion<>("abogados", Abogado.class, () -> collectionMock);
+        replica.iniciar();
+
+        // * Instantánea leída hace un minuto: sincronizada, pero con datos atrasados
+        QuerySnapshot instantanea = mock(QuerySnapshot.class);
+        when(instantanea.getDocuments()).thenReturn(List.of());
+        when(instantanea.getReadTime())
+                .thenReturn(Timestamp.ofTimeSecondsAndNanos(System.currentTimeMillis() / 1000 - 60, 0));
+        listener.getValue().onEvent(instantanea, null);
+        assertTrue(replica.estaLista());
+        assertTrue(replica.desfaseSegundos() >= 60);
+
+        // * Un cambio recién leído lo devuelve a casi cero
+        QuerySnapshot cambio = mock(QuerySnapshot.class);
+        when(cambio.getDocumentChanges()).thenReturn(List.of());
+        when(cambio.getReadTime()).thenReturn(Timestamp.now());
+        listener.getValue().onEvent(cambio, null);
+        assertTrue(replica.desfaseSegundos() < 5);
+        replica.detener();
+    }
+
     // * Test: Actualizar un abogado y verificar los cambios
     @Test
     void testActualizarAbogado() throws Exception {
@@ -117,14 +423,57 @@ class AbogadoServiceTest {
         when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
         when(collectionMock.document(id)).thenReturn(documentMock);
 
-        @SuppressWarnings("unchecked")
-        ApiFuture<WriteResult> futureMock = mock(ApiFuture.class);
-        when(documentMock.set(abogado)).thenReturn(futureMock);
+        Transaction transaccion = transaccionEnLinea();
 
         Abogado actualizado = abogadoService.actualizarAbogado(id, abogado);
 
         assertEquals(id, actualizado.getId());
         assertEquals("Derecho Laboral", actualizado.getEspecialidad());
+        verify(transaccion).set(documentMock, abogado);
+    }
+
+    // * Test: La actualización parcial envía a Firestore solo los campos recibidos, con su tipo
+    @Test
+    void testActualizarAbogadoParcialSoloCamposCambiados() throws Exception {
+        String id = "abg-patch";
+        Abogado actual = new Abogado();
+        actual.setId(id);
+        actual.setEspecialidad("Derecho Civil");
+        actual.setAniosExperiencia(3);
+
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document(id)).thenReturn(documentMock);
+        Transaction transaccion = transaccionEnLinea();
+        when(transaccion.get(documentMock)).thenReturn(ApiFutures.immediateFuture(snapshotMock));
+        when(snapshotMock.exists()).thenReturn(true);
+        when(snapshotMock.toObject(Abogado.class)).thenReturn(actual);
+
+        Abogado actualizado = abogadoService.actualizarAbogadoParcial(id,
+                Map.of("ANIOSEXPERIENCIA", "7"), null);
+
+        assertEquals(7, actualizado.getAniosExperiencia());
+        assertEquals("Derecho Civil", actualizado.getEspecialidad());
+        verify(transaccion).update(documentMock, Map.of("aniosExperiencia", 7));
+        // * La licencia no cambió: el índice no se lee ni se escribe
+        verify(firestoreMock, never()).collection("indice_abogados_licencia");
+    }
+
+    // * Test: Con If-Match, un documento modificado después de la lectura del cliente no se escribe
+    @Test
+    void testActualizarAbogadoParcialVersionDistinta() throws Exception {
+        String id = "abg-412";
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document(id)).thenReturn(documentMock);
+        Transaction transaccion = transaccionEnLinea();
+        when(transaccion.get(documentMock)).thenReturn(ApiFutures.immediateFuture(snapshotMock));
+        when(snapshotMock.exists()).thenReturn(true);
+        when(snapshotMock.getUpdateTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(20L, 0));
+
+        assertThrows(PrecondicionFallidaException.class, () -> abogadoService.actualizarAbogadoParcial(id,
+                Map.of("especialidad", "Derecho Penal"), "10.0"));
+        verify(transaccion, never()).update(any(DocumentReference.class), anyMap());
+        assertThrows(IllegalArgumentException.class, () -> abogadoService.actualizarAbogadoParcial(id,
+                Map.of("id", "otro"), null));
     }
 
     // * Test: Eliminar un abogado por ID
@@ -135,11 +484,126 @@ class AbogadoServiceTest {
         when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
         when(collectionMock.document(id)).thenReturn(documentMock);
 
-        @SuppressWarnings("unchecked")
-        ApiFuture<WriteResult> futureMock = mock(ApiFuture.class);
-        when(documentMock.delete()).thenReturn(futureMock);
+        Transaction transaccion = transaccionEnLinea();
 
         assertDoesNotThrow(() -> abogadoService.eliminarAbogado(id));
+        verify(transaccion).delete(documentMock);
+        // * La misma transacción cambia la versión de la colección
+        verify(transaccion).set(eq(marcadorMock), anyMap(), any(SetOptions.class));
+    }
+
+    // * Test: La versión del abogado (ETag) proviene de la hora de actualización del documento
+    @Test
+    void testObtenerAbogadoVersionado() throws Exception {
+        String id = "abg-version";
+        Abogado abogadoEsperado = new Abogado();
+        abogadoEsperado.setId(id);
+
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document(id)).thenReturn(documentMock);
+        when(documentMock.get()).thenReturn(ApiFutures.immediateFuture(snapshotMock));
+        when(snapshotMock.exists()).thenReturn(true);
+        when(snapshotMock.toObject(Abogado.class)).thenReturn(abogadoEsperado);
+        when(snapshotMock.getUpdateTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 5));
+
+        Versionado<Abogado> versionado = abogadoService.obtenerAbogadoVersionadoAsync(id).get();
+
+        assertEquals(id, versionado.getEntidad().getId());
+        assertEquals("1700000000.5", versionado.getVersion());
+    }
+
+    // * Test: La versión de la colección es la suma de los fragmentos del marcador ("0" si nunca se escribió)
+    @Test
+    void testVersionAbogadosDesdeMarcador() throws Exception {
+        DocumentSnapshot vacio = mock(DocumentSnapshot.class);
+        when(firestoreMock.getAll(any(DocumentReference[].class)))
+                .thenReturn(ApiFutures.immediateFuture(List.of(vacio, vacio)));
+        assertEquals("0", abogadoService.versionAbogadosAsync().get());
+
+        DocumentSnapshot tres = mock(DocumentSnapshot.class);
+        when(tres.exists()).thenReturn(true);
+        when(tres.getLong("cambios")).thenReturn(3L);
+        DocumentSnapshot cuatro = mock(DocumentSnapshot.class);
+        when(cuatro.exists()).thenReturn(true);
+        when(cuatro.getLong("cambios")).thenReturn(4L);
+        when(firestoreMock.getAll(any(DocumentReference[].class)))
+                .thenReturn(ApiFutures.immediateFuture(List.of(tres, vacio, cuatro)));
+        assertEquals("7", abogadoService.versionAbogadosAsync().get());
+    }
+
+    // * Test: Lecturas concurrentes de la versión comparten una sola lectura de los fragmentos
+    @Test
+    void testVersionAbogadosCompartida() throws Exception {
+        SettableApiFuture<List<DocumentSnapshot>> enCurso = SettableApiFuture.create();
+        when(firestoreMock.getAll(any(DocumentReference[].class))).thenReturn(enCurso);
+
+        CompletableFuture<String> primera = abogadoService.versionAbogadosAsync();
+        CompletableFuture<String> segunda = abogadoService.versionAbogadosAsync();
+        verify(firestoreMock, times(1)).getAll(any(DocumentReference[].class));
+
+        // * Cancelar una petición no afecta a las demás
+        segunda.cancel(true);
+        enCurso.set(List.of());
+        assertEquals("0", primera.get());
+
+        // * Terminada la lectura, la siguiente vuelve a Firestore
+        when(firestoreMock.getAll(any(DocumentReference[].class))).thenReturn(ApiFutures.immediateFuture(List.of()));
+        assertEquals("0", abogadoService.versionAbogadosAsync().get());
+        verify(firestoreMock, times(2)).getAll(any(DocumentReference[].class));
+    }
+
+    // * Test: Listados concurrentes idénticos comparten una sola consulta; uno distinto o posterior a una escritura no
+    @Test
+    void testListarAbogadosCompartido() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.limit(anyInt())).thenReturn(queryMock);
+        SettableApiFuture<QuerySnapshot> enCurso = SettableApiFuture.create();
+        when(queryMock.get()).thenReturn(enCurso);
+
+        CompletableFuture<Pagina<Abogado>> primera = abogadoService.listarAbogadosAsync(
+                new ConsultaPagina(10, null, null, null), null);
+        CompletableFuture<Pagina<Abogado>> segunda = abogadoService.listarAbogadosAsync(
+                new ConsultaPagina(10, null, null, null), null);
+        verify(queryMock, times(1)).get();
+
+        // * Otra página (otro límite) no se suma a la lectura en curso
+        abogadoService.listarAbogadosAsync(new ConsultaPagina(20, null, null, null), null);
+        verify(queryMock, times(2)).get();
+
+        // * Tras una escritura local, el mismo listado vuelve a Firestore
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("abg-nuevo");
+        transaccionEnLinea();
+        abogadoService.crearAbogado(new Abogado());
+        CompletableFuture<Pagina<Abogado>> despues = abogadoService.listarAbogadosAsync(
+                new ConsultaPagina(10, null, null, null), null);
+        verify(queryMock, times(3)).get();
+
+        QuerySnapshot vacio = mock(QuerySnapshot.class);
+        when(vacio.getDocuments()).thenReturn(List.of());
+        enCurso.set(vacio);
+        assertTrue(primera.get().getElementos().isEmpty());
+        assertTrue(segunda.get().getElementos().isEmpty());
+        assertTrue(despues.get().getElementos().isEmpty());
+    }
+
+    // * Test: Con réplica, los listados que ella puede servir no llevan versión; los filtrados sí
+    @Test
+    void testVersionListadoSegunFuente() throws Exception {
+        when(firestoreMock.getAll(any(DocumentReference[].class))).thenReturn(ApiFutures.immediateFuture(List.of()));
+        ConsultaPagina porId = new ConsultaPagina(10, null, null, null, null);
+        FiltroAbogados filtro = new FiltroAbogados("Derecho Penal", null, null, null);
+        assertEquals("0", abogadoService.versionListadoAsync(porId, null).get());
+
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> sinMetricas = mock(ObjectProvider.class);
+        abogadoService.configurarReplica(true, sinMetricas);
+        assertNull(abogadoService.versionListadoAsync(porId, null).get());
+        assertEquals("0", abogadoService.versionListadoAsync(porId, filtro).get());
+        assertEquals("0", abogadoService.versionListadoAsync(
+                new ConsultaPagina(10, "especialidad", null, null, null), null).get());
     }
 
     // * Test: Eliminar todos los abogados de la colección
@@ -147,6 +611,8 @@ class AbogadoServiceTest {
     @Test
     void testEliminarTodosAbogados() throws Exception {
         when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        // * El índice de licencias se vacía a continuación (aquí ya sin documentos)
+        when(firestoreMock.collection("indice_abogados_licencia")).thenReturn(collectionMock);
 
         QueryDocumentSnapshot doc1 = mock(QueryDocumentSnapshot.class);
         QueryDocumentSnapshot doc2 = mock(QueryDocumentSnapshot.class);
@@ -156,17 +622,531 @@ class AbogadoServiceTest {
         List<QueryDocumentSnapshot> docs = Arrays.asList(doc1, doc2);
 
         QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
-        when(querySnapshot.getDocuments()).thenReturn(docs);
+        when(querySnapshot.getDocuments()).thenReturn(docs, Collections.emptyList());
+
+        // * Lectura paginada de solo IDs
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.select(FieldPath.documentId())).thenReturn(queryMock);
+        when(queryMock.limit(anyInt())).thenReturn(queryMock);
 
         @SuppressWarnings("unchecked")
         ApiFuture<QuerySnapshot> futureMock = mock(ApiFuture.class);
-        when(collectionMock.get()).thenReturn(futureMock);
+        when(queryMock.get()).thenReturn(futureMock);
         when(futureMock.get()).thenReturn(querySnapshot);
 
+        // * Eliminación agrupada con BulkWriter
+        BulkWriter bulkWriterMock = mock(BulkWriter.class);
+        when(firestoreMock.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriterMock);
         @SuppressWarnings("unchecked")
         ApiFuture<WriteResult> deleteFuture = mock(ApiFuture.class);
-        when(documentMock.delete()).thenReturn(deleteFuture);
+        when(bulkWriterMock.delete(documentMock)).thenReturn(deleteFuture);
+        @SuppressWarnings("unchecked")
+        ApiFuture<Void> flushFuture = mock(ApiFuture.class);
+        when(bulkWriterMock.flush()).thenReturn(flushFuture);
+
+        assertEquals(2, abogadoService.eliminarTodosAbogados());
+        verify(bulkWriterMock, times(2)).delete(documentMock);
+        // * Se espera la confirmación de las eliminaciones antes de retornar
+        verify(flushFuture).get();
+        verify(bulkWriterMock).close();
+    }
+
+    // * Test: Importación NDJSON con un registro inválido que no aborta el resto
+    @Test
+    void testImportarAbogadosInformaFallosPorRegistro() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("nuevo-id");
+
+        BulkWriter bulkWriterMock = mock(BulkWriter.class);
+        when(firestoreMock.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriterMock);
+        @SuppressWarnings("unchecked")
+        ApiFuture<WriteResult> createFuture = mock(ApiFuture.class);
+        when(bulkWriterMock.create(eq(documentMock), any(Abogado.class))).thenReturn(createFuture);
+        @SuppressWarnings("unchecked")
+        ApiFuture<Void> flushFuture = mock(ApiFuture.class);
+        when(bulkWriterMock.flush()).thenReturn(flushFuture);
+
+        String ndjson = "{\"especialidad\":\"Derecho Civil\"}\n"
+                + "{\"aniosExperiencia\":\"no-es-numero\"}\n"
+                + "{\"especialidad\":\"Derecho Penal\"}\n";
+        MappingIterator<Abogado> registros = new ObjectMapper().readerFor(Abogado.class).readValues(ndjson);
+
+        ResultadoImportacion resultado = abogadoService.importarAbogados(registros);
+
+        assertEquals(2, resultado.getCreados().size());
+        assertEquals(1, resultado.getFallos().size());
+        assertEquals(1, resultado.getFallos().get(0).getIndice());
+        verify(bulkWriterMock, times(2)).create(eq(documentMock), any(Abogado.class));
+    }
+
+    // * Test: Solo una clave existente se informa como duplicada; otros errores de la reserva se informan tal cual
+    @Test
+    void testImportarAbogadosDistingueDuplicadosDeOtrosErrores() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("nuevo-id");
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        when(firestoreMock.collection("indice_abogados_licencia")).thenReturn(indiceMock);
+        DocumentReference ocupada = mock(DocumentReference.class);
+        DocumentReference sinPermiso = mock(DocumentReference.class);
+        when(indiceMock.document("LIC-1")).thenReturn(ocupada);
+        when(indiceMock.document("LIC-2")).thenReturn(sinPermiso);
+
+        BulkWriter bulkWriterMock = mock(BulkWriter.class);
+        when(firestoreMock.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriterMock);
+        StatusCode yaExiste = mock(StatusCode.class);
+        when(yaExiste.getCode()).thenReturn(StatusCode.Code.ALREADY_EXISTS);
+        StatusCode denegado = mock(StatusCode.class);
+        when(denegado.getCode()).thenReturn(StatusCode.Code.PERMISSION_DENIED);
+        when(bulkWriterMock.create(eq(ocupada), any(Object.class))).thenReturn(ApiFutures.immediateFailedFuture(
+                new ApiException(new IllegalStateException("clave ya registrada"), yaExiste, false)));
+        when(bulkWriterMock.create(eq(sinPermiso), any(Object.class))).thenReturn(ApiFutures.immediateFailedFuture(
+                new ApiException(new IllegalStateException("sin permiso"), denegado, false)));
+        when(bulkWriterMock.flush()).thenReturn(ApiFutures.immediateFuture(null));
+
+        Abogado primero = new Abogado();
+        primero.setLicencia("LIC-1");
+        Abogado segundo = new Abogado();
+        segundo.setLicencia("LIC-2");
+        ResultadoImportacion resultado = abogadoService.importarAbogados(List.of(primero, segundo).iterator(), 800);
+
+        assertTrue(resultado.getCreados().isEmpty());
+        assertEquals(2, resultado.getFallos().size());
+        assertTrue(resultado.getFallos().get(0).getMensaje().startsWith("Ya existe un registro con licencia"));
+        assertTrue(resultado.getFallos().get(1).getMensaje().contains("sin permiso"));
+        assertFalse(resultado.getFallos().get(1).getMensaje().startsWith("Ya existe"));
+        verify(bulkWriterMock, never()).create(eq(documentMock), any(Abogado.class));
+    }
+
+    // * Test: Los registros generados en memoria se importan por lotes con el BulkWriter
+    @Test
+    void testImportarAbogadosDesdeIterador() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("nuevo-id");
+
+        BulkWriter bulkWriterMock = mock(BulkWriter.class);
+        when(firestoreMock.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriterMock);
+        when(bulkWriterMock.create(eq(documentMock), any(Abogado.class)))
+                .thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+        when(bulkWriterMock.flush()).thenReturn(ApiFutures.immediateFuture(null));
+
+        ResultadoImportacion resultado = abogadoService.importarAbogados(
+                List.of(new Abogado(), new Abogado()).iterator(), 800);
+
+        assertEquals(2, resultado.getCreados().size());
+        assertTrue(resultado.getFallos().isEmpty());
+        verify(bulkWriterMock, times(2)).create(eq(documentMock), any(Abogado.class));
+    }
+
+    // * Test: La reconstrucción del índice crea las entradas faltantes e informa las licencias repetidas
+    @Test
+    void testReconstruirIndiceLicenciasInformaConflictos() throws Exception {
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.limit(ReconstruccionIndice.TAMANO_LOTE)).thenReturn(queryMock);
+        QuerySnapshot lote = mock(QuerySnapshot.class);
+        when(lote.getDocuments()).thenReturn(List.of(documentoConLicencia("abg1", "LIC-1"),
+                documentoConLicencia("abg2", "LIC-2"), documentoConLicencia("abg3", "lic-2"),
+                documentoConLicencia("abg4", null)));
+        when(queryMock.get()).thenReturn(ApiFutures.immediateFuture(lote));
+
+        // * LIC-1 no estaba indexada; LIC-2 ya apunta a abg2, por lo que abg3 queda en conflicto
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        when(firestoreMock.collection("indice_abogados_licencia")).thenReturn(indiceMock);
+        DocumentReference entradaNueva = mock(DocumentReference.class);
+        DocumentReference entradaExistente = mock(DocumentReference.class);
+        when(indiceMock.document("LIC-1")).thenReturn(entradaNueva);
+        when(indiceMock.document("LIC-2")).thenReturn(entradaExistente);
+        BulkWriter bulkWriterMock = mock(BulkWriter.class);
+        when(firestoreMock.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriterMock);
+        when(bulkWriterMock.create(eq(entradaNueva), any(Object.class)))
+                .thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+        when(bulkWriterMock.create(eq(entradaExistente), any(Object.class)))
+                .thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("ALREADY_EXISTS")));
+        when(bulkWriterMock.flush()).thenReturn(ApiFutures.immediateFuture(null));
+        DocumentSnapshot duenoAbg2 = mock(DocumentSnapshot.class);
+        when(duenoAbg2.exists()).thenReturn(true);
+        when(duenoAbg2.getString(IndiceUnico.CAMPO_ID)).thenReturn("abg2");
+        when(firestoreMock.getAll(entradaExistente, entradaExistente))
+                .thenReturn(ApiFutures.immediateFuture(List.of(duenoAbg2, duenoAbg2)));
+
+        ResultadoReindexado resultado = abogadoService.reconstruirIndiceLicencias(500);
+
+        assertEquals(4, resultado.getRevisados());
+        assertEquals(1, resultado.getCreadas());
+        assertEquals(1, resultado.getExistentes());
+        assertEquals(1, resultado.getSinValor());
+        assertEquals(1, resultado.getConflictos().size());
+        assertEquals("abg3", resultado.getConflictos().get(0).getId());
+        assertEquals("abg2", resultado.getConflictos().get(0).getDueno());
+        verify(bulkWriterMock).close();
+    }
+
+    // * Test: Una licencia que ya pertenece a otro abogado se rechaza sin escribir
+    @Test
+    void testCrearAbogadoLicenciaDuplicada() throws Exception {
+        Abogado abogado = new Abogado();
+        abogado.setLicencia(" lic-77 ");
+
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("nuevo-id");
+
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        DocumentReference claveMock = mock(DocumentReference.class);
+        when(firestoreMock.collection("indice_abogados_licencia")).thenReturn(indiceMock);
+        when(indiceMock.document("LIC-77")).thenReturn(claveMock);
+        Transaction transaccion = transaccionEnLinea();
+
+        DocumentSnapshot ocupada = mock(DocumentSnapshot.class);
+        when(ocupada.exists()).thenReturn(true);
+        when(ocupada.getString("id")).thenReturn("otro-id");
+        when(transaccion.get(claveMock)).thenReturn(ApiFutures.immediateFuture(ocupada));
+
+        assertThrows(RegistroDuplicadoException.class, () -> abogadoService.crearAbogado(abogado));
+        verify(transaccion, never()).create(any(DocumentReference.class), any(Object.class));
+    }
+
+    // * Test: La búsqueda por licencia lee el índice y luego el abogado por ID
+    @Test
+    void testObtenerAbogadoPorLicencia() throws Exception {
+        Abogado abogadoEsperado = new Abogado();
+        abogadoEsperado.setId("abg-lic");
+
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        DocumentReference claveMock = mock(DocumentReference.class);
+        DocumentSnapshot entrada = mock(DocumentSnapshot.class);
+        when(firestoreMock.collection("indice_abogados_licencia")).thenReturn(indiceMock);
+        when(indiceMock.document("LIC9")).thenReturn(claveMock);
+        when(claveMock.get()).thenReturn(ApiFutures.immediateFuture(entrada));
+        when(entrada.exists()).thenReturn(true);
+        when(entrada.getString("id")).thenReturn("abg-lic");
+
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document("abg-lic")).thenReturn(documentMock);
+        when(documentMock.get()).thenReturn(ApiFutures.immediateFuture(snapshotMock));
+        when(snapshotMock.exists()).thenReturn(true);
+        when(snapshotMock.toObject(Abogado.class)).thenReturn(abogadoEsperado);
+
+        assertEquals("abg-lic", abogadoService.obtenerAbogadoPorLicenciaAsync("lic9").get().getId());
+        assertThrows(RuntimeException.class, () -> abogadoService.obtenerAbogadoPorLicencia(" "));
+    }
 
-        assertDoesNotThrow(() -> abogadoService.eliminarTodosAbogados());
+    // * Test: El motor en memoria pagina con cursores y aplica los filtros sin Firestore
+    @Test
+    void testServicioMemoriaPaginaYFiltra() throws Exception {
+        AbogadoServiceMemoria memoria = new AbogadoServiceMemoria();
+        for (int anios = 1; anios <= 5; anios++) {
+            Abogado abogado = new Abogado();
+            abogado.setEspecialidad(anios % 2 == 0 ? "Derecho Penal" : "Derecho Civil");
+            abogado.setAniosExperiencia(anios);
+            memoria.crearAbogado(abogado);
+        }
+
+        Pagina<Abogado> primera = memoria.listarAbogados(new ConsultaPagina(3, null, null, null));
+        Pagina<Abogado> segunda = memoria.listarAbogados(
+                new ConsultaPagina(3, null, primera.getCursorSiguiente(), null));
+        assertEquals(3, primera.getElementos().size());
+        assertEquals(2, segunda.getElementos().size());
+        assertNull(segunda.getCursorSiguiente());
+
+        Pagina<Abogado> filtrada = memoria.listarAbogados(new ConsultaPagina(10, null, null, null),
+                new FiltroAbogados("Derecho Civil", null, 2, null));
+        assertEquals(2, filtrada.getElementos().size());
+        assertEquals(3, filtrada.getElementos().get(0).getAniosExperiencia());
+        assertEquals(5, filtrada.getElementos().get(1).getAniosExperiencia());
+    }
+
+    // * Test: El motor en memoria guarda copias y falla igual que Firestore si el ID no existe
+    @Test
+    void testServicioMemoriaObtenerYEliminar() throws Exception {
+        AbogadoServiceMemoria memoria = new AbogadoServiceMemoria();
+        Abogado abogado = new Abogado();
+        abogado.setEspecialidad("Derecho Laboral");
+        String id = memoria.crearAbogadoAsync(abogado).get().getId();
+
+        abogado.setEspecialidad("Modificado fuera del motor");
+        assertEquals("Derecho Laboral", memoria.obtenerAbogadoPorId(id).getEspecialidad());
+
+        memoria.eliminarAbogado(id);
+        assertThrows(RuntimeException.class, () -> memoria.obtenerAbogadoPorId(id));
+        assertEquals(0, memoria.eliminarTodosAbogados());
+    }
+
+    // * Test: El motor en memoria aplica el mismo índice único de licencias
+    @Test
+    void testServicioMemoriaLicenciaUnica() throws Exception {
+        AbogadoServiceMemoria memoria = new AbogadoServiceMemoria();
+        Abogado primero = new Abogado();
+        primero.setLicencia("LIC-1");
+        String id = memoria.crearAbogado(primero).getId();
+
+        Abogado segundo = new Abogado();
+        segundo.setLicencia("lic-1");
+        assertThrows(RegistroDuplicadoException.class, () -> memoria.crearAbogado(segundo));
+        assertEquals(id, memoria.obtenerAbogadoPorLicencia(" lic-1").getId());
+
+        // * Al cambiar la licencia se libera la anterior
+        primero.setLicencia("LIC-2");
+        memoria.actualizarAbogado(id, primero);
+        assertNotEquals(id, memoria.crearAbogado(segundo).getId());
+        assertThrows(RuntimeException.class, () -> memoria.obtenerAbogadoPorLicencia("LIC-3"));
+    }
+
+    // * Test: En memoria, cada escritura cambia la versión de la colección y la del documento
+    @Test
+    void testServicioMemoriaVersiones() throws Exception {
+        AbogadoServiceMemoria memoria = new AbogadoServiceMemoria();
+        String inicial = memoria.versionAbogadosAsync().get();
+        Abogado abogado = memoria.crearAbogado(new Abogado());
+        String creada = memoria.obtenerAbogadoVersionadoAsync(abogado.getId()).get().getVersion();
+        assertNotEquals(inicial, memoria.versionAbogadosAsync().get());
+
+        memoria.actualizarAbogado(abogado.getId(), abogado);
+        assertNotEquals(creada, memoria.obtenerAbogadoVersionadoAsync(abogado.getId()).get().getVersion());
+    }
+
+    // * Test: El límite de concurrencia se reduce ante llamadas lentas y concede los permisos liberados en orden
+    @Test
+    void testLimiteConcurrenciaReduceYConcede() throws Exception {
+        // * Latencia objetivo cero: toda llamada cuenta como lenta
+        LimiteConcurrencia limite = new LimiteConcurrencia("abogados", 2, 1, 10, 1, Duration.ofSeconds(5), Duration.ZERO);
+        LimiteConcurrencia.Permiso primero = limite.adquirir().get();
+        LimiteConcurrencia.Permiso segundo = limite.adquirir().get();
+        CompletableFuture<LimiteConcurrencia.Permiso> enEspera = limite.adquirir();
+        assertFalse(enEspera.isDone());
+        assertThrows(ServicioSobrecargadoException.class, limite::adquirir);
+        assertEquals(1, limite.rechazados());
+
+        // * El límite baja a 1: con otra llamada aún en curso, la espera continúa
+        primero.liberar(null);
+        assertEquals(1, limite.limite());
+        assertFalse(enEspera.isDone());
+
+        segundo.liberar(null);
+        assertTrue(enEspera.isDone());
+        assertEquals(1, limite.enVuelo());
+        enEspera.get().liberar(null);
+        enEspera.get().liberar(null);
+        assertEquals(0, limite.enVuelo());
+        assertEquals(1, limite.limite());
+    }
+
+    // * Test: Las transacciones ocupan un permiso pero no reducen el límite; las lecturas sí lo ajustan
+    @Test
+    void testLimiteConcurrenciaSoloSeAjustaConLecturas() throws Exception {
+        LimiteConcurrencia limite = new LimiteConcurrencia("abogados", 10, 1, 20, 0, Duration.ofSeconds(5), Duration.ZERO);
+        MetricasFirestore metricas = new MetricasFirestore("abogados");
+        metricas.limitarCon(limite);
+
+        metricas.medirRpc(MetricasFirestore.CREAR, () -> ApiFutures.immediateFuture("creado")).get();
+        metricas.medirRpc(MetricasFirestore.OBTENER_VARIOS, () -> ApiFutures.immediateFuture("leidos")).get();
+        assertEquals(10, limite.limite());
+        assertEquals(0, limite.enVuelo());
+
+        // * Latencia objetivo cero: la lectura cuenta como lenta
+        metricas.medirRpc(MetricasFirestore.OBTENER, () -> ApiFutures.immediateFuture("leido")).get();
+        assertEquals(9, limite.limite());
+        assertEquals(0, limite.enVuelo());
+    }
+
+    // * Test: Con la escritura agrupada, las creaciones concurrentes se confirman en un solo WriteBatch
+    @Test
+    void testEscrituraAgrupadaConfirmaCreacionesEnUnLote() throws Exception {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> sinRegistro = mock(ObjectProvider.class);
+        abogadoService.configurarEscrituraAgrupada(true, 2, Duration.ofSeconds(5), sinRegistro);
+
+        DocumentReference primerDoc = mock(DocumentReference.class);
+        DocumentReference segundoDoc = mock(DocumentReference.class);
+        when(primerDoc.getId()).thenReturn("id-1");
+        when(segundoDoc.getId()).thenReturn("id-2");
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(primerDoc, segundoDoc);
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        DocumentReference claveMock = mock(DocumentReference.class);
+        when(firestoreMock.collection("indice_abogados_licencia")).thenReturn(indiceMock);
+        when(indiceMock.document(anyString())).thenReturn(claveMock);
+        WriteBatch lote = mock(WriteBatch.class);
+        SettableApiFuture<List<WriteResult>> commit = SettableApiFuture.create();
+        when(firestoreMock.batch()).thenReturn(lote);
+        when(lote.commit()).thenReturn(commit);
+
+        Abogado primero = new Abogado();
+        primero.setLicencia("LIC-1");
+        Abogado segundo = new Abogado();
+        segundo.setLicencia("LIC-2");
+
+        // * El primero espera a que el lote se complete; el segundo lo completa y se envía
+        CompletableFuture<Abogado> primerFuturo = abogadoService.crearAbogadoAsync(primero);
+        assertFalse(primerFuturo.isDone());
+        CompletableFuture<Abogado> segundoFuturo = abogadoService.crearAbogadoAsync(segundo);
+        assertFalse(segundoFuturo.isDone());
+
+        commit.set(List.of());
+
+        assertEquals("id-1", primerFuturo.get().getId());
+        assertEquals("id-2", segundoFuturo.get().getId());
+        verify(lote).create(claveMock, Map.of("id", "id-1"));
+        verify(lote).create(claveMock, Map.of("id", "id-2"));
+        verify(lote).create(primerDoc, primero);
+        verify(lote).create(segundoDoc, segundo);
+        verify(lote, times(1)).commit();
+        verify(firestoreMock, never()).runTransaction(any());
+    }
+
+    // * Test: La búsqueda por nombre ignora tildes y mayúsculas, acepta prefijos y errores de tipeo
+    @Test
+    void testBuscarAbogadosPorNombre() throws Exception {
+        AbogadoServiceMemoria memoria = new AbogadoServiceMemoria();
+        memoria.configurarBusqueda(true);
+        memoria.iniciarBusqueda();
+        Abogado perez = memoria.crearAbogado(abogadoLlamado("María", "José", "Pérez", "Soto"));
+        Abogado perezoso = memoria.crearAbogado(abogadoLlamado("Juan", null, "Perezoso", "Díaz"));
+        memoria.crearAbogado(abogadoLlamado("Pedro", null, "González", "Muñoz"));
+
+        // * El término exacto se ordena antes que el que solo comparte el prefijo
+        List<Abogado> encontrados = memoria.buscarAbogados("PEREZ", null);
+        assertEquals(List.of(perez.getId(), perezoso.getId()),
+                encontrados.stream().map(Abogado::getId).toList());
+
+        // * Todos los términos deben coincidir, en cualquier campo del nombre
+        assertEquals(perez.getId(), memoria.buscarAbogados("maria per", null).get(0).getId());
+        assertTrue(memoria.buscarAbogados("maria diaz", null).isEmpty());
+        assertEquals("González", memoria.buscarAbogados("gonzales", 5).get(0).getPApellido());
+
+        // * Las escrituras se reflejan en el índice
+        memoria.eliminarAbogado(perez.getId());
+        assertEquals(List.of(perezoso.getId()),
+                memoria.buscarAbogados("perez", null).stream().map(Abogado::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> memoria.buscarAbogados(" - ", null));
+        assertThrows(IllegalArgumentException.class, () -> memoria.buscarAbogados("perez", 0));
+    }
+
+    // * Test: La búsqueda devuelve los mejores resultados aunque no estén entre los primeros indexados
+    @Test
+    void testBuscarAbogadosDevuelveLosMejoresNoLosPrimeros() throws Exception {
+        AbogadoServiceMemoria memoria = new AbogadoServiceMemoria();
+        memoria.configurarBusqueda(true);
+        memoria.iniciarBusqueda();
+        for (int i = 0; i < IndiceBusqueda.LIMITE_POR_DEFECTO; i++) {
+            memoria.crearAbogado(abogadoLlamado("Juanita", null, "Pérez", "Soto"));
+        }
+        Abogado juan = memoria.crearAbogado(abogadoLlamado("Juan", null, "Pérez", "Soto"));
+
+        // * El término exacto "juan" supera al prefijo de "juanita", llegue cuando llegue
+        List<Abogado> encontrados = memoria.buscarAbogados("juan perez", null);
+        assertEquals(IndiceBusqueda.LIMITE_POR_DEFECTO, encontrados.size());
+        assertEquals(juan.getId(), encontrados.get(0).getId());
+
+        // * Entre prefijos gana el que más cubre del término, no el primero en orden alfabético
+        memoria.crearAbogado(abogadoLlamado("Ana", null, "Perelló", null));
+        assertEquals("Pérez", memoria.buscarAbogados("per", 1).get(0).getPApellido());
+    }
+
+    // * Test: Las estadísticas cuentan por especialidad y se reutilizan mientras no vence su tiempo de vida
+    @Test
+    void testEstadisticasAbogadosSeReutilizan() throws Exception {
+        AbogadoServiceMemoria memoria = new AbogadoServiceMemoria();
+        memoria.crearAbogado(abogadoDe("Derecho Penal", 10));
+        memoria.crearAbogado(abogadoDe("Derecho Penal", 4));
+        memoria.crearAbogado(abogadoDe("Derecho Civil", 1));
+
+        EstadisticasAbogados estadisticas = memoria.estadisticasAbogadosAsync(
+                List.of("Derecho Penal", "Derecho Laboral")).get();
+        assertEquals(3, estadisticas.getTotal());
+        assertEquals(5.0, estadisticas.getPromedioAniosExperiencia());
+        assertEquals(Map.of("Derecho Penal", 2L, "Derecho Laboral", 0L), estadisticas.getPorEspecialidad());
+
+        // * Una escritura posterior no se refleja hasta que vence el resultado en caché
+        memoria.crearAbogado(abogadoDe("Derecho Penal", 20));
+        assertEquals(3, memoria.estadisticasAbogadosAsync(List.of("Derecho Penal", "Derecho Laboral")).get().getTotal());
+        assertEquals(4, memoria.estadisticasAbogadosAsync(null).get().getTotal());
+        assertThrows(IllegalArgumentException.class, () -> memoria.estadisticasAbogadosAsync(List.of(" ")));
+    }
+
+    private static Abogado abogadoDe(String especialidad, int anios) {
+        Abogado abogado = new Abogado();
+        abogado.setEspecialidad(especialidad);
+        abogado.setAniosExperiencia(anios);
+        return abogado;
+    }
+
+    // * Test: Varios abogados por ID se leen con un solo getAll y los inexistentes se informan aparte
+    @Test
+    void testObtenerAbogadosPorIdsConGetAll() throws Exception {
+        DocumentReference refA = mock(DocumentReference.class);
+        DocumentReference refB = mock(DocumentReference.class);
+        when(firestoreMock.collection("abogados")).thenReturn(collectionMock);
+        when(collectionMock.document("a")).thenReturn(refA);
+        when(collectionMock.document("b")).thenReturn(refB);
+
+        Abogado abogadoA = new Abogado();
+        abogadoA.setId("a");
+        DocumentSnapshot existente = mock(DocumentSnapshot.class);
+        when(existente.exists()).thenReturn(true);
+        when(existente.getId()).thenReturn("a");
+        when(existente.toObject(Abogado.class)).thenReturn(abogadoA);
+        DocumentSnapshot inexistente = mock(DocumentSnapshot.class);
+        when(inexistente.getId()).thenReturn("b");
+        // * El resultado se arma por ID: respeta el orden pedido aunque getAll responda en otro
+        when(firestoreMock.getAll(refB, refA)).thenReturn(ApiFutures.immediateFuture(List.of(existente, inexistente)));
+
+        LecturaMultiple<Abogado> lectura = abogadoService.obtenerAbogadosPorIdsAsync(List.of("b", "a", "b")).get();
+
+        assertEquals(List.of(abogadoA), lectura.getEncontrados());
+        assertEquals(List.of("b"), lectura.getNoEncontrados());
+        verify(refA, never()).get();
+        verify(refB, never()).get();
+        assertThrows(IllegalArgumentException.class, () -> abogadoService.obtenerAbogadosPorIdsAsync(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> abogadoService.obtenerAbogadosPorIdsAsync(List.of("a/b")));
+    }
+
+    // * Ejecuta cada transacción en línea con una Transaction mockeada cuyas lecturas no encuentran
+    // * documentos; un error de la función se entrega como futuro fallido, igual que Firestore
+    private Transaction transaccionEnLinea() {
+        Transaction transaccion = mock(Transaction.class);
+        DocumentSnapshot inexistente = mock(DocumentSnapshot.class);
+        when(transaccion.get(any(DocumentReference.class))).thenReturn(ApiFutures.immediateFuture(inexistente));
+        when(firestoreMock.runTransaction(any())).thenAnswer(invocacion -> {
+            Transaction.Function<?> funcion = invocacion.getArgument(0);
+            try {
+                return ApiFutures.immediateFuture(funcion.updateCallback(transaccion));
+            } catch (Exception e) {
+                return ApiFutures.immediateFailedFuture(e);
+            }
+        });
+        return transaccion;
+    }
+
+    // * Crea un documento de consulta mockeado con el ID indicado
+    private QueryDocumentSnapshot documentoConId(String id) {
+        QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+        Abogado abogado = new Abogado();
+        abogado.setId(id);
+        when(doc.getId()).thenReturn(id);
+        when(doc.toObject(Abogado.class)).thenReturn(abogado);
+        return doc;
+    }
+
+    // * Documento de un abogado con la licencia indicada, como lo entrega un recorrido
+    private QueryDocumentSnapshot documentoConLicencia(String id, String licencia) {
+        QueryDocumentSnapshot doc = documentoConId(id);
+        doc.toObject(Abogado.class).setLicencia(licencia);
+        return doc;
+    }
+
+    // * Crea un abogado con el nombre completo indicado
+    private static Abogado abogadoLlamado(String pNombre, String sNombre, String pApellido, String sApellido) {
+        Abogado abogado = new Abogado();
+        abogado.setPNombre(pNombre);
+        abogado.setSNombre(sNombre);
+        abogado.setPApellido(pApellido);
+        abogado.setSApellido(sApellido);
+        return abogado;
     }
 }
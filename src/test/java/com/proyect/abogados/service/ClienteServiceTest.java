@@ -1,13 +1,25 @@
 package com.proyect.abogados.service;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
 import com.google.cloud.firestore.*;
 import com.proyect.abogados.model.Cliente;
+import com.proyect.abogados.model.ConsultaPagina;
+import com.proyect.abogados.model.LecturaMultiple;
+import com.proyect.abogados.model.Pagina;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +35,7 @@ class ClienteServiceTest {
     private CollectionReference collectionMock;
     private DocumentReference documentMock;
     private DocumentSnapshot snapshotMock;
+    private DocumentReference marcadorMock;
 
     // * Configuración inicial antes de cada test
     @BeforeEach
@@ -32,6 +45,17 @@ class ClienteServiceTest {
         documentMock = mock(DocumentReference.class);
         snapshotMock = mock(DocumentSnapshot.class);
 
+        // * Fragmentos del marcador de versión de la colección: cada escritura toca uno
+        marcadorMock = mock(DocumentReference.class);
+        CollectionReference metadatosMock = mock(CollectionReference.class);
+        DocumentReference contadorMock = mock(DocumentReference.class);
+        CollectionReference fragmentosMock = mock(CollectionReference.class);
+        when(firestoreMock.collection(MarcadorColeccion.COLECCION)).thenReturn(metadatosMock);
+        when(metadatosMock.document(anyString())).thenReturn(contadorMock);
+        when(contadorMock.collection(MarcadorColeccion.SUBCOLECCION)).thenReturn(fragmentosMock);
+        when(fragmentosMock.document(anyString())).thenReturn(marcadorMock);
+        when(marcadorMock.set(anyMap(), any(SetOptions.class))).thenReturn(ApiFutures.immediateFuture(null));
+
         // * Servicio con Firestore mockeado
         clienteService = new ClienteService() {
             @Override
@@ -52,16 +76,14 @@ class ClienteServiceTest {
         when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
         when(collectionMock.document()).thenReturn(documentMock);
         when(documentMock.getId()).thenReturn("cliente-mock-id-001");
-
-        @SuppressWarnings("unchecked")
-        ApiFuture<WriteResult> writeResultFuture = mock(ApiFuture.class);
-        when(documentMock.set(cliente)).thenReturn(writeResultFuture);
+        Transaction transaccion = transaccionEnLinea();
 
         Cliente creado = clienteService.crearCliente(cliente);
 
         assertNotNull(creado.getId());
         assertEquals("cliente@correo.com", creado.getEmail());
         assertEquals("cliente-mock-id-001", creado.getId());
+        verify(transaccion).create(documentMock, cliente);
     }
 
     // * Test: Obtener un cliente por ID
@@ -88,6 +110,99 @@ class ClienteServiceTest {
         assertEquals(clienteEsperado.getEmail(), clienteObtenido.getEmail());
     }
 
+    // * Test: Un cliente inexistente no queda almacenado en la caché
+    @Test
+    void testObtenerClienteInexistenteNoSeCachea() throws Exception {
+        String id = "noexiste";
+
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        when(collectionMock.document(id)).thenReturn(documentMock);
+
+        @SuppressWarnings("unchecked")
+        ApiFuture<DocumentSnapshot> futureMock = mock(ApiFuture.class);
+        when(documentMock.get()).thenReturn(futureMock);
+        when(futureMock.get()).thenReturn(snapshotMock);
+        when(snapshotMock.exists()).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> clienteService.obtenerCliente(id));
+        assertThrows(RuntimeException.class, () -> clienteService.obtenerCliente(id));
+        verify(documentMock, times(2)).get();
+    }
+
+    // * Test: La lectura asíncrona de un cliente inexistente falla sin bloquear
+    @Test
+    void testObtenerClienteAsyncInexistente() {
+        String id = "noexiste";
+
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        when(collectionMock.document(id)).thenReturn(documentMock);
+        when(documentMock.get()).thenReturn(ApiFutures.immediateFuture(snapshotMock));
+        when(snapshotMock.exists()).thenReturn(false);
+
+        CompletableFuture<Cliente> futuro = clienteService.obtenerClienteAsync(id);
+
+        assertTrue(futuro.isCompletedExceptionally());
+        ExecutionException error = assertThrows(ExecutionException.class, futuro::get);
+        assertInstanceOf(RuntimeException.class, error.getCause());
+    }
+
+    // * Test: Con el límite de concurrencia completo las lecturas esperan en la cola y el exceso se descarta
+    @Test
+    void testLimiteConcurrenciaDescartaExceso() throws Exception {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> sinMetricas = mock(ObjectProvider.class);
+        clienteService.configurarLimite(true, 1, 1, 1, 1, Duration.ofSeconds(5), Duration.ofSeconds(5), sinMetricas);
+
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        DocumentReference segundoMock = mock(DocumentReference.class);
+        when(collectionMock.document("cli1")).thenReturn(documentMock);
+        when(collectionMock.document("cli2")).thenReturn(segundoMock);
+        SettableApiFuture<DocumentSnapshot> enCurso = SettableApiFuture.create();
+        when(documentMock.get()).thenReturn(enCurso);
+        when(segundoMock.get()).thenReturn(ApiFutures.immediateFuture(snapshotMock));
+        when(snapshotMock.exists()).thenReturn(true);
+        when(snapshotMock.toObject(Cliente.class)).thenReturn(new Cliente());
+
+        CompletableFuture<Cliente> primero = clienteService.obtenerClienteAsync("cli1");
+        CompletableFuture<Cliente> segundo = clienteService.obtenerClienteAsync("cli2");
+
+        // * cli2 espera en la cola sin iniciar su RPC; para una tercera lectura no hay lugar
+        verify(segundoMock, never()).get();
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> clienteService.obtenerClienteAsync("cli3").get());
+        assertInstanceOf(ServicioSobrecargadoException.class, error.getCause());
+
+        // * Al responder la primera RPC, la lectura en espera recibe el permiso
+        enCurso.set(snapshotMock);
+        assertNotNull(primero.get());
+        assertNotNull(segundo.get());
+        verify(segundoMock).get();
+    }
+
+    // * Test: La búsqueda por RUT normaliza puntos y dígito verificador antes de leer el índice
+    @Test
+    void testObtenerClientePorRutNormaliza() throws Exception {
+        Cliente clienteEsperado = new Cliente();
+        clienteEsperado.setId("cli-rut");
+
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        DocumentReference claveMock = mock(DocumentReference.class);
+        DocumentSnapshot entrada = mock(DocumentSnapshot.class);
+        when(firestoreMock.collection("indice_clientes_rut")).thenReturn(indiceMock);
+        when(indiceMock.document("11111111-K")).thenReturn(claveMock);
+        when(claveMock.get()).thenReturn(ApiFutures.immediateFuture(entrada));
+        when(entrada.exists()).thenReturn(true);
+        when(entrada.getString("id")).thenReturn("cli-rut");
+
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        when(collectionMock.document("cli-rut")).thenReturn(documentMock);
+        when(documentMock.get()).thenReturn(ApiFutures.immediateFuture(snapshotMock));
+        when(snapshotMock.exists()).thenReturn(true);
+        when(snapshotMock.toObject(Cliente.class)).thenReturn(clienteEsperado);
+
+        assertEquals("cli-rut", clienteService.obtenerClientePorRut("11.111.111-k").getId());
+    }
+
     // * Test: Listar clientes cuando la colección está vacía
     @Test
     void testListarClientesVacio() throws ExecutionException, InterruptedException {
@@ -106,26 +221,249 @@ class ClienteServiceTest {
         assertTrue(clientes.isEmpty());
     }
 
-    // * Test: Eliminar todos los clientes de la colección
-    // TODO: Probar también el caso de colección vacía
+    // * Test: Listar la página siguiente de clientes a partir de un cursor
     @Test
-    void testEliminarTodosClientes() throws Exception {
+    void testListarClientesDesdeCursor() throws Exception {
         when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
 
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.startAfter("cli1")).thenReturn(queryMock);
+        when(queryMock.limit(11)).thenReturn(queryMock);
+
+        QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+        Cliente cliente = new Cliente();
+        cliente.setId("cli2");
+        when(doc.getId()).thenReturn("cli2");
+        when(doc.toObject(Cliente.class)).thenReturn(cliente);
+
+        QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+        when(querySnapshot.getDocuments()).thenReturn(List.of(doc));
+
         @SuppressWarnings("unchecked")
         ApiFuture<QuerySnapshot> futureMock = mock(ApiFuture.class);
-        QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+        when(queryMock.get()).thenReturn(futureMock);
+        when(futureMock.get()).thenReturn(querySnapshot);
+
+        String cursor = PaginacionFirestore.codificarCursor("cli1");
+        Pagina<Cliente> pagina = clienteService.listarClientes(new ConsultaPagina(10, null, cursor, null));
+
+        assertEquals(1, pagina.getElementos().size());
+        // * Última página: no hay siguiente, pero sí se puede volver atrás
+        assertNull(pagina.getCursorSiguiente());
+        assertEquals("cli2", PaginacionFirestore.decodificarCursor(pagina.getCursorAnterior()));
+    }
+
+    // * Test: En memoria, la actualización parcial conserva los demás campos y respeta If-Match
+    @Test
+    void testServicioMemoriaActualizacionParcial() throws Exception {
+        ClienteServiceMemoria memoria = new ClienteServiceMemoria();
+        Cliente cliente = new Cliente();
+        cliente.setEmail("antes@correo.com");
+        cliente.setTelefono("+56911111111");
+        String id = memoria.crearCliente(cliente).getId();
+        String version = memoria.obtenerClienteVersionadoAsync(id).get().getVersion();
+
+        Cliente actualizado = memoria.actualizarClienteParcial(id, Map.of("email", "despues@correo.com"), version);
+        assertEquals("despues@correo.com", actualizado.getEmail());
+        assertEquals("+56911111111", memoria.obtenerCliente(id).getTelefono());
+
+        // * La versión leída antes de la escritura ya no es válida
+        assertThrows(PrecondicionFallidaException.class,
+                () -> memoria.actualizarClienteParcial(id, Map.of("email", "otro@correo.com"), version));
+        assertThrows(RuntimeException.class,
+                () -> memoria.actualizarClienteParcial("noexiste", Map.of("email", "x@correo.com"), null));
+    }
+
+    // * Test: La búsqueda está deshabilitada por defecto y solo se habilita con réplica o en memoria
+    @Test
+    void testBuscarClientesRequiereReplicaOMemoria() throws Exception {
+        assertThrows(BusquedaNoDisponibleException.class, () -> clienteService.buscarClientes("alvarez", null));
+
+        // * Sin réplica, habilitarla obligaría a recorrer la colección al arrancar: se rechaza
+        clienteService.configurarBusqueda(true);
+        assertThrows(IllegalStateException.class, clienteService::validarBusqueda);
+
+        // * Con réplica, el índice no responde hasta que ella complete su sincronización
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> sinMetricas = mock(ObjectProvider.class);
+        clienteService.configurarReplica(true, sinMetricas);
+        assertDoesNotThrow(clienteService::validarBusqueda);
+        assertThrows(BusquedaNoDisponibleException.class, () -> clienteService.buscarClientes("alvarez", null));
+
+        // * En memoria, el almacenamiento alimenta el índice con cada escritura
+        ClienteServiceMemoria memoria = new ClienteServiceMemoria();
+        memoria.configurarBusqueda(true);
+        assertDoesNotThrow(memoria::validarBusqueda);
+        memoria.iniciarBusqueda();
+        Cliente cliente = new Cliente();
+        cliente.setPNombre("Ñandú");
+        cliente.setPApellido("Álvarez");
+        String id = memoria.crearCliente(cliente).getId();
+        List<Cliente> encontrados = memoria.buscarClientes("nandu alv", null);
+        assertEquals(1, encontrados.size());
+        assertEquals(id, encontrados.get(0).getId());
+    }
+
+    // * Test: Tras una escritura local, la versión no se toma de una lectura iniciada antes de ella
+    @Test
+    void testVersionClientesNoSeCompartePorEncimaDeUnaEscritura() throws Exception {
+        SettableApiFuture<List<DocumentSnapshot>> enCurso = SettableApiFuture.create();
+        when(firestoreMock.getAll(any(DocumentReference[].class))).thenReturn(enCurso);
+        CompletableFuture<String> antes = clienteService.versionClientesAsync();
+        clienteService.versionClientesAsync();
+        verify(firestoreMock, times(1)).getAll(any(DocumentReference[].class));
+
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("cli1");
+        transaccionEnLinea();
+        clienteService.crearCliente(new Cliente());
+
+        CompletableFuture<String> despues = clienteService.versionClientesAsync();
+        verify(firestoreMock, times(2)).getAll(any(DocumentReference[].class));
+        assertFalse(antes.isDone());
+        assertFalse(despues.isDone());
+    }
+
+    // * Test: Si el lote de la escritura agrupada falla por un conflicto, cada escritura se reintenta con su transacción
+    @Test
+    void testEscrituraAgrupadaReintentaConflictoPorSeparado() throws Exception {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> sinRegistro = mock(ObjectProvider.class);
+        clienteService.configurarEscrituraAgrupada(true, 2, Duration.ofSeconds(5), sinRegistro);
+
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        when(collectionMock.document()).thenReturn(documentMock);
+        when(documentMock.getId()).thenReturn("cliente-lote");
+        CollectionReference indiceMock = mock(CollectionReference.class);
+        when(firestoreMock.collection("indice_clientes_rut")).thenReturn(indiceMock);
+        when(indiceMock.document(anyString())).thenReturn(mock(DocumentReference.class));
+        WriteBatch lote = mock(WriteBatch.class);
+        when(firestoreMock.batch()).thenReturn(lote);
+        StatusCode yaExiste = mock(StatusCode.class);
+        when(yaExiste.getCode()).thenReturn(StatusCode.Code.ALREADY_EXISTS);
+        when(lote.commit()).thenReturn(ApiFutures.immediateFailedFuture(
+                new ApiException(new IllegalStateException("clave ya registrada"), yaExiste, false)));
+        transaccionEnLinea();
+
+        Cliente primero = new Cliente();
+        primero.setRut("11111111-1");
+        Cliente segundo = new Cliente();
+        segundo.setRut("22222222-2");
+
+        CompletableFuture<Cliente> primerFuturo = clienteService.crearClienteAsync(primero);
+        CompletableFuture<Cliente> segundoFuturo = clienteService.crearClienteAsync(segundo);
+
+        assertEquals("cliente-lote", primerFuturo.get().getId());
+        assertEquals("cliente-lote", segundoFuturo.get().getId());
+        verify(lote, times(1)).commit();
+        verify(firestoreMock, times(2)).runTransaction(any());
+    }
+
+    // * Test: El total de clientes sale de una agregación count() y los refrescos siguientes usan la caché
+    @Test
+    void testEstadisticasClientesConAgregacion() throws Exception {
+        AggregateQuery conteo = mock(AggregateQuery.class);
+        AggregateQuerySnapshot resultado = mock(AggregateQuerySnapshot.class);
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        when(collectionMock.count()).thenReturn(conteo);
+        when(conteo.get()).thenReturn(ApiFutures.immediateFuture(resultado));
+        when(resultado.getCount()).thenReturn(42L);
+
+        assertEquals(42, clienteService.estadisticasClientesAsync().get().getTotal());
+        assertEquals(42, clienteService.estadisticasClientesAsync().get().getTotal());
+        verify(conteo, times(1)).get();
+        verify(collectionMock, never()).get();
+    }
+
+    // * Test: La lectura por IDs en memoria informa los faltantes sin fallar y lee una vez los repetidos
+    @Test
+    void testServicioMemoriaObtenerClientesPorIds() throws Exception {
+        ClienteServiceMemoria memoria = new ClienteServiceMemoria();
+        Cliente creado = new Cliente();
+        creado.setEmail("uno@correo.com");
+        String id = memoria.crearCliente(creado).getId();
+
+        LecturaMultiple<Cliente> lectura = memoria.obtenerClientesPorIdsAsync(List.of("no-existe", id, id)).get();
+
+        assertEquals(1, lectura.getEncontrados().size());
+        assertEquals("uno@correo.com", lectura.getEncontrados().get(0).getEmail());
+        assertEquals(List.of("no-existe"), lectura.getNoEncontrados());
+        assertThrows(IllegalArgumentException.class, () -> memoria.obtenerClientesPorIdsAsync(null));
+    }
+
+    // * Test: Eliminar todos los clientes de la colección
+    @Test
+    void testEliminarTodosClientes() throws Exception {
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        // * El índice de RUT se vacía a continuación (aquí ya sin documentos)
+        when(firestoreMock.collection("indice_clientes_rut")).thenReturn(collectionMock);
+
         QueryDocumentSnapshot doc1 = mock(QueryDocumentSnapshot.class);
+        when(doc1.getReference()).thenReturn(documentMock);
+        QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+        when(querySnapshot.getDocuments()).thenReturn(List.of(doc1), Collections.emptyList());
 
-        when(collectionMock.get()).thenReturn(futureMock);
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.select(FieldPath.documentId())).thenReturn(queryMock);
+        when(queryMock.limit(anyInt())).thenReturn(queryMock);
+
+        @SuppressWarnings("unchecked")
+        ApiFuture<QuerySnapshot> futureMock = mock(ApiFuture.class);
+        when(queryMock.get()).thenReturn(futureMock);
         when(futureMock.get()).thenReturn(querySnapshot);
-        when(querySnapshot.getDocuments()).thenReturn(List.of(doc1));
-        when(doc1.getReference()).thenReturn(documentMock);
 
+        BulkWriter bulkWriterMock = mock(BulkWriter.class);
+        when(firestoreMock.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriterMock);
         @SuppressWarnings("unchecked")
         ApiFuture<WriteResult> deleteFuture = mock(ApiFuture.class);
-        when(documentMock.delete()).thenReturn(deleteFuture);
+        when(bulkWriterMock.delete(documentMock)).thenReturn(deleteFuture);
+        @SuppressWarnings("unchecked")
+        ApiFuture<Void> flushFuture = mock(ApiFuture.class);
+        when(bulkWriterMock.flush()).thenReturn(flushFuture);
+
+        assertEquals(1, clienteService.eliminarTodosClientes());
+        // * Vaciar la colección también cambia su versión
+        verify(marcadorMock).set(anyMap(), any(SetOptions.class));
+    }
+
+    // * Test: Eliminar todos los clientes cuando la colección está vacía
+    @Test
+    void testEliminarTodosClientesVacio() throws Exception {
+        when(firestoreMock.collection("clientes")).thenReturn(collectionMock);
+        when(firestoreMock.collection("indice_clientes_rut")).thenReturn(collectionMock);
+
+        QuerySnapshot querySnapshot = mock(QuerySnapshot.class);
+        when(querySnapshot.getDocuments()).thenReturn(Collections.emptyList());
+
+        Query queryMock = mock(Query.class);
+        when(collectionMock.orderBy(any(FieldPath.class))).thenReturn(queryMock);
+        when(queryMock.select(FieldPath.documentId())).thenReturn(queryMock);
+        when(queryMock.limit(anyInt())).thenReturn(queryMock);
+
+        @SuppressWarnings("unchecked")
+        ApiFuture<QuerySnapshot> futureMock = mock(ApiFuture.class);
+        when(queryMock.get()).thenReturn(futureMock);
+        when(futureMock.get()).thenReturn(querySnapshot);
+
+        BulkWriter bulkWriterMock = mock(BulkWriter.class);
+        when(firestoreMock.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriterMock);
+
+        assertEquals(0, clienteService.eliminarTodosClientes());
+        verify(bulkWriterMock, never()).delete(any(DocumentReference.class));
+    }
 
-        assertDoesNotThrow(() -> clienteService.eliminarTodosClientes());
+    // * Ejecuta cada transacción en línea con una Transaction mockeada cuyas lecturas no encuentran documentos
+    private Transaction transaccionEnLinea() {
+        Transaction transaccion = mock(Transaction.class);
+        DocumentSnapshot inexistente = mock(DocumentSnapshot.class);
+        when(transaccion.get(any(DocumentReference.class))).thenReturn(ApiFutures.immediateFuture(inexistente));
+        when(firestoreMock.runTransaction(any())).thenAnswer(invocacion -> {
+            Transaction.Function<?> funcion = invocacion.getArgument(0);
+            return ApiFutures.immediateFuture(funcion.updateCallback(transaccion));
+        });
+        return transaccion;
     }
 }